@@ -24,9 +24,19 @@ package org.aksw.gerbil;
 
 import it.acubelab.batframework.utils.WikipediaApiInterface;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.aksw.gerbil.database.ExperimentDAO;
 import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor;
 import org.aksw.gerbil.execute.ExperimentTask;
+import org.aksw.gerbil.execute.ExperimentTaskWorkerPool;
+import org.aksw.gerbil.metrics.Counter;
+import org.aksw.gerbil.metrics.MetricsRegistry;
 import org.aksw.simba.topicmodeling.concurrent.overseers.Overseer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,14 +45,28 @@ public class Experimenter implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Experimenter.class);
 
+    private static final Counter REQUESTED_TASKS = MetricsRegistry.getInstance().counter(
+            "gerbil_experiment_tasks_total",
+            "Tasks requested by experiments, by whether a cached result could be used.",
+            "result");
+
     private ExperimentTaskConfiguration configs[];
     private String experimentId;
     private ExperimentDAO experimentDAO;
     private WikipediaApiInterface wikiAPI;
     private Overseer overseer;
+    private ExperimentProgressMonitor progressMonitor;
+    private ExperimentTaskWorkerPool workerPool;
+    private String submitter;
 
     public Experimenter(WikipediaApiInterface wikiAPI, Overseer overseer, ExperimentDAO experimentDAO,
             ExperimentTaskConfiguration configs[], String experimentId) {
+        this(wikiAPI, overseer, experimentDAO, configs, experimentId, null);
+    }
+
+    public Experimenter(WikipediaApiInterface wikiAPI, Overseer overseer, ExperimentDAO experimentDAO,
+            ExperimentTaskConfiguration configs[], String experimentId, ExperimentProgressMonitor progressMonitor) {
+        this.progressMonitor = progressMonitor;
         this.configs = configs;
         this.experimentId = experimentId;
         this.experimentDAO = experimentDAO;
@@ -50,39 +74,159 @@ public class Experimenter implements Runnable {
         this.overseer = overseer;
     }
 
+    /**
+     * Creates an experimenter that adds the created tasks to the persistent
+     * task queue of the given worker pool instead of executing them directly.
+     */
+    public Experimenter(ExperimentTaskWorkerPool workerPool, ExperimentDAO experimentDAO,
+            ExperimentTaskConfiguration configs[], String experimentId, ExperimentProgressMonitor progressMonitor) {
+        this(workerPool, experimentDAO, configs, experimentId, progressMonitor, null);
+    }
+
+    /**
+     * Creates an experimenter that adds the created tasks to the persistent
+     * task queue of the given worker pool. The given submitter is used to
+     * limit the number of tasks a single submitter can execute in parallel.
+     */
+    public Experimenter(ExperimentTaskWorkerPool workerPool, ExperimentDAO experimentDAO,
+            ExperimentTaskConfiguration configs[], String experimentId, ExperimentProgressMonitor progressMonitor,
+            String submitter) {
+        this.progressMonitor = progressMonitor;
+        this.configs = configs;
+        this.experimentId = experimentId;
+        this.experimentDAO = experimentDAO;
+        this.workerPool = workerPool;
+        this.submitter = submitter;
+    }
+
     @Override
     public void run() {
         try {
-            int taskId;
+            boolean couldBeCached[] = new boolean[configs.length];
             for (int i = 0; i < configs.length; ++i) {
-                if (couldHaveCachedResult(configs[i])) {
-                    taskId = experimentDAO.connectCachedResultOrCreateTask(configs[i].annotatorConfig.getName(),
-                            configs[i].datasetConfig.getName(), configs[i].type.name(), configs[i].matching.name(),
-                            experimentId);
-                } else {
-                    taskId = experimentDAO.createTask(configs[i].annotatorConfig.getName(),
-                            configs[i].datasetConfig.getName(), configs[i].type.name(), configs[i].matching.name(),
-                            experimentId);
+                couldBeCached[i] = couldHaveCachedResult(configs[i]);
+            }
+            // create all tasks of this experiment at once
+            int taskIds[] = experimentDAO.connectCachedResultsOrCreateTasks(configs, couldBeCached, experimentId);
+            for (int i = 0; i < taskIds.length; ++i) {
+                REQUESTED_TASKS.inc(taskIds[i] == ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED ? "cached"
+                        : "uncached");
+            }
+            if (progressMonitor != null) {
+                List<ExperimentTaskResult> createdTasks = new ArrayList<ExperimentTaskResult>();
+                ExperimentTaskResult createdTask;
+                for (int i = 0; i < configs.length; ++i) {
+                    if (taskIds[i] != ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED) {
+                        createdTask = new ExperimentTaskResult(configs[i], new double[6],
+                                ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, 0);
+                        createdTask.idInDb = taskIds[i];
+                        createdTasks.add(createdTask);
+                    }
+                }
+                // tasks of other experiments that are still running are shared
+                // with this experiment
+                List<ExperimentTaskResult> sharedTasks = getSharedRunningTasks(taskIds);
+                createdTasks.addAll(sharedTasks);
+                progressMonitor.tasksCreated(experimentId, createdTasks);
+                if (sharedTasks.size() > 0) {
+                    updateFinishedSharedTasks(sharedTasks);
                 }
-                // If there is no experiment task result in the database
-                if (taskId != ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED) {
-                    // Create an executer which performs the task
-                    ExperimentTask task = new ExperimentTask(taskId, experimentDAO, configs[i], wikiAPI);
-                    overseer.startTask(task);
-                    // Thread t = new Thread(executer);
-                    // t.start();
-                    // if (SimpleThreadObserver.canObserveThread()) {
-                    // t = new Thread(new SimpleThreadObserver(t));
-                    // t.start();
-                    // }
+            }
+            if (workerPool != null) {
+                queueTasks(taskIds);
+            } else {
+                for (int i = 0; i < configs.length; ++i) {
+                    // If there is no experiment task result in the database
+                    if (taskIds[i] != ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED) {
+                        // Create an executer which performs the task
+                        ExperimentTask task = new ExperimentTask(taskIds[i], experimentDAO, configs[i], wikiAPI,
+                                progressMonitor);
+                        overseer.startTask(task);
+                    }
                 }
             }
             LOGGER.info("Experimenter finished the creation of tasks for experiment \"" + experimentId + "\"");
         } catch (Exception e) {
             LOGGER.error("Got an Exception while trying to start all needed tasks. Aborting the experiment.", e);
+            if (progressMonitor != null) {
+                progressMonitor.removeExperiment(experimentId);
+            }
         }
     }
 
+    private void queueTasks(int taskIds[]) {
+        int count = 0;
+        for (int i = 0; i < taskIds.length; ++i) {
+            if (taskIds[i] != ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED) {
+                ++count;
+            }
+        }
+        int queuedTaskIds[] = new int[count];
+        ExperimentTaskConfiguration queuedConfigs[] = new ExperimentTaskConfiguration[count];
+        count = 0;
+        for (int i = 0; i < taskIds.length; ++i) {
+            if (taskIds[i] != ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED) {
+                queuedTaskIds[count] = taskIds[i];
+                queuedConfigs[count] = configs[i];
+                ++count;
+            }
+        }
+        workerPool.submitTasks(experimentId, submitter, queuedTaskIds, queuedConfigs);
+    }
+
+    /**
+     * Returns the tasks of this experiment that have not been created by this
+     * experimenter but are still queued or running, i.e., tasks that are
+     * executed for another experiment and whose results will be shared with
+     * this experiment.
+     */
+    private List<ExperimentTaskResult> getSharedRunningTasks(int taskIds[]) {
+        List<ExperimentTaskResult> sharedTasks = new ArrayList<ExperimentTaskResult>();
+        Set<Integer> createdTaskIds = new HashSet<Integer>();
+        for (int i = 0; i < taskIds.length; ++i) {
+            if (taskIds[i] != ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED) {
+                createdTaskIds.add(taskIds[i]);
+            }
+        }
+        if (createdTaskIds.size() == taskIds.length) {
+            // there are no shared tasks
+            return sharedTasks;
+        }
+        for (ExperimentTaskResult result : experimentDAO.getResultsOfExperiment(experimentId)) {
+            if ((result.state == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET)
+                    && !createdTaskIds.contains(result.idInDb)) {
+                sharedTasks.add(result);
+            }
+        }
+        return sharedTasks;
+    }
+
+    /**
+     * A shared task might have been finished before the progress monitor knew
+     * that it belongs to this experiment. Thus, the states of the shared tasks
+     * are checked again after they have been added to the monitor.
+     */
+    private void updateFinishedSharedTasks(List<ExperimentTaskResult> sharedTasks) {
+        Set<Integer> sharedTaskIds = new HashSet<Integer>();
+        for (ExperimentTaskResult task : sharedTasks) {
+            sharedTaskIds.add(task.idInDb);
+        }
+        for (ExperimentTaskResult result : experimentDAO.getResultsOfExperiment(experimentId)) {
+            if ((result.state != ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET)
+                    && sharedTaskIds.contains(result.idInDb)) {
+                progressMonitor.taskUpdated(result.idInDb, result);
+            }
+        }
+    }
+
+    public String getExperimentId() {
+        return experimentId;
+    }
+
+    public String getSubmitter() {
+        return submitter;
+    }
+
     private boolean couldHaveCachedResult(ExperimentTaskConfiguration config) {
         boolean couldBeCached = config.annotatorConfig.couldBeCached() && config.datasetConfig.couldBeCached();
         LOGGER.debug("Could be cached: {}.couldBeCached()={} && {}.couldBeCached()={} --> {}",
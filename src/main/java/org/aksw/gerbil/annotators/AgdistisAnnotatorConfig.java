@@ -37,6 +37,7 @@ public class AgdistisAnnotatorConfig extends AbstractAnnotatorConfiguration {
 
     private static final String AGDISTIS_HOST_PROPERTY_NAME = "org.aksw.gerbil.annotators.AgdistisAnnotatorConfig.Host";
     private static final String AGDISTIS_PORT_PROPERTY_NAME = "org.aksw.gerbil.annotators.AgdistisAnnotatorConfig.Port";
+    private static final String AGDISTIS_TIMEOUT_PROPERTY_NAME = "org.aksw.gerbil.annotators.AgdistisAnnotatorConfig.Timeout";
 
     private WikipediaApiInterface wikiApi;
 
@@ -64,6 +65,8 @@ public class AgdistisAnnotatorConfig extends AbstractAnnotatorConfiguration {
             throw new GerbilException("Couldn't parse the integer of the property \"" + AGDISTIS_PORT_PROPERTY_NAME
                     + "\".", e, ErrorTypes.ANNOTATOR_LOADING_ERROR);
         }
-        return new AgdistisAnnotator(host, port, wikiApi);
+        int timeout = GerbilConfiguration.getInstance().getInt(AGDISTIS_TIMEOUT_PROPERTY_NAME,
+                AgdistisAnnotator.DEFAULT_TIMEOUT);
+        return new AgdistisAnnotator(host, port, wikiApi, timeout);
     }
 }
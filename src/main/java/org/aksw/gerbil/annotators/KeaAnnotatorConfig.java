@@ -31,7 +31,6 @@ import org.aksw.gerbil.config.GerbilConfiguration;
 import org.aksw.gerbil.datatypes.ErrorTypes;
 import org.aksw.gerbil.datatypes.ExperimentType;
 import org.aksw.gerbil.exceptions.GerbilException;
-import org.aksw.gerbil.transfer.nif.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,7 +51,7 @@ public class KeaAnnotatorConfig extends AbstractAnnotatorConfiguration {
 	/**
 	 * The annotator instance shared by all experiment tasks.
 	 */
-	private KeaAnnotator instance = null;
+	private NIFBasedAnnotatorWebservice instance = null;
 
 	public KeaAnnotatorConfig(WikipediaApiInterface wikiApi, DBPediaApi dbpediaApi) {
 		super(ANNOTATOR_NAME, true, ExperimentType.Sa2KB);
@@ -93,20 +92,8 @@ public class KeaAnnotatorConfig extends AbstractAnnotatorConfiguration {
 			}
 			url.append(annotatorURL);
 
-			instance = new KeaAnnotator(url.toString(), this.getName(), wikiApi, dbpediaApi);
+			instance = new NIFBasedAnnotatorWebservice(url.toString(), this.getName(), wikiApi, dbpediaApi);
 		}
 		return instance;
 	}
-
-	protected static class KeaAnnotator extends NIFBasedAnnotatorWebservice {
-
-		public KeaAnnotator(String url, String name, WikipediaApiInterface wikiApi, DBPediaApi dbpediaApi) {
-			super(url, name, wikiApi, dbpediaApi);
-		}
-
-		@Override
-		protected synchronized Document request(Document document) {
-			return super.request(document);
-		}
-	}
 }
@@ -47,7 +47,13 @@ public class NIFWebserviceAnnotatorConfiguration extends AbstractAnnotatorConfig
 
     @Override
     protected TopicSystem loadAnnotator(ExperimentType type) throws Exception {
-        return new NIFBasedAnnotatorWebservice(annotaturURL, this.getName(), wikiApi, dbpediaApi);
+        // the names of these web services are defined by the users
+        return new NIFBasedAnnotatorWebservice(annotaturURL, this.getName(),
+                NIFBasedAnnotatorWebservice.USER_DEFINED_METRIC_LABEL, wikiApi, dbpediaApi);
+    }
+
+    public String getAnnotatorURL() {
+        return annotaturURL;
     }
 
 }
@@ -0,0 +1,245 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Keeps track of the HTTP requests that are currently sent to the annotators.
+ * The requests are registered for the thread on whose behalf they are sent,
+ * i.e., the thread of the experiment task. Requests that are sent by helper
+ * threads, e.g., hedged requests of the {@link RequestHedger}, are registered
+ * for the thread that handed them over using
+ * {@link #onBehalfOfCurrentOwner(Callable)}.
+ * 
+ * If an experiment task is cancelled, {@link #abort(Thread)} aborts all
+ * requests of its thread and makes sure that it can't send further requests
+ * until {@link #reset(Thread)} is called. Thus, the connections of the pooled
+ * HTTP clients are freed immediately instead of waiting for the responses.
+ * 
+ * If only the current requests of a thread exceeded their deadline,
+ * {@link #abortRequests(Thread)} aborts them while the thread can still send
+ * further requests. In this case, the aborted requests fail like any other
+ * failed request.
+ * 
+ * The requests of a single helper can be collected in a {@link RequestGroup}
+ * (see {@link #onBehalfOfCurrentOwner(Callable, RequestGroup)}). Thus, they can
+ * be aborted without aborting the other requests of the owner, e.g., if
+ * another hedged request has been faster.
+ */
+public class AbortableRequestRegistry {
+
+    private static final ConcurrentMap<Thread, Set<HttpUriRequest>> REQUESTS = new ConcurrentHashMap<Thread, Set<HttpUriRequest>>();
+    private static final Set<Thread> ABORTED_OWNERS = Collections
+            .newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    private static final ThreadLocal<Thread> OWNER = new ThreadLocal<Thread>();
+    private static final ThreadLocal<RequestGroup> GROUP = new ThreadLocal<RequestGroup>();
+
+    /**
+     * Returns the thread on whose behalf the current thread sends requests.
+     */
+    public static Thread getOwner() {
+        Thread owner = OWNER.get();
+        return owner != null ? owner : Thread.currentThread();
+    }
+
+    /**
+     * Wraps the given request so that it is executed on behalf of the owner of
+     * the current thread even if it is executed by another thread.
+     */
+    public static <T> Callable<T> onBehalfOfCurrentOwner(final Callable<T> request) {
+        final Thread owner = getOwner();
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Thread formerOwner = OWNER.get();
+                OWNER.set(owner);
+                try {
+                    return request.call();
+                } finally {
+                    OWNER.set(formerOwner);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps the given request like {@link #onBehalfOfCurrentOwner(Callable)}.
+     * Additionally, the HTTP requests sent by the wrapped request are added to
+     * the given group while they are sent.
+     */
+    public static <T> Callable<T> onBehalfOfCurrentOwner(final Callable<T> request, final RequestGroup group) {
+        final Callable<T> ownedRequest = onBehalfOfCurrentOwner(request);
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                RequestGroup formerGroup = GROUP.get();
+                GROUP.set(group);
+                try {
+                    return ownedRequest.call();
+                } finally {
+                    GROUP.set(formerGroup);
+                }
+            }
+        };
+    }
+
+    /**
+     * Registers the given request before it is sent.
+     * 
+     * @throws RequestAbortedException
+     *             if the requests of the current owner have been aborted.
+     *             Thus, the request must not be sent.
+     */
+    public static void register(HttpUriRequest request) throws RequestAbortedException {
+        Thread owner = getOwner();
+        Set<HttpUriRequest> requests;
+        do {
+            requests = REQUESTS.get(owner);
+            if (requests == null) {
+                requests = Collections.newSetFromMap(new ConcurrentHashMap<HttpUriRequest, Boolean>());
+                Set<HttpUriRequest> existingRequests = REQUESTS.putIfAbsent(owner, requests);
+                if (existingRequests != null) {
+                    requests = existingRequests;
+                }
+            }
+            requests.add(request);
+            // the set might have been removed by unregister() in the meantime
+        } while (REQUESTS.get(owner) != requests);
+        // the owner might have been aborted before the request has been added
+        if (ABORTED_OWNERS.contains(owner)) {
+            unregister(request);
+            throw new RequestAbortedException("The requests of " + owner.getName() + " have been aborted.");
+        }
+        RequestGroup group = GROUP.get();
+        if (group != null) {
+            group.requests.add(request);
+            // the group might have been aborted before the request has been
+            // added
+            if (group.aborted) {
+                unregister(request);
+                throw new RequestAbortedException("The requests of this group have been aborted.");
+            }
+        }
+    }
+
+    /**
+     * Removes the given request after it has been finished.
+     */
+    public static void unregister(HttpUriRequest request) {
+        Thread owner = getOwner();
+        Set<HttpUriRequest> requests = REQUESTS.get(owner);
+        if (requests != null) {
+            requests.remove(request);
+            if (requests.isEmpty()) {
+                REQUESTS.remove(owner, requests);
+            }
+        }
+        RequestGroup group = GROUP.get();
+        if (group != null) {
+            group.requests.remove(request);
+        }
+    }
+
+    /**
+     * Returns true if the requests of the owner of the current thread or the
+     * requests of its group have been aborted.
+     */
+    public static boolean isAborted() {
+        RequestGroup group = GROUP.get();
+        return ABORTED_OWNERS.contains(getOwner()) || ((group != null) && group.aborted);
+    }
+
+    /**
+     * Aborts all requests that are sent on behalf of the given thread.
+     * Requests that are registered for this thread afterwards are aborted
+     * before they are sent until {@link #reset(Thread)} is called.
+     */
+    public static void abort(Thread owner) {
+        ABORTED_OWNERS.add(owner);
+        Set<HttpUriRequest> requests = REQUESTS.get(owner);
+        if (requests != null) {
+            for (HttpUriRequest request : requests) {
+                request.abort();
+            }
+        }
+    }
+
+    /**
+     * Aborts the requests that are currently sent on behalf of the given
+     * thread without preventing it from sending further requests.
+     * 
+     * @return the number of requests that have been aborted
+     */
+    public static int abortRequests(Thread owner) {
+        int count = 0;
+        Set<HttpUriRequest> requests = REQUESTS.get(owner);
+        if (requests != null) {
+            for (HttpUriRequest request : requests) {
+                request.abort();
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Allows the given thread to send requests again after its requests have
+     * been aborted.
+     */
+    public static void reset(Thread owner) {
+        ABORTED_OWNERS.remove(owner);
+    }
+
+    /**
+     * The requests sent by a single helper, e.g., one of the requests of the
+     * {@link RequestHedger}.
+     */
+    public static class RequestGroup {
+
+        private final Set<HttpUriRequest> requests = Collections
+                .newSetFromMap(new ConcurrentHashMap<HttpUriRequest, Boolean>());
+        private volatile boolean aborted = false;
+
+        /**
+         * Aborts the requests of this group. Requests that are added to the
+         * group afterwards are aborted before they are sent.
+         */
+        public void abort() {
+            aborted = true;
+            for (HttpUriRequest request : requests) {
+                request.abort();
+            }
+        }
+
+        public boolean isAborted() {
+            return aborted;
+        }
+    }
+}
@@ -40,19 +40,41 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class AgdistisAnnotator extends it.acubelab.batframework.systemPlugins.AgdistisAnnotator {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AgdistisAnnotator.class);
+
+    /**
+     * Default time (in milliseconds) after which connecting to AGDISTIS or
+     * waiting for its response fails.
+     */
+    public static final int DEFAULT_TIMEOUT = 60000;
+
     protected String host;
     protected int port;
     protected WikipediaApiInterface wikiApi;
     protected JSONParser jsonParser = new JSONParser();
+    protected int timeout;
 
     public AgdistisAnnotator(String host, int port, WikipediaApiInterface wikiApi) {
+        this(host, port, wikiApi, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param timeout
+     *            the connect and read timeout in milliseconds (0 = no timeout)
+     */
+    public AgdistisAnnotator(String host, int port, WikipediaApiInterface wikiApi, int timeout) {
         super(host, port, wikiApi);
         this.wikiApi = wikiApi;
         this.host = host;
         this.port = port;
+        this.timeout = timeout;
     }
 
     @Override
@@ -71,6 +93,10 @@ public class AgdistisAnnotator extends it.acubelab.batframework.systemPlugins.Ag
         slConnection.setRequestProperty("charset", "utf-8");
         slConnection.setRequestProperty("Content-Length", "" + Integer.toString(parameters.getBytes().length));
         slConnection.setUseCaches(false);
+        // a request without a timeout would block its task forever if the
+        // service doesn't respond
+        slConnection.setConnectTimeout(timeout);
+        slConnection.setReadTimeout(timeout);
 
         DataOutputStream wr = new DataOutputStream(slConnection.getOutputStream());
         wr.writeBytes(parameters);
@@ -104,7 +130,7 @@ public class AgdistisAnnotator extends it.acubelab.batframework.systemPlugins.Ag
             String urlDecoded = URLDecoder.decode(url, "UTF-8");
             int wikiArticle = DBpediaToWikiId.getId(wikiApi, urlDecoded);
             if (wikiArticle == -1)
-                System.err.printf("Wiki title of url %s (decoded %s) could not be found.%n", url, urlDecoded);
+                LOGGER.warn("Wiki title of url {} (decoded {}) could not be found.", url, urlDecoded);
             annotations.add(new Annotation(position, length, wikiArticle));
         }
 
@@ -0,0 +1,240 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A circuit breaker for a single annotator that is shared by all experiment
+ * tasks of this instance. After {@link #FAILURE_THRESHOLD_PROPERTY_NAME}
+ * consecutive failed requests, the breaker opens and further requests fail
+ * immediately with an {@link AnnotatorUnavailableException} instead of
+ * waiting for the timeouts of a dead service. After the open time, a single
+ * probe request is allowed (half-open). If it succeeds, the breaker closes.
+ * Otherwise, it opens again and the open time is doubled up to
+ * {@link #MAX_OPEN_TIME_PROPERTY_NAME}.
+ * 
+ * Every property can be overridden for a single annotator by appending a dot
+ * and the name of the annotator. A failure threshold &lt;= 0 disables the
+ * breaker.
+ * 
+ * The breakers are identified by the definitions of the annotators, i.e., the
+ * name of the annotator or "NIFWS_name(uri)" for a NIF based web service.
+ * Thus, web services with the same name but different URIs don't share a
+ * breaker.
+ */
+public class AnnotatorCircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnnotatorCircuitBreaker.class);
+
+    public static final String FAILURE_THRESHOLD_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorCircuitBreaker.failureThreshold";
+    public static final String OPEN_TIME_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorCircuitBreaker.openTime";
+    public static final String MAX_OPEN_TIME_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorCircuitBreaker.maxOpenTime";
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_TIME = 30000;
+    public static final long DEFAULT_MAX_OPEN_TIME = 600000;
+
+    public static enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final ConcurrentMap<String, AnnotatorCircuitBreaker> BREAKERS = new ConcurrentHashMap<String, AnnotatorCircuitBreaker>();
+
+    /**
+     * Returns the circuit breaker of the annotator with the given name. The
+     * breaker is created if it doesn't exist.
+     */
+    public static AnnotatorCircuitBreaker getBreaker(String annotatorName) {
+        AnnotatorCircuitBreaker breaker = BREAKERS.get(annotatorName);
+        if (breaker == null) {
+            Configuration config = GerbilConfiguration.getInstance();
+            breaker = new AnnotatorCircuitBreaker(annotatorName, config.getInt(FAILURE_THRESHOLD_PROPERTY_NAME + '.'
+                    + annotatorName, config.getInt(FAILURE_THRESHOLD_PROPERTY_NAME, DEFAULT_FAILURE_THRESHOLD)),
+                    config.getLong(OPEN_TIME_PROPERTY_NAME + '.' + annotatorName,
+                            config.getLong(OPEN_TIME_PROPERTY_NAME, DEFAULT_OPEN_TIME)), config.getLong(
+                            MAX_OPEN_TIME_PROPERTY_NAME + '.' + annotatorName,
+                            config.getLong(MAX_OPEN_TIME_PROPERTY_NAME, DEFAULT_MAX_OPEN_TIME)));
+            AnnotatorCircuitBreaker existingBreaker = BREAKERS.putIfAbsent(annotatorName, breaker);
+            if (existingBreaker != null) {
+                breaker = existingBreaker;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Returns the circuit breaker of the annotator with the given name or null
+     * if it hasn't been created, yet.
+     */
+    public static AnnotatorCircuitBreaker getExistingBreaker(String annotatorName) {
+        return BREAKERS.get(annotatorName);
+    }
+
+    /**
+     * Returns all circuit breakers that have been created so far.
+     */
+    public static List<AnnotatorCircuitBreaker> getBreakers() {
+        return new ArrayList<AnnotatorCircuitBreaker>(BREAKERS.values());
+    }
+
+    private final String annotatorName;
+    private final int failureThreshold;
+    private final long initialOpenTime;
+    private final long maxOpenTime;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openTime;
+    private long openUntil = 0;
+    private int numberOfOpenings = 0;
+
+    protected AnnotatorCircuitBreaker(String annotatorName, int failureThreshold, long openTime, long maxOpenTime) {
+        this.annotatorName = annotatorName;
+        this.failureThreshold = failureThreshold;
+        this.initialOpenTime = openTime;
+        this.openTime = openTime;
+        this.maxOpenTime = Math.max(openTime, maxOpenTime);
+    }
+
+    /**
+     * Checks whether a request may be sent to the annotator. If the open time
+     * is over, the breaker becomes half-open and the caller is allowed to send
+     * the probe request. Every permitted request has to be followed by a call
+     * of {@link #requestFinished(boolean)}.
+     * 
+     * @return true if the request may be sent
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+        case CLOSED:
+            return true;
+        case OPEN:
+            if (System.currentTimeMillis() >= openUntil) {
+                state = State.HALF_OPEN;
+                LOGGER.info("Sending a probe request to {}.", annotatorName);
+                return true;
+            }
+            return false;
+        default:
+            // there is already a probe request
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a request would be allowed without changing the state of
+     * the breaker. Can be used to decide whether a task of the annotator
+     * should be started.
+     */
+    public synchronized boolean isRequestPermitted() {
+        switch (state) {
+        case CLOSED:
+            return true;
+        case OPEN:
+            return System.currentTimeMillis() >= openUntil;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Has to be called after a request permitted by {@link #allowRequest()}
+     * has been finished.
+     * 
+     * @param successful
+     *            false if the request failed
+     */
+    public synchronized void requestFinished(boolean successful) {
+        if (failureThreshold <= 0) {
+            return;
+        }
+        if (successful) {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                LOGGER.info("{} is available again. Closing the circuit breaker.", annotatorName);
+                state = State.CLOSED;
+                openTime = initialOpenTime;
+            }
+        } else {
+            ++consecutiveFailures;
+            if (state == State.HALF_OPEN) {
+                openTime = Math.min(maxOpenTime, openTime * 2);
+                open();
+            } else if ((state == State.CLOSED) && (consecutiveFailures >= failureThreshold)) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Has to be called if a request permitted by {@link #allowRequest()} has
+     * not been sent, e.g., because the thread has been interrupted.
+     */
+    public synchronized void requestAborted() {
+        if (state == State.HALF_OPEN) {
+            // the probe has not been sent
+            state = State.OPEN;
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openTime;
+        ++numberOfOpenings;
+        LOGGER.warn("{} failed {} times in a row. Requests will fail immediately for the next {}ms.", annotatorName,
+                consecutiveFailures, openTime);
+    }
+
+    public String getAnnotatorName() {
+        return annotatorName;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getNumberOfConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized int getNumberOfOpenings() {
+        return numberOfOpenings;
+    }
+
+    /**
+     * Returns the point in time until the breaker stays open or 0 if it has
+     * never been opened.
+     */
+    public synchronized long getOpenUntil() {
+        return openUntil;
+    }
+}
@@ -0,0 +1,516 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the requests that are sent to a single annotator by all experiment
+ * tasks of this instance. There is one limiter per annotator name. It can
+ * limit the number of requests that are sent in parallel and the number of
+ * requests per second. The latter is implemented as token bucket, i.e., after
+ * a pause up to {@link #BURST_SIZE_PROPERTY_NAME} requests can be sent
+ * directly one after another.
+ * 
+ * If the limiter is adaptive, the number of parallel requests (the window) is
+ * adapted to the behavior of the annotator (AIMD). While the requests succeed
+ * and their latency is stable, the window is increased by one request per
+ * window of finished requests. If a request fails or the latency grows, the
+ * window is halved. The configured maximum of parallel requests is the upper
+ * bound of the window.
+ * 
+ * The limits are read from the properties {@link #MAX_PARALLEL_REQUESTS_PROPERTY_NAME},
+ * {@link #REQUESTS_PER_SECOND_PROPERTY_NAME}, {@link #BURST_SIZE_PROPERTY_NAME}
+ * and {@link #ADAPTIVE_PROPERTY_NAME}. Every property can be overridden for a
+ * single annotator by appending a dot and the name of the annotator. A value
+ * &lt;= 0 means that there is no limit.
+ * 
+ * The time requests have to wait for the limiter is measured and can be
+ * retrieved for reporting.
+ */
+public class AnnotatorRequestLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnnotatorRequestLimiter.class);
+
+    public static final String MAX_PARALLEL_REQUESTS_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorRequestLimiter.maxParallelRequests";
+    public static final String REQUESTS_PER_SECOND_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorRequestLimiter.requestsPerSecond";
+    public static final String BURST_SIZE_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorRequestLimiter.burstSize";
+    public static final String ADAPTIVE_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.AnnotatorRequestLimiter.adaptive";
+
+    /**
+     * The upper bound of an adaptive window if there is no maximum number of
+     * parallel requests defined.
+     */
+    public static final int DEFAULT_MAX_ADAPTIVE_WINDOW = 20;
+    private static final double INITIAL_ADAPTIVE_WINDOW = 4;
+    private static final double MIN_ADAPTIVE_WINDOW = 1;
+    private static final double WINDOW_DECREASE_FACTOR = 0.5;
+    /**
+     * The window is decreased if the current latency is higher than the base
+     * latency multiplied with this factor.
+     */
+    private static final double LATENCY_GROWTH_FACTOR = 2.0;
+    private static final double CURRENT_LATENCY_WEIGHT = 0.3;
+    private static final double BASE_LATENCY_WEIGHT = 0.02;
+
+    private static final ConcurrentMap<String, AnnotatorRequestLimiter> LIMITERS = new ConcurrentHashMap<String, AnnotatorRequestLimiter>();
+
+    /**
+     * Returns the limiter of the annotator with the given name. The limiter is
+     * created if it doesn't exist.
+     */
+    public static AnnotatorRequestLimiter getLimiter(String annotatorName) {
+        AnnotatorRequestLimiter limiter = LIMITERS.get(annotatorName);
+        if (limiter == null) {
+            Configuration config = GerbilConfiguration.getInstance();
+            limiter = new AnnotatorRequestLimiter(annotatorName, getProperty(config,
+                    MAX_PARALLEL_REQUESTS_PROPERTY_NAME, annotatorName), getProperty(config,
+                    REQUESTS_PER_SECOND_PROPERTY_NAME, annotatorName), getProperty(config, BURST_SIZE_PROPERTY_NAME,
+                    annotatorName), config.getBoolean(ADAPTIVE_PROPERTY_NAME + '.' + annotatorName,
+                    config.getBoolean(ADAPTIVE_PROPERTY_NAME, false)));
+            AnnotatorRequestLimiter existingLimiter = LIMITERS.putIfAbsent(annotatorName, limiter);
+            if (existingLimiter != null) {
+                limiter = existingLimiter;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * Returns all limiters that have been created so far.
+     */
+    public static List<AnnotatorRequestLimiter> getLimiters() {
+        return new ArrayList<AnnotatorRequestLimiter>(LIMITERS.values());
+    }
+
+    private static double getProperty(Configuration config, String propertyName, String annotatorName) {
+        return config.getDouble(propertyName + '.' + annotatorName, config.getDouble(propertyName, 0));
+    }
+
+    private final String annotatorName;
+    private final int maxParallelRequests;
+    private final double requestsPerSecond;
+    private final double burstSize;
+    private final boolean adaptive;
+
+    /**
+     * Lock guarding the window and the latency statistics.
+     */
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition windowChanged = lock.newCondition();
+    /**
+     * The number of requests that can be sent in parallel or 0 if there is no
+     * limit.
+     */
+    private double window;
+    private int requestsInWindow = 0;
+    private double currentLatency = 0;
+    private double baseLatency = 0;
+    private long lastDecrease = 0;
+    private int numberOfDecreases = 0;
+    private String lastDecision = null;
+
+    /**
+     * The time in nanoseconds after which a new token is available or 0 if
+     * there is no limit.
+     */
+    private final long tokenInterval;
+    private double availableTokens;
+    private long lastTokenUpdate;
+
+    private final AtomicInteger waitingRequests = new AtomicInteger();
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong delayedRequests = new AtomicLong();
+    private final AtomicLong waitingTimeSum = new AtomicLong();
+    private final AtomicLong maxWaitingTime = new AtomicLong();
+
+    protected AnnotatorRequestLimiter(String annotatorName, double maxParallelRequests, double requestsPerSecond,
+            double burstSize) {
+        this(annotatorName, maxParallelRequests, requestsPerSecond, burstSize, false);
+    }
+
+    protected AnnotatorRequestLimiter(String annotatorName, double maxParallelRequests, double requestsPerSecond,
+            double burstSize, boolean adaptive) {
+        this.annotatorName = annotatorName;
+        this.adaptive = adaptive;
+        if (adaptive) {
+            this.maxParallelRequests = (maxParallelRequests >= 1) ? (int) maxParallelRequests
+                    : DEFAULT_MAX_ADAPTIVE_WINDOW;
+            this.window = Math.min(INITIAL_ADAPTIVE_WINDOW, this.maxParallelRequests);
+        } else {
+            this.maxParallelRequests = (maxParallelRequests >= 1) ? (int) maxParallelRequests : 0;
+            this.window = this.maxParallelRequests;
+        }
+        this.requestsPerSecond = (requestsPerSecond > 0) ? requestsPerSecond : 0;
+        this.tokenInterval = (requestsPerSecond > 0) ? (long) (1000000000L / requestsPerSecond) : 0;
+        this.burstSize = Math.max(1, burstSize);
+        this.availableTokens = this.burstSize;
+        this.lastTokenUpdate = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the annotator may be called. Every successful call of this
+     * method has to be followed by a call of {@link #release()} or
+     * {@link #release(long, boolean)} after the request has been finished.
+     * 
+     * @return the time in milliseconds this request has waited
+     */
+    public long acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        waitingRequests.incrementAndGet();
+        try {
+            acquireWindowSlot();
+            if (tokenInterval > 0) {
+                long delay = reserveToken();
+                if (delay > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    } catch (InterruptedException e) {
+                        releaseWindowSlot();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            waitingRequests.decrementAndGet();
+        }
+        inFlightRequests.incrementAndGet();
+        long waitingTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        requests.incrementAndGet();
+        if (waitingTime > 0) {
+            delayedRequests.incrementAndGet();
+            waitingTimeSum.addAndGet(waitingTime);
+            long max = maxWaitingTime.get();
+            while ((waitingTime > max) && !maxWaitingTime.compareAndSet(max, waitingTime)) {
+                max = maxWaitingTime.get();
+            }
+        }
+        return waitingTime;
+    }
+
+    /**
+     * Acquires a permit only if it is available immediately, i.e., without
+     * waiting for the window or a token. A successful call has to be followed
+     * by a call of {@link #release()} after the request has been finished.
+     * 
+     * @return true if the permit has been acquired
+     */
+    public boolean tryAcquire() {
+        if (maxParallelRequests > 0) {
+            lock.lock();
+            try {
+                if (requestsInWindow >= (int) window) {
+                    return false;
+                }
+                ++requestsInWindow;
+            } finally {
+                lock.unlock();
+            }
+        }
+        if ((tokenInterval > 0) && !takeAvailableToken()) {
+            releaseWindowSlot();
+            return false;
+        }
+        inFlightRequests.incrementAndGet();
+        requests.incrementAndGet();
+        return true;
+    }
+
+    private void acquireWindowSlot() throws InterruptedException {
+        if (maxParallelRequests <= 0) {
+            return;
+        }
+        lock.lockInterruptibly();
+        try {
+            while (requestsInWindow >= (int) window) {
+                windowChanged.await();
+            }
+            ++requestsInWindow;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseWindowSlot() {
+        if (maxParallelRequests <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            --requestsInWindow;
+            windowChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a token from the bucket. If there is no token available, the token
+     * that will be available next is reserved for the caller.
+     * 
+     * @return the time in nanoseconds the caller has to wait for its token
+     */
+    private synchronized long reserveToken() {
+        long now = System.nanoTime();
+        availableTokens = Math.min(burstSize, availableTokens + ((double) (now - lastTokenUpdate) / tokenInterval));
+        lastTokenUpdate = now;
+        availableTokens -= 1;
+        if (availableTokens >= 0) {
+            return 0;
+        } else {
+            return (long) (-availableTokens * tokenInterval);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket if one is available.
+     */
+    private synchronized boolean takeAvailableToken() {
+        long now = System.nanoTime();
+        availableTokens = Math.min(burstSize, availableTokens + ((double) (now - lastTokenUpdate) / tokenInterval));
+        lastTokenUpdate = now;
+        if (availableTokens >= 1) {
+            availableTokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Has to be called after a request that has been started with
+     * {@link #acquire()} has been finished. The window of an adaptive limiter
+     * is not changed.
+     */
+    public void release() {
+        inFlightRequests.decrementAndGet();
+        releaseWindowSlot();
+    }
+
+    /**
+     * Has to be called after a request that has been started with
+     * {@link #acquire()} has been finished. The window of an adaptive limiter
+     * is adapted using the given information.
+     * 
+     * @param requestStart
+     *            the time ({@link System#nanoTime()}) the request has been sent
+     *            to the annotator
+     * @param successful
+     *            false if the request failed, e.g., because of a timeout or an
+     *            error response
+     */
+    public void release(long requestStart, boolean successful) {
+        inFlightRequests.decrementAndGet();
+        if (maxParallelRequests <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            --requestsInWindow;
+            if (adaptive) {
+                adaptWindow(requestStart, now, successful);
+            }
+            windowChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adapts the window. Has to be called while holding the lock.
+     */
+    private void adaptWindow(long requestStart, long now, boolean successful) {
+        if (successful) {
+            double latency = (now - requestStart) / 1000000.0;
+            if (currentLatency == 0) {
+                currentLatency = latency;
+                baseLatency = latency;
+            } else {
+                currentLatency += CURRENT_LATENCY_WEIGHT * (latency - currentLatency);
+                if (currentLatency < baseLatency) {
+                    baseLatency = currentLatency;
+                } else {
+                    baseLatency += BASE_LATENCY_WEIGHT * (currentLatency - baseLatency);
+                }
+            }
+            if (currentLatency > (LATENCY_GROWTH_FACTOR * baseLatency)) {
+                decreaseWindow(requestStart, now, "the latency grew from " + Math.round(baseLatency) + "ms to "
+                        + Math.round(currentLatency) + "ms");
+            } else if (window < maxParallelRequests) {
+                window = Math.min(maxParallelRequests, window + (1.0 / window));
+            }
+        } else {
+            decreaseWindow(requestStart, now, "a request failed");
+        }
+    }
+
+    /**
+     * Halves the window. Requests that have been started before the last
+     * decrease don't decrease the window again since they have been sent with
+     * the former window.
+     */
+    private void decreaseWindow(long requestStart, long now, String reason) {
+        if ((numberOfDecreases > 0) && (requestStart < lastDecrease)) {
+            return;
+        }
+        window = Math.max(MIN_ADAPTIVE_WINDOW, window * WINDOW_DECREASE_FACTOR);
+        lastDecrease = now;
+        ++numberOfDecreases;
+        lastDecision = "Decreased the window to " + ((int) window) + " since " + reason + ".";
+        LOGGER.info("{}: {}", annotatorName, lastDecision);
+    }
+
+    public String getAnnotatorName() {
+        return annotatorName;
+    }
+
+    /**
+     * Returns the maximum number of parallel requests or 0 if there is no
+     * limit.
+     */
+    public int getMaxParallelRequests() {
+        return maxParallelRequests;
+    }
+
+    /**
+     * Returns the current number of parallel requests (the window) or 0 if
+     * there is no limit.
+     */
+    public int getWindow() {
+        lock.lock();
+        try {
+            return (int) window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Returns the smoothed latency of the recent requests in milliseconds
+     * (only measured if the limiter is adaptive).
+     */
+    public double getCurrentLatency() {
+        lock.lock();
+        try {
+            return currentLatency;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the latency that is expected if the annotator isn't overloaded
+     * in milliseconds (only measured if the limiter is adaptive).
+     */
+    public double getBaseLatency() {
+        lock.lock();
+        try {
+            return baseLatency;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getNumberOfWindowDecreases() {
+        lock.lock();
+        try {
+            return numberOfDecreases;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a description of the last decrease of the window or null if the
+     * window hasn't been decreased.
+     */
+    public String getLastDecision() {
+        lock.lock();
+        try {
+            return lastDecision;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of requests per second or 0 if there is no
+     * limit.
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getNumberOfWaitingRequests() {
+        return waitingRequests.get();
+    }
+
+    public int getNumberOfInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    public long getNumberOfRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests that had to wait for the limiter.
+     */
+    public long getNumberOfDelayedRequests() {
+        return delayedRequests.get();
+    }
+
+    /**
+     * Returns the sum of the times all requests have waited for the limiter in
+     * milliseconds.
+     */
+    public long getWaitingTimeSum() {
+        return waitingTimeSum.get();
+    }
+
+    /**
+     * Returns the longest time a single request has waited for the limiter in
+     * milliseconds.
+     */
+    public long getMaxWaitingTime() {
+        return maxWaitingTime.get();
+    }
+}
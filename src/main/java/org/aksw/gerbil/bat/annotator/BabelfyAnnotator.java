@@ -171,7 +171,7 @@ public class BabelfyAnnotator implements Sa2WSystem {
 		return annotations;
 	}
 	
-	protected synchronized List<SemanticAnnotation> sendRequest(IBabelfy bfy, String chunk, BabelfyConstraints constraints) {
+	protected List<SemanticAnnotation> sendRequest(IBabelfy bfy, String chunk, BabelfyConstraints constraints) {
 	    return bfy.babelfy(chunk, Language.EN, constraints);
 	}
 
@@ -0,0 +1,253 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Annotation;
+import it.acubelab.batframework.data.Mention;
+import it.acubelab.batframework.data.ScoredAnnotation;
+import it.acubelab.batframework.data.ScoredTag;
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.problems.A2WSystem;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.problems.D2WSystem;
+import it.acubelab.batframework.problems.Sa2WSystem;
+import it.acubelab.batframework.problems.Sc2WSystem;
+import it.acubelab.batframework.problems.TopicSystem;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.aksw.gerbil.execute.TaskCheckpoint;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * This decorator stores every output of the decorated annotator inside a
+ * {@link TaskCheckpoint}. If the checkpoint already contains an output for a
+ * document, it is returned without sending the document to the annotator.
+ * Exceptions thrown by the annotator are not stored. Thus, failed documents
+ * are sent to the annotator again when the task is retried.
+ * 
+ * Note that this decorator should decorate the annotator directly or the
+ * {@link RequestLimitingAnnotatorDecorator} of the annotator. Thus, reused
+ * outputs don't have to wait for the limiter.
+ */
+public class CheckpointingAnnotatorDecorator {
+
+    public static TopicSystem createDecorator(TopicSystem annotator, TaskCheckpoint checkpoint) {
+        if (annotator instanceof Sa2WSystem) {
+            return new CheckpointingSa2W((Sa2WSystem) annotator, checkpoint);
+        }
+        if (annotator instanceof Sc2WSystem) {
+            return new CheckpointingSc2W((Sc2WSystem) annotator, checkpoint);
+        }
+        if (annotator instanceof A2WSystem) {
+            return new CheckpointingA2W((A2WSystem) annotator, checkpoint);
+        }
+        if (annotator instanceof D2WSystem) {
+            return new CheckpointingD2W((D2WSystem) annotator, checkpoint);
+        }
+        if (annotator instanceof C2WSystem) {
+            return new CheckpointingC2W((C2WSystem) annotator, checkpoint);
+        }
+        return null;
+    }
+
+    private static class AbstractCheckpointingAnnotator implements TopicSystem {
+        protected TopicSystem decoratedAnnotator;
+        protected TaskCheckpoint checkpoint;
+
+        public AbstractCheckpointingAnnotator(TopicSystem decoratedAnnotator, TaskCheckpoint checkpoint) {
+            this.decoratedAnnotator = decoratedAnnotator;
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public String getName() {
+            return decoratedAnnotator.getName();
+        }
+
+        @Override
+        public long getLastAnnotationTime() {
+            return decoratedAnnotator.getLastAnnotationTime();
+        }
+
+        protected TopicSystem getDecoratedAnnotator() {
+            return decoratedAnnotator;
+        }
+    }
+
+    private static class CheckpointingD2W extends AbstractCheckpointingAnnotator implements D2WSystem {
+
+        public CheckpointingD2W(D2WSystem decoratedAnnotator, TaskCheckpoint checkpoint) {
+            super(decoratedAnnotator, checkpoint);
+        }
+
+        @Override
+        public HashSet<Annotation> solveD2W(String text, HashSet<Mention> mentions) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveD2W(this, text, mentions);
+        }
+    }
+
+    private static class CheckpointingA2W extends CheckpointingD2W implements A2WSystem {
+
+        public CheckpointingA2W(A2WSystem decoratedAnnotator, TaskCheckpoint checkpoint) {
+            super(decoratedAnnotator, checkpoint);
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveC2W(this, text);
+        }
+
+        @Override
+        public HashSet<Annotation> solveA2W(String text) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveA2W(this, text);
+        }
+    }
+
+    private static class CheckpointingSa2W extends CheckpointingA2W implements Sa2WSystem {
+
+        public CheckpointingSa2W(Sa2WSystem decoratedAnnotator, TaskCheckpoint checkpoint) {
+            super(decoratedAnnotator, checkpoint);
+        }
+
+        @Override
+        public HashSet<ScoredTag> solveSc2W(String text) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveSc2W(this, text);
+        }
+
+        @Override
+        public HashSet<ScoredAnnotation> solveSa2W(String text) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveSa2W(this, text);
+        }
+    }
+
+    private static class CheckpointingC2W extends AbstractCheckpointingAnnotator implements C2WSystem {
+
+        public CheckpointingC2W(C2WSystem decoratedAnnotator, TaskCheckpoint checkpoint) {
+            super(decoratedAnnotator, checkpoint);
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveC2W(this, text);
+        }
+    }
+
+    private static class CheckpointingSc2W extends CheckpointingC2W implements Sc2WSystem {
+
+        public CheckpointingSc2W(Sc2WSystem decoratedAnnotator, TaskCheckpoint checkpoint) {
+            super(decoratedAnnotator, checkpoint);
+        }
+
+        @Override
+        public HashSet<ScoredTag> solveSc2W(String text) throws AnnotationException {
+            return CheckpointingAnnotatorDecorator.solveSc2W(this, text);
+        }
+    }
+
+    /**
+     * Creates the key of the output of a single document. It contains the
+     * name of the called method and the hash of the document text.
+     */
+    protected static String createKey(String method, String text) {
+        return method + ' ' + Hashing.md5().hashString(text, Charsets.UTF_8).toString();
+    }
+
+    /**
+     * Creates the key of the output of a single D2W document which depends on
+     * the given mentions as well.
+     */
+    protected static String createKey(String method, String text, HashSet<Mention> mentions) {
+        List<Mention> sortedMentions = new ArrayList<Mention>(mentions);
+        Collections.sort(sortedMentions);
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(text, Charsets.UTF_8);
+        for (Mention mention : sortedMentions) {
+            hasher.putInt(mention.getPosition());
+            hasher.putInt(mention.getLength());
+        }
+        return method + ' ' + hasher.hash().toString();
+    }
+
+    protected static HashSet<Tag> solveC2W(AbstractCheckpointingAnnotator annotator, String text)
+            throws AnnotationException {
+        String key = createKey("C2W", text);
+        HashSet<Tag> result = annotator.checkpoint.get(key);
+        if (result == null) {
+            result = ((C2WSystem) annotator.getDecoratedAnnotator()).solveC2W(text);
+            annotator.checkpoint.put(key, result);
+        }
+        return result;
+    }
+
+    protected static HashSet<Annotation> solveD2W(AbstractCheckpointingAnnotator annotator, String text,
+            HashSet<Mention> mentions) throws AnnotationException {
+        String key = createKey("D2W", text, mentions);
+        HashSet<Annotation> result = annotator.checkpoint.get(key);
+        if (result == null) {
+            result = ((D2WSystem) annotator.getDecoratedAnnotator()).solveD2W(text, mentions);
+            annotator.checkpoint.put(key, result);
+        }
+        return result;
+    }
+
+    protected static HashSet<Annotation> solveA2W(AbstractCheckpointingAnnotator annotator, String text)
+            throws AnnotationException {
+        String key = createKey("A2W", text);
+        HashSet<Annotation> result = annotator.checkpoint.get(key);
+        if (result == null) {
+            result = ((A2WSystem) annotator.getDecoratedAnnotator()).solveA2W(text);
+            annotator.checkpoint.put(key, result);
+        }
+        return result;
+    }
+
+    protected static HashSet<ScoredTag> solveSc2W(AbstractCheckpointingAnnotator annotator, String text)
+            throws AnnotationException {
+        String key = createKey("Sc2W", text);
+        HashSet<ScoredTag> result = annotator.checkpoint.get(key);
+        if (result == null) {
+            result = ((Sc2WSystem) annotator.getDecoratedAnnotator()).solveSc2W(text);
+            annotator.checkpoint.put(key, result);
+        }
+        return result;
+    }
+
+    protected static HashSet<ScoredAnnotation> solveSa2W(AbstractCheckpointingAnnotator annotator, String text)
+            throws AnnotationException {
+        String key = createKey("Sa2W", text);
+        HashSet<ScoredAnnotation> result = annotator.checkpoint.get(key);
+        if (result == null) {
+            result = ((Sa2WSystem) annotator.getDecoratedAnnotator()).solveSa2W(text);
+            annotator.checkpoint.put(key, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Annotation;
+import it.acubelab.batframework.data.Mention;
+import it.acubelab.batframework.data.ScoredAnnotation;
+import it.acubelab.batframework.data.ScoredTag;
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.problems.A2WSystem;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.problems.D2WSystem;
+import it.acubelab.batframework.problems.Sa2WSystem;
+import it.acubelab.batframework.problems.Sc2WSystem;
+import it.acubelab.batframework.problems.TopicSystem;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+
+/**
+ * This decorator sends every request through the
+ * {@link DocumentRequestDeduplicator} of the decorated annotator. Thus,
+ * identical documents that are sent to the same annotator by one or several
+ * experiment tasks are annotated only once.
+ * 
+ * Note that this decorator should decorate the
+ * {@link RequestLimitingAnnotatorDecorator}. Thus, requests that wait for an
+ * identical request do not count against the limits of the annotator.
+ */
+public class DeduplicatingAnnotatorDecorator {
+
+    public static TopicSystem createDecorator(TopicSystem annotator, String annotatorName) {
+        return createDecorator(annotator, DocumentRequestDeduplicator.getDeduplicator(annotatorName));
+    }
+
+    public static TopicSystem createDecorator(TopicSystem annotator, DocumentRequestDeduplicator deduplicator) {
+        if (annotator instanceof Sa2WSystem) {
+            return new DeduplicatingSa2W((Sa2WSystem) annotator, deduplicator);
+        }
+        if (annotator instanceof Sc2WSystem) {
+            return new DeduplicatingSc2W((Sc2WSystem) annotator, deduplicator);
+        }
+        if (annotator instanceof A2WSystem) {
+            return new DeduplicatingA2W((A2WSystem) annotator, deduplicator);
+        }
+        if (annotator instanceof D2WSystem) {
+            return new DeduplicatingD2W((D2WSystem) annotator, deduplicator);
+        }
+        if (annotator instanceof C2WSystem) {
+            return new DeduplicatingC2W((C2WSystem) annotator, deduplicator);
+        }
+        return null;
+    }
+
+    private static class AbstractDeduplicatingAnnotator implements TopicSystem {
+        protected TopicSystem decoratedAnnotator;
+        protected DocumentRequestDeduplicator deduplicator;
+
+        public AbstractDeduplicatingAnnotator(TopicSystem decoratedAnnotator, DocumentRequestDeduplicator deduplicator) {
+            this.decoratedAnnotator = decoratedAnnotator;
+            this.deduplicator = deduplicator;
+        }
+
+        @Override
+        public String getName() {
+            return decoratedAnnotator.getName();
+        }
+
+        @Override
+        public long getLastAnnotationTime() {
+            return decoratedAnnotator.getLastAnnotationTime();
+        }
+
+        protected TopicSystem getDecoratedAnnotator() {
+            return decoratedAnnotator;
+        }
+    }
+
+    private static class DeduplicatingD2W extends AbstractDeduplicatingAnnotator implements D2WSystem {
+
+        public DeduplicatingD2W(D2WSystem decoratedAnnotator, DocumentRequestDeduplicator deduplicator) {
+            super(decoratedAnnotator, deduplicator);
+        }
+
+        @Override
+        public HashSet<Annotation> solveD2W(final String text, final HashSet<Mention> mentions)
+                throws AnnotationException {
+            return deduplicator.execute(DocumentRequestDeduplicator.createKey("D2W", text, mentions),
+                    new Callable<HashSet<Annotation>>() {
+                        @Override
+                        public HashSet<Annotation> call() throws Exception {
+                            return ((D2WSystem) decoratedAnnotator).solveD2W(text, mentions);
+                        }
+                    });
+        }
+    }
+
+    private static class DeduplicatingA2W extends DeduplicatingD2W implements A2WSystem {
+
+        public DeduplicatingA2W(A2WSystem decoratedAnnotator, DocumentRequestDeduplicator deduplicator) {
+            super(decoratedAnnotator, deduplicator);
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            return DeduplicatingAnnotatorDecorator.solveC2W(this, text);
+        }
+
+        @Override
+        public HashSet<Annotation> solveA2W(final String text) throws AnnotationException {
+            return deduplicator.execute(DocumentRequestDeduplicator.createKey("A2W", text, null),
+                    new Callable<HashSet<Annotation>>() {
+                        @Override
+                        public HashSet<Annotation> call() throws Exception {
+                            return ((A2WSystem) decoratedAnnotator).solveA2W(text);
+                        }
+                    });
+        }
+    }
+
+    private static class DeduplicatingSa2W extends DeduplicatingA2W implements Sa2WSystem {
+
+        public DeduplicatingSa2W(Sa2WSystem decoratedAnnotator, DocumentRequestDeduplicator deduplicator) {
+            super(decoratedAnnotator, deduplicator);
+        }
+
+        @Override
+        public HashSet<ScoredTag> solveSc2W(String text) throws AnnotationException {
+            return DeduplicatingAnnotatorDecorator.solveSc2W(this, text);
+        }
+
+        @Override
+        public HashSet<ScoredAnnotation> solveSa2W(final String text) throws AnnotationException {
+            return deduplicator.execute(DocumentRequestDeduplicator.createKey("Sa2W", text, null),
+                    new Callable<HashSet<ScoredAnnotation>>() {
+                        @Override
+                        public HashSet<ScoredAnnotation> call() throws Exception {
+                            return ((Sa2WSystem) decoratedAnnotator).solveSa2W(text);
+                        }
+                    });
+        }
+    }
+
+    private static class DeduplicatingC2W extends AbstractDeduplicatingAnnotator implements C2WSystem {
+
+        public DeduplicatingC2W(C2WSystem decoratedAnnotator, DocumentRequestDeduplicator deduplicator) {
+            super(decoratedAnnotator, deduplicator);
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            return DeduplicatingAnnotatorDecorator.solveC2W(this, text);
+        }
+    }
+
+    private static class DeduplicatingSc2W extends DeduplicatingC2W implements Sc2WSystem {
+
+        public DeduplicatingSc2W(Sc2WSystem decoratedAnnotator, DocumentRequestDeduplicator deduplicator) {
+            super(decoratedAnnotator, deduplicator);
+        }
+
+        @Override
+        public HashSet<ScoredTag> solveSc2W(String text) throws AnnotationException {
+            return DeduplicatingAnnotatorDecorator.solveSc2W(this, text);
+        }
+    }
+
+    protected static HashSet<Tag> solveC2W(final AbstractDeduplicatingAnnotator annotator, final String text)
+            throws AnnotationException {
+        return annotator.deduplicator.execute(DocumentRequestDeduplicator.createKey("C2W", text, null),
+                new Callable<HashSet<Tag>>() {
+                    @Override
+                    public HashSet<Tag> call() throws Exception {
+                        return ((C2WSystem) annotator.getDecoratedAnnotator()).solveC2W(text);
+                    }
+                });
+    }
+
+    protected static HashSet<ScoredTag> solveSc2W(final AbstractDeduplicatingAnnotator annotator, final String text)
+            throws AnnotationException {
+        return annotator.deduplicator.execute(DocumentRequestDeduplicator.createKey("Sc2W", text, null),
+                new Callable<HashSet<ScoredTag>>() {
+                    @Override
+                    public HashSet<ScoredTag> call() throws Exception {
+                        return ((Sc2WSystem) annotator.getDecoratedAnnotator()).solveSc2W(text);
+                    }
+                });
+    }
+}
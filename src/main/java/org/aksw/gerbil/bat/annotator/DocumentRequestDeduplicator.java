@@ -0,0 +1,257 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Mention;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.apache.commons.configuration.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Makes sure that a single annotator doesn't process the same document several
+ * times at once. Requests are identified by the type of the call (e.g., A2W),
+ * a hash of the text and, for D2W calls, the given mentions. If an identical
+ * request is already sent by another thread, the request waits for its result
+ * instead of sending the document a second time (single-flight).
+ * 
+ * Additionally, the results of the last {@link #CACHE_SIZE_PROPERTY_NAME}
+ * requests are kept for {@link #CACHE_DURATION_PROPERTY_NAME} milliseconds.
+ * Thus, documents that occur several times inside a dataset (e.g., repeated
+ * tweets) or inside several datasets that are evaluated at the same time
+ * (e.g., AIDA/CoNLL-Complete and AIDA/CoNLL-Test A) are annotated only once. A
+ * cache size of 0 disables the cache while identical requests that are sent at
+ * the same time are still merged. Both properties can be overridden for a
+ * single annotator by appending a dot and the name of the annotator.
+ * 
+ * Every caller gets its own copy of the shared result. Failed requests are not
+ * cached, i.e., the next identical request is sent to the annotator again. If
+ * a shared request is aborted because the task that sent it has been
+ * cancelled, the waiting requests of other tasks are sent again.
+ */
+public class DocumentRequestDeduplicator {
+
+    public static final String CACHE_SIZE_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.DocumentRequestDeduplicator.cacheSize";
+    public static final String CACHE_DURATION_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.DocumentRequestDeduplicator.cacheDuration";
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+    public static final long DEFAULT_CACHE_DURATION = 600000;
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final ConcurrentMap<String, DocumentRequestDeduplicator> DEDUPLICATORS = new ConcurrentHashMap<String, DocumentRequestDeduplicator>();
+
+    /**
+     * Returns the deduplicator of the annotator with the given name. The
+     * deduplicator is created if it doesn't exist.
+     */
+    public static DocumentRequestDeduplicator getDeduplicator(String annotatorName) {
+        DocumentRequestDeduplicator deduplicator = DEDUPLICATORS.get(annotatorName);
+        if (deduplicator == null) {
+            Configuration config = GerbilConfiguration.getInstance();
+            deduplicator = new DocumentRequestDeduplicator(annotatorName, config.getInt(CACHE_SIZE_PROPERTY_NAME + '.'
+                    + annotatorName, config.getInt(CACHE_SIZE_PROPERTY_NAME, DEFAULT_CACHE_SIZE)), config.getLong(
+                    CACHE_DURATION_PROPERTY_NAME + '.' + annotatorName,
+                    config.getLong(CACHE_DURATION_PROPERTY_NAME, DEFAULT_CACHE_DURATION)));
+            DocumentRequestDeduplicator existingDeduplicator = DEDUPLICATORS.putIfAbsent(annotatorName, deduplicator);
+            if (existingDeduplicator != null) {
+                deduplicator = existingDeduplicator;
+            }
+        }
+        return deduplicator;
+    }
+
+    /**
+     * Returns the deduplicator of the annotator with the given name or null if
+     * it hasn't been created, yet.
+     */
+    public static DocumentRequestDeduplicator getExistingDeduplicator(String annotatorName) {
+        return DEDUPLICATORS.get(annotatorName);
+    }
+
+    private final String annotatorName;
+    private final ConcurrentMap<String, FutureTask<? extends Set<?>>> inFlightRequests = new ConcurrentHashMap<String, FutureTask<? extends Set<?>>>();
+    private final Cache<String, Set<?>> results;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong sharedRequests = new AtomicLong();
+    private final AtomicLong cachedRequests = new AtomicLong();
+
+    protected DocumentRequestDeduplicator(String annotatorName, int cacheSize, long cacheDuration) {
+        this.annotatorName = annotatorName;
+        if ((cacheSize > 0) && (cacheDuration > 0)) {
+            results = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                    .expireAfterWrite(cacheDuration, TimeUnit.MILLISECONDS).build();
+        } else {
+            results = null;
+        }
+    }
+
+    /**
+     * Creates the key of a request.
+     * 
+     * @param callType
+     *            the type of the call, e.g., "A2W"
+     * @param text
+     *            the text of the document
+     * @param mentions
+     *            the mentions that are part of the request or null
+     */
+    public static String createKey(String callType, String text, Set<Mention> mentions) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(text, CHARSET);
+        if (mentions != null) {
+            // the order of the mentions has to be fixed
+            long positions[] = new long[mentions.size()];
+            int i = 0;
+            for (Mention mention : mentions) {
+                positions[i] = (((long) mention.getPosition()) << 32) | mention.getLength();
+                ++i;
+            }
+            Arrays.sort(positions);
+            for (i = 0; i < positions.length; ++i) {
+                hasher.putLong(positions[i]);
+            }
+        }
+        return callType + ':' + hasher.hash().toString();
+    }
+
+    /**
+     * Executes the given request if there is no identical request that is
+     * running or has been cached. Otherwise, the result of the identical
+     * request is returned.
+     * 
+     * @param key
+     *            the key of the request created by
+     *            {@link #createKey(String, String, Set)}
+     * @param request
+     *            the request that is executed if there is no identical one
+     * @return a copy of the result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> HashSet<T> execute(String key, Callable<HashSet<T>> request) throws AnnotationException {
+        requests.incrementAndGet();
+        if (results != null) {
+            Set<?> result = results.getIfPresent(key);
+            if (result != null) {
+                cachedRequests.incrementAndGet();
+                return new HashSet<T>((Set<T>) result);
+            }
+        }
+        FutureTask<HashSet<T>> task = new FutureTask<HashSet<T>>(request);
+        FutureTask<? extends Set<?>> runningTask = inFlightRequests.putIfAbsent(key, task);
+        if (runningTask != null) {
+            sharedRequests.incrementAndGet();
+            try {
+                return copy(getResult((FutureTask<HashSet<T>>) runningTask));
+            } catch (RequestAbortedException e) {
+                if (AbortableRequestRegistry.isAborted()) {
+                    throw e;
+                }
+                // the task that sent the request has been cancelled while
+                // this task still needs the result
+                inFlightRequests.remove(key, runningTask);
+                return execute(key, request);
+            }
+        }
+        try {
+            task.run();
+            HashSet<T> result = getResult(task);
+            // the result has to be cached before the task is removed
+            if ((results != null) && (result != null)) {
+                results.put(key, result);
+            }
+            return copy(result);
+        } finally {
+            inFlightRequests.remove(key, task);
+        }
+    }
+
+    private static <T> HashSet<T> copy(HashSet<T> result) {
+        return result == null ? null : new HashSet<T>(result);
+    }
+
+    private <T> HashSet<T> getResult(FutureTask<HashSet<T>> task) throws AnnotationException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnnotationException("Interrupted while waiting for the response of " + annotatorName + ".");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AnnotationException) {
+                throw (AnnotationException) cause;
+            }
+            AnnotationException exception = new AnnotationException(cause.getMessage());
+            exception.initCause(cause);
+            throw exception;
+        }
+    }
+
+    public String getAnnotatorName() {
+        return annotatorName;
+    }
+
+    /**
+     * Returns the number of requests that have been handled by this
+     * deduplicator.
+     */
+    public long getNumberOfRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests that waited for an identical request
+     * instead of being sent to the annotator.
+     */
+    public long getNumberOfSharedRequests() {
+        return sharedRequests.get();
+    }
+
+    /**
+     * Returns the number of requests whose result has been taken from the
+     * cache.
+     */
+    public long getNumberOfCachedRequests() {
+        return cachedRequests.get();
+    }
+
+    public int getNumberOfInFlightRequests() {
+        return inFlightRequests.size();
+    }
+}
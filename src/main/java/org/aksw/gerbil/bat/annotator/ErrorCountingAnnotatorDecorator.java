@@ -36,7 +36,10 @@ import it.acubelab.batframework.problems.TopicSystem;
 import it.acubelab.batframework.utils.AnnotationException;
 
 import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.aksw.gerbil.metrics.Counter;
+import org.aksw.gerbil.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,7 +47,11 @@ import org.slf4j.LoggerFactory;
  * This is a simple decorator for an annotator which handles exceptions thrown
  * by the decorated annotator. It logs these exceptions and counts the errors.
  * This behavior makes it possible, that the BAT-Framework doesn't quit the
- * experiment even if an exception is thrown.
+ * experiment even if an exception is thrown. Only an
+ * {@link AnnotatorUnavailableException} is passed through since it shows that
+ * the annotator can't be reached at all as well as a
+ * {@link RequestAbortedException} since it shows that the task has been
+ * cancelled.
  * 
  * @author Michael Röder
  * 
@@ -55,6 +62,9 @@ public class ErrorCountingAnnotatorDecorator {
 
     private static final double AMOUNT_OF_TOLERATED_ERRORS = 0.25;
 
+    private static final Counter ANNOTATOR_ERRORS = MetricsRegistry.getInstance().counter(
+            "gerbil_annotator_errors_total", "Number of documents an annotator returned an error for.", "annotator");
+
     public static TopicSystem createDecorator(TopicSystem annotator, int numberOfExpectedCalls) {
         int maxErrors = (int) Math.ceil(AMOUNT_OF_TOLERATED_ERRORS * numberOfExpectedCalls);
         if (annotator instanceof Sa2WSystem) {
@@ -76,7 +86,9 @@ public class ErrorCountingAnnotatorDecorator {
     }
 
     private static class AbstractErrorCounter implements ErrorCounter, TopicSystem {
-        protected int errorCount = 0;
+        // atomic since the count is read by the state reporting and several
+        // documents might be processed at the same time
+        protected final AtomicInteger errorCount = new AtomicInteger();
         protected int maxErrors;
         protected TopicSystem decoratedAnnotator;
 
@@ -87,12 +99,12 @@ public class ErrorCountingAnnotatorDecorator {
 
         @Override
         public int getErrorCount() {
-            return errorCount;
+            return errorCount.get();
         }
 
         @Override
         public void setErrorCount(int errorCount) {
-            this.errorCount = errorCount;
+            this.errorCount.set(errorCount);
         }
 
         @Override
@@ -110,8 +122,8 @@ public class ErrorCountingAnnotatorDecorator {
         }
 
         protected void increaseErrorCount() throws AnnotationException {
-            ++errorCount;
-            if (errorCount > maxErrors) {
+            ANNOTATOR_ERRORS.inc(getName());
+            if (errorCount.incrementAndGet() > maxErrors) {
                 throw new AnnotationException("Saw to many errors (maximum was set to " + maxErrors + ").");
             }
         }
@@ -191,6 +203,12 @@ public class ErrorCountingAnnotatorDecorator {
         HashSet<Tag> result = null;
         try {
             result = ((C2WSystem) errorCounter.getDecoratedAnnotator()).solveC2W(text);
+        } catch (AnnotatorUnavailableException e) {
+            // the task can't be finished without the annotator
+            throw e;
+        } catch (RequestAbortedException e) {
+            // the task has been cancelled
+            throw e;
         } catch (Exception e) {
             if (errorCounter.getErrorCount() == 0) {
                 // Log only the first exception completely
@@ -230,6 +248,12 @@ public class ErrorCountingAnnotatorDecorator {
         HashSet<Annotation> result = null;
         try {
             result = ((D2WSystem) errorCounter.getDecoratedAnnotator()).solveD2W(text, mentions);
+        } catch (AnnotatorUnavailableException e) {
+            // the task can't be finished without the annotator
+            throw e;
+        } catch (RequestAbortedException e) {
+            // the task has been cancelled
+            throw e;
         } catch (Exception e) {
             if (errorCounter.getErrorCount() == 0) {
                 // Log only the first exception completely
@@ -272,6 +296,12 @@ public class ErrorCountingAnnotatorDecorator {
         HashSet<Annotation> result = null;
         try {
             result = ((A2WSystem) errorCounter.getDecoratedAnnotator()).solveA2W(text);
+        } catch (AnnotatorUnavailableException e) {
+            // the task can't be finished without the annotator
+            throw e;
+        } catch (RequestAbortedException e) {
+            // the task has been cancelled
+            throw e;
         } catch (Exception e) {
             if (errorCounter.getErrorCount() == 0) {
                 // Log only the first exception completely
@@ -314,6 +344,12 @@ public class ErrorCountingAnnotatorDecorator {
         HashSet<ScoredTag> result = null;
         try {
             result = ((Sc2WSystem) errorCounter.getDecoratedAnnotator()).solveSc2W(text);
+        } catch (AnnotatorUnavailableException e) {
+            // the task can't be finished without the annotator
+            throw e;
+        } catch (RequestAbortedException e) {
+            // the task has been cancelled
+            throw e;
         } catch (Exception e) {
             if (errorCounter.getErrorCount() == 0) {
                 // Log only the first exception completely
@@ -355,6 +391,12 @@ public class ErrorCountingAnnotatorDecorator {
         HashSet<ScoredAnnotation> result = null;
         try {
             result = ((Sa2WSystem) errorCounter.getDecoratedAnnotator()).solveSa2W(text);
+        } catch (AnnotatorUnavailableException e) {
+            // the task can't be finished without the annotator
+            throw e;
+        } catch (RequestAbortedException e) {
+            // the task has been cancelled
+            throw e;
         } catch (Exception e) {
             if (errorCounter.getErrorCount() == 0) {
                 // Log only the first exception completely
@@ -0,0 +1,376 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.gerbil.bat.annotator.AbortableRequestRegistry.RequestGroup;
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * Sends hedged requests to the web service of a single annotator. If a request
+ * takes longer than the 95th percentile of the latencies observed for the
+ * annotator, a duplicate request is sent and the first successful response is
+ * used. The number of duplicates is limited by a budget, i.e., the duplicates
+ * are at most {@link #BUDGET_PROPERTY_NAME} percent of all requests. A budget
+ * &lt;= 0 disables the hedging. The property can be overridden for a single
+ * annotator by appending a dot and the name of the annotator.
+ * 
+ * A duplicate is only sent if the {@link AnnotatorRequestLimiter} of the
+ * annotator has a free permit, i.e., hedging doesn't exceed the limits of the
+ * annotator. The HTTP requests of the slower request are aborted as soon as
+ * the first response has been received. The requests are executed by a
+ * bounded thread pool. If it is exhausted, requests are sent by the calling
+ * thread without hedging.
+ * 
+ * The latency of the winning response and the number of duplicates are
+ * recorded for reporting.
+ */
+public class RequestHedger {
+
+    public static final String BUDGET_PROPERTY_NAME = "org.aksw.gerbil.bat.annotator.RequestHedger.budget";
+
+    /**
+     * The number of latencies that have to be observed before requests are
+     * hedged.
+     */
+    private static final int MIN_NUMBER_OF_LATENCIES = 20;
+    /**
+     * The number of the latest latencies the percentile is calculated from.
+     */
+    private static final int LATENCY_WINDOW_SIZE = 200;
+    private static final double HEDGING_PERCENTILE = 0.95;
+    /**
+     * The maximum number of threads sending hedged requests.
+     */
+    private static final int MAX_NUMBER_OF_THREADS = 64;
+    private static final long THREAD_KEEP_ALIVE_TIME = 60;
+
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, MAX_NUMBER_OF_THREADS,
+            THREAD_KEEP_ALIVE_TIME, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RequestHedger-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private static final ConcurrentMap<String, RequestHedger> HEDGERS = new ConcurrentHashMap<String, RequestHedger>();
+
+    /**
+     * Returns the hedger of the annotator with the given name. The hedger is
+     * created if it doesn't exist.
+     */
+    public static RequestHedger getHedger(String annotatorName) {
+        RequestHedger hedger = HEDGERS.get(annotatorName);
+        if (hedger == null) {
+            Configuration config = GerbilConfiguration.getInstance();
+            hedger = new RequestHedger(annotatorName, config.getDouble(BUDGET_PROPERTY_NAME + '.' + annotatorName,
+                    config.getDouble(BUDGET_PROPERTY_NAME, 0)), AnnotatorRequestLimiter.getLimiter(annotatorName));
+            RequestHedger existingHedger = HEDGERS.putIfAbsent(annotatorName, hedger);
+            if (existingHedger != null) {
+                hedger = existingHedger;
+            }
+        }
+        return hedger;
+    }
+
+    /**
+     * Returns the hedger of the annotator with the given name or null if it
+     * hasn't been created, yet.
+     */
+    public static RequestHedger getExistingHedger(String annotatorName) {
+        return HEDGERS.get(annotatorName);
+    }
+
+    private final String annotatorName;
+    private final double budget;
+    private final AnnotatorRequestLimiter limiter;
+
+    private final long latencies[] = new long[LATENCY_WINDOW_SIZE];
+    private int numberOfLatencies = 0;
+    private int nextLatencyPosition = 0;
+    private long latencySum = 0;
+    private long lastLatency = 0;
+    private long requests = 0;
+    private long hedgedRequests = 0;
+    private long hedgeWins = 0;
+
+    protected RequestHedger(String annotatorName, double budget, AnnotatorRequestLimiter limiter) {
+        this.annotatorName = annotatorName;
+        this.budget = budget;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Executes the given request. If it takes too long, a duplicate is
+     * executed in parallel and the first successful result is returned. Thus,
+     * the request has to be safe to be executed twice at the same time.
+     */
+    public <T> T execute(Callable<T> request) throws AnnotationException {
+        long start = System.nanoTime();
+        long hedgingDelay = startRequest();
+        if (hedgingDelay < 0) {
+            T result = call(request);
+            addLatency(start, false);
+            return result;
+        }
+        CompletionService<T> completionService = new ExecutorCompletionService<T>(EXECUTOR);
+        List<Future<T>> futures = new ArrayList<Future<T>>(2);
+        List<RequestGroup> groups = new ArrayList<RequestGroup>(2);
+        Future<T> hedge = null;
+        try {
+            try {
+                futures.add(submit(completionService, request, groups));
+            } catch (RejectedExecutionException e) {
+                // all threads are busy
+                T result = call(request);
+                addLatency(start, false);
+                return result;
+            }
+            Future<T> finished = completionService.poll(hedgingDelay, TimeUnit.MILLISECONDS);
+            if ((finished == null) && startHedge()) {
+                hedge = submitHedge(completionService, request, groups);
+                if (hedge != null) {
+                    futures.add(hedge);
+                }
+            }
+            int numberOfFinishedRequests = 0;
+            while (true) {
+                if (finished == null) {
+                    finished = completionService.take();
+                }
+                ++numberOfFinishedRequests;
+                try {
+                    T result = finished.get();
+                    addLatency(start, finished == hedge);
+                    return result;
+                } catch (ExecutionException e) {
+                    if (numberOfFinishedRequests >= futures.size()) {
+                        throw createException(e.getCause());
+                    }
+                    finished = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnnotationException("Interrupted while waiting for the response of " + annotatorName + ".");
+        } finally {
+            // the slower request is not needed anymore. Cancelling its future
+            // doesn't stop a blocking HTTP request, i.e., it has to be aborted
+            // to free its connection.
+            for (int i = 0; i < futures.size(); ++i) {
+                if (futures.get(i).cancel(true) || !futures.get(i).isDone()) {
+                    groups.get(i).abort();
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits the given request. Its HTTP requests are sent on behalf of the
+     * owner of the current thread and are collected in a new group that is
+     * added to the given list.
+     */
+    private static <T> Future<T> submit(CompletionService<T> completionService, Callable<T> request,
+            List<RequestGroup> groups) {
+        RequestGroup group = new RequestGroup();
+        Future<T> future = completionService.submit(AbortableRequestRegistry.onBehalfOfCurrentOwner(request,
+                group));
+        groups.add(group);
+        return future;
+    }
+
+    /**
+     * Submits the hedged duplicate of the given request if the limiter of the
+     * annotator has a free permit.
+     * 
+     * @return the future of the duplicate or null if it couldn't be sent
+     */
+    private <T> Future<T> submitHedge(CompletionService<T> completionService, final Callable<T> request,
+            List<RequestGroup> groups) {
+        if (!limiter.tryAcquire()) {
+            cancelHedge();
+            return null;
+        }
+        try {
+            return submit(completionService, new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        return request.call();
+                    } finally {
+                        limiter.release();
+                    }
+                }
+            }, groups);
+        } catch (RejectedExecutionException e) {
+            limiter.release();
+            cancelHedge();
+            return null;
+        }
+    }
+
+    private static <T> T call(Callable<T> request) throws AnnotationException {
+        try {
+            return request.call();
+        } catch (Exception e) {
+            throw createException(e);
+        }
+    }
+
+    private static AnnotationException createException(Throwable e) {
+        if (e instanceof AnnotationException) {
+            return (AnnotationException) e;
+        }
+        AnnotationException exception = new AnnotationException(e.getMessage());
+        exception.initCause(e);
+        return exception;
+    }
+
+    /**
+     * Counts the request and determines the time after which it should be
+     * hedged.
+     * 
+     * @return the time in milliseconds or -1 if the request shouldn't be hedged
+     */
+    private synchronized long startRequest() {
+        ++requests;
+        if ((budget <= 0) || (numberOfLatencies < MIN_NUMBER_OF_LATENCIES)) {
+            return -1;
+        }
+        return calculatePercentileLatency();
+    }
+
+    /**
+     * Checks whether the budget allows another hedged request.
+     */
+    private synchronized boolean startHedge() {
+        if ((hedgedRequests + 1) > ((requests * budget) / 100.0)) {
+            return false;
+        }
+        ++hedgedRequests;
+        return true;
+    }
+
+    /**
+     * Gives back the budget of a hedged request that hasn't been sent.
+     */
+    private synchronized void cancelHedge() {
+        --hedgedRequests;
+    }
+
+    private synchronized void addLatency(long start, boolean hedgeWon) {
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (numberOfLatencies == LATENCY_WINDOW_SIZE) {
+            latencySum -= latencies[nextLatencyPosition];
+        } else {
+            ++numberOfLatencies;
+        }
+        latencies[nextLatencyPosition] = latency;
+        latencySum += latency;
+        nextLatencyPosition = (nextLatencyPosition + 1) % LATENCY_WINDOW_SIZE;
+        lastLatency = latency;
+        if (hedgeWon) {
+            ++hedgeWins;
+        }
+    }
+
+    private long calculatePercentileLatency() {
+        long sortedLatencies[] = Arrays.copyOf(latencies, numberOfLatencies);
+        Arrays.sort(sortedLatencies);
+        return sortedLatencies[(int) Math.min(numberOfLatencies - 1,
+                Math.floor(HEDGING_PERCENTILE * numberOfLatencies))];
+    }
+
+    public String getAnnotatorName() {
+        return annotatorName;
+    }
+
+    /**
+     * Returns the budget of hedged requests in percent of all requests.
+     */
+    public double getBudget() {
+        return budget;
+    }
+
+    public synchronized long getNumberOfRequests() {
+        return requests;
+    }
+
+    public synchronized long getNumberOfHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Returns the number of hedged requests whose duplicate returned first.
+     */
+    public synchronized long getNumberOfHedgeWins() {
+        return hedgeWins;
+    }
+
+    /**
+     * Returns the latency of the last successful request in milliseconds.
+     */
+    public synchronized long getLastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * Returns the average latency of the latest successful requests in
+     * milliseconds.
+     */
+    public synchronized double getAverageLatency() {
+        return (numberOfLatencies > 0) ? ((double) latencySum / numberOfLatencies) : 0;
+    }
+
+    /**
+     * Returns the 95th percentile of the latencies of the latest successful
+     * requests in milliseconds or -1 if there are not enough latencies.
+     */
+    public synchronized long getPercentileLatency() {
+        return (numberOfLatencies < MIN_NUMBER_OF_LATENCIES) ? -1 : calculatePercentileLatency();
+    }
+}
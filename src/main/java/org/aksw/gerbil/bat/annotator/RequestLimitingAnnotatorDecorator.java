@@ -0,0 +1,334 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Annotation;
+import it.acubelab.batframework.data.Mention;
+import it.acubelab.batframework.data.ScoredAnnotation;
+import it.acubelab.batframework.data.ScoredTag;
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.problems.A2WSystem;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.problems.D2WSystem;
+import it.acubelab.batframework.problems.Sa2WSystem;
+import it.acubelab.batframework.problems.Sc2WSystem;
+import it.acubelab.batframework.problems.TopicSystem;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.HashSet;
+
+import org.aksw.gerbil.metrics.Histogram;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+
+/**
+ * This decorator sends every request through the {@link AnnotatorRequestLimiter}
+ * of the decorated annotator. Thus, the limits of an annotator are respected
+ * by all experiment tasks using this annotator. The latency and the success of
+ * the requests are reported to the limiter to make adaptive limits possible.
+ * 
+ * Additionally, the requests are checked by the {@link AnnotatorCircuitBreaker}
+ * of the annotator. If it is open, an {@link AnnotatorUnavailableException} is
+ * thrown instead of sending the request. Requests that have been rejected by
+ * the annotator ({@link AnnotatorRequestRejectedException}) are not counted as
+ * failures since the annotator is available. The durations of the requests
+ * are measured from the moment the limiter permitted them.
+ * 
+ * An {@link AnnotatorRequestListener} can be informed when a request has been
+ * permitted by the limiter and when it returned.
+ * 
+ * Note that this decorator should be the innermost decorator, i.e., it should
+ * decorate the annotator directly.
+ */
+public class RequestLimitingAnnotatorDecorator {
+
+    private static final Histogram ANNOTATOR_REQUEST_DURATION = MetricsRegistry.getInstance().histogram(
+            "gerbil_annotator_request_duration_seconds",
+            "Time an annotator needed to process a single document after the request limiter permitted the request "
+                    + "(including failed requests).",
+            Histogram.REQUEST_DURATION_BUCKETS, "annotator");
+
+    public static TopicSystem createDecorator(TopicSystem annotator, String annotatorName) {
+        return createDecorator(annotator, annotatorName, annotatorName);
+    }
+
+    /**
+     * Creates a decorator that uses the limiter of the given annotator name
+     * and the breaker of the given annotator definition. Thus, NIF based web
+     * services with the same name but different URIs have different breakers.
+     */
+    public static TopicSystem createDecorator(TopicSystem annotator, String annotatorName,
+            String annotatorDefinition) {
+        return createDecorator(annotator, AnnotatorRequestLimiter.getLimiter(annotatorName),
+                AnnotatorCircuitBreaker.getBreaker(annotatorDefinition));
+    }
+
+    /**
+     * Creates a decorator like {@link #createDecorator(TopicSystem, String, String)}
+     * that informs the given listener every time a request has been permitted
+     * by the limiter and every time such a request returned.
+     */
+    public static TopicSystem createDecorator(TopicSystem annotator, String annotatorName,
+            String annotatorDefinition, AnnotatorRequestListener listener) {
+        TopicSystem decorator = createDecorator(annotator, annotatorName, annotatorDefinition);
+        if (decorator != null) {
+            ((AbstractRequestLimitingAnnotator) decorator).listener = listener;
+        }
+        return decorator;
+    }
+
+    public static TopicSystem createDecorator(TopicSystem annotator, AnnotatorRequestLimiter limiter,
+            AnnotatorCircuitBreaker breaker) {
+        if (annotator instanceof Sa2WSystem) {
+            return new RequestLimitingSa2W((Sa2WSystem) annotator, limiter, breaker);
+        }
+        if (annotator instanceof Sc2WSystem) {
+            return new RequestLimitingSc2W((Sc2WSystem) annotator, limiter, breaker);
+        }
+        if (annotator instanceof A2WSystem) {
+            return new RequestLimitingA2W((A2WSystem) annotator, limiter, breaker);
+        }
+        if (annotator instanceof D2WSystem) {
+            return new RequestLimitingD2W((D2WSystem) annotator, limiter, breaker);
+        }
+        if (annotator instanceof C2WSystem) {
+            return new RequestLimitingC2W((C2WSystem) annotator, limiter, breaker);
+        }
+        return null;
+    }
+
+    private static class AbstractRequestLimitingAnnotator implements TopicSystem {
+        protected TopicSystem decoratedAnnotator;
+        protected AnnotatorRequestLimiter limiter;
+        protected AnnotatorCircuitBreaker breaker;
+        protected AnnotatorRequestListener listener;
+
+        public AbstractRequestLimitingAnnotator(TopicSystem decoratedAnnotator, AnnotatorRequestLimiter limiter,
+                AnnotatorCircuitBreaker breaker) {
+            this.decoratedAnnotator = decoratedAnnotator;
+            this.limiter = limiter;
+            this.breaker = breaker;
+        }
+
+        @Override
+        public String getName() {
+            return decoratedAnnotator.getName();
+        }
+
+        @Override
+        public long getLastAnnotationTime() {
+            return decoratedAnnotator.getLastAnnotationTime();
+        }
+
+        protected TopicSystem getDecoratedAnnotator() {
+            return decoratedAnnotator;
+        }
+
+        /**
+         * Releases the limiter and reports the result of the request to the
+         * breaker. Requests that have been rejected by the annotator are
+         * reported as successful since the annotator has been available.
+         */
+        protected void release(long start, boolean successful) {
+            ANNOTATOR_REQUEST_DURATION.observeDurationSince(start, decoratedAnnotator.getName());
+            if (listener != null) {
+                listener.requestFinished();
+            }
+            if (!successful && AbortableRequestRegistry.isAborted()) {
+                // the request has been aborted since its task has been
+                // cancelled. This is not a failure of the annotator.
+                limiter.release();
+                breaker.requestAborted();
+            } else {
+                limiter.release(start, successful);
+                breaker.requestFinished(successful);
+            }
+        }
+
+        /**
+         * Waits for the limiter.
+         * 
+         * @return the time ({@link System#nanoTime()}) the request can be sent
+         */
+        protected long acquire() throws AnnotationException {
+            if (AbortableRequestRegistry.isAborted()) {
+                throw new RequestAbortedException("The requests of this task have been aborted.");
+            }
+            if (!breaker.allowRequest()) {
+                throw new AnnotatorUnavailableException("The circuit breaker of " + decoratedAnnotator.getName()
+                        + " is open since the annotator failed several times in a row.");
+            }
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                breaker.requestAborted();
+                Thread.currentThread().interrupt();
+                throw new AnnotationException("Interrupted while waiting for the request limiter of "
+                        + decoratedAnnotator.getName() + ".");
+            }
+            if (listener != null) {
+                listener.requestStarted();
+            }
+            return System.nanoTime();
+        }
+    }
+
+    private static class RequestLimitingD2W extends AbstractRequestLimitingAnnotator implements D2WSystem {
+
+        public RequestLimitingD2W(D2WSystem decoratedAnnotator, AnnotatorRequestLimiter limiter,
+                AnnotatorCircuitBreaker breaker) {
+            super(decoratedAnnotator, limiter, breaker);
+        }
+
+        @Override
+        public HashSet<Annotation> solveD2W(String text, HashSet<Mention> mentions) throws AnnotationException {
+            long start = acquire();
+            boolean successful = false;
+            try {
+                HashSet<Annotation> result = ((D2WSystem) decoratedAnnotator).solveD2W(text, mentions);
+                successful = true;
+                return result;
+            } catch (AnnotatorRequestRejectedException e) {
+                successful = true;
+                throw e;
+            } finally {
+                release(start, successful);
+            }
+        }
+    }
+
+    private static class RequestLimitingA2W extends RequestLimitingD2W implements A2WSystem {
+
+        public RequestLimitingA2W(A2WSystem decoratedAnnotator, AnnotatorRequestLimiter limiter,
+                AnnotatorCircuitBreaker breaker) {
+            super(decoratedAnnotator, limiter, breaker);
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            return RequestLimitingAnnotatorDecorator.solveC2W(this, text);
+        }
+
+        @Override
+        public HashSet<Annotation> solveA2W(String text) throws AnnotationException {
+            long start = acquire();
+            boolean successful = false;
+            try {
+                HashSet<Annotation> result = ((A2WSystem) decoratedAnnotator).solveA2W(text);
+                successful = true;
+                return result;
+            } catch (AnnotatorRequestRejectedException e) {
+                successful = true;
+                throw e;
+            } finally {
+                release(start, successful);
+            }
+        }
+    }
+
+    private static class RequestLimitingSa2W extends RequestLimitingA2W implements Sa2WSystem {
+
+        public RequestLimitingSa2W(Sa2WSystem decoratedAnnotator, AnnotatorRequestLimiter limiter,
+                AnnotatorCircuitBreaker breaker) {
+            super(decoratedAnnotator, limiter, breaker);
+        }
+
+        @Override
+        public HashSet<ScoredTag> solveSc2W(String text) throws AnnotationException {
+            return RequestLimitingAnnotatorDecorator.solveSc2W(this, text);
+        }
+
+        @Override
+        public HashSet<ScoredAnnotation> solveSa2W(String text) throws AnnotationException {
+            long start = acquire();
+            boolean successful = false;
+            try {
+                HashSet<ScoredAnnotation> result = ((Sa2WSystem) decoratedAnnotator).solveSa2W(text);
+                successful = true;
+                return result;
+            } catch (AnnotatorRequestRejectedException e) {
+                successful = true;
+                throw e;
+            } finally {
+                release(start, successful);
+            }
+        }
+    }
+
+    private static class RequestLimitingC2W extends AbstractRequestLimitingAnnotator implements C2WSystem {
+
+        public RequestLimitingC2W(C2WSystem decoratedAnnotator, AnnotatorRequestLimiter limiter,
+                AnnotatorCircuitBreaker breaker) {
+            super(decoratedAnnotator, limiter, breaker);
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            return RequestLimitingAnnotatorDecorator.solveC2W(this, text);
+        }
+    }
+
+    private static class RequestLimitingSc2W extends RequestLimitingC2W implements Sc2WSystem {
+
+        public RequestLimitingSc2W(Sc2WSystem decoratedAnnotator, AnnotatorRequestLimiter limiter,
+                AnnotatorCircuitBreaker breaker) {
+            super(decoratedAnnotator, limiter, breaker);
+        }
+
+        @Override
+        public HashSet<ScoredTag> solveSc2W(String text) throws AnnotationException {
+            return RequestLimitingAnnotatorDecorator.solveSc2W(this, text);
+        }
+    }
+
+    protected static HashSet<Tag> solveC2W(AbstractRequestLimitingAnnotator annotator, String text)
+            throws AnnotationException {
+        long start = annotator.acquire();
+        boolean successful = false;
+        try {
+            HashSet<Tag> result = ((C2WSystem) annotator.getDecoratedAnnotator()).solveC2W(text);
+            successful = true;
+            return result;
+        } catch (AnnotatorRequestRejectedException e) {
+            successful = true;
+            throw e;
+        } finally {
+            annotator.release(start, successful);
+        }
+    }
+
+    protected static HashSet<ScoredTag> solveSc2W(AbstractRequestLimitingAnnotator annotator, String text)
+            throws AnnotationException {
+        long start = annotator.acquire();
+        boolean successful = false;
+        try {
+            HashSet<ScoredTag> result = ((Sc2WSystem) annotator.getDecoratedAnnotator()).solveSc2W(text);
+            successful = true;
+            return result;
+        } catch (AnnotatorRequestRejectedException e) {
+            successful = true;
+            throw e;
+        } finally {
+            annotator.release(start, successful);
+        }
+    }
+}
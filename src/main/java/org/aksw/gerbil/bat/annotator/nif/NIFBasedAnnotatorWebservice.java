@@ -32,11 +32,21 @@ import it.acubelab.batframework.systemPlugins.DBPediaApi;
 import it.acubelab.batframework.utils.AnnotationException;
 import it.acubelab.batframework.utils.WikipediaApiInterface;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.aksw.gerbil.bat.annotator.AbortableRequestRegistry;
+import org.aksw.gerbil.bat.annotator.AnnotatorRequestRejectedException;
+import org.aksw.gerbil.bat.annotator.RequestAbortedException;
+import org.aksw.gerbil.bat.annotator.RequestHedger;
+import org.aksw.gerbil.metrics.Counter;
+import org.aksw.gerbil.metrics.Gauge;
+import org.aksw.gerbil.metrics.MetricsRegistry;
 import org.aksw.gerbil.transfer.nif.Document;
 import org.aksw.gerbil.transfer.nif.NIFDocumentCreator;
 import org.aksw.gerbil.transfer.nif.NIFDocumentParser;
@@ -49,33 +59,123 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class NIFBasedAnnotatorWebservice implements Sa2WSystem {
+/**
+ * Sends the documents to a NIF based annotator web service. The connection
+ * pool of an instance is published as gauges labeled with the metric label of
+ * the instance. User defined web services share the
+ * {@link #USER_DEFINED_METRIC_LABEL} to keep the number of time series small.
+ * The gauges are removed when the instance is closed.
+ */
+public class NIFBasedAnnotatorWebservice implements Sa2WSystem, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NIFBasedAnnotatorWebservice.class);
 
+    private static final int MAX_PARALLEL_CONNECTIONS = 20;
+
     private static final String DOCUMENT_URI = "http://www.aksw.org/gerbil/NifWebService/request_";
 
+    /**
+     * The metric label of web services whose names are defined by the users.
+     */
+    public static final String USER_DEFINED_METRIC_LABEL = "user defined";
+    private static final String POOL_STATES[] = { "leased", "pending", "available", "max" };
+
+    private static final Gauge HTTP_POOL_CONNECTIONS = MetricsRegistry.getInstance().gauge(
+            "gerbil_annotator_http_pool_connections",
+            "Connections of the HTTP connection pool of a NIF based annotator by their state.", "annotator", "state");
+    private static final Counter HTTP_RESPONSES = MetricsRegistry.getInstance().counter(
+            "gerbil_annotator_http_responses_total",
+            "Responses of NIF based annotators by their HTTP status code (\"none\" if the request failed).",
+            "annotator", "status");
+
     private String url;
     private String name;
+    private String metricLabel;
+    private Gauge.Value poolValues[];
     private CloseableHttpClient client;
     // private long lastRequestSend = 0;
     // private long lastResponseReceived = 0;
-    private int documentCount = 0;
+    private AtomicInteger documentCount = new AtomicInteger();
     private NIFDocumentCreator nifCreator = new TurtleNIFDocumentCreator();
     private NIFDocumentParser nifParser = new TurtleNIFDocumentParser();
     private WikipediaApiInterface wikiApi;
     private DBPediaApi dbpediaApi;
+    private RequestHedger hedger;
 
     public NIFBasedAnnotatorWebservice(String url, String name, WikipediaApiInterface wikiApi, DBPediaApi dbpediaApi) {
+        this(url, name, name, wikiApi, dbpediaApi);
+    }
+
+    /**
+     * @param metricLabel
+     *            the label of the metrics of this instance, e.g.,
+     *            {@link #USER_DEFINED_METRIC_LABEL} if the name has been
+     *            defined by a user
+     */
+    public NIFBasedAnnotatorWebservice(String url, String name, String metricLabel, WikipediaApiInterface wikiApi,
+            DBPediaApi dbpediaApi) {
         this.url = url;
         this.name = name;
+        this.metricLabel = metricLabel;
         this.wikiApi = wikiApi;
         this.dbpediaApi = dbpediaApi;
-        client = HttpClients.createDefault();
+        this.hedger = RequestHedger.getHedger(name);
+        // the instance might be shared by several experiment tasks
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(MAX_PARALLEL_CONNECTIONS);
+        connectionManager.setMaxTotal(MAX_PARALLEL_CONNECTIONS);
+        client = HttpClients.custom().setConnectionManager(connectionManager).build();
+        poolValues = createPoolValues(connectionManager);
+        for (int i = 0; i < POOL_STATES.length; ++i) {
+            // a pool of an older instance with the same label is replaced
+            HTTP_POOL_CONNECTIONS.register(poolValues[i], metricLabel, POOL_STATES[i]);
+        }
+    }
+
+    /**
+     * Creates the values of the number of leased, pending and available
+     * connections and the maximum number of connections of the given pool in
+     * the order of {@link #POOL_STATES}.
+     */
+    private static Gauge.Value[] createPoolValues(final PoolingHttpClientConnectionManager connectionManager) {
+        return new Gauge.Value[] { new Gauge.Value() {
+            @Override
+            public double getValue() {
+                return connectionManager.getTotalStats().getLeased();
+            }
+        }, new Gauge.Value() {
+            @Override
+            public double getValue() {
+                return connectionManager.getTotalStats().getPending();
+            }
+        }, new Gauge.Value() {
+            @Override
+            public double getValue() {
+                return connectionManager.getTotalStats().getAvailable();
+            }
+        }, new Gauge.Value() {
+            @Override
+            public double getValue() {
+                return connectionManager.getMaxTotal();
+            }
+        } };
+    }
+
+    /**
+     * Removes the gauges of the connection pool if they haven't been replaced
+     * by a newer instance and closes the pool.
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < POOL_STATES.length; ++i) {
+            HTTP_POOL_CONNECTIONS.remove(poolValues[i], metricLabel, POOL_STATES[i]);
+        }
+        client.close();
     }
 
     @Override
@@ -148,11 +248,30 @@ public class NIFBasedAnnotatorWebservice implements Sa2WSystem {
 
     protected Document request(Document document) {
         // give the document a URI
-        document.setDocumentURI(DOCUMENT_URI + documentCount);
-        ++documentCount;
+        document.setDocumentURI(DOCUMENT_URI + documentCount.getAndIncrement());
         LOGGER.info("Started request for {}", document.getDocumentURI());
         // create NIF document
-        String nifDocument = nifCreator.getDocumentAsNIFString(document);
+        final String nifDocument = nifCreator.getDocumentAsNIFString(document);
+        // slow requests might be sent a second time
+        document = hedger.execute(new Callable<Document>() {
+            @Override
+            public Document call() throws Exception {
+                return sendRequest(nifDocument);
+            }
+        });
+        LOGGER.info("Finished request for {}", document.getDocumentURI());
+        return document;
+    }
+
+    /**
+     * Sends the given NIF document to the web service and parses the response.
+     * Since the request might be hedged, this method can be called several
+     * times in parallel. The request is registered at the
+     * {@link AbortableRequestRegistry}, i.e., it is aborted if the experiment
+     * task it belongs to is cancelled or if it exceeds its deadline.
+     */
+    protected Document sendRequest(String nifDocument) {
+        Document document;
         HttpEntity entity = null;
         try {
             entity = new StringEntity(nifDocument, "UTF-8");
@@ -171,18 +290,29 @@ public class NIFBasedAnnotatorWebservice implements Sa2WSystem {
         entity = null;
         CloseableHttpResponse response = null;
         InputStreamReader reader = null;
+        AbortableRequestRegistry.register(request);
         try {
             try {
                 response = client.execute(request);
             } catch (Exception e) {
+                HTTP_RESPONSES.inc(metricLabel, "none");
+                checkAborted(request);
                 LOGGER.error("Exception while sending request.", e);
                 throw new AnnotationException("Exception while sending request. "
                         + e.getLocalizedMessage());
             }
             StatusLine status = response.getStatusLine();
+            HTTP_RESPONSES.inc(metricLabel, Integer.toString(status.getStatusCode()));
             if ((status.getStatusCode() < 200) || (status.getStatusCode() >= 300)) {
                 LOGGER.error("Response has the wrong status: " + status.toString());
-                throw new AnnotationException("Response has the wrong status: " + status.toString());
+                if (status.getStatusCode() >= 500) {
+                    throw new AnnotationException("Response has the wrong status: " + status.toString());
+                } else {
+                    // the web service is available but couldn't handle this
+                    // document
+                    throw new AnnotatorRequestRejectedException("Response has the wrong status: "
+                            + status.toString());
+                }
             }
             // receive NIF document (end time measure and set time)
             entity = response.getEntity();
@@ -192,8 +322,13 @@ public class NIFBasedAnnotatorWebservice implements Sa2WSystem {
                 reader = new InputStreamReader(entity.getContent());
                 document = nifParser.getDocumentFromNIFReader(reader);
             } catch (Exception e) {
+                checkAborted(request);
                 LOGGER.error("Couldn't parse the response.", e);
-                throw new AnnotationException("Couldn't parse the response. "
+                if (e instanceof IOException) {
+                    // the response couldn't be received completely
+                    throw new AnnotationException("Couldn't read the response. " + e.getLocalizedMessage());
+                }
+                throw new AnnotatorRequestRejectedException("Couldn't parse the response. "
                         + e.getLocalizedMessage());
             }
         } finally {
@@ -215,8 +350,20 @@ public class NIFBasedAnnotatorWebservice implements Sa2WSystem {
                 } catch (IOException e) {
                 }
             }
+            AbortableRequestRegistry.unregister(request);
         }
-        LOGGER.info("Finished request for {}", document.getDocumentURI());
         return document;
     }
+
+    private static void checkAborted(HttpPost request) throws AnnotationException {
+        if (request.isAborted()) {
+            if (AbortableRequestRegistry.isAborted()) {
+                throw new RequestAbortedException("The request has been aborted.");
+            }
+            // only this request has been aborted since it exceeded its
+            // deadline, i.e., it failed
+            LOGGER.error("The request has been aborted since it exceeded its deadline.");
+            throw new AnnotationException("The request has been aborted since it exceeded its deadline.");
+        }
+    }
 }
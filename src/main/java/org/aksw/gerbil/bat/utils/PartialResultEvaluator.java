@@ -0,0 +1,93 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.utils;
+
+import it.acubelab.batframework.metrics.MatchRelation;
+import it.acubelab.batframework.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.aksw.gerbil.datatypes.ExperimentTaskState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates the result of a single document directly after the annotator
+ * returned it and adds the true positive, false positive and false negative
+ * counts to the given {@link ExperimentTaskState}. The result of the annotator
+ * has to be transformed into the type of the gold standard by implementing the
+ * {@link #transformResult(int, HashSet)} method.
+ * 
+ * Note that the partial results are only provisional. Problems occurring during
+ * the evaluation of a single document are logged and disable the partial
+ * evaluation for the remaining documents, but they never cause the experiment
+ * to fail.
+ * 
+ * @param <R>
+ *            the type of the annotator result
+ * @param <T>
+ *            the type of the gold standard
+ */
+public abstract class PartialResultEvaluator<R, T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartialResultEvaluator.class);
+
+    private Metrics<T> metrics = new Metrics<T>();
+    private MatchRelation<T> matching;
+    private List<HashSet<T>> goldStandard;
+    private ExperimentTaskState state;
+    private boolean disabled = false;
+
+    public PartialResultEvaluator(MatchRelation<T> matching, List<HashSet<T>> goldStandard, ExperimentTaskState state) {
+        this.matching = matching;
+        this.goldStandard = goldStandard;
+        this.state = state;
+    }
+
+    public void evaluate(int documentId, HashSet<R> annotatorResult) {
+        if (disabled) {
+            return;
+        }
+        try {
+            List<HashSet<T>> output = new ArrayList<HashSet<T>>(1);
+            output.add(transformResult(documentId, annotatorResult));
+            output = matching.preProcessOutput(output);
+            List<HashSet<T>> gold = new ArrayList<HashSet<T>>(1);
+            gold.add(goldStandard.get(documentId));
+            gold = matching.preProcessGoldStandard(gold);
+            HashSet<T> documentOutput = output.get(0);
+            HashSet<T> documentGold = gold.get(0);
+            state.addDocumentResult(metrics.getSingleTp(documentGold, documentOutput, matching).size(), metrics
+                    .getSingleFp(documentGold, documentOutput, matching).size(),
+                    metrics.getSingleFn(documentGold, documentOutput, matching).size());
+        } catch (Exception e) {
+            LOGGER.warn("Couldn't evaluate the result of document #" + documentId
+                    + ". Partial results won't be available for this experiment task.", e);
+            disabled = true;
+        }
+    }
+
+    protected abstract HashSet<T> transformResult(int documentId, HashSet<R> annotatorResult) throws Exception;
+}
@@ -53,12 +53,17 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Vector;
 
+import org.aksw.gerbil.datatypes.EvaluationEvent;
 import org.aksw.gerbil.datatypes.ExperimentTaskState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Static methods to run the experiments. A set of annotators are run on a set
  * of datasets, and the metrics are computer according to a set of match
- * relations. The result is written in resulting hash tables.
+ * relations. The result is written in resulting hash tables. The progress of
+ * the evaluation is reported as {@link EvaluationEvent}s using the given
+ * {@link ExperimentTaskState} instead of printing it to <code>System.out</code>.
  * 
  * Original class implemented by the A-cube lab - Università di Pisa -
  * Dipartimento di Informatica has been adapted for GERBIL.
@@ -67,7 +72,15 @@ import org.aksw.gerbil.datatypes.ExperimentTaskState;
  */
 public class RunExperiments {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunExperiments.class);
+
     private static double THRESHOLD_STEP = 1. / 128.;
+    private static final int NUMBER_OF_THRESHOLDS = (int) (1 / THRESHOLD_STEP) + 1;
+
+    private static void fireEvent(ExperimentTaskState state, EvaluationEvent.Type type, String annotatorName,
+            String datasetName, String matchingName, int value) {
+        state.fireEvaluationEvent(new EvaluationEvent(type, annotatorName, datasetName, matchingName, value));
+    }
 
     public static void computeMetricsA2WFakeReductionToSa2W(MatchRelation<Annotation> m, A2WSystem tagger,
             A2WDataset ds, ExperimentTaskState state, WikipediaApiInterface api,
@@ -75,13 +88,23 @@ public class RunExperiments {
             throws Exception {
         Metrics<Annotation> metrics = new Metrics<Annotation>();
         float threshold = 0;
-        System.out.print("Doing annotations... ");
-        List<HashSet<Annotation>> computedAnnotations = doA2WAnnotations(tagger, ds, state);
-        System.out.println("Done.");
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<Annotation>> computedAnnotations = doA2WAnnotations(tagger, ds, state,
+                new PartialResultEvaluator<Annotation, Annotation>(m, ds.getA2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Annotation> transformResult(int documentId, HashSet<Annotation> annotatorResult) {
+                        return annotatorResult;
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         for (threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
             MetricsResultSet rs = metrics.getResult(computedAnnotations, ds.getA2WGoldStandardList(), m);
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
     public static void computeMetricsA2WReducedFromSa2W(MatchRelation<Annotation> m, Sa2WSystem tagger, A2WDataset ds,
@@ -89,17 +112,26 @@ public class RunExperiments {
             HashMap<String, HashMap<String, HashMap<String, HashMap<Float, MetricsResultSet>>>> results)
             throws Exception {
         Metrics<Annotation> metrics = new Metrics<Annotation>();
-        System.out.println("Doing annotations... ");
-        List<HashSet<ScoredAnnotation>> computedAnnotations = doSa2WAnnotations(tagger, ds, state);
-        System.out.println("Done with all documents.");
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<ScoredAnnotation>> computedAnnotations = doSa2WAnnotations(tagger, ds, state,
+                new PartialResultEvaluator<ScoredAnnotation, Annotation>(m, ds.getA2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Annotation> transformResult(int documentId,
+                            HashSet<ScoredAnnotation> annotatorResult) {
+                        return ProblemReduction.Sa2WToA2W(annotatorResult, 0);
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         for (double threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
-            System.out.println("Testing with tagger: " + tagger.getName() + " dataset: " + ds.getName()
-                    + " score threshold: " + threshold);
             List<HashSet<Annotation>> reducedTags = ProblemReduction.Sa2WToA2WList(computedAnnotations,
                     (float) threshold);
             MetricsResultSet rs = metrics.getResult(reducedTags, ds.getA2WGoldStandardList(), m);
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
     public static void computeMetricsC2WReducedFromSa2W(MatchRelation<Tag> m, Sa2WSystem tagger, C2WDataset ds,
@@ -107,12 +139,18 @@ public class RunExperiments {
             HashMap<String, HashMap<String, HashMap<String, HashMap<Float, MetricsResultSet>>>> results)
             throws Exception {
         Metrics<Tag> metrics = new Metrics<Tag>();
-        System.out.println("Doing annotations... ");
-        List<HashSet<ScoredAnnotation>> computedAnnotations = doSa2WAnnotations(tagger, ds, state);
-        System.out.println("Done with all documents.");
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<ScoredAnnotation>> computedAnnotations = doSa2WAnnotations(tagger, ds, state,
+                new PartialResultEvaluator<ScoredAnnotation, Tag>(m, ds.getC2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Tag> transformResult(int documentId, HashSet<ScoredAnnotation> annotatorResult) {
+                        return ProblemReduction.A2WToC2W(ProblemReduction.Sa2WToA2W(annotatorResult, 0));
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         for (double threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
-            System.out.println("Testing with tagger: " + tagger.getName() + " dataset: " + ds.getName()
-                    + " score threshold: " + threshold);
             List<HashSet<Annotation>> reducedAnnotations = ProblemReduction.Sa2WToA2WList(computedAnnotations,
                     (float) threshold);
             List<HashSet<Tag>> reducedTags = ProblemReduction.A2WToC2WList(reducedAnnotations);
@@ -120,6 +158,8 @@ public class RunExperiments {
             MetricsResultSet rs = metrics.getResult(reducedTags, reducedGs, m);
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
     public static void computeMetricsC2WReducedFromSc2W(MatchRelation<Tag> m, Sc2WSystem tagger, C2WDataset ds,
@@ -128,18 +168,26 @@ public class RunExperiments {
             throws Exception {
         Metrics<Tag> metrics = new Metrics<Tag>();
         double threshold = 0;
-        System.out.print("Doing annotations... ");
-        List<HashSet<ScoredTag>> computedAnnotations = doSc2WTags(tagger, ds, state);
-        System.out.println("Done.");
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<ScoredTag>> computedAnnotations = doSc2WTags(tagger, ds, state,
+                new PartialResultEvaluator<ScoredTag, Tag>(m, ds.getC2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Tag> transformResult(int documentId, HashSet<ScoredTag> annotatorResult) {
+                        return ProblemReduction.Sc2WToC2W(annotatorResult, 0);
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         for (threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
-            System.out.println("Testing with tagger: " + tagger.getName() + " dataset: " + ds.getName()
-                    + " score threshold: " + threshold);
             List<HashSet<Tag>> reducedAnnotations = ProblemReduction.Sc2WToC2WList(computedAnnotations,
                     (float) threshold);
             List<HashSet<Tag>> reducedGs = ds.getC2WGoldStandardList();
             MetricsResultSet rs = metrics.getResult(reducedAnnotations, reducedGs, m);
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
     public static void computeMetricsC2W(MatchRelation<Tag> m, C2WSystem tagger, C2WDataset ds,
@@ -148,15 +196,23 @@ public class RunExperiments {
             throws Exception {
         Metrics<Tag> metrics = new Metrics<Tag>();
         double threshold = 0;
-        System.out.print("Doing annotations... ");
-        List<HashSet<Tag>> computedAnnotations = doC2WTags(tagger, ds, state);
-        System.out.println("Done.");
-        System.out.println("Testing with tagger: " + tagger.getName() + " dataset: " + ds.getName()
-                + " (no score thr.)");
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<Tag>> computedAnnotations = doC2WTags(tagger, ds, state,
+                new PartialResultEvaluator<Tag, Tag>(m, ds.getC2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Tag> transformResult(int documentId, HashSet<Tag> annotatorResult) {
+                        return annotatorResult;
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         MetricsResultSet rs = metrics.getResult(computedAnnotations, ds.getC2WGoldStandardList(), m);
         for (threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
     public static void computeMetricsD2WFakeReductionToSa2W(D2WSystem tagger, D2WDataset ds, ExperimentTaskState state,
@@ -166,33 +222,52 @@ public class RunExperiments {
         Metrics<Annotation> metrics = new Metrics<Annotation>();
         StrongAnnotationMatch m = new StrongAnnotationMatch(api);
         float threshold = 0;
-        System.out.print("Doing native D2W annotations... ");
-        List<HashSet<Annotation>> computedAnnotations = doD2WAnnotations(tagger, ds, state);
-        System.out.println("Done with all documents.");
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<Annotation>> computedAnnotations = doD2WAnnotations(tagger, ds, state,
+                new PartialResultEvaluator<Annotation, Annotation>(m, ds.getD2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Annotation> transformResult(int documentId, HashSet<Annotation> annotatorResult) {
+                        return annotatorResult;
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         for (threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
             MetricsResultSet rs = metrics.getResult(computedAnnotations, ds.getD2WGoldStandardList(), m);
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
-    public static void computeMetricsD2WReducedFromSa2W(Sa2WSystem tagger, D2WDataset ds, ExperimentTaskState state,
-            WikipediaApiInterface api,
+    public static void computeMetricsD2WReducedFromSa2W(Sa2WSystem tagger, final D2WDataset ds,
+            ExperimentTaskState state, WikipediaApiInterface api,
             HashMap<String, HashMap<String, HashMap<String, HashMap<Float, MetricsResultSet>>>> results)
             throws Exception {
         Metrics<Annotation> metrics = new Metrics<Annotation>();
         StrongAnnotationMatch m = new StrongAnnotationMatch(api);
-        System.out.println("Doing annotations... ");
-        List<HashSet<ScoredAnnotation>> computedAnnotations = doSa2WAnnotations(tagger, ds, state);
-        System.out.println("Done with all documents.");
-        System.out.printf("Testing with tagger: %s, dataset: %s, for values of the score threshold in [0,1].%n",
-                tagger.getName(), ds.getName());
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_STARTED, tagger.getName(), ds.getName(), m.getName(),
+                ds.getSize());
+        List<HashSet<ScoredAnnotation>> computedAnnotations = doSa2WAnnotations(tagger, ds, state,
+                new PartialResultEvaluator<ScoredAnnotation, Annotation>(m, ds.getD2WGoldStandardList(), state) {
+                    @Override
+                    protected HashSet<Annotation> transformResult(int documentId,
+                            HashSet<ScoredAnnotation> annotatorResult) {
+                        return ProblemReduction.Sa2WToD2W(annotatorResult,
+                                ds.getMentionsInstanceList().get(documentId), 0);
+                    }
+                });
+        fireEvent(state, EvaluationEvent.Type.ANNOTATION_FINISHED, tagger.getName(), ds.getName(), m.getName(),
+                computedAnnotations.size());
         for (double threshold = 0; threshold <= 1; threshold += THRESHOLD_STEP) {
-
             List<HashSet<Annotation>> reducedAnns = ProblemReduction.Sa2WToD2WList(computedAnnotations,
                     ds.getMentionsInstanceList(), (float) threshold);
             MetricsResultSet rs = metrics.getResult(reducedAnns, ds.getD2WGoldStandardList(), m);
             updateThresholdRecords(results, m.getName(), tagger.getName(), ds.getName(), (float) threshold, rs);
         }
+        fireEvent(state, EvaluationEvent.Type.THRESHOLDS_EVALUATED, tagger.getName(), ds.getName(), m.getName(),
+                NUMBER_OF_THRESHOLDS);
     }
 
     public static HashMap<String, HashMap<String, HashMap<String, HashMap<Float, MetricsResultSet>>>> performC2WExpVarThreshold(
@@ -202,7 +277,6 @@ public class RunExperiments {
         HashMap<String, HashMap<String, HashMap<String, HashMap<Float, MetricsResultSet>>>> result = new HashMap<String, HashMap<String, HashMap<String, HashMap<Float, MetricsResultSet>>>>();
         for (MatchRelation<Tag> m : matchRels)
             for (C2WDataset ds : dss) {
-                System.out.println("Testing " + ds.getName() + " with score threshold parameter...");
 
                 if (sa2wAnnotators != null)
                     for (Sa2WSystem t : sa2wAnnotators) {
@@ -218,7 +292,7 @@ public class RunExperiments {
                         computeMetricsC2W(m, t, ds, api, state, result);
                     }
 
-                System.out.println("Flushing Wikipedia API cache...");
+                LOGGER.debug("Flushing Wikipedia API cache...");
                 api.flush();
             }
         return result;
@@ -232,19 +306,15 @@ public class RunExperiments {
             for (A2WDataset ds : dss) {
                 if (sa2wTaggers != null)
                     for (Sa2WSystem t : sa2wTaggers) {
-                        System.out.println("Testing " + ds.getName() + " on " + t.getName()
-                                + " with score threshold parameter...");
                         computeMetricsA2WReducedFromSa2W(metric, t, ds, state, api, result);
                     }
 
                 if (a2wTaggers != null)
                     for (A2WSystem t : a2wTaggers) {
-                        System.out.println("Testing " + ds.getName() + " on " + t.getName()
-                                + " with score threshold parameter...");
                         computeMetricsA2WFakeReductionToSa2W(metric, t, ds, state, api, result);
                     }
 
-                System.out.println("Flushing Wikipedia API cache...");
+                LOGGER.debug("Flushing Wikipedia API cache...");
                 api.flush();
             }
         }
@@ -258,18 +328,14 @@ public class RunExperiments {
         for (D2WDataset ds : dss) {
             if (sa2wAnnotators != null)
                 for (Sa2WSystem t : sa2wAnnotators) {
-                    System.out.println("Testing " + ds.getName() + " on " + t.getName()
-                            + " with score threshold parameter...");
                     computeMetricsD2WReducedFromSa2W(t, ds, state, api, result);
                 }
             if (d2wAnnotators != null)
                 for (D2WSystem t : d2wAnnotators) {
-                    System.out.println("Testing " + ds.getName() + " on " + t.getName()
-                            + " with score threshold parameter...");
                     computeMetricsD2WFakeReductionToSa2W(t, ds, state, api, result);
                 }
 
-            System.out.println("Flushing Wikipedia API cache...");
+            LOGGER.debug("Flushing Wikipedia API cache...");
             api.flush();
         }
         return result;
@@ -425,10 +491,19 @@ public class RunExperiments {
 
     public static List<HashSet<ScoredAnnotation>> doSa2WAnnotations(Sa2WSystem annotator, TopicDataset ds,
             ExperimentTaskState state) throws Exception {
+        return doSa2WAnnotations(annotator, ds, state, null);
+    }
+
+    public static List<HashSet<ScoredAnnotation>> doSa2WAnnotations(Sa2WSystem annotator, TopicDataset ds,
+            ExperimentTaskState state, PartialResultEvaluator<ScoredAnnotation, ?> evaluator) throws Exception {
         List<HashSet<ScoredAnnotation>> computedAnns = new Vector<HashSet<ScoredAnnotation>>();
         HashSet<ScoredAnnotation> res;
         for (String doc : ds.getTextInstanceList()) {
+            state.checkCancelled();
             res = annotator.solveSa2W(doc);
+            if (evaluator != null) {
+                evaluator.evaluate(computedAnns.size(), res);
+            }
             computedAnns.add(res);
             state.increaseExperimentStepCount();
         }
@@ -449,10 +524,34 @@ public class RunExperiments {
      */
     public static List<HashSet<Annotation>> doA2WAnnotations(A2WSystem annotator, C2WDataset ds,
             ExperimentTaskState state) throws Exception {
+        return doA2WAnnotations(annotator, ds, state, null);
+    }
+
+    /**
+     * Use the given tagger to annotate the whole dataset.
+     * 
+     * @param annotator
+     *            the system used to tag the dataset.
+     * @param datasetTexts
+     *            the documents of the dataset.
+     * @param evaluator
+     *            evaluates the result of every single document to update the
+     *            provisional results inside the state (can be null).
+     * @return a list containing the annotations found by the tagger. The
+     *         annotations are in the same order of the documents given by
+     *         argument.
+     * @throws Exception
+     */
+    public static List<HashSet<Annotation>> doA2WAnnotations(A2WSystem annotator, C2WDataset ds,
+            ExperimentTaskState state, PartialResultEvaluator<Annotation, ?> evaluator) throws Exception {
         List<HashSet<Annotation>> computedAnns = new Vector<HashSet<Annotation>>();
         HashSet<Annotation> res;
         for (String doc : ds.getTextInstanceList()) {
+            state.checkCancelled();
             res = annotator.solveA2W(doc);
+            if (evaluator != null) {
+                evaluator.evaluate(computedAnns.size(), res);
+            }
             computedAnns.add(res);
             state.increaseExperimentStepCount();
         }
@@ -461,6 +560,11 @@ public class RunExperiments {
 
     public static List<HashSet<Annotation>> doD2WAnnotations(D2WSystem annotator, D2WDataset ds,
             ExperimentTaskState state) throws Exception {
+        return doD2WAnnotations(annotator, ds, state, null);
+    }
+
+    public static List<HashSet<Annotation>> doD2WAnnotations(D2WSystem annotator, D2WDataset ds,
+            ExperimentTaskState state, PartialResultEvaluator<Annotation, ?> evaluator) throws Exception {
         List<HashSet<Annotation>> computedAnns = new ArrayList<HashSet<Annotation>>();
         String doc;
         HashSet<Mention> mentions;
@@ -468,7 +572,11 @@ public class RunExperiments {
         for (int i = 0; i < ds.getTextInstanceList().size(); i++) {
             doc = ds.getTextInstanceList().get(i);
             mentions = ds.getMentionsInstanceList().get(i);
+            state.checkCancelled();
             res = annotator.solveD2W(doc, mentions);
+            if (evaluator != null) {
+                evaluator.evaluate(i, res);
+            }
             computedAnns.add(res);
             state.increaseExperimentStepCount();
         }
@@ -477,10 +585,19 @@ public class RunExperiments {
 
     public static List<HashSet<Tag>> doC2WTags(C2WSystem tagger, C2WDataset ds, ExperimentTaskState state)
             throws Exception {
+        return doC2WTags(tagger, ds, state, null);
+    }
+
+    public static List<HashSet<Tag>> doC2WTags(C2WSystem tagger, C2WDataset ds, ExperimentTaskState state,
+            PartialResultEvaluator<Tag, ?> evaluator) throws Exception {
         List<HashSet<Tag>> computedTags = new Vector<HashSet<Tag>>();
         HashSet<Tag> res;
         for (String doc : ds.getTextInstanceList()) {
+            state.checkCancelled();
             res = tagger.solveC2W(doc);
+            if (evaluator != null) {
+                evaluator.evaluate(computedTags.size(), res);
+            }
             computedTags.add(res);
             state.increaseExperimentStepCount();
         }
@@ -489,10 +606,19 @@ public class RunExperiments {
 
     public static List<HashSet<ScoredTag>> doSc2WTags(Sc2WSystem tagger, C2WDataset ds, ExperimentTaskState state)
             throws Exception {
+        return doSc2WTags(tagger, ds, state, null);
+    }
+
+    public static List<HashSet<ScoredTag>> doSc2WTags(Sc2WSystem tagger, C2WDataset ds, ExperimentTaskState state,
+            PartialResultEvaluator<ScoredTag, ?> evaluator) throws Exception {
         List<HashSet<ScoredTag>> computedTags = new Vector<HashSet<ScoredTag>>();
         HashSet<ScoredTag> res;
         for (String doc : ds.getTextInstanceList()) {
+            state.checkCancelled();
             res = tagger.solveSc2W(doc);
+            if (evaluator != null) {
+                evaluator.evaluate(computedTags.size(), res);
+            }
             computedTags.add(res);
             state.increaseExperimentStepCount();
         }
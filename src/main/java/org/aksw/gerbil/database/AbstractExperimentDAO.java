@@ -24,8 +24,9 @@ package org.aksw.gerbil.database;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +53,7 @@ public abstract class AbstractExperimentDAO implements ExperimentDAO {
 
     protected long resultDurability;
     protected boolean initialized = false;
+    protected List<ExperimentTaskFinishedListener> listeners = new CopyOnWriteArrayList<ExperimentTaskFinishedListener>();
 
     public AbstractExperimentDAO() {
     }
@@ -68,23 +70,51 @@ public abstract class AbstractExperimentDAO implements ExperimentDAO {
     public void initialize() {
         if (!initialized) {
             /*
-             * We only have to set back the status of experiments that were
+             * We only have to queue the experiment tasks again that were
              * running while the server has been stopped.
              */
-            setRunningExperimentsToError();
+            requeueUnfinishedTasks();
         }
     }
 
     /**
      * Searches the database for experiment tasks that have been started but not
-     * ended yet (their status equals {@link #TASK_STARTED_BUT_NOT_FINISHED_YET} ) and set their status to
-     * {@link ErrorTypes#SERVER_STOPPED_WHILE_PROCESSING}. This method should
-     * only be called directly after the initialization of the database. It
-     * makes sure that "old" experiment tasks which have been started but never
-     * finished are set to an error state and can't be used inside the caching
-     * mechanism.
+     * ended yet (their status equals {@link #TASK_STARTED_BUT_NOT_FINISHED_YET} ) and adds them to the task queue if
+     * they are not already part of it. Additionally, tasks whose lease expired
+     * are queued again. This method should only be called directly after the
+     * initialization of the database.
      */
-    protected abstract void setRunningExperimentsToError();
+    protected abstract void requeueUnfinishedTasks();
+
+    @Override
+    public void addExperimentTaskFinishedListener(ExperimentTaskFinishedListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Informs all registered listeners that the given experiment task reached
+     * a final state. Implementations should call this method after the state
+     * has been stored.
+     */
+    protected void notifyExperimentTaskFinished(int experimentTaskId, String experimentType, String matching) {
+        for (ExperimentTaskFinishedListener listener : listeners) {
+            try {
+                listener.experimentTaskFinished(experimentTaskId, experimentType, matching);
+            } catch (Exception e) {
+                LOGGER.error("Got an exception while informing a listener about a finished experiment task.", e);
+            }
+        }
+    }
+
+    @Override
+    public void queueTasks(int experimentTaskIds[], String experimentId) {
+        queueTasks(experimentTaskIds, experimentId, null, PRIORITY_BATCH);
+    }
+
+    @Override
+    public void queueTasks(int experimentTaskIds[], String experimentId, String submitter, int priority) {
+        queueTasks(experimentTaskIds, experimentId, submitter, priority, null, null);
+    }
 
     @Override
     public void setResultDurability(long resultDurability) {
@@ -113,12 +143,45 @@ public abstract class AbstractExperimentDAO implements ExperimentDAO {
         }
     }
 
+    /**
+     * Simple implementation of the bulk method that handles the single
+     * configurations one after the other. Implementations that are able to do
+     * this more efficiently should override this method.
+     */
+    @Override
+    public synchronized int[] connectCachedResultsOrCreateTasks(ExperimentTaskConfiguration configurations[],
+            boolean couldBeCached[], String experimentId) {
+        int taskIds[] = new int[configurations.length];
+        for (int i = 0; i < configurations.length; ++i) {
+            if (couldBeCached[i]) {
+                taskIds[i] = connectCachedResultOrCreateTask(configurations[i].annotatorConfig.getName(),
+                        configurations[i].datasetConfig.getName(), configurations[i].type.name(),
+                        configurations[i].matching.name(), experimentId);
+            } else {
+                taskIds[i] = createTask(configurations[i].annotatorConfig.getName(),
+                        configurations[i].datasetConfig.getName(), configurations[i].type.name(),
+                        configurations[i].matching.name(), experimentId);
+            }
+        }
+        return taskIds;
+    }
+
+    /**
+     * Creates a key that identifies the experiment tasks with the given
+     * preferences.
+     */
+    protected static String createTaskKey(String annotatorName, String datasetName, String experimentType,
+            String matching) {
+        return annotatorName + '\n' + datasetName + '\n' + experimentType + '\n' + matching;
+    }
+
     /**
      * The method checks whether there exists an experiment task with the given
      * preferences inside the database. If such a task exists, if it is not to
      * old regarding the durability of experiment task results and if its state
      * is not an error code, its experiment task id is returned. Otherwise {@link #EXPERIMENT_TASK_NOT_CACHED} is
-     * returned.
+     * returned. Note that the returned task might still be queued or running
+     * but finished tasks should be preferred.
      * 
      * <b>NOTE:</b> this method MUST be synchronized since it should only be
      * called by a single thread at once.
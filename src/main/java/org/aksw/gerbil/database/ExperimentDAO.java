@@ -24,9 +24,13 @@ package org.aksw.gerbil.database;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.Map;
 
 import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
 
 /**
  * This interface defines the methods a class has to implement for making the
@@ -60,14 +64,50 @@ public interface ExperimentDAO extends Closeable {
      */
     public static final int TASK_NOT_FOUND = -2;
 
+    /**
+     * State of a task inside the task queue indicating that the task is waiting
+     * for a worker.
+     */
+    public static final int QUEUE_STATE_QUEUED = 0;
+
+    /**
+     * State of a task inside the task queue indicating that the task has been
+     * claimed by a worker that is preparing its execution.
+     */
+    public static final int QUEUE_STATE_LEASED = 1;
+
+    /**
+     * State of a task inside the task queue indicating that the task is
+     * executed by a worker.
+     */
+    public static final int QUEUE_STATE_RUNNING = 2;
+
+    /**
+     * State of a task inside the task queue indicating that the worker
+     * finished the task.
+     */
+    public static final int QUEUE_STATE_FINISHED = 3;
+
+    /**
+     * Priority class of experiments inside the task queue that are executed
+     * after the interactive experiments.
+     */
+    public static final int PRIORITY_BATCH = 0;
+
+    /**
+     * Priority class of small experiments a user is waiting for. Their tasks
+     * are executed before the tasks of batch experiments.
+     */
+    public static final int PRIORITY_INTERACTIVE = 1;
+
     /**
      * Initializes the database. Searches the database for experiment tasks that
-     * have been started but not ended yet (their status equals {@link #TASK_STARTED_BUT_NOT_FINISHED_YET} ) and set
-     * their status to {@link ErrorTypes#SERVER_STOPPED_WHILE_PROCESSING}. This method should
-     * only be called directly after the initialization of the database. It
-     * makes sure that "old" experiment tasks which have been started but never
-     * finished are set to an error state and can't be used inside the caching
-     * mechanism.
+     * have been started but not ended yet (their status equals {@link #TASK_STARTED_BUT_NOT_FINISHED_YET} ) and
+     * adds them to the task queue again if they are not already queued or
+     * leased by a worker whose lease is still valid. This method should only be
+     * called directly after the initialization of the database. It makes sure
+     * that experiment tasks which have been interrupted by a restart of the
+     * server are executed again.
      */
     public void initialize();
 
@@ -102,6 +142,11 @@ public interface ExperimentDAO extends Closeable {
      * {@link #TASK_STARTED_BUT_NOT_FINISHED_YET}, connected to the given
      * experiment and the id of the newly created experiment task is returned.
      * 
+     * Note that the existing task might still be queued or running. In this
+     * case, the experiment gets the result of the task when it is finished,
+     * i.e., the task is not executed a second time. Finished tasks are
+     * preferred over tasks that are still running.
+     * 
      * <b>NOTE:</b> this method MUST be synchronized since it should only be
      * called by a single thread at once.
      * 
@@ -123,6 +168,41 @@ public interface ExperimentDAO extends Closeable {
     public int connectCachedResultOrCreateTask(String annotatorName, String datasetName, String experimentType,
             String matching, String experimentId);
 
+    /**
+     * Bulk version of
+     * {@link #connectCachedResultOrCreateTask(String, String, String, String, String)} and
+     * {@link #createTask(String, String, String, String, String)} that handles
+     * all experiment tasks of a single experiment at once. For every given
+     * configuration for which a cached result could be used, the method
+     * searches for an already existing experiment task. If such a task exists,
+     * it is connected to the experiment and
+     * {@link #CACHED_EXPERIMENT_TASK_CAN_BE_USED} is returned for this
+     * configuration. For all other configurations, a new experiment task is
+     * created and connected to the experiment. Like in
+     * {@link #connectCachedResultOrCreateTask(String, String, String, String, String)}
+     * , the existing tasks might still be queued or running. Configurations that
+     * occur several times inside the given array are connected to the same
+     * experiment task, even if they could not be cached.
+     * 
+     * <b>NOTE:</b> this method MUST be synchronized since it should only be
+     * called by a single thread at once.
+     * 
+     * @param configurations
+     *            the configurations of the experiment tasks
+     * @param couldBeCached
+     *            an array with the same length as the configurations array
+     *            defining for every configuration whether an already existing
+     *            experiment task could be reused
+     * @param experimentId
+     *            the id of the experiment
+     * @return an array with the same length as the configurations array
+     *         containing {@link #CACHED_EXPERIMENT_TASK_CAN_BE_USED}=
+     *         {@value #CACHED_EXPERIMENT_TASK_CAN_BE_USED} or the id of the
+     *         newly created experiment task for every configuration.
+     */
+    public int[] connectCachedResultsOrCreateTasks(ExperimentTaskConfiguration configurations[],
+            boolean couldBeCached[], String experimentId);
+
     /**
      * Creates a new experiment task with the given preferences, sets its GERBIL version value using the current
      * version, sets the task to unfinished by setting its state to {@link #TASK_STARTED_BUT_NOT_FINISHED_YET} and
@@ -157,6 +237,22 @@ public interface ExperimentDAO extends Closeable {
      */
     public void setExperimentTaskResult(int experimentTaskId, ExperimentTaskResult result);
 
+    /**
+     * Stores the provisional result of an experiment task that is still
+     * running, identified by the given id. In contrast to
+     * {@link #setExperimentTaskResult(int, ExperimentTaskResult)}, neither the
+     * state nor the timestamp of the task are changed. The progress and the
+     * estimated end time of the task are stored as well. Provisional results
+     * of tasks that are already finished are ignored.
+     * 
+     * @param experimentTaskId
+     *            the id of the running experiment task
+     * @param partialResult
+     *            the provisional result of this experiment task containing the
+     *            progress and the estimated end time of the task
+     */
+    public void setExperimentTaskPartialResult(int experimentTaskId, ExperimentTaskResult partialResult);
+
     /**
      * Sets the state of the already existing experiment task, identified by the
      * given id.
@@ -201,10 +297,325 @@ public interface ExperimentDAO extends Closeable {
      */
     public List<ExperimentTaskResult> getLatestResultsOfExperiments(String experimentType, String matching);
 
+    /**
+     * Returns the point in time at which the latest results for experiments
+     * with the given experiment type and matching type have been changed the
+     * last time. Since it is read from the database, it reflects the tasks
+     * finished by all instances sharing the database.
+     * 
+     * @param experimentType
+     *            the name of the experiment type
+     * @param matching
+     *            the name of the matching used
+     * @return the time of the last change in milliseconds or 0 if there are no
+     *         results
+     */
+    public long getLastChangeOfLatestResults(String experimentType, String matching);
+
     /**
      * Returns a list of all running experiment tasks.
      * 
      * @return a list of all running experiment tasks.
      */
     public List<ExperimentTaskResult> getAllRunningExperimentTasks();
+
+    /**
+     * Adds the given listener that will be informed every time an experiment
+     * task reaches a final state.
+     * 
+     * @param listener
+     *            the listener that should be added
+     */
+    public void addExperimentTaskFinishedListener(ExperimentTaskFinishedListener listener);
+
+    /**
+     * Adds the given experiment tasks to the task queue. Tasks that are already
+     * part of the queue are ignored.
+     * 
+     * @param experimentTaskIds
+     *            the ids of the experiment tasks that should be executed
+     * @param experimentId
+     *            the id of the experiment the tasks belong to
+     */
+    public void queueTasks(int experimentTaskIds[], String experimentId);
+
+    /**
+     * Adds the given experiment tasks to the task queue. Tasks that are already
+     * part of the queue are ignored. The submitter and priority are stored for
+     * the experiment when its first tasks are queued.
+     * 
+     * @param experimentTaskIds
+     *            the ids of the experiment tasks that should be executed
+     * @param experimentId
+     *            the id of the experiment the tasks belong to
+     * @param submitter
+     *            the submitter of the experiment or null if it is unknown
+     * @param priority
+     *            the priority class of the experiment, i.e.,
+     *            {@link #PRIORITY_INTERACTIVE} or {@link #PRIORITY_BATCH}
+     */
+    public void queueTasks(int experimentTaskIds[], String experimentId, String submitter, int priority);
+
+    /**
+     * Adds the given experiment tasks to the task queue. Tasks that are already
+     * part of the queue are ignored. The submitter and priority are stored for
+     * the experiment when its first tasks are queued. The definitions of the
+     * annotators and datasets are stored together with the tasks. They are
+     * needed by workers that haven't submitted the tasks to recreate the
+     * configurations of user defined annotators and datasets, e.g.,
+     * "NIFWS_name(uri)", since only their names are stored inside the
+     * ExperimentTasks table.
+     * 
+     * @param experimentTaskIds
+     *            the ids of the experiment tasks that should be executed
+     * @param experimentId
+     *            the id of the experiment the tasks belong to
+     * @param submitter
+     *            the submitter of the experiment or null if it is unknown
+     * @param priority
+     *            the priority class of the experiment, i.e.,
+     *            {@link #PRIORITY_INTERACTIVE} or {@link #PRIORITY_BATCH}
+     * @param annotatorDefinitions
+     *            the definitions of the annotators of the tasks or null if
+     *            they are unknown
+     * @param datasetDefinitions
+     *            the definitions of the datasets of the tasks or null if they
+     *            are unknown
+     */
+    public void queueTasks(int experimentTaskIds[], String experimentId, String submitter, int priority,
+            String annotatorDefinitions[], String datasetDefinitions[]);
+
+    /**
+     * Claims the task that is waiting the longest inside the task queue for the
+     * given worker. The state of the claimed task is set to
+     * {@link #QUEUE_STATE_LEASED} and its lease expires after the given
+     * duration if it is not renewed using {@link #renewLeases(String, long)}.
+     * 
+     * @param workerId
+     *            the id of the worker claiming the task
+     * @param leaseDuration
+     *            the duration of the lease in milliseconds
+     * @return the claimed task or null if there is no queued task
+     */
+    public QueuedExperimentTask claimQueuedTask(String workerId, long leaseDuration);
+
+    /**
+     * Returns the tasks that are waiting the longest inside the task queue.
+     * 
+     * @param maxNumberOfTasks
+     *            the maximum number of returned tasks
+     * @return the queued tasks ordered by the time they have been queued
+     */
+    public List<QueuedExperimentTask> getQueuedTasks(int maxNumberOfTasks);
+
+    /**
+     * Returns the tasks that are waiting the longest inside the task queue for
+     * every experiment that has queued tasks. Thus, the tasks of a small
+     * experiment are returned even if a large experiment has been queued
+     * before.
+     * 
+     * @param maxTasksPerExperiment
+     *            the maximum number of returned tasks of a single experiment
+     * @return the queued tasks ordered by the time they have been queued.
+     *         Thus, the first tasks of the experiments are ordered like the
+     *         experiments.
+     */
+    public List<QueuedExperimentTask> getQueuedTasksOfEachExperiment(int maxTasksPerExperiment);
+
+    /**
+     * Returns the number of tasks that are waiting inside the task queue, i.e.,
+     * that are neither leased nor executed by a worker.
+     * 
+     * @return the number of queued tasks
+     */
+    public int getNumberOfQueuedTasks();
+
+    /**
+     * Returns the number of tasks of every annotator that are currently leased
+     * or executed by a worker. Annotators without such tasks are not contained
+     * in the returned map.
+     * 
+     * @return a mapping from annotator names to the number of their active
+     *         tasks
+     */
+    public Map<String, Integer> getNumberOfActiveTasksPerAnnotator();
+
+    /**
+     * Returns the number of tasks of every experiment that are currently leased
+     * or executed by a worker. Experiments without such tasks are not contained
+     * in the returned map.
+     * 
+     * @return a mapping from experiment ids to the number of their active tasks
+     */
+    public Map<String, Integer> getNumberOfActiveTasksPerExperiment();
+
+    /**
+     * Returns the number of tasks of every submitter that are currently leased
+     * or executed by a worker. Submitters without such tasks are not contained
+     * in the returned map.
+     * 
+     * @return a mapping from submitters to the number of their active tasks
+     */
+    public Map<String, Integer> getNumberOfActiveTasksPerSubmitter();
+
+    /**
+     * Leases the given task for the given worker if it is still queued. The
+     * lease expires after the given duration if it is not renewed using
+     * {@link #renewLeases(String, long)}.
+     * 
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @param workerId
+     *            the id of the worker claiming the task
+     * @param leaseDuration
+     *            the duration of the lease in milliseconds
+     * @return true if the task has been leased or false if it has been leased
+     *         by another worker in the meantime
+     */
+    public boolean leaseQueuedTask(int experimentTaskId, String workerId, long leaseDuration);
+
+    /**
+     * Gives back a task that has been leased by the given worker but won't be
+     * executed by it. The task is set back to {@link #QUEUE_STATE_QUEUED}.
+     * 
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @param workerId
+     *            the id of the worker that leased the task
+     */
+    public void releaseQueuedTask(int experimentTaskId, String workerId);
+
+    /**
+     * Sets the state of the given task inside the task queue to
+     * {@link #QUEUE_STATE_RUNNING} if it is still leased by the given worker.
+     * 
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @param workerId
+     *            the id of the worker that leased the task
+     * @return true if the state has been changed or false if the task is not
+     *         leased by the given worker anymore, e.g., because its lease
+     *         expired and it has been queued again
+     */
+    public boolean setQueuedTaskRunning(int experimentTaskId, String workerId);
+
+    /**
+     * Sets the state of the given task inside the task queue to
+     * {@link #QUEUE_STATE_FINISHED} if it is still leased or executed by the
+     * given worker.
+     * 
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @param workerId
+     *            the id of the worker that leased the task
+     * @return true if the state has been changed or false if the task is not
+     *         leased by the given worker anymore, e.g., because its lease
+     *         expired and it has been claimed by another worker
+     */
+    public boolean setQueuedTaskFinished(int experimentTaskId, String workerId);
+
+    /**
+     * Renews the leases of all tasks that are leased or executed by the given
+     * worker.
+     * 
+     * @param workerId
+     *            the id of the worker
+     * @param leaseDuration
+     *            the duration of the renewed leases in milliseconds
+     */
+    public void renewLeases(String workerId, long leaseDuration);
+
+    /**
+     * Sets the state of all leased or running tasks whose lease expired back to
+     * {@link #QUEUE_STATE_QUEUED}. Thus, the tasks of workers that died are
+     * claimed by other workers.
+     * 
+     * @return the number of tasks that have been queued again
+     */
+    public int requeueExpiredTasks();
+
+    /**
+     * Stores the time the given experiment task needed to process the
+     * documents of its dataset.
+     * 
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @param runtime
+     *            the runtime of the task in milliseconds
+     * @param numberOfDocuments
+     *            the number of documents the task processed
+     */
+    public void setExperimentTaskRuntime(int experimentTaskId, long runtime, int numberOfDocuments);
+
+    /**
+     * Returns the average runtimes of the finished experiment tasks grouped by
+     * their annotator and dataset.
+     * 
+     * @return the runtime statistics of every annotator and dataset combination
+     *         that has at least one finished task with a stored runtime
+     */
+    public List<TaskRuntimeStatistics> getTaskRuntimeStatistics();
+
+    /**
+     * Cancels the given task if it hasn't been finished, yet. Its state is set
+     * to the error code of {@link ErrorTypes#TASK_CANCELLED} and it is removed
+     * from the task queue if it is waiting for a worker. A worker that is
+     * already executing the task finds it using {@link #getCancelledTasks(String)}.
+     * 
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @return true if the task has been cancelled or false if it has been
+     *         finished before
+     */
+    public boolean cancelTask(int experimentTaskId);
+
+    /**
+     * Cancels the given task of the given experiment using
+     * {@link #cancelTask(int)} if it is not shared with other experiments which
+     * haven't been cancelled.
+     * 
+     * @param experimentId
+     *            the id of the experiment
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @return true if the task has been cancelled or false if it is not a task
+     *         of the experiment, it is shared with another experiment or it
+     *         has been finished before
+     */
+    public boolean cancelTaskOfExperiment(String experimentId, int experimentTaskId);
+
+    /**
+     * Cancels the given experiment. All its unfinished tasks are cancelled
+     * using {@link #cancelTask(int)} except tasks that are shared with other
+     * experiments which haven't been cancelled.
+     * 
+     * @param experimentId
+     *            the id of the experiment
+     * @return the ids of the tasks that have been cancelled
+     */
+    public List<Integer> cancelExperiment(String experimentId);
+
+    /**
+     * Returns the submitter of the given experiment.
+     * 
+     * @param experimentId
+     *            the id of the experiment
+     * @return the submitter or null if it is unknown
+     */
+    public String getExperimentSubmitter(String experimentId);
+
+    /**
+     * Returns true if the given experiment has been cancelled.
+     */
+    public boolean isExperimentCancelled(String experimentId);
+
+    /**
+     * Returns the tasks that are leased or executed by the given worker but
+     * have been cancelled in the meantime.
+     * 
+     * @param workerId
+     *            the id of the worker
+     * @return the ids of the cancelled tasks
+     */
+    public List<Integer> getCancelledTasks(String workerId);
 }
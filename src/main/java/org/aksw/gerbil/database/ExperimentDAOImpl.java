@@ -23,23 +23,46 @@
 package org.aksw.gerbil.database;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.aksw.gerbil.config.GerbilConfiguration;
 import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * SQL database based implementation of the {@link AbstractExperimentDAO} class.
@@ -52,36 +75,150 @@ public class ExperimentDAOImpl extends AbstractExperimentDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentDAOImpl.class);
 
-    private final static String INSERT_TASK = "INSERT INTO ExperimentTasks (annotatorName, datasetName, experimentType, matching, state, lastChanged) VALUES (:annotatorName, :datasetName, :experimentType, :matching, :state, :lastChanged)";
+    private final static String INSERT_TASK = "INSERT INTO ExperimentTasks (annotatorName, datasetName, experimentType, matching, state, lastChanged, version) VALUES (:annotatorName, :datasetName, :experimentType, :matching, :state, :lastChanged, :version)";
+    private final static String INSERT_TASKS_BATCH = "INSERT INTO ExperimentTasks (annotatorName, datasetName, experimentType, matching, state, lastChanged, version) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private final static String GET_TASKS_IN_ID_RANGE = "SELECT id, annotatorName, datasetName, experimentType, matching FROM ExperimentTasks WHERE id>=:firstId AND id<=:lastId ORDER BY id";
     private final static String SET_TASK_STATE = "UPDATE ExperimentTasks SET state=:state, lastChanged=:lastChanged WHERE id=:id";
     private final static String SET_EXPERIMENT_TASK_RESULT = "UPDATE ExperimentTasks SET microF1=:microF1 , microPrecision=:microPrecision, microRecall=:microRecall, macroF1=:macroF1, macroPrecision=:macroPrecision, macroRecall=:macroRecall, errorCount=:errorCount, lastChanged=:lastChanged WHERE id=:id";
     private final static String CONNECT_TASK_EXPERIMENT = "INSERT INTO Experiments (id, taskId) VALUES(:id, :taskId)";
     private final static String GET_TASK_STATE = "SELECT state FROM ExperimentTasks WHERE id=:id";
-    private final static String GET_EXPERIMENT_RESULTS = "SELECT annotatorName, datasetName, experimentType, matching, microF1, microPrecision, microRecall, macroF1, macroPrecision, macroRecall, state, errorCount, lastChanged, taskId FROM ExperimentTasks t, Experiments e WHERE e.id=:id AND e.taskId=t.id";
-    private final static String GET_CACHED_TASK = "SELECT id FROM ExperimentTasks WHERE annotatorName=:annotatorName AND datasetName=:datasetName AND experimentType=:experimentType AND matching=:matching AND lastChanged>:lastChanged AND state>:errorState ORDER BY lastChanged DESC LIMIT 1";
+    private final static String GET_TASK_TYPE_AND_MATCHING = "SELECT experimentType, matching FROM ExperimentTasks WHERE id=:id";
+    private final static String SET_EXPERIMENT_TASK_PARTIAL_RESULT = "UPDATE ExperimentTasks SET microF1=:microF1 , microPrecision=:microPrecision, microRecall=:microRecall, macroF1=:macroF1, macroPrecision=:macroPrecision, macroRecall=:macroRecall, errorCount=:errorCount WHERE id=:id AND state=:unfinishedState";
+    private final static String UPDATE_TASK_PROGRESS = "UPDATE ExperimentTasks_Progress SET progress=:progress, estimatedEnd=:estimatedEnd WHERE id=:id";
+    private final static String INSERT_TASK_PROGRESS = "INSERT INTO ExperimentTasks_Progress (id, progress, estimatedEnd) VALUES (:id, :progress, :estimatedEnd)";
+    private final static String DELETE_TASK_PROGRESS = "DELETE FROM ExperimentTasks_Progress WHERE id=:id";
+    private final static String DELETE_OUTDATED_TASK_PROGRESSES = "DELETE FROM ExperimentTasks_Progress WHERE id NOT IN (SELECT id FROM ExperimentTasks_Queue WHERE queueState IN (:leasedState, :runningState))";
+    private final static String GET_EXPERIMENT_RESULTS = "SELECT annotatorName, datasetName, experimentType, matching, microF1, microPrecision, microRecall, macroF1, macroPrecision, macroRecall, state, errorCount, lastChanged, taskId, t.version, p.progress, p.estimatedEnd FROM ExperimentTasks t JOIN Experiments e ON e.taskId=t.id LEFT JOIN ExperimentTasks_Progress p ON p.id=t.id WHERE e.id=:id";
+    private final static String GET_CACHED_TASK = "SELECT id FROM ExperimentTasks WHERE annotatorName=:annotatorName AND datasetName=:datasetName AND experimentType=:experimentType AND matching=:matching AND lastChanged>:lastChanged AND state>:errorState ORDER BY state DESC, lastChanged DESC LIMIT 1";
+    private final static String GET_CACHED_TASKS = "SELECT id, annotatorName, datasetName, experimentType, matching FROM ExperimentTasks WHERE annotatorName IN (:annotatorNames) AND datasetName IN (:datasetNames) AND experimentType IN (:experimentTypes) AND matching IN (:matchings) AND lastChanged>:lastChanged AND state>:errorState ORDER BY state DESC, lastChanged DESC";
     private final static String GET_HIGHEST_EXPERIMENT_ID = "SELECT id FROM Experiments ORDER BY id DESC LIMIT 1";
-    private final static String SET_UNFINISHED_TASK_STATE = "UPDATE ExperimentTasks SET state=:state, lastChanged=:lastChanged WHERE state=:unfinishedState";
     @Deprecated
     private final static String GET_LATEST_EXPERIMENT_TASKS = "SELECT DISTINCT annotatorName, datasetName FROM ExperimentTasks WHERE experimentType=:experimentType AND matching=:matching";
     @Deprecated
     private final static String GET_LATEST_EXPERIMENT_TASK_RESULT = "SELECT annotatorName, datasetName, experimentType, matching, microF1, microPrecision, microRecall, macroF1, macroPrecision, macroRecall, state, errorCount, lastChanged FROM ExperimentTasks WHERE annotatorName=:annotatorName AND datasetName=:datasetName AND experimentType=:experimentType AND matching=:matching AND state<>:unfinishedState ORDER BY lastChanged DESC LIMIT 1";
-    private final static String GET_LATEST_EXPERIMENT_TASK_RESULTS = "SELECT tasks.annotatorName, tasks.datasetName, tasks.experimentType, tasks.matching, tasks.microF1, tasks.microPrecision, tasks.microRecall, tasks.macroF1, tasks.macroPrecision, tasks.macroRecall, tasks.state, tasks.errorCount, tasks.lastChanged, tasks.id FROM ExperimentTasks tasks, (SELECT datasetName, annotatorName, MAX(lastChanged) AS lastChanged FROM ExperimentTasks WHERE experimentType=:experimentType AND matching=:matching AND state<>:unfinishedState GROUP BY datasetName, annotatorName) pairs WHERE tasks.annotatorName=pairs.annotatorName AND tasks.datasetName=pairs.datasetName AND tasks.experimentType=:experimentType AND tasks.matching=:matching AND tasks.lastChanged=pairs.lastChanged";
+    private final static String GET_LATEST_EXPERIMENT_TASK_RESULTS = "SELECT tasks.annotatorName, tasks.datasetName, tasks.experimentType, tasks.matching, tasks.microF1, tasks.microPrecision, tasks.microRecall, tasks.macroF1, tasks.macroPrecision, tasks.macroRecall, tasks.state, tasks.errorCount, tasks.lastChanged, tasks.id, tasks.version FROM ExperimentTasks_Latest l JOIN ExperimentTasks tasks ON tasks.id=l.taskId WHERE l.experimentType=:experimentType AND l.matching=:matching";
+    private final static String GET_LAST_CHANGE_OF_LATEST_TASKS = "SELECT MAX(tasks.lastChanged) FROM ExperimentTasks_Latest l JOIN ExperimentTasks tasks ON tasks.id=l.taskId WHERE l.experimentType=:experimentType AND l.matching=:matching";
+    private final static String INSERT_LATEST_TASK = "INSERT INTO ExperimentTasks_Latest (experimentType, matching, annotatorName, datasetName, taskId) SELECT t.experimentType, t.matching, t.annotatorName, t.datasetName, t.id FROM ExperimentTasks t WHERE t.id=:id AND NOT EXISTS (SELECT l.taskId FROM ExperimentTasks_Latest l WHERE l.experimentType=t.experimentType AND l.matching=t.matching AND l.annotatorName=t.annotatorName AND l.datasetName=t.datasetName)";
+    private final static String UPDATE_LATEST_TASK = "UPDATE ExperimentTasks_Latest l SET taskId=:id WHERE EXISTS (SELECT t.id FROM ExperimentTasks t, ExperimentTasks o WHERE t.id=:id AND o.id=l.taskId AND t.experimentType=l.experimentType AND t.matching=l.matching AND t.annotatorName=l.annotatorName AND t.datasetName=l.datasetName AND t.lastChanged>=o.lastChanged)";
+    private final static String DELETE_ALL_LATEST_TASKS = "DELETE FROM ExperimentTasks_Latest";
+    private final static String INSERT_ALL_LATEST_TASKS = "INSERT INTO ExperimentTasks_Latest (experimentType, matching, annotatorName, datasetName, taskId) SELECT tasks.experimentType, tasks.matching, tasks.annotatorName, tasks.datasetName, MAX(tasks.id) FROM ExperimentTasks tasks, (SELECT experimentType, matching, annotatorName, datasetName, MAX(lastChanged) AS lastChanged FROM ExperimentTasks WHERE state<>:unfinishedState AND state<>:cancelledState GROUP BY experimentType, matching, annotatorName, datasetName) pairs WHERE tasks.experimentType=pairs.experimentType AND tasks.matching=pairs.matching AND tasks.annotatorName=pairs.annotatorName AND tasks.datasetName=pairs.datasetName AND tasks.lastChanged=pairs.lastChanged AND tasks.state<>:unfinishedState AND tasks.state<>:cancelledState GROUP BY tasks.experimentType, tasks.matching, tasks.annotatorName, tasks.datasetName";
     private final static String GET_RUNNING_EXPERIMENT_TASKS = "SELECT annotatorName, datasetName, experimentType, matching, microF1, microPrecision, microRecall, macroF1, macroPrecision, macroRecall, state, errorCount, lastChanged FROM ExperimentTasks WHERE state=:unfinishedState";
+    private final static String INSERT_QUEUED_TASK = "INSERT INTO ExperimentTasks_Queue (id, experimentId, queueState, queued, annotatorDefinition, datasetDefinition) SELECT t.id, :experimentId, :queuedState, :queued, :annotatorDefinition, :datasetDefinition FROM ExperimentTasks t WHERE t.id=:id AND NOT EXISTS (SELECT q.id FROM ExperimentTasks_Queue q WHERE q.id=t.id)";
+    private final static String INSERT_UNFINISHED_TASKS_INTO_QUEUE = "INSERT INTO ExperimentTasks_Queue (id, experimentId, queueState, queued) SELECT t.id, (SELECT MIN(e.id) FROM Experiments e WHERE e.taskId=t.id), :queuedState, t.lastChanged FROM ExperimentTasks t WHERE t.state=:unfinishedState AND NOT EXISTS (SELECT q.id FROM ExperimentTasks_Queue q WHERE q.id=t.id)";
+    private final static String GET_QUEUED_TASKS = "SELECT q.id, q.experimentId, t.annotatorName, t.datasetName, t.experimentType, t.matching, t.state, x.submitter, x.priority, q.annotatorDefinition, q.datasetDefinition FROM ExperimentTasks_Queue q JOIN ExperimentTasks t ON t.id=q.id LEFT JOIN Experiments_Queue x ON x.experimentId=q.experimentId WHERE q.queueState=:queuedState ORDER BY q.queued, q.id LIMIT ";
+    private final static String GET_QUEUED_TASKS_OF_EACH_EXPERIMENT = "SELECT q.id, q.experimentId, t.annotatorName, t.datasetName, t.experimentType, t.matching, t.state, x.submitter, x.priority, q.annotatorDefinition, q.datasetDefinition, q.queued FROM ExperimentTasks_Queue q JOIN ExperimentTasks t ON t.id=q.id LEFT JOIN Experiments_Queue x ON x.experimentId=q.experimentId WHERE q.queueState=:queuedState ORDER BY q.experimentId, q.queued, q.id";
+    private final static String GET_NUMBER_OF_QUEUED_TASKS = "SELECT COUNT(*) FROM ExperimentTasks_Queue WHERE queueState=:queuedState";
+    private final static String GET_NUMBER_OF_QUEUED_EXPERIMENTS_WITH_ID = "SELECT COUNT(*) FROM Experiments_Queue WHERE experimentId=:experimentId";
+    private final static String GET_EXPERIMENT_SUBMITTER = "SELECT submitter FROM Experiments_Queue WHERE experimentId=:experimentId";
+    private final static String INSERT_QUEUED_EXPERIMENT = "INSERT INTO Experiments_Queue (experimentId, submitter, priority) VALUES (:experimentId, :submitter, :priority)";
+    private final static String DELETE_FINISHED_QUEUED_EXPERIMENTS = "DELETE FROM Experiments_Queue WHERE experimentId NOT IN (SELECT q.experimentId FROM ExperimentTasks_Queue q WHERE q.queueState<>:finishedState AND q.experimentId IS NOT NULL)";
+    private final static String LEASE_QUEUED_TASK = "UPDATE ExperimentTasks_Queue SET queueState=:leasedState, worker=:worker, leaseExpiry=:leaseExpiry WHERE id=:id AND queueState=:queuedState";
+    private final static String RELEASE_QUEUED_TASK = "UPDATE ExperimentTasks_Queue SET queueState=:queuedState, worker=NULL, leaseExpiry=NULL WHERE id=:id AND worker=:worker AND queueState=:leasedState";
+    private final static String GET_NUMBER_OF_ACTIVE_TASKS_PER_ANNOTATOR = "SELECT t.annotatorName, COUNT(t.id) FROM ExperimentTasks_Queue q JOIN ExperimentTasks t ON t.id=q.id WHERE q.queueState=:leasedState OR q.queueState=:runningState GROUP BY t.annotatorName";
+    private final static String GET_NUMBER_OF_ACTIVE_TASKS_PER_EXPERIMENT = "SELECT q.experimentId, COUNT(q.id) FROM ExperimentTasks_Queue q WHERE (q.queueState=:leasedState OR q.queueState=:runningState) AND q.experimentId IS NOT NULL GROUP BY q.experimentId";
+    private final static String GET_NUMBER_OF_ACTIVE_TASKS_PER_SUBMITTER = "SELECT x.submitter, COUNT(q.id) FROM ExperimentTasks_Queue q JOIN Experiments_Queue x ON x.experimentId=q.experimentId WHERE (q.queueState=:leasedState OR q.queueState=:runningState) AND x.submitter IS NOT NULL GROUP BY x.submitter";
+    private final static String SET_QUEUED_TASK_RUNNING = "UPDATE ExperimentTasks_Queue SET queueState=:runningState WHERE id=:id AND worker=:worker AND queueState=:leasedState";
+    private final static String SET_QUEUED_TASK_FINISHED = "UPDATE ExperimentTasks_Queue SET queueState=:finishedState WHERE id=:id AND worker=:worker AND (queueState=:leasedState OR queueState=:runningState)";
+    private final static String RENEW_LEASES = "UPDATE ExperimentTasks_Queue SET leaseExpiry=:leaseExpiry WHERE worker=:worker AND (queueState=:leasedState OR queueState=:runningState)";
+    private final static String REQUEUE_EXPIRED_TASKS = "UPDATE ExperimentTasks_Queue SET queueState=:queuedState, worker=NULL, leaseExpiry=NULL WHERE (queueState=:leasedState OR queueState=:runningState) AND leaseExpiry<:now";
+    private final static String INSERT_TASK_RUNTIME = "INSERT INTO ExperimentTasks_Runtime (id, runtime, documents) VALUES (:id, :runtime, :documents)";
+    private final static String DELETE_TASK_RUNTIME = "DELETE FROM ExperimentTasks_Runtime WHERE id=:id";
+    private final static String GET_TASK_RUNTIME_STATISTICS = "SELECT t.annotatorName, t.datasetName, AVG(r.runtime), MAX(r.documents), COUNT(r.id) FROM ExperimentTasks_Runtime r JOIN ExperimentTasks t ON t.id=r.id WHERE t.state=:finishedState GROUP BY t.annotatorName, t.datasetName";
+    private final static String CANCEL_TASK = "UPDATE ExperimentTasks SET state=:cancelledState, lastChanged=:lastChanged WHERE id=:id AND state=:unfinishedState";
+    private final static String DELETE_QUEUED_TASK = "DELETE FROM ExperimentTasks_Queue WHERE id=:id AND queueState=:queuedState";
+    private final static String GET_NUMBER_OF_CANCELLED_EXPERIMENTS_WITH_ID = "SELECT COUNT(*) FROM Experiments_Cancelled WHERE experimentId=:experimentId";
+    private final static String INSERT_CANCELLED_EXPERIMENT = "INSERT INTO Experiments_Cancelled (experimentId, cancelled) VALUES (:experimentId, :cancelled)";
+    private final static String GET_CANCELLABLE_TASKS_OF_EXPERIMENT = "SELECT e.taskId FROM Experiments e JOIN ExperimentTasks t ON t.id=e.taskId WHERE e.id=:experimentId AND t.state=:unfinishedState AND NOT EXISTS (SELECT o.taskId FROM Experiments o WHERE o.taskId=e.taskId AND o.id<>:experimentId AND NOT EXISTS (SELECT c.experimentId FROM Experiments_Cancelled c WHERE c.experimentId=o.id))";
+    private final static String GET_CANCELLABLE_TASK_OF_EXPERIMENT = GET_CANCELLABLE_TASKS_OF_EXPERIMENT
+            + " AND e.taskId=:id";
+    private final static String GET_CANCELLED_TASKS_OF_WORKER = "SELECT q.id FROM ExperimentTasks_Queue q JOIN ExperimentTasks t ON t.id=q.id WHERE q.worker=:worker AND (q.queueState=:leasedState OR q.queueState=:runningState) AND t.state=:cancelledState";
+    private final static String MIGRATE_TASK_VERSIONS = "UPDATE ExperimentTasks t SET version=(SELECT v.version FROM ExperimentTasks_Version v WHERE v.id=t.id) WHERE EXISTS (SELECT v.id FROM ExperimentTasks_Version v WHERE v.id=t.id)";
+    private final static String DROP_TASK_VERSIONS = "DROP TABLE ExperimentTasks_Version";
+    private final static String TASK_VERSIONS_TABLE = "ExperimentTasks_Version";
     private final static String SHUTDOWN = "SHUTDOWN";
 
-    // FIXME remove the following two statements by removing the experiment task version workaround
-    private final static String GET_VERSION_OF_EXPERIMENT_TASK = "SELECT version FROM ExperimentTasks_Version WHERE id=:id";
-    private final static String INSERT_VERSION_OF_EXPERIMENT_TASK = "INSERT INTO ExperimentTasks_Version (id, version) VALUES(:id,:version)";
+
+    /**
+     * The version of tasks that have been created before the version has been
+     * stored inside the database.
+     */
+    private final static String DEFAULT_VERSION = "1.0.0";
 
     private final NamedParameterJdbcTemplate template;
+    private final TransactionTemplate transactionTemplate;
 
     public ExperimentDAOImpl(DataSource dataSource) {
-        this.template = new NamedParameterJdbcTemplate(dataSource);
+        this.template = new NamedParameterJdbcTemplate(new TimedJdbcTemplate(dataSource));
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
     }
 
     public ExperimentDAOImpl(DataSource dataSource, long resultDurability) {
         super(resultDurability);
-        this.template = new NamedParameterJdbcTemplate(dataSource);
+        this.template = new NamedParameterJdbcTemplate(new TimedJdbcTemplate(dataSource));
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Next to the initialization of the {@link AbstractExperimentDAO}, the
+     * table containing the latest task of every experiment type, matching,
+     * annotator and dataset combination is rebuild from the complete task
+     * history. Afterwards, this table is updated every time a task reaches a
+     * final state. If the database still contains the version table of GERBIL
+     * 1.1.0, its versions are moved into the task table and the version table
+     * is removed.
+     */
+    @Override
+    public void initialize() {
+        boolean wasInitialized = initialized;
+        if (!wasInitialized && tableExists(TASK_VERSIONS_TABLE)) {
+            migrateTaskVersions();
+        }
+        super.initialize();
+        if (!wasInitialized) {
+            transactionTemplate.execute(new TransactionCallback<Object>() {
+                @Override
+                public Object doInTransaction(TransactionStatus status) {
+                    rebuildLatestTasks();
+                    return null;
+                }
+            });
+        }
+    }
+
+    private boolean tableExists(final String tableName) {
+        return this.template.getJdbcOperations().execute(new ConnectionCallback<Boolean>() {
+            @Override
+            public Boolean doInConnection(Connection connection) throws SQLException, DataAccessException {
+                DatabaseMetaData metaData = connection.getMetaData();
+                // unquoted names are stored in upper case by most databases
+                String names[] = { tableName.toUpperCase(Locale.US), tableName };
+                ResultSet tables;
+                for (int i = 0; i < names.length; ++i) {
+                    tables = metaData.getTables(null, null, names[i], null);
+                    try {
+                        if (tables.next()) {
+                            return true;
+                        }
+                    } finally {
+                        tables.close();
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    private void migrateTaskVersions() {
+        LOGGER.info("Moving the versions of older experiment tasks into the ExperimentTasks table.");
+        transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource();
+                template.update(MIGRATE_TASK_VERSIONS, parameters);
+                template.update(DROP_TASK_VERSIONS, parameters);
+                return null;
+            }
+        });
     }
 
     @Override
@@ -90,70 +227,279 @@ public class ExperimentDAOImpl extends AbstractExperimentDAO {
         parameters.addValue("id", experimentId);
         List<ExperimentTaskResult> result = this.template.query(GET_EXPERIMENT_RESULTS, parameters,
                 new ExperimentTaskResultRowMapper());
-        // FIXME remove this ugly workaround regarding the version of an experiment task
-        for (ExperimentTaskResult e : result) {
-            addVersion(e);
-        }
+        setDefaultVersion(result);
         return result;
     }
 
-    // FIXME remove this method and implement a better version handling
-    private void addVersion(ExperimentTaskResult result) {
-        result.gerbilVersion = getVersion(result.idInDb);
-        if (result.gerbilVersion == null) {
-            result.gerbilVersion = "1.0.0";
+    private void setDefaultVersion(List<ExperimentTaskResult> results) {
+        for (ExperimentTaskResult result : results) {
+            if (result.gerbilVersion == null) {
+                result.gerbilVersion = DEFAULT_VERSION;
+            }
+        }
+    }
+
+    @Override
+    public int createTask(String annotatorName, String datasetName, String experimentType,
+            String matching, String experimentId) {
+        MapSqlParameterSource params = createTaskParameters(annotatorName, datasetName, experimentType, matching);
+        params.addValue("state", ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET);
+        java.util.Date today = new java.util.Date();
+        params.addValue("lastChanged", new java.sql.Timestamp(today.getTime()));
+        params.addValue("version", getCurrentVersion());
+        int generatedKey = insertTask(params);
+        connectToExperiment(experimentId, generatedKey);
+        return generatedKey;
+    }
+
+    /**
+     * Inserts a new task and returns the id that has been generated by the
+     * identity column. Thus, instances sharing the database can create tasks
+     * at the same time.
+     */
+    private int insertTask(MapSqlParameterSource parameters) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.template.update(INSERT_TASK, parameters, keyHolder);
+        return keyHolder.getKey().intValue();
+    }
+
+    /**
+     * Inserts the given tasks using a single batch and returns the ids that
+     * have been generated by the identity column in the order of the given
+     * tasks. Some JDBC drivers, e.g., the driver of H2, only return the key of
+     * the last row of a batch. In this case, the ids are read from the range
+     * of ids that ends with this key. If this range does not contain exactly
+     * the inserted tasks, e.g., because another instance inserted tasks at
+     * the same time, an {@link IllegalStateException} is thrown and the
+     * surrounding transaction is rolled back.
+     * 
+     * @param tasks
+     *            the annotator name, dataset name, experiment type and
+     *            matching of every task that should be inserted
+     */
+    private int[] insertTasks(final List<String[]> tasks, final java.sql.Timestamp lastChanged, final String version) {
+        final int taskIds[] = new int[tasks.size()];
+        if (taskIds.length == 0) {
+            return taskIds;
         }
+        int numberOfKeys = this.template.getJdbcOperations().execute(new ConnectionCallback<Integer>() {
+            @Override
+            public Integer doInConnection(Connection connection) throws SQLException, DataAccessException {
+                PreparedStatement statement = connection.prepareStatement(INSERT_TASKS_BATCH,
+                        Statement.RETURN_GENERATED_KEYS);
+                try {
+                    for (String task[] : tasks) {
+                        for (int i = 0; i < task.length; ++i) {
+                            statement.setString(i + 1, task[i]);
+                        }
+                        statement.setInt(5, TASK_STARTED_BUT_NOT_FINISHED_YET);
+                        statement.setTimestamp(6, lastChanged);
+                        statement.setString(7, version);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    ResultSet keys = statement.getGeneratedKeys();
+                    int count = 0;
+                    try {
+                        while (keys.next()) {
+                            if (count < taskIds.length) {
+                                taskIds[count] = keys.getInt(1);
+                            }
+                            ++count;
+                        }
+                    } finally {
+                        keys.close();
+                    }
+                    return count;
+                } finally {
+                    statement.close();
+                }
+            }
+        });
+        if ((numberOfKeys == 1) && (taskIds.length > 1)) {
+            readTaskIdsOfKeyRange(tasks, taskIds);
+        } else if (numberOfKeys != taskIds.length) {
+            throw new IllegalStateException("Got " + numberOfKeys + " generated keys for " + taskIds.length
+                    + " inserted tasks.");
+        }
+        return taskIds;
     }
 
-    // FIXME remove this method and implement a better version handling
-    private String getVersion(int experimentTaskId) {
+    /**
+     * Reads the ids of the given tasks from the range of ids that ends with the
+     * id stored in the first element of the given array.
+     */
+    private void readTaskIdsOfKeyRange(List<String[]> tasks, int taskIds[]) {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
-        parameters.addValue("id", experimentTaskId);
-        List<String> result = this.template.query(GET_VERSION_OF_EXPERIMENT_TASK, parameters,
-                new StringRowMapper());
-        if (result.size() > 0) {
-            return result.get(0);
-        } else {
-            return null;
+        parameters.addValue("firstId", taskIds[0] - taskIds.length + 1);
+        parameters.addValue("lastId", taskIds[0]);
+        List<String[]> insertedTasks = this.template.query(GET_TASKS_IN_ID_RANGE, parameters,
+                new StringArrayRowMapper(new int[] { 1, 2, 3, 4, 5 }));
+        if (insertedTasks.size() != taskIds.length) {
+            throw new IllegalStateException("The range of generated ids does not contain the " + taskIds.length
+                    + " inserted tasks.");
+        }
+        String insertedTask[];
+        for (int i = 0; i < taskIds.length; ++i) {
+            insertedTask = insertedTasks.get(i);
+            if (!Arrays.equals(tasks.get(i), Arrays.copyOfRange(insertedTask, 1, insertedTask.length))) {
+                throw new IllegalStateException("The range of generated ids contains tasks of another instance.");
+            }
+            taskIds[i] = Integer.parseInt(insertedTask[0]);
         }
     }
 
-    // FIXME remove this method and implement a better version handling
-    private void setVersion(int experimentTaskId) {
-        String version = GerbilConfiguration.getGerbilVersion();
-        if (version == null) {
-            LOGGER.error("Couldn't get the current gerbil version. Can't add it to the experiment task #"
-                    + experimentTaskId + ". Returning.");
-            return;
+    /**
+     * Creates the tasks of a complete experiment using a single query for
+     * retrieving the cached tasks, a batched insert for the new tasks and a
+     * batched insert for the connections of the tasks to the experiment. All
+     * changes are done inside a single transaction. The new tasks get their ids
+     * from the identity column since determining the ids before inserting them
+     * would not be safe if several instances share the database.
+     */
+    @Override
+    public int[] connectCachedResultsOrCreateTasks(final ExperimentTaskConfiguration configurations[],
+            final boolean couldBeCached[], final String experimentId) {
+        return transactionTemplate.execute(new TransactionCallback<int[]>() {
+            @Override
+            public int[] doInTransaction(TransactionStatus status) {
+                return connectCachedResultsOrCreateTasksInTransaction(configurations, couldBeCached, experimentId);
+            }
+        });
+    }
+
+    private int[] connectCachedResultsOrCreateTasksInTransaction(ExperimentTaskConfiguration configurations[],
+            boolean couldBeCached[], String experimentId) {
+        Map<String, Integer> cachedTasks = getCachedExperimentTaskIds(configurations, couldBeCached);
+        // tasks created by this call can be reused by equal configurations
+        // that could be cached. Configurations that can not be cached, e.g.,
+        // user defined annotators with the same name but different URIs, get
+        // their own tasks
+        Set<String> createdTasks = new HashSet<String>();
+        Set<Integer> connectedTasks = new HashSet<Integer>();
+        List<MapSqlParameterSource> connections = new ArrayList<MapSqlParameterSource>();
+        List<String[]> newTasks = new ArrayList<String[]>();
+        // the position of the new task of every configuration that needs one
+        // or -1 if the configuration reuses a cached task
+        int newTaskPositions[] = new int[configurations.length];
+        int taskIds[] = new int[configurations.length];
+        String key;
+        for (int i = 0; i < configurations.length; ++i) {
+            key = createTaskKey(configurations[i].annotatorConfig.getName(),
+                    configurations[i].datasetConfig.getName(), configurations[i].type.name(),
+                    configurations[i].matching.name());
+            if (couldBeCached[i] && cachedTasks.containsKey(key)) {
+                int taskId = cachedTasks.get(key);
+                LOGGER.debug("Could reuse cached task (id=" + taskId + ").");
+                if (connectedTasks.add(taskId)) {
+                    connections.add(createConnectionParameters(experimentId, taskId));
+                }
+                taskIds[i] = CACHED_EXPERIMENT_TASK_CAN_BE_USED;
+                newTaskPositions[i] = -1;
+            } else if (couldBeCached[i] && createdTasks.contains(key)) {
+                // this configuration is equal to a previous one that gets a
+                // new task
+                taskIds[i] = CACHED_EXPERIMENT_TASK_CAN_BE_USED;
+                newTaskPositions[i] = -1;
+            } else {
+                newTaskPositions[i] = newTasks.size();
+                newTasks.add(new String[] { configurations[i].annotatorConfig.getName(),
+                        configurations[i].datasetConfig.getName(), configurations[i].type.name(),
+                        configurations[i].matching.name() });
+                if (couldBeCached[i]) {
+                    createdTasks.add(key);
+                }
+            }
+        }
+        int newTaskIds[] = insertTasks(newTasks, new java.sql.Timestamp(System.currentTimeMillis()),
+                getCurrentVersion());
+        for (int i = 0; i < newTaskIds.length; ++i) {
+            connections.add(createConnectionParameters(experimentId, newTaskIds[i]));
+        }
+        for (int i = 0; i < configurations.length; ++i) {
+            if (newTaskPositions[i] >= 0) {
+                taskIds[i] = newTaskIds[newTaskPositions[i]];
+            }
+        }
+        if (connections.size() > 0) {
+            this.template.batchUpdate(CONNECT_TASK_EXPERIMENT,
+                    connections.toArray(new MapSqlParameterSource[connections.size()]));
+        }
+        return taskIds;
+    }
+
+    /**
+     * Retrieves the ids of all cached experiment tasks that could be used for
+     * the given configurations with a single query.
+     * 
+     * @return a mapping from the keys created by
+     *         {@link #createTaskKey(String, String, String, String)} to the ids
+     *         of the most recent cached experiment tasks
+     */
+    private Map<String, Integer> getCachedExperimentTaskIds(ExperimentTaskConfiguration configurations[],
+            boolean couldBeCached[]) {
+        Map<String, Integer> cachedTasks = new HashMap<String, Integer>();
+        if (resultDurability <= 0) {
+            LOGGER.warn("The durability of results is <= 0. I won't be able to cache results.");
+            return cachedTasks;
+        }
+        Set<String> annotatorNames = new HashSet<String>();
+        Set<String> datasetNames = new HashSet<String>();
+        Set<String> experimentTypes = new HashSet<String>();
+        Set<String> matchings = new HashSet<String>();
+        for (int i = 0; i < configurations.length; ++i) {
+            if (couldBeCached[i]) {
+                annotatorNames.add(configurations[i].annotatorConfig.getName());
+                datasetNames.add(configurations[i].datasetConfig.getName());
+                experimentTypes.add(configurations[i].type.name());
+                matchings.add(configurations[i].matching.name());
+            }
+        }
+        if (annotatorNames.isEmpty()) {
+            return cachedTasks;
         }
         MapSqlParameterSource parameters = new MapSqlParameterSource();
-        parameters.addValue("id", experimentTaskId);
-        parameters.addValue("version", version);
-        this.template.update(INSERT_VERSION_OF_EXPERIMENT_TASK, parameters);
+        parameters.addValue("annotatorNames", annotatorNames);
+        parameters.addValue("datasetNames", datasetNames);
+        parameters.addValue("experimentTypes", experimentTypes);
+        parameters.addValue("matchings", matchings);
+        parameters.addValue("lastChanged", new java.sql.Timestamp(System.currentTimeMillis() - this.resultDurability));
+        parameters.addValue("errorState", ErrorTypes.HIGHEST_ERROR_CODE);
+        List<String[]> tasks = this.template.query(GET_CACHED_TASKS, parameters, new StringArrayRowMapper(new int[] {
+                1, 2, 3, 4, 5 }));
+        String key;
+        // the finished tasks are sorted before the tasks that are still
+        // running and both are sorted descending by their timestamp, i.e., the
+        // first task for a given key is the most recent finished one or, if
+        // there is no finished task, the most recent task that is queued or
+        // running. Experiments connected to the latter will get the result
+        // when it finishes without executing the task a second time.
+        for (String task[] : tasks) {
+            key = createTaskKey(task[1], task[2], task[3], task[4]);
+            if (!cachedTasks.containsKey(key)) {
+                cachedTasks.put(key, Integer.parseInt(task[0]));
+            }
+        }
+        return cachedTasks;
     }
 
-    @Override
-    public int createTask(String annotatorName, String datasetName, String experimentType, String matching,
-            String experimentId) {
-        MapSqlParameterSource params = createTaskParameters(annotatorName, datasetName, experimentType, matching);
-        params.addValue("state", ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET);
-        java.util.Date today = new java.util.Date();
-        params.addValue("lastChanged", new java.sql.Timestamp(today.getTime()));
-        params.addValue("version", GerbilConfiguration.getGerbilVersion());
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        this.template.update(INSERT_TASK, params, keyHolder);
-        Integer generatedKey = (Integer) keyHolder.getKey();
-        connectToExperiment(experimentId, generatedKey);
-        // FIXME remove this method and implement a better version handling
-        setVersion(generatedKey);
-        return generatedKey;
+    private String getCurrentVersion() {
+        String version = GerbilConfiguration.getGerbilVersion();
+        if (version == null) {
+            LOGGER.error("Couldn't get the current gerbil version. Can't add it to the experiment task.");
+        }
+        return version;
     }
 
-    private void connectToExperiment(String experimentId, Integer taskId) {
+    private MapSqlParameterSource createConnectionParameters(String experimentId, int taskId) {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("id", experimentId);
         parameters.addValue("taskId", taskId);
-        this.template.update(CONNECT_TASK_EXPERIMENT, parameters);
+        return parameters;
+    }
+
+    private void connectToExperiment(String experimentId, Integer taskId) {
+        this.template.update(CONNECT_TASK_EXPERIMENT, createConnectionParameters(experimentId, taskId));
     }
 
     private MapSqlParameterSource createTaskParameters(String annotatorName, String datasetName, String experimentType,
@@ -167,11 +513,24 @@ public class ExperimentDAOImpl extends AbstractExperimentDAO {
     }
 
     @Override
-    public void setExperimentTaskResult(int experimentTaskId, ExperimentTaskResult result) {
+    public void setExperimentTaskResult(final int experimentTaskId, final ExperimentTaskResult result) {
+        transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                setExperimentTaskResultInTransaction(experimentTaskId, result);
+                return null;
+            }
+        });
+        if (result.state != TASK_STARTED_BUT_NOT_FINISHED_YET) {
+            notifyExperimentTaskFinished(experimentTaskId);
+        }
+    }
+
+    private void setExperimentTaskResultInTransaction(int experimentTaskId, ExperimentTaskResult result) {
         // Note that we have to set the state first if we want to override the
         // automatic timestamp with the one from the
         // result object
-        setExperimentState(experimentTaskId, result.state);
+        updateExperimentState(experimentTaskId, result.state);
 
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("id", experimentTaskId);
@@ -185,16 +544,108 @@ public class ExperimentDAOImpl extends AbstractExperimentDAO {
         parameters.addValue("lastChanged", new java.sql.Timestamp(result.timestamp));
 
         this.template.update(SET_EXPERIMENT_TASK_RESULT, parameters);
+        if (result.state != TASK_STARTED_BUT_NOT_FINISHED_YET) {
+            updateLatestTask(experimentTaskId);
+        }
+    }
+
+    @Override
+    public void setExperimentTaskPartialResult(int experimentTaskId, ExperimentTaskResult partialResult) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        parameters.addValue("microF1", partialResult.getMicroF1Measure());
+        parameters.addValue("microPrecision", partialResult.getMicroPrecision());
+        parameters.addValue("microRecall", partialResult.getMicroRecall());
+        parameters.addValue("macroF1", partialResult.getMacroF1Measure());
+        parameters.addValue("macroPrecision", partialResult.getMacroPrecision());
+        parameters.addValue("macroRecall", partialResult.getMacroRecall());
+        parameters.addValue("errorCount", partialResult.getErrorCount());
+        parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
+        if (this.template.update(SET_EXPERIMENT_TASK_PARTIAL_RESULT, parameters) == 0) {
+            // the task is not running anymore
+            return;
+        }
+
+        parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        parameters.addValue("progress", partialResult.progress);
+        parameters.addValue("estimatedEnd", partialResult.estimatedEndTime < 0 ? null : new java.sql.Timestamp(
+                partialResult.estimatedEndTime));
+        if (this.template.update(UPDATE_TASK_PROGRESS, parameters) == 0) {
+            this.template.update(INSERT_TASK_PROGRESS, parameters);
+        }
     }
 
     @Override
-    public void setExperimentState(int experimentTaskId, int state) {
+    public void setExperimentState(final int experimentTaskId, final int state) {
+        transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                updateExperimentState(experimentTaskId, state);
+                if (state != TASK_STARTED_BUT_NOT_FINISHED_YET) {
+                    updateLatestTask(experimentTaskId);
+                }
+                return null;
+            }
+        });
+        if (state != TASK_STARTED_BUT_NOT_FINISHED_YET) {
+            notifyExperimentTaskFinished(experimentTaskId);
+        }
+    }
+
+    private void notifyExperimentTaskFinished(int experimentTaskId) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        List<String[]> result = this.template.query(GET_TASK_TYPE_AND_MATCHING, parameters,
+                new StringArrayRowMapper(new int[] { 1, 2 }));
+        if (result.size() > 0) {
+            notifyExperimentTaskFinished(experimentTaskId, result.get(0)[0], result.get(0)[1]);
+        }
+    }
+
+    private void updateExperimentState(int experimentTaskId, int state) {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("id", experimentTaskId);
         parameters.addValue("state", state);
         java.util.Date today = new java.util.Date();
         parameters.addValue("lastChanged", new java.sql.Timestamp(today.getTime()));
         this.template.update(SET_TASK_STATE, parameters);
+        if (state != TASK_STARTED_BUT_NOT_FINISHED_YET) {
+            // the progress of the task is not needed anymore
+            this.template.update(DELETE_TASK_PROGRESS, parameters);
+        }
+    }
+
+    /**
+     * Makes the given task the latest task of its experiment type, matching,
+     * annotator and dataset combination if there is no other task for this
+     * combination that has been changed later. If another node inserts a row
+     * for the same combination in the meantime, the primary key rejects the
+     * insert and the existing row is updated instead.
+     */
+    private void updateLatestTask(int experimentTaskId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        int insertedRows;
+        try {
+            insertedRows = this.template.update(INSERT_LATEST_TASK, parameters);
+        } catch (DuplicateKeyException e) {
+            insertedRows = 0;
+        }
+        if (insertedRows == 0) {
+            this.template.update(UPDATE_LATEST_TASK, parameters);
+        }
+    }
+
+    private void rebuildLatestTasks() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
+        parameters.addValue("cancelledState", ErrorTypes.TASK_CANCELLED.getErrorCode());
+        this.template.update(DELETE_ALL_LATEST_TASKS, parameters);
+        this.template.update(INSERT_ALL_LATEST_TASKS, parameters);
     }
 
     @Override
@@ -240,13 +691,385 @@ public class ExperimentDAOImpl extends AbstractExperimentDAO {
     }
 
     @Override
-    protected void setRunningExperimentsToError() {
+    protected void requeueUnfinishedTasks() {
+        transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource();
+                parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+                parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
+                // tasks that have been created before the queue existed
+                template.update(INSERT_UNFINISHED_TASKS_INTO_QUEUE, parameters);
+                requeueExpiredTasks();
+                // the progress of the interrupted tasks is outdated while
+                // tasks of other instances sharing the database keep theirs
+                parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+                parameters.addValue("runningState", QUEUE_STATE_RUNNING);
+                template.update(DELETE_OUTDATED_TASK_PROGRESSES, parameters);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void queueTasks(final int experimentTaskIds[], final String experimentId, final String submitter,
+            final int priority, final String annotatorDefinitions[], final String datasetDefinitions[]) {
+        if (experimentTaskIds.length == 0) {
+            return;
+        }
+        this.transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                if (experimentId != null) {
+                    MapSqlParameterSource parameters = new MapSqlParameterSource();
+                    parameters.addValue("experimentId", experimentId);
+                    parameters.addValue("submitter", submitter);
+                    parameters.addValue("priority", priority);
+                    if (template.queryForObject(GET_NUMBER_OF_QUEUED_EXPERIMENTS_WITH_ID, parameters,
+                            Integer.class) == 0) {
+                        template.update(INSERT_QUEUED_EXPERIMENT, parameters);
+                    }
+                }
+                java.sql.Timestamp queued = new java.sql.Timestamp(System.currentTimeMillis());
+                MapSqlParameterSource parameters[] = new MapSqlParameterSource[experimentTaskIds.length];
+                for (int i = 0; i < experimentTaskIds.length; ++i) {
+                    parameters[i] = new MapSqlParameterSource();
+                    parameters[i].addValue("id", experimentTaskIds[i]);
+                    parameters[i].addValue("experimentId", experimentId);
+                    parameters[i].addValue("queuedState", QUEUE_STATE_QUEUED);
+                    parameters[i].addValue("queued", queued);
+                    parameters[i].addValue("annotatorDefinition",
+                            annotatorDefinitions != null ? annotatorDefinitions[i] : null);
+                    parameters[i].addValue("datasetDefinition",
+                            datasetDefinitions != null ? datasetDefinitions[i] : null);
+                }
+                template.batchUpdate(INSERT_QUEUED_TASK, parameters);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public QueuedExperimentTask claimQueuedTask(String workerId, long leaseDuration) {
+        List<QueuedExperimentTask> candidates;
+        do {
+            candidates = getQueuedTasks(10);
+            for (QueuedExperimentTask candidate : candidates) {
+                // The update succeeds only if no other worker claimed the task
+                // in the meantime
+                if (leaseQueuedTask(candidate.taskId, workerId, leaseDuration)) {
+                    return candidate;
+                }
+            }
+            // if all candidates have been claimed by others, try again
+        } while (candidates.size() > 0);
+        return null;
+    }
+
+    @Override
+    public List<QueuedExperimentTask> getQueuedTasks(int maxNumberOfTasks) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        return this.template.query(GET_QUEUED_TASKS + maxNumberOfTasks, parameters,
+                new QueuedExperimentTaskRowMapper());
+    }
+
+    @Override
+    public int getNumberOfQueuedTasks() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        return this.template.queryForObject(GET_NUMBER_OF_QUEUED_TASKS, parameters, Integer.class);
+    }
+
+    @Override
+    public List<QueuedExperimentTask> getQueuedTasksOfEachExperiment(final int maxTasksPerExperiment) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        final List<QueuedExperimentTask> tasks = new ArrayList<QueuedExperimentTask>();
+        final Map<Integer, Long> queuedTimes = new HashMap<Integer, Long>();
+        // the tasks are read with a single query sorted by their experiment.
+        // Thus, only the first tasks of every experiment have to be kept.
+        this.template.query(GET_QUEUED_TASKS_OF_EACH_EXPERIMENT, parameters, new RowCallbackHandler() {
+            private QueuedExperimentTaskRowMapper mapper = new QueuedExperimentTaskRowMapper();
+            private String experimentId = null;
+            private int tasksOfExperiment = 0;
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                QueuedExperimentTask task = mapper.mapRow(rs, rs.getRow());
+                if ((tasksOfExperiment == 0) || !equalIds(experimentId, task.experimentId)) {
+                    experimentId = task.experimentId;
+                    tasksOfExperiment = 0;
+                }
+                if (tasksOfExperiment < maxTasksPerExperiment) {
+                    java.sql.Timestamp queued = rs.getTimestamp(12);
+                    tasks.add(task);
+                    queuedTimes.put(task.taskId, queued == null ? 0 : queued.getTime());
+                }
+                ++tasksOfExperiment;
+            }
+        });
+        // sort the tasks by the time they have been queued
+        Collections.sort(tasks, new Comparator<QueuedExperimentTask>() {
+            @Override
+            public int compare(QueuedExperimentTask task1, QueuedExperimentTask task2) {
+                long queued1 = queuedTimes.get(task1.taskId);
+                long queued2 = queuedTimes.get(task2.taskId);
+                if (queued1 != queued2) {
+                    return queued1 < queued2 ? -1 : 1;
+                }
+                return Integer.compare(task1.taskId, task2.taskId);
+            }
+        });
+        return tasks;
+    }
+
+    private static boolean equalIds(String id1, String id2) {
+        return (id1 == null) ? (id2 == null) : id1.equals(id2);
+    }
+
+    @Override
+    public Map<String, Integer> getNumberOfActiveTasksPerAnnotator() {
+        return getNumberOfActiveTasks(GET_NUMBER_OF_ACTIVE_TASKS_PER_ANNOTATOR);
+    }
+
+    @Override
+    public Map<String, Integer> getNumberOfActiveTasksPerExperiment() {
+        return getNumberOfActiveTasks(GET_NUMBER_OF_ACTIVE_TASKS_PER_EXPERIMENT);
+    }
+
+    @Override
+    public Map<String, Integer> getNumberOfActiveTasksPerSubmitter() {
+        return getNumberOfActiveTasks(GET_NUMBER_OF_ACTIVE_TASKS_PER_SUBMITTER);
+    }
+
+    /**
+     * Executes the given query counting the leased and running tasks and
+     * returns the counts mapped to the values of the first column.
+     */
+    private Map<String, Integer> getNumberOfActiveTasks(String query) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        parameters.addValue("runningState", QUEUE_STATE_RUNNING);
+        List<String[]> counts = this.template.query(query, parameters, new StringArrayRowMapper(new int[] { 1, 2 }));
+        Map<String, Integer> activeTasks = new HashMap<String, Integer>();
+        for (String count[] : counts) {
+            activeTasks.put(count[0], Integer.valueOf(count[1]));
+        }
+        return activeTasks;
+    }
+
+    @Override
+    public boolean leaseQueuedTask(int experimentTaskId, String workerId, long leaseDuration) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        parameters.addValue("worker", workerId);
+        parameters.addValue("leaseExpiry", new java.sql.Timestamp(System.currentTimeMillis() + leaseDuration));
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        return this.template.update(LEASE_QUEUED_TASK, parameters) > 0;
+    }
+
+    @Override
+    public void releaseQueuedTask(int experimentTaskId, String workerId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        parameters.addValue("worker", workerId);
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        this.template.update(RELEASE_QUEUED_TASK, parameters);
+    }
+
+    @Override
+    public boolean setQueuedTaskRunning(int experimentTaskId, String workerId) {
+        return setQueuedTaskState(SET_QUEUED_TASK_RUNNING, experimentTaskId, workerId);
+    }
+
+    @Override
+    public boolean setQueuedTaskFinished(int experimentTaskId, String workerId) {
+        if (setQueuedTaskState(SET_QUEUED_TASK_FINISHED, experimentTaskId, workerId)) {
+            deleteFinishedQueuedExperiments();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the submitters and priorities of experiments that don't have
+     * unfinished tasks inside the queue anymore.
+     */
+    private void deleteFinishedQueuedExperiments() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("finishedState", QUEUE_STATE_FINISHED);
+        this.template.update(DELETE_FINISHED_QUEUED_EXPERIMENTS, parameters);
+    }
+
+    private boolean setQueuedTaskState(String query, int experimentTaskId, String workerId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        parameters.addValue("worker", workerId);
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        parameters.addValue("runningState", QUEUE_STATE_RUNNING);
+        parameters.addValue("finishedState", QUEUE_STATE_FINISHED);
+        return this.template.update(query, parameters) > 0;
+    }
+
+    @Override
+    public void renewLeases(String workerId, long leaseDuration) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("worker", workerId);
+        parameters.addValue("leaseExpiry", new java.sql.Timestamp(System.currentTimeMillis() + leaseDuration));
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        parameters.addValue("runningState", QUEUE_STATE_RUNNING);
+        this.template.update(RENEW_LEASES, parameters);
+    }
+
+    @Override
+    public int requeueExpiredTasks() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("now", new java.sql.Timestamp(System.currentTimeMillis()));
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        parameters.addValue("runningState", QUEUE_STATE_RUNNING);
+        int count = this.template.update(REQUEUE_EXPIRED_TASKS, parameters);
+        if (count > 0) {
+            LOGGER.warn("Queued {} experiment tasks again since their lease expired.", count);
+        }
+        return count;
+    }
+
+    @Override
+    public void setExperimentTaskRuntime(final int experimentTaskId, final long runtime,
+            final int numberOfDocuments) {
+        this.transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource();
+                parameters.addValue("id", experimentTaskId);
+                parameters.addValue("runtime", runtime);
+                parameters.addValue("documents", numberOfDocuments);
+                template.update(DELETE_TASK_RUNTIME, parameters);
+                template.update(INSERT_TASK_RUNTIME, parameters);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public List<TaskRuntimeStatistics> getTaskRuntimeStatistics() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("finishedState", TASK_FINISHED);
+        return this.template.query(GET_TASK_RUNTIME_STATISTICS, parameters, new TaskRuntimeStatisticsRowMapper());
+    }
+
+    @Override
+    public boolean cancelTask(final int experimentTaskId) {
+        return transactionTemplate.execute(new TransactionCallback<Boolean>() {
+            @Override
+            public Boolean doInTransaction(TransactionStatus status) {
+                if (cancelTaskInTransaction(experimentTaskId)) {
+                    deleteFinishedQueuedExperiments();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public boolean cancelTaskOfExperiment(final String experimentId, final int experimentTaskId) {
+        return transactionTemplate.execute(new TransactionCallback<Boolean>() {
+            @Override
+            public Boolean doInTransaction(TransactionStatus status) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource();
+                parameters.addValue("experimentId", experimentId);
+                parameters.addValue("id", experimentTaskId);
+                parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
+                // tasks that are shared with other experiments are still
+                // needed
+                List<Integer> taskIds = template.query(GET_CANCELLABLE_TASK_OF_EXPERIMENT, parameters,
+                        new IntegerRowMapper());
+                if (taskIds.isEmpty()) {
+                    return false;
+                }
+                if (cancelTaskInTransaction(experimentTaskId)) {
+                    deleteFinishedQueuedExperiments();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    private boolean cancelTaskInTransaction(int experimentTaskId) {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("id", experimentTaskId);
+        parameters.addValue("cancelledState", ErrorTypes.TASK_CANCELLED.getErrorCode());
         parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
-        parameters.addValue("state", ErrorTypes.SERVER_STOPPED_WHILE_PROCESSING.getErrorCode());
-        java.util.Date today = new java.util.Date();
-        parameters.addValue("lastChanged", new java.sql.Timestamp(today.getTime()));
-        this.template.update(SET_UNFINISHED_TASK_STATE, parameters);
+        parameters.addValue("lastChanged", new java.sql.Timestamp(System.currentTimeMillis()));
+        if (template.update(CANCEL_TASK, parameters) == 0) {
+            return false;
+        }
+        template.update(DELETE_TASK_PROGRESS, parameters);
+        // tasks that are leased or running are removed by their worker
+        parameters.addValue("queuedState", QUEUE_STATE_QUEUED);
+        template.update(DELETE_QUEUED_TASK, parameters);
+        return true;
+    }
+
+    @Override
+    public List<Integer> cancelExperiment(final String experimentId) {
+        return transactionTemplate.execute(new TransactionCallback<List<Integer>>() {
+            @Override
+            public List<Integer> doInTransaction(TransactionStatus status) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource();
+                parameters.addValue("experimentId", experimentId);
+                parameters.addValue("cancelled", new java.sql.Timestamp(System.currentTimeMillis()));
+                parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
+                if (template.queryForObject(GET_NUMBER_OF_CANCELLED_EXPERIMENTS_WITH_ID, parameters,
+                        Integer.class) == 0) {
+                    template.update(INSERT_CANCELLED_EXPERIMENT, parameters);
+                }
+                List<Integer> taskIds = template.query(GET_CANCELLABLE_TASKS_OF_EXPERIMENT, parameters,
+                        new IntegerRowMapper());
+                List<Integer> cancelledTaskIds = new ArrayList<Integer>(taskIds.size());
+                for (Integer taskId : taskIds) {
+                    if (cancelTaskInTransaction(taskId)) {
+                        cancelledTaskIds.add(taskId);
+                    }
+                }
+                if (!cancelledTaskIds.isEmpty()) {
+                    deleteFinishedQueuedExperiments();
+                }
+                return cancelledTaskIds;
+            }
+        });
+    }
+
+    @Override
+    public String getExperimentSubmitter(String experimentId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("experimentId", experimentId);
+        List<String> result = this.template.query(GET_EXPERIMENT_SUBMITTER, parameters, new StringRowMapper());
+        return result.size() > 0 ? result.get(0) : null;
+    }
+
+    @Override
+    public boolean isExperimentCancelled(String experimentId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("experimentId", experimentId);
+        return this.template.queryForObject(GET_NUMBER_OF_CANCELLED_EXPERIMENTS_WITH_ID, parameters,
+                Integer.class) > 0;
+    }
+
+    @Override
+    public List<Integer> getCancelledTasks(String workerId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("worker", workerId);
+        parameters.addValue("leasedState", QUEUE_STATE_LEASED);
+        parameters.addValue("runningState", QUEUE_STATE_RUNNING);
+        parameters.addValue("cancelledState", ErrorTypes.TASK_CANCELLED.getErrorCode());
+        return this.template.query(GET_CANCELLED_TASKS_OF_WORKER, parameters, new IntegerRowMapper());
     }
 
     @Deprecated
@@ -285,19 +1108,38 @@ public class ExperimentDAOImpl extends AbstractExperimentDAO {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("experimentType", experimentType);
         parameters.addValue("matching", matching);
-        parameters.addValue("unfinishedState", TASK_STARTED_BUT_NOT_FINISHED_YET);
         List<ExperimentTaskResult> result = this.template.query(GET_LATEST_EXPERIMENT_TASK_RESULTS, parameters,
                 new ExperimentTaskResultRowMapper());
-        // FIXME remove this ugly workaround regarding the version of an experiment task
-        // We had to took this part out, because it needs to much time and the version isn't used inside the overview
-        // for (ExperimentTaskResult e : result) {
-        // addVersion(e);
-        // }
+        setDefaultVersion(result);
         return result;
     }
 
+    @Override
+    public long getLastChangeOfLatestResults(String experimentType, String matching) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("experimentType", experimentType);
+        parameters.addValue("matching", matching);
+        java.sql.Timestamp lastChange = this.template.queryForObject(GET_LAST_CHANGE_OF_LATEST_TASKS, parameters,
+                java.sql.Timestamp.class);
+        return lastChange != null ? lastChange.getTime() : 0;
+    }
+
+    /**
+     * Shuts down the database. If the database is a server that is shared with
+     * other GERBIL instances (i.e., its URL contains "://"), the database is not
+     * shut down since the other instances might still use it.
+     */
     @Override
     public void close() throws IOException {
+        String url = this.template.getJdbcOperations().execute(new ConnectionCallback<String>() {
+            @Override
+            public String doInConnection(Connection connection) throws SQLException, DataAccessException {
+                return connection.getMetaData().getURL();
+            }
+        });
+        if ((url != null) && url.contains("://")) {
+            return;
+        }
         this.template.execute(SHUTDOWN, new PreparedStatementCallback<Object>() {
             @Override
             public Object doInPreparedStatement(PreparedStatement arg0) throws SQLException, DataAccessException {
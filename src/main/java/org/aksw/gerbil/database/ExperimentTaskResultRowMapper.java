@@ -24,6 +24,7 @@ package org.aksw.gerbil.database;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
 import org.aksw.gerbil.datatypes.ExperimentType;
@@ -49,6 +50,9 @@ import org.springframework.jdbc.core.RowMapper;
  * <li>12 - error count</li>
  * <li>13 - timestamp</li>
  * <li>14 - id inside the database (optional)</li>
+ * <li>15 - GERBIL version (optional)</li>
+ * <li>16 - progress of a running task (optional)</li>
+ * <li>17 - estimated end time of a running task (optional)</li>
  * </ul>
  * 
  * @author m.roeder
@@ -64,11 +68,26 @@ public class ExperimentTaskResultRowMapper implements RowMapper<ExperimentTaskRe
         } catch (Exception e) {
             // nothing to do
         }
-        return new ExperimentTaskResult(resultSet.getString(1), resultSet.getString(2),
+        ExperimentTaskResult result = new ExperimentTaskResult(resultSet.getString(1), resultSet.getString(2),
                 ExperimentType.valueOf(resultSet.getString(3)), Matching.valueOf(resultSet.getString(4)),
                 new double[] { resultSet.getDouble(5), resultSet.getDouble(6), resultSet.getDouble(7),
                         resultSet.getDouble(8), resultSet.getDouble(9), resultSet.getDouble(10) },
                 resultSet.getInt(11), resultSet.getInt(12), resultSet.getTimestamp(13).getTime(), idInDatabase);
+        int columnCount = resultSet.getMetaData().getColumnCount();
+        if (columnCount >= 15) {
+            result.gerbilVersion = resultSet.getString(15);
+        }
+        if (columnCount >= 17) {
+            double progress = resultSet.getDouble(16);
+            if (!resultSet.wasNull()) {
+                result.progress = progress;
+            }
+            Timestamp estimatedEnd = resultSet.getTimestamp(17);
+            if (estimatedEnd != null) {
+                result.estimatedEndTime = estimatedEnd.getTime();
+            }
+        }
+        return result;
     }
 
 }
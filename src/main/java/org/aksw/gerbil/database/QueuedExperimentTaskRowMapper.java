@@ -0,0 +1,46 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps the rows of a result set with the columns id, experimentId,
+ * annotatorName, datasetName, experimentType, matching, state, submitter,
+ * priority, annotatorDefinition and datasetDefinition to
+ * {@link QueuedExperimentTask} instances.
+ */
+public class QueuedExperimentTaskRowMapper implements RowMapper<QueuedExperimentTask> {
+
+    @Override
+    public QueuedExperimentTask mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new QueuedExperimentTask(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                rs.getString(5), rs.getString(6), rs.getInt(7), rs.getString(8), rs.getInt(9), rs.getString(10),
+                rs.getString(11));
+    }
+
+}
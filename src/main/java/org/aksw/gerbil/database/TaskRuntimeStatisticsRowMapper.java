@@ -0,0 +1,44 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps the rows of a result set with the columns annotatorName, datasetName,
+ * average runtime, number of documents and number of tasks to
+ * {@link TaskRuntimeStatistics} instances.
+ */
+public class TaskRuntimeStatisticsRowMapper implements RowMapper<TaskRuntimeStatistics> {
+
+    @Override
+    public TaskRuntimeStatistics mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new TaskRuntimeStatistics(rs.getString(1), rs.getString(2), rs.getDouble(3), rs.getInt(4),
+                rs.getInt(5));
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.database;
+
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.aksw.gerbil.metrics.Histogram;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+
+/**
+ * A {@link JdbcTemplate} that measures the time needed to execute its
+ * prepared statements. All queries, updates and batch updates of a
+ * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate}
+ * using this template are executed as prepared statements. The statements are
+ * distinguished by their type, i.e., the first keyword of the SQL statement
+ * (e.g., "select").
+ */
+public class TimedJdbcTemplate extends JdbcTemplate {
+
+    private static final Histogram QUERY_DURATION = MetricsRegistry.getInstance().histogram(
+            "gerbil_db_query_duration_seconds", "Time needed to execute a statement on the database.",
+            Histogram.REQUEST_DURATION_BUCKETS, "statement");
+
+    public TimedJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
+            throws DataAccessException {
+        long start = System.nanoTime();
+        try {
+            return super.execute(psc, action);
+        } finally {
+            QUERY_DURATION.observeDurationSince(start, getStatementType(psc));
+        }
+    }
+
+    protected static String getStatementType(PreparedStatementCreator psc) {
+        String sql = (psc instanceof SqlProvider) ? ((SqlProvider) psc).getSql() : null;
+        if (sql == null) {
+            return "unknown";
+        }
+        sql = sql.trim();
+        int end = 0;
+        while ((end < sql.length()) && Character.isLetter(sql.charAt(end))) {
+            ++end;
+        }
+        return end > 0 ? sql.substring(0, end).toLowerCase(Locale.US) : "unknown";
+    }
+}
@@ -47,4 +47,8 @@ public class NIFFileDatasetConfig extends AbstractDatasetConfiguration {
         dataset.init();
         return dataset;
     }
+
+    public String getFile() {
+        return file;
+    }
 }
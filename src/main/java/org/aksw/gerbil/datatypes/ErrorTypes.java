@@ -42,7 +42,10 @@ public enum ErrorTypes {
     MATCHING_DOES_NOT_SUPPORT_EXPERIMENT(-103, "The matching does not support the experiment type"),
 
     UNEXPECTED_EXCEPTION(-106, "Got an unexpected exception while running the experiment."), SERVER_STOPPED_WHILE_PROCESSING(
-            -107, "The GERBIL server has been stopped while the experiment was running");
+            -107, "The GERBIL server has been stopped while the experiment was running"), ANNOTATOR_UNAVAILABLE(-108,
+            "The annotator failed several times in a row and seems to be unavailable."), TASK_CANCELLED(-109,
+            "The task has been cancelled."), TASK_TIMED_OUT(-110,
+            "The task exceeded its deadline or got stuck while waiting for the annotator.");
 
     private ErrorTypes(int errorCode, String description) {
         this.errorCode = errorCode;
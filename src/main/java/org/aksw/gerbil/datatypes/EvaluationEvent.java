@@ -0,0 +1,100 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.datatypes;
+
+/**
+ * An event that is created while an annotator is evaluated on a dataset, e.g.,
+ * when the annotator has processed all documents or when the results for all
+ * score thresholds have been calculated. It replaces the messages that have
+ * been printed to <code>System.out</code> by the evaluation.
+ */
+public class EvaluationEvent {
+
+    public static enum Type {
+        /**
+         * The documents of the dataset are sent to the annotator. The value is
+         * the number of documents.
+         */
+        ANNOTATION_STARTED,
+        /**
+         * The annotator has processed all documents. The value is the number
+         * of documents.
+         */
+        ANNOTATION_FINISHED,
+        /**
+         * The results for all score thresholds have been calculated. The value
+         * is the number of thresholds.
+         */
+        THRESHOLDS_EVALUATED
+    }
+
+    private final Type type;
+    private final String annotatorName;
+    private final String datasetName;
+    private final String matchingName;
+    private final int value;
+    private final long timestamp;
+
+    public EvaluationEvent(Type type, String annotatorName, String datasetName, String matchingName, int value) {
+        this.type = type;
+        this.annotatorName = annotatorName;
+        this.datasetName = datasetName;
+        this.matchingName = matchingName;
+        this.value = value;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getAnnotatorName() {
+        return annotatorName;
+    }
+
+    public String getDatasetName() {
+        return datasetName;
+    }
+
+    public String getMatchingName() {
+        return matchingName;
+    }
+
+    /**
+     * Returns the value of this event. Its meaning depends on the type of the
+     * event.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return type.name() + " [annotator=" + annotatorName + ", dataset=" + datasetName + ", matching="
+                + matchingName + ", value=" + value + "]";
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.datatypes;
+
+import java.util.Locale;
+
+/**
+ * An immutable snapshot of the progress of a running experiment task created
+ * by {@link ExperimentTaskState#getProgress()}.
+ */
+public class ExperimentTaskProgress {
+
+    private final int documents;
+    private final int processedDocuments;
+    private final int failedDocuments;
+    private final int inFlightDocuments;
+    private final double documentsPerSecond;
+    private final double averageDocumentsPerSecond;
+    private final long estimatedEndTime;
+    private final long timestamp;
+
+    public ExperimentTaskProgress(int documents, int processedDocuments, int failedDocuments,
+            int inFlightDocuments, double documentsPerSecond, double averageDocumentsPerSecond,
+            long estimatedEndTime, long timestamp) {
+        this.documents = documents;
+        this.processedDocuments = processedDocuments;
+        this.failedDocuments = failedDocuments;
+        this.inFlightDocuments = inFlightDocuments;
+        this.documentsPerSecond = documentsPerSecond;
+        this.averageDocumentsPerSecond = averageDocumentsPerSecond;
+        this.estimatedEndTime = estimatedEndTime;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the number of documents of the dataset.
+     */
+    public int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the number of documents the annotator has processed, including
+     * the failed ones.
+     */
+    public int getProcessedDocuments() {
+        return processedDocuments;
+    }
+
+    /**
+     * Returns the number of documents the annotator has processed successfully.
+     */
+    public int getCompletedDocuments() {
+        return Math.max(processedDocuments - failedDocuments, 0);
+    }
+
+    /**
+     * Returns the number of documents for which the annotator returned an
+     * error.
+     */
+    public int getFailedDocuments() {
+        return failedDocuments;
+    }
+
+    /**
+     * Returns the number of documents that are currently processed by the
+     * annotator.
+     */
+    public int getInFlightDocuments() {
+        return inFlightDocuments;
+    }
+
+    /**
+     * Returns the share of the dataset that has been processed (in the range
+     * [0,1]).
+     */
+    public double getProgress() {
+        return documents > 0 ? ((double) processedDocuments) / documents : 0;
+    }
+
+    /**
+     * Returns the number of documents per second based on the last processed
+     * documents.
+     */
+    public double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    /**
+     * Returns the number of documents per second since the task has been
+     * started.
+     */
+    public double getAverageDocumentsPerSecond() {
+        return averageDocumentsPerSecond;
+    }
+
+    /**
+     * Returns the estimated end time in milliseconds or -1 if there is not
+     * enough information for an estimation.
+     */
+    public long getEstimatedEndTime() {
+        return estimatedEndTime;
+    }
+
+    /**
+     * Returns the time at which this snapshot has been created.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(processedDocuments);
+        builder.append('/');
+        builder.append(documents);
+        builder.append(" documents (");
+        builder.append(failedDocuments);
+        builder.append(" failed, ");
+        builder.append(inFlightDocuments);
+        builder.append(" in flight, ");
+        builder.append(String.format(Locale.US, "%.2f", documentsPerSecond));
+        builder.append(" documents/s)");
+        return builder.toString();
+    }
+}
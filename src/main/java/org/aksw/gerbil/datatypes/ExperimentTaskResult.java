@@ -54,6 +54,26 @@ public class ExperimentTaskResult {
      */
     public String stateMsg = null;
 
+    /**
+     * The share of the dataset that has already been processed if the task is
+     * still running (in the range [0,1]) or a negative value if this
+     * information is not available.
+     */
+    public double progress = -1;
+
+    /**
+     * The estimated end time of a running task or a negative value if this
+     * information is not available.
+     */
+    public long estimatedEndTime = -1;
+
+    /**
+     * The current number of documents per second of a running task or a
+     * negative value if this information is not available. (It is not stored
+     * inside the database.)
+     */
+    public double documentsPerSecond = -1;
+
     public ExperimentTaskResult(String annotator, String dataset, ExperimentType type, Matching matching,
             double results[], int state, int errorCount, long timestamp) {
         this(annotator, dataset, type, matching, results, state, errorCount, timestamp, -1, null);
@@ -191,6 +211,30 @@ public class ExperimentTaskResult {
         this.stateMsg = stateMsg;
     }
 
+    public double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(double progress) {
+        this.progress = progress;
+    }
+
+    public long getEstimatedEndTime() {
+        return estimatedEndTime;
+    }
+
+    public void setEstimatedEndTime(long estimatedEndTime) {
+        this.estimatedEndTime = estimatedEndTime;
+    }
+
+    public double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+
     public String getGerbilVersion() {
         return gerbilVersion;
     }
@@ -22,20 +22,337 @@
  */
 package org.aksw.gerbil.datatypes;
 
-public class ExperimentTaskState {
+import it.acubelab.batframework.metrics.Metrics;
 
-    private int numberOfExperimentSteps = 0;
-    private int maxNumberOfExperimentSteps = 0;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.aksw.gerbil.bat.annotator.AnnotatorRequestListener;
+import org.aksw.gerbil.bat.annotator.ErrorCounter;
+import org.aksw.gerbil.exceptions.GerbilException;
+
+/**
+ * The state of a running experiment task. Next to the number of documents that
+ * have already been processed, it contains the running true positive, false
+ * positive and false negative counts of the documents that have been evaluated
+ * so far. These counts can be used to derive provisional results and an
+ * estimation of the end time while the annotator is still working on the
+ * remaining documents of the dataset.
+ * 
+ * The number of processed documents and the number of requests that are
+ * currently sent to the annotator are lock-free counters. Thus, they can be
+ * updated by several threads and read by other threads, e.g., for reporting
+ * the state of the task, without blocking the task. The number of failed
+ * documents is taken from the {@link ErrorCounter} of the task. The end time
+ * is estimated based on the rate of the last {@link #RATE_WINDOW_SIZE}
+ * documents. {@link #getProgress()} summarizes all these values.
+ * 
+ * A task that has been cancelled stops before it processes its next document,
+ * i.e., {@link #checkCancelled()} throws an exception. The start times of the
+ * current requests are kept for every thread sending a request so that a
+ * watchdog can detect requests that exceed their deadline.
+ * 
+ * Next to the updates of the state, an {@link EvaluationListener} can be
+ * informed about the steps of the evaluation using
+ * {@link #fireEvaluationEvent(EvaluationEvent)}.
+ */
+public class ExperimentTaskState implements AnnotatorRequestListener {
+
+    /**
+     * The number of documents that is used to calculate the current rate of
+     * the task.
+     */
+    public static final int RATE_WINDOW_SIZE = 32;
+
+    private final AtomicInteger numberOfExperimentSteps = new AtomicInteger();
+    /**
+     * The times at which the last documents have been processed. The time of
+     * the n-th document is stored at position n % (RATE_WINDOW_SIZE + 1).
+     */
+    private final AtomicLongArray stepTimes = new AtomicLongArray(RATE_WINDOW_SIZE + 1);
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final int maxNumberOfExperimentSteps;
+    private final long startTime;
+    /**
+     * The start times of the current requests mapped to the threads that sent
+     * them. Thus, overlapping requests of a task do not overwrite each other's
+     * start time.
+     */
+    private final ConcurrentMap<Thread, Long> requestStartTimes = new ConcurrentHashMap<Thread, Long>();
+    private volatile ErrorTypes cancelReason = null;
+
+    private int evaluatedDocuments = 0;
+    private int truePositives = 0;
+    private int falsePositives = 0;
+    private int falseNegatives = 0;
+    private double precisionSum = 0;
+    private double recallSum = 0;
+    private double f1Sum = 0;
+
+    private volatile ErrorCounter errorCounter = null;
+    private ExperimentTaskStateListener listener = null;
+    private EvaluationListener evaluationListener = null;
 
     public ExperimentTaskState(int maxNumberOfExperimentSteps) {
         this.maxNumberOfExperimentSteps = maxNumberOfExperimentSteps;
+        this.startTime = System.currentTimeMillis();
     }
 
     public void increaseExperimentStepCount() {
-        ++numberOfExperimentSteps;
+        int steps = numberOfExperimentSteps.incrementAndGet();
+        stepTimes.set(steps % stepTimes.length(), System.currentTimeMillis());
+        if (listener != null) {
+            listener.stateUpdated(this);
+        }
     }
 
     public double getExperimentTaskProcess() {
-        return ((double) numberOfExperimentSteps) / (double) maxNumberOfExperimentSteps;
+        return ((double) numberOfExperimentSteps.get()) / (double) maxNumberOfExperimentSteps;
+    }
+
+    public int getNumberOfExperimentSteps() {
+        return numberOfExperimentSteps.get();
+    }
+
+    public int getMaxNumberOfExperimentSteps() {
+        return maxNumberOfExperimentSteps;
+    }
+
+    /**
+     * Has to be called before a request is sent to the annotator. If the
+     * annotator is decorated by the RequestLimitingAnnotatorDecorator, it is
+     * called after the limiter permitted the request. Thus, the watchdog does
+     * not count the time a request waits for the limiter.
+     */
+    @Override
+    public void requestStarted() {
+        requestStartTimes.put(Thread.currentThread(), System.currentTimeMillis());
+        inFlightRequests.incrementAndGet();
+    }
+
+    /**
+     * Has to be called after a request to the annotator returned or failed.
+     * It has to be called by the same thread that called
+     * {@link #requestStarted()}.
+     */
+    @Override
+    public void requestFinished() {
+        inFlightRequests.decrementAndGet();
+        requestStartTimes.remove(Thread.currentThread());
+    }
+
+    /**
+     * Returns the time at which the oldest current request has been sent to
+     * the annotator or -1 if there is no running request.
+     */
+    public long getRequestStartTime() {
+        long oldestStartTime = -1;
+        for (Long startTime : requestStartTimes.values()) {
+            if ((oldestStartTime < 0) || (startTime < oldestStartTime)) {
+                oldestStartTime = startTime;
+            }
+        }
+        return oldestStartTime;
+    }
+
+    /**
+     * Marks the task as cancelled. It will stop before processing the next
+     * document.
+     */
+    public void cancel() {
+        cancel(ErrorTypes.TASK_CANCELLED);
+    }
+
+    /**
+     * Marks the task as cancelled because of the given reason, e.g.,
+     * {@link ErrorTypes#TASK_TIMED_OUT}. It will stop before processing the
+     * next document.
+     */
+    public void cancel(ErrorTypes reason) {
+        cancelReason = reason;
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    /**
+     * Has to be called before a document is processed.
+     * 
+     * @throws GerbilException
+     *             with the reason of the cancellation as type, e.g.,
+     *             {@link ErrorTypes#TASK_CANCELLED}, if the task has been
+     *             cancelled
+     */
+    public void checkCancelled() throws GerbilException {
+        ErrorTypes reason = cancelReason;
+        if (reason != null) {
+            throw new GerbilException("The task has been stopped after " + numberOfExperimentSteps.get()
+                    + " documents.", reason);
+        }
+    }
+
+    public int getNumberOfInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * Sets the counter of the errors of the annotator. Every error is a
+     * document that couldn't be processed.
+     */
+    public void setErrorCounter(ErrorCounter errorCounter) {
+        this.errorCounter = errorCounter;
+    }
+
+    /**
+     * Returns the number of documents the annotator returned an error for.
+     */
+    public int getNumberOfFailedDocuments() {
+        ErrorCounter counter = errorCounter;
+        return counter != null ? counter.getErrorCount() : 0;
+    }
+
+    /**
+     * Returns the number of documents that have been processed per second
+     * during the processing of the last {@link #RATE_WINDOW_SIZE} documents
+     * until now. Thus, the rate decreases if the annotator doesn't respond.
+     */
+    public double getDocumentsPerSecond() {
+        return getDocumentsPerSecond(numberOfExperimentSteps.get(), System.currentTimeMillis());
+    }
+
+    private double getDocumentsPerSecond(int steps, long now) {
+        int windowSize = Math.min(steps, RATE_WINDOW_SIZE);
+        if (windowSize == 0) {
+            return 0;
+        }
+        // the window starts with the end of the document before the window
+        // or the start of the task
+        long windowStart = (windowSize < steps) ? stepTimes.get((steps - windowSize) % stepTimes.length())
+                : startTime;
+        // documents that have been processed within the same millisecond
+        // shouldn't lead to a rate of 0
+        long elapsedTime = Math.max(now - windowStart, 1);
+        return windowSize * 1000.0 / elapsedTime;
+    }
+
+    /**
+     * Returns the average number of documents that have been processed per
+     * second since the task has been started.
+     */
+    public double getAverageDocumentsPerSecond() {
+        return getAverageDocumentsPerSecond(numberOfExperimentSteps.get(), System.currentTimeMillis());
+    }
+
+    private double getAverageDocumentsPerSecond(int steps, long now) {
+        long elapsedTime = now - startTime;
+        if (elapsedTime <= 0) {
+            return 0;
+        }
+        return steps * 1000.0 / elapsedTime;
+    }
+
+    /**
+     * Adds the evaluation counts of a single document to the running totals.
+     */
+    public synchronized void addDocumentResult(int tp, int fp, int fn) {
+        ++evaluatedDocuments;
+        truePositives += tp;
+        falsePositives += fp;
+        falseNegatives += fn;
+        float precision = Metrics.precision(tp, fp);
+        float recall = Metrics.recall(tp, fp, fn);
+        precisionSum += precision;
+        recallSum += recall;
+        f1Sum += Metrics.F1(recall, precision);
+    }
+
+    public synchronized int getNumberOfEvaluatedDocuments() {
+        return evaluatedDocuments;
+    }
+
+    /**
+     * Returns the provisional results based on the documents that have been
+     * evaluated so far. The array uses the indexes defined in
+     * {@link ExperimentTaskResult}, e.g.,
+     * {@link ExperimentTaskResult#MICRO_F1_MEASURE_INDEX}.
+     * 
+     * @return the provisional results or null if no document has been evaluated
+     *         so far
+     */
+    public synchronized double[] getProvisionalResults() {
+        if (evaluatedDocuments == 0) {
+            return null;
+        }
+        double results[] = new double[6];
+        float microPrecision = Metrics.precision(truePositives, falsePositives);
+        float microRecall = Metrics.recall(truePositives, falsePositives, falseNegatives);
+        results[ExperimentTaskResult.MICRO_F1_MEASURE_INDEX] = Metrics.F1(microRecall, microPrecision);
+        results[ExperimentTaskResult.MICRO_PRECISION_INDEX] = microPrecision;
+        results[ExperimentTaskResult.MICRO_RECALL_INDEX] = microRecall;
+        results[ExperimentTaskResult.MACRO_F1_MEASURE_INDEX] = f1Sum / evaluatedDocuments;
+        results[ExperimentTaskResult.MACRO_PRECISION_INDEX] = precisionSum / evaluatedDocuments;
+        results[ExperimentTaskResult.MACRO_RECALL_INDEX] = recallSum / evaluatedDocuments;
+        return results;
+    }
+
+    /**
+     * Estimates the point in time at which all documents will have been
+     * processed, assuming that the remaining documents are processed with the
+     * current rate (see {@link #getDocumentsPerSecond()}).
+     * 
+     * @return the estimated end time in milliseconds or -1 if there is not
+     *         enough information for an estimation
+     */
+    public long getEstimatedEndTime() {
+        long now = System.currentTimeMillis();
+        int steps = numberOfExperimentSteps.get();
+        return getEstimatedEndTime(steps, getDocumentsPerSecond(steps, now), now);
+    }
+
+    private long getEstimatedEndTime(int steps, double documentsPerSecond, long now) {
+        if ((steps == 0) || (documentsPerSecond <= 0)) {
+            return -1;
+        }
+        int remainingSteps = Math.max(maxNumberOfExperimentSteps - steps, 0);
+        return now + (long) (remainingSteps * 1000.0 / documentsPerSecond);
+    }
+
+    /**
+     * Returns a snapshot of the progress of the task. It is created from the
+     * lock-free counters, i.e., it is cheap enough to be created for every
+     * request of the state.
+     */
+    public ExperimentTaskProgress getProgress() {
+        long now = System.currentTimeMillis();
+        int steps = numberOfExperimentSteps.get();
+        double documentsPerSecond = getDocumentsPerSecond(steps, now);
+        return new ExperimentTaskProgress(maxNumberOfExperimentSteps, steps, getNumberOfFailedDocuments(),
+                inFlightRequests.get(), documentsPerSecond, getAverageDocumentsPerSecond(steps, now),
+                getEstimatedEndTime(steps, documentsPerSecond, now), now);
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setListener(ExperimentTaskStateListener listener) {
+        this.listener = listener;
+    }
+
+    public void setEvaluationListener(EvaluationListener evaluationListener) {
+        this.evaluationListener = evaluationListener;
+    }
+
+    /**
+     * Informs the {@link EvaluationListener} of this state about the given
+     * event.
+     */
+    public void fireEvaluationEvent(EvaluationEvent event) {
+        if (evaluationListener != null) {
+            evaluationListener.evaluationUpdated(event);
+        }
     }
 }
@@ -0,0 +1,95 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.datatypes;
+
+/**
+ * An experiment task that has been claimed from the task queue inside the
+ * database. It contains the names that are stored inside the database for the
+ * task. They can be used to recreate the {@link ExperimentTaskConfiguration}
+ * of the task if the task hasn't been submitted by this instance, e.g., after a
+ * restart of the server or by a remote worker.
+ */
+public class QueuedExperimentTask {
+
+    public int taskId;
+    public String experimentId;
+    public String annotatorName;
+    public String datasetName;
+    public String experimentType;
+    public String matching;
+    /**
+     * The state of the experiment task inside the ExperimentTasks table.
+     */
+    public int state;
+    /**
+     * The submitter of the experiment or null if it is unknown.
+     */
+    public String submitter;
+    /**
+     * The priority class of the experiment, e.g.,
+     * {@link org.aksw.gerbil.database.ExperimentDAO#PRIORITY_INTERACTIVE}.
+     */
+    public int priority;
+    /**
+     * The definition of the annotator that has been stored when the task has
+     * been queued, e.g., "NIFWS_name(uri)" for a NIF based web service, or
+     * null if it is unknown.
+     */
+    public String annotatorDefinition;
+    /**
+     * The definition of the dataset that has been stored when the task has been
+     * queued, e.g., "NIFDS_name(file)" for an uploaded dataset, or null if it
+     * is unknown.
+     */
+    public String datasetDefinition;
+
+    public QueuedExperimentTask(int taskId, String experimentId, String annotatorName, String datasetName,
+            String experimentType, String matching, int state, String submitter, int priority) {
+        this(taskId, experimentId, annotatorName, datasetName, experimentType, matching, state, submitter, priority,
+                null, null);
+    }
+
+    public QueuedExperimentTask(int taskId, String experimentId, String annotatorName, String datasetName,
+            String experimentType, String matching, int state, String submitter, int priority,
+            String annotatorDefinition, String datasetDefinition) {
+        this.taskId = taskId;
+        this.experimentId = experimentId;
+        this.annotatorName = annotatorName;
+        this.datasetName = datasetName;
+        this.experimentType = experimentType;
+        this.matching = matching;
+        this.state = state;
+        this.submitter = submitter;
+        this.priority = priority;
+        this.annotatorDefinition = annotatorDefinition;
+        this.datasetDefinition = datasetDefinition;
+    }
+
+    @Override
+    public String toString() {
+        return "QueuedExperimentTask [taskId=" + taskId + ", experimentId=" + experimentId + ", annotatorName="
+                + annotatorName + ", datasetName=" + datasetName + ", experimentType=" + experimentType
+                + ", matching=" + matching + ", state=" + state + ", submitter=" + submitter + ", priority=" + priority
+                + "]";
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.datatypes;
+
+/**
+ * The runtimes of the finished experiment tasks of a single annotator and
+ * dataset combination. They are used to estimate the runtime of queued tasks.
+ */
+public class TaskRuntimeStatistics {
+
+    public String annotatorName;
+    public String datasetName;
+    /**
+     * The average runtime of the finished tasks in milliseconds.
+     */
+    public double averageRuntime;
+    /**
+     * The number of documents of the dataset.
+     */
+    public int numberOfDocuments;
+    /**
+     * The number of finished tasks the statistics are based on.
+     */
+    public int numberOfTasks;
+
+    public TaskRuntimeStatistics(String annotatorName, String datasetName, double averageRuntime,
+            int numberOfDocuments, int numberOfTasks) {
+        this.annotatorName = annotatorName;
+        this.datasetName = datasetName;
+        this.averageRuntime = averageRuntime;
+        this.numberOfDocuments = numberOfDocuments;
+        this.numberOfTasks = numberOfTasks;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskRuntimeStatistics [annotatorName=" + annotatorName + ", datasetName=" + datasetName
+                + ", averageRuntime=" + averageRuntime + ", numberOfDocuments=" + numberOfDocuments
+                + ", numberOfTasks=" + numberOfTasks + "]";
+    }
+}
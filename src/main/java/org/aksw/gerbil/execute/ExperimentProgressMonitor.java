@@ -0,0 +1,302 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+
+/**
+ * Keeps the current state of the tasks of submitted experiments in memory. The
+ * states are pushed by the {@link ExperimentTask} instances of this JVM while
+ * they are running. Clients can read the current state of an experiment using
+ * {@link #getSnapshot(String)}, i.e., watching an experiment whose tasks are
+ * executed locally does not cause any database queries. Tasks executed by the
+ * workers of other instances sharing the database are not updated.
+ * 
+ * Experiments are removed from the monitor after all their tasks reached a
+ * final state and the {@link #FINISHED_EXPERIMENT_RETENTION_TIME} passed or if
+ * they haven't changed for {@link #MAX_IDLE_TIME}.
+ */
+public class ExperimentProgressMonitor {
+
+    /**
+     * Time (in milliseconds) an experiment is kept after it changed for the
+     * last time and all its tasks reached a final state.
+     */
+    public static final long FINISHED_EXPERIMENT_RETENTION_TIME = 300000;
+    /**
+     * Time (in milliseconds) after which an experiment that hasn't changed is
+     * removed even if it has running tasks.
+     */
+    public static final long MAX_IDLE_TIME = 86400000;
+
+    private final Map<String, ExperimentProgress> experiments = new HashMap<String, ExperimentProgress>();
+    private final Map<Integer, Set<String>> task2Experiments = new HashMap<Integer, Set<String>>();
+
+    /**
+     * Adds the given experiment which has been submitted but whose tasks have
+     * not been created, yet.
+     */
+    public synchronized void experimentSubmitted(String experimentId) {
+        removeOutdatedExperiments();
+        if (!experiments.containsKey(experimentId)) {
+            experiments.put(experimentId, new ExperimentProgress());
+        }
+    }
+
+    /**
+     * Removes the given experiment, e.g., because it has been rejected.
+     */
+    public synchronized void removeExperiment(String experimentId) {
+        ExperimentProgress progress = experiments.remove(experimentId);
+        if (progress != null) {
+            for (Integer taskId : progress.getTaskIds()) {
+                removeTaskMapping(taskId, experimentId);
+            }
+        }
+    }
+
+    /**
+     * Sets the tasks of the given experiment that will be executed. Note that
+     * tasks with cached results are not part of the given list.
+     */
+    public void tasksCreated(String experimentId, List<ExperimentTaskResult> tasks) {
+        ExperimentProgress progress;
+        synchronized (this) {
+            progress = experiments.get(experimentId);
+            if (progress == null) {
+                progress = new ExperimentProgress();
+                experiments.put(experimentId, progress);
+            }
+            for (ExperimentTaskResult task : tasks) {
+                Set<String> experimentIds = task2Experiments.get(task.idInDb);
+                if (experimentIds == null) {
+                    experimentIds = new HashSet<String>();
+                    task2Experiments.put(task.idInDb, experimentIds);
+                }
+                experimentIds.add(experimentId);
+            }
+        }
+        progress.setTasks(tasks);
+    }
+
+    /**
+     * Updates the state of the given task inside all experiments it belongs to.
+     * 
+     * @param experimentTaskId
+     *            the id of the task
+     * @param state
+     *            the current state of the task. It should not be changed
+     *            after handing it over to this method.
+     */
+    public void taskUpdated(int experimentTaskId, ExperimentTaskResult state) {
+        state.idInDb = experimentTaskId;
+        List<ExperimentProgress> progresses = new ArrayList<ExperimentProgress>();
+        synchronized (this) {
+            Set<String> experimentIds = task2Experiments.get(experimentTaskId);
+            if (experimentIds == null) {
+                return;
+            }
+            for (String experimentId : experimentIds) {
+                progresses.add(experiments.get(experimentId));
+            }
+            if (state.state != ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+                // the task won't be updated anymore
+                task2Experiments.remove(experimentTaskId);
+            }
+        }
+        for (ExperimentProgress progress : progresses) {
+            progress.update(state);
+        }
+    }
+
+    /**
+     * Sets the state of the given task that won't be executed anymore, e.g.,
+     * because it has been cancelled before it has been started. The last known
+     * results of the task are kept.
+     * 
+     * @param experimentTaskId
+     *            the id of the task
+     * @param state
+     *            the final state of the task
+     */
+    public void taskStateChanged(int experimentTaskId, int state) {
+        ExperimentTaskResult lastResult = null;
+        synchronized (this) {
+            Set<String> experimentIds = task2Experiments.get(experimentTaskId);
+            if (experimentIds == null) {
+                return;
+            }
+            for (String experimentId : experimentIds) {
+                lastResult = experiments.get(experimentId).getTask(experimentTaskId);
+                if (lastResult != null) {
+                    break;
+                }
+            }
+        }
+        if (lastResult == null) {
+            return;
+        }
+        taskUpdated(experimentTaskId, new ExperimentTaskResult(lastResult.annotator, lastResult.dataset,
+                lastResult.type, lastResult.matching, lastResult.results, state, lastResult.errorCount));
+    }
+
+    /**
+     * Returns the current state of the given experiment.
+     * 
+     * @param experimentId
+     *            the id of the experiment
+     * @return the current state of the experiment or null if the experiment is
+     *         not known
+     */
+    public ExperimentProgressSnapshot getSnapshot(String experimentId) {
+        ExperimentProgress progress;
+        synchronized (this) {
+            progress = experiments.get(experimentId);
+        }
+        if (progress == null) {
+            return null;
+        }
+        return progress.getSnapshot();
+    }
+
+    private void removeOutdatedExperiments() {
+        long now = System.currentTimeMillis();
+        long oldestChange = now - FINISHED_EXPERIMENT_RETENTION_TIME;
+        long oldestIdleChange = now - MAX_IDLE_TIME;
+        Iterator<Map.Entry<String, ExperimentProgress>> iterator = experiments.entrySet().iterator();
+        Map.Entry<String, ExperimentProgress> entry;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            if (entry.getValue().isFinishedBefore(oldestChange) || entry.getValue().isIdleSince(oldestIdleChange)) {
+                for (Integer taskId : entry.getValue().getTaskIds()) {
+                    removeTaskMapping(taskId, entry.getKey());
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private void removeTaskMapping(Integer taskId, String experimentId) {
+        Set<String> experimentIds = task2Experiments.get(taskId);
+        if (experimentIds != null) {
+            experimentIds.remove(experimentId);
+            if (experimentIds.isEmpty()) {
+                task2Experiments.remove(taskId);
+            }
+        }
+    }
+
+    /**
+     * The state of a single experiment.
+     */
+    private static class ExperimentProgress {
+
+        private long version = 0;
+        private boolean started = false;
+        private long lastChange = System.currentTimeMillis();
+        private Map<Integer, ExperimentTaskResult> tasks = new LinkedHashMap<Integer, ExperimentTaskResult>();
+
+        public synchronized void setTasks(List<ExperimentTaskResult> tasks) {
+            for (ExperimentTaskResult task : tasks) {
+                this.tasks.put(task.idInDb, task);
+            }
+            started = true;
+            changed();
+        }
+
+        public synchronized void update(ExperimentTaskResult state) {
+            tasks.put(state.idInDb, state);
+            changed();
+        }
+
+        private void changed() {
+            ++version;
+            lastChange = System.currentTimeMillis();
+        }
+
+        public synchronized ExperimentProgressSnapshot getSnapshot() {
+            return new ExperimentProgressSnapshot(version, started, new ArrayList<ExperimentTaskResult>(
+                    tasks.values()));
+        }
+
+        public synchronized ExperimentTaskResult getTask(int experimentTaskId) {
+            return tasks.get(experimentTaskId);
+        }
+
+        public synchronized Set<Integer> getTaskIds() {
+            return new HashSet<Integer>(tasks.keySet());
+        }
+
+        public synchronized boolean isIdleSince(long time) {
+            return lastChange < time;
+        }
+
+        public synchronized boolean isFinishedBefore(long time) {
+            if (!started || (lastChange >= time)) {
+                return false;
+            }
+            for (ExperimentTaskResult task : tasks.values()) {
+                if (task.state == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The state of an experiment at a certain point in time.
+     */
+    public static class ExperimentProgressSnapshot {
+        /**
+         * The version of the state. It is increased with every change.
+         */
+        public final long version;
+        /**
+         * Flag showing whether the tasks of the experiment have been created.
+         */
+        public final boolean started;
+        /**
+         * The states of the tasks of the experiment that are not served from
+         * the cache.
+         */
+        public final List<ExperimentTaskResult> tasks;
+
+        public ExperimentProgressSnapshot(long version, boolean started, List<ExperimentTaskResult> tasks) {
+            this.version = version;
+            this.started = started;
+            this.tasks = Collections.unmodifiableList(tasks);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.gerbil.Experimenter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accepts {@link Experimenter} instances and runs them one after the other in
+ * a single background thread. Thus, the creation of the experiment tasks inside
+ * the database and their scheduling doesn't block the thread that submitted the
+ * experiment. The number of experiments that are waiting to be processed is
+ * limited. If this limit is reached, further submissions are rejected until
+ * the queue has been drained. Experiments that are waiting can be cancelled.
+ */
+public class ExperimentSubmitter implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentSubmitter.class);
+
+    public static final String MAX_QUEUED_EXPERIMENTS_PROPERTY_NAME = "org.aksw.gerbil.execute.ExperimentSubmitter.maxQueuedExperiments";
+    public static final int DEFAULT_MAX_QUEUED_EXPERIMENTS = 100;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, QueuedExperiment> queuedExperiments =
+            new ConcurrentHashMap<String, QueuedExperiment>();
+
+    public ExperimentSubmitter() {
+        this(DEFAULT_MAX_QUEUED_EXPERIMENTS);
+    }
+
+    public ExperimentSubmitter(int maxQueuedExperiments) {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+                maxQueuedExperiments), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ExperimentSubmitter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Adds the given experiment to the queue.
+     * 
+     * @param experimenter
+     *            the experiment that should be processed
+     * @return true if the experiment has been accepted or false if the queue is
+     *         full or the submitter has been closed
+     */
+    public boolean submit(final Experimenter experimenter) {
+        String experimentId = experimenter.getExperimentId();
+        QueuedExperiment runnable = new QueuedExperiment(experimenter);
+        queuedExperiments.put(experimentId, runnable);
+        try {
+            executor.execute(runnable);
+            return true;
+        } catch (RejectedExecutionException e) {
+            queuedExperiments.remove(experimentId);
+            LOGGER.warn("Rejected experiment \"{}\" since there are already {} experiments waiting.", experimentId,
+                    executor.getQueue().size());
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the experiment with the given id has been accepted but
+     * its tasks haven't been created, yet.
+     */
+    public boolean isQueued(String experimentId) {
+        return queuedExperiments.containsKey(experimentId);
+    }
+
+    /**
+     * Removes the given experiment from the queue if its processing hasn't
+     * been started, yet.
+     * 
+     * @return true if the experiment has been removed or false if it is not
+     *         queued or its tasks are already created
+     */
+    public boolean cancel(String experimentId) {
+        QueuedExperiment runnable = queuedExperiments.get(experimentId);
+        if ((runnable != null) && executor.remove(runnable)) {
+            queuedExperiments.remove(experimentId, runnable);
+            LOGGER.info("Removed the cancelled experiment \"{}\" from the queue.", experimentId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the submitter of the given experiment if it has been accepted
+     * but its tasks haven't been created, yet. Otherwise, null is returned.
+     */
+    public String getSubmitter(String experimentId) {
+        QueuedExperiment runnable = queuedExperiments.get(experimentId);
+        return runnable != null ? runnable.experimenter.getSubmitter() : null;
+    }
+
+    public int getNumberOfQueuedExperiments() {
+        return queuedExperiments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+    }
+
+    private class QueuedExperiment implements Runnable {
+
+        private final Experimenter experimenter;
+
+        public QueuedExperiment(Experimenter experimenter) {
+            this.experimenter = experimenter;
+        }
+
+        @Override
+        public void run() {
+            try {
+                experimenter.run();
+            } finally {
+                queuedExperiments.remove(experimenter.getExperimentId(), this);
+            }
+        }
+    }
+}
@@ -39,54 +39,334 @@ import it.acubelab.batframework.problems.TopicSystem;
 import it.acubelab.batframework.utils.Pair;
 import it.acubelab.batframework.utils.WikipediaApiInterface;
 
+import java.io.Closeable;
 import java.util.HashMap;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.aksw.gerbil.annotators.NIFWebserviceAnnotatorConfiguration;
+import org.aksw.gerbil.bat.annotator.AbortableRequestRegistry;
+import org.aksw.gerbil.bat.annotator.AnnotatorUnavailableException;
+import org.aksw.gerbil.bat.annotator.CheckpointingAnnotatorDecorator;
+import org.aksw.gerbil.bat.annotator.DeduplicatingAnnotatorDecorator;
 import org.aksw.gerbil.bat.annotator.ErrorCounter;
 import org.aksw.gerbil.bat.annotator.ErrorCountingAnnotatorDecorator;
+import org.aksw.gerbil.bat.annotator.RequestLimitingAnnotatorDecorator;
 import org.aksw.gerbil.bat.utils.RunExperiments;
 import org.aksw.gerbil.database.ExperimentDAO;
 import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.EvaluationEvent;
+import org.aksw.gerbil.datatypes.EvaluationListener;
 import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentTaskProgress;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
 import org.aksw.gerbil.datatypes.ExperimentTaskState;
+import org.aksw.gerbil.datatypes.ExperimentTaskStateListener;
 import org.aksw.gerbil.exceptions.GerbilException;
 import org.aksw.gerbil.matching.MatchingFactory;
+import org.aksw.gerbil.metrics.Counter;
+import org.aksw.gerbil.metrics.Histogram;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+import org.aksw.gerbil.utils.AnnotatorMapping;
 import org.aksw.simba.topicmodeling.concurrent.tasks.Task;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ExperimentTask implements Task {
+public class ExperimentTask implements Task, ExperimentTaskStateListener, EvaluationListener {
+
+    public static enum Status {
+        QUEUED, RUNNING, FINISHED
+    }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentTask.class);
 
+    /**
+     * Minimum time (in milliseconds) between two updates of the provisional
+     * results inside the database.
+     */
+    private static final long PARTIAL_RESULT_UPDATE_INTERVAL = 30000;
+    /**
+     * Minimum time (in milliseconds) between two progress updates sent to the
+     * {@link ExperimentProgressMonitor}.
+     */
+    private static final long PROGRESS_UPDATE_INTERVAL = 1000;
+
+    private static final Counter STARTED_TASKS = MetricsRegistry.getInstance().counter("gerbil_tasks_started_total",
+            "Number of experiment tasks that have been started.", "annotator");
+    private static final Counter FINISHED_TASKS = MetricsRegistry.getInstance().counter(
+            "gerbil_tasks_finished_total",
+            "Number of experiment tasks that have been finished, by the state they have been finished with.",
+            "annotator", "state");
+    private static final Histogram TASK_DURATION = MetricsRegistry.getInstance().histogram(
+            "gerbil_task_duration_seconds", "Runtime of the experiment tasks.", Histogram.TASK_DURATION_BUCKETS,
+            "annotator");
+    private static final Histogram DATASET_LOADING_DURATION = MetricsRegistry.getInstance().histogram(
+            "gerbil_dataset_loading_duration_seconds", "Time needed to load a dataset for an experiment task.",
+            Histogram.REQUEST_DURATION_BUCKETS, "dataset");
+    private static final Histogram EVALUATION_DURATION = MetricsRegistry.getInstance().histogram(
+            "gerbil_evaluation_duration_seconds",
+            "Time needed to calculate the results for all score thresholds after the annotator has finished.",
+            Histogram.REQUEST_DURATION_BUCKETS, "experimentType");
+
     private ExperimentDAO experimentDAO;
     private ExperimentTaskConfiguration configuration;
     private int experimentTaskId;
     private WikipediaApiInterface wikiAPI;
-    private ExperimentTaskState taskState = null;
+    private volatile ExperimentTaskState taskState = null;
+    private volatile ErrorCounter errorCounter = null;
+    private long lastPartialResultUpdate = 0;
+    private ExperimentProgressMonitor progressMonitor;
+    private long lastProgressUpdate = 0;
+    private String experimentId;
+    private ExperimentTaskRegistry registry;
+    private volatile Status status = Status.QUEUED;
+    private volatile Thread thread = null;
+    private volatile long startTime = -1;
+    private volatile long endTime = -1;
+    private volatile int finalState = ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET;
+    private volatile ErrorTypes cancelReason = null;
+    private volatile long cancelTime = -1;
+    private volatile long timedOutRequestStartTime = -1;
+    private volatile long requestTimeoutTime = -1;
+    private final AtomicInteger timedOutRequests = new AtomicInteger();
+    private volatile StackTraceElement stuckStackTrace[] = null;
+    private volatile boolean abandoned = false;
+    private volatile EvaluationEvent lastEvaluationEvent = null;
 
     public ExperimentTask(int experimentTaskId, ExperimentDAO experimentDAO,
             ExperimentTaskConfiguration configuration, WikipediaApiInterface wikiAPI) {
+        this(experimentTaskId, experimentDAO, configuration, wikiAPI, null);
+    }
+
+    public ExperimentTask(int experimentTaskId, ExperimentDAO experimentDAO,
+            ExperimentTaskConfiguration configuration, WikipediaApiInterface wikiAPI,
+            ExperimentProgressMonitor progressMonitor) {
+        this(experimentTaskId, experimentDAO, configuration, wikiAPI, progressMonitor, null, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param experimentId
+     *            the id of the experiment this task has been created for
+     * @param registry
+     *            the registry that will be informed about the start and the
+     *            end of this task. The task is added to it by this
+     *            constructor.
+     */
+    public ExperimentTask(int experimentTaskId, ExperimentDAO experimentDAO,
+            ExperimentTaskConfiguration configuration, WikipediaApiInterface wikiAPI,
+            ExperimentProgressMonitor progressMonitor, String experimentId, ExperimentTaskRegistry registry) {
         this.experimentDAO = experimentDAO;
         this.configuration = configuration;
         this.experimentTaskId = experimentTaskId;
         this.wikiAPI = wikiAPI;
+        this.progressMonitor = progressMonitor;
+        this.experimentId = experimentId;
+        this.registry = registry;
+        if (registry != null) {
+            registry.taskQueued(this);
+        }
     }
 
     @Override
     public void run() {
+        Thread currentThread = Thread.currentThread();
+        synchronized (this) {
+            thread = currentThread;
+        }
+        startTime = System.currentTimeMillis();
+        status = Status.RUNNING;
+        String annotatorName = configuration.annotatorConfig.getName();
+        STARTED_TASKS.inc(annotatorName);
+        try {
+            runTask();
+        } finally {
+            endTime = System.currentTimeMillis();
+            status = Status.FINISHED;
+            TASK_DURATION.observe((endTime - startTime) / 1000.0, annotatorName);
+            FINISHED_TASKS.inc(annotatorName, getFinalStateName());
+            synchronized (this) {
+                thread = null;
+            }
+            // the thread might execute other tasks
+            AbortableRequestRegistry.reset(currentThread);
+            if (registry != null) {
+                registry.taskFinished(this);
+            }
+        }
+    }
+
+    /**
+     * Cancels this task. A task that hasn't been started won't process any
+     * document. A running task stops before it processes its next document and
+     * the requests it is currently sending to the annotator are aborted. Note
+     * that the task only stores its cancelled state using
+     * {@link ExperimentDAO#cancelTask(int)} if it stops because of the
+     * cancellation.
+     */
+    public void cancel() {
+        cancel(ErrorTypes.TASK_CANCELLED);
+    }
+
+    /**
+     * Stops this task since it exceeded its deadline. It works like
+     * {@link #cancel()} but the task stores
+     * {@link ErrorTypes#TASK_TIMED_OUT} as its state.
+     */
+    public void timeOut() {
+        cancel(ErrorTypes.TASK_TIMED_OUT);
+    }
+
+    private synchronized void cancel(ErrorTypes reason) {
+        if (cancelReason != null) {
+            return;
+        }
+        cancelReason = reason;
+        cancelTime = System.currentTimeMillis();
+        ExperimentTaskState state = taskState;
+        if (state != null) {
+            state.cancel(reason);
+        }
+        if (thread != null) {
+            AbortableRequestRegistry.abort(thread);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    /**
+     * Returns the reason why this task has been stopped, e.g.,
+     * {@link ErrorTypes#TASK_CANCELLED}, or null if it hasn't been stopped.
+     */
+    public ErrorTypes getCancelReason() {
+        return cancelReason;
+    }
+
+    /**
+     * Called by the {@link TaskWatchdog} if the current request of this task
+     * exceeded its deadline. The HTTP requests that are currently sent by this
+     * task are aborted, i.e., the request fails and is counted as an error
+     * while the task goes on with the next document. The stack trace of the
+     * task is kept for reporting why it got stuck.
+     * 
+     * @param requestStartTime
+     *            the start time of the request as returned by
+     *            {@link ExperimentTaskState#getRequestStartTime()}
+     * @return the number of HTTP requests that have been aborted. 0 means
+     *         that the annotator doesn't send requests that can be aborted.
+     */
+    public synchronized int requestTimedOut(long requestStartTime) {
+        timedOutRequestStartTime = requestStartTime;
+        requestTimeoutTime = System.currentTimeMillis();
+        timedOutRequests.incrementAndGet();
+        if (thread == null) {
+            return 0;
+        }
+        stuckStackTrace = thread.getStackTrace();
+        return AbortableRequestRegistry.abortRequests(thread);
+    }
+
+    /**
+     * Returns the start time of the last request that exceeded its deadline or
+     * -1 if there is no such request.
+     */
+    public long getTimedOutRequestStartTime() {
+        return timedOutRequestStartTime;
+    }
+
+    public int getNumberOfTimedOutRequests() {
+        return timedOutRequests.get();
+    }
+
+    /**
+     * Returns the time since which this task is stuck, i.e., the time at
+     * which it has been stopped or at which its current request exceeded its
+     * deadline, or -1 if the task is not stuck.
+     */
+    public long getStuckSince() {
+        long since = cancelTime;
+        long timeoutTime = requestTimeoutTime;
+        ExperimentTaskState state = taskState;
+        if ((timeoutTime > 0) && (state != null) && (state.getRequestStartTime() == timedOutRequestStartTime)) {
+            if ((since < 0) || (timeoutTime < since)) {
+                since = timeoutTime;
+            }
+        }
+        return since;
+    }
+
+    /**
+     * Returns the stack trace of this task at the time its last request
+     * exceeded its deadline or null if there is no such request.
+     */
+    public StackTraceElement[] getStuckStackTrace() {
+        return stuckStackTrace;
+    }
+
+    /**
+     * Marks this task as abandoned, i.e., the worker pool gave up waiting for
+     * it. If the task hasn't been stopped before, it is timed out.
+     */
+    public void abandon() {
+        abandoned = true;
+        timeOut();
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    private void runTask() {
         LOGGER.info("Task started " + configuration.toString());
+        if (progressMonitor != null) {
+            ExperimentTaskResult startedResult = new ExperimentTaskResult(configuration, new double[6],
+                    ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, 0);
+            startedResult.progress = 0;
+            progressMonitor.taskUpdated(experimentTaskId, startedResult);
+        }
+        TaskCheckpoint checkpoint = null;
+        TopicSystem loadedAnnotator = null;
         try {
+            ErrorTypes reason = cancelReason;
+            if (reason != null) {
+                throw new GerbilException("The task has been stopped before it has been started.", reason);
+            }
             // Create dataset
+            long datasetLoadingStart = System.nanoTime();
             TopicDataset dataset = configuration.datasetConfig.getDataset(configuration.type);
+            DATASET_LOADING_DURATION.observeDurationSince(datasetLoadingStart, configuration.datasetConfig.getName());
             if (dataset == null) {
                 throw new GerbilException("dataset=\"" + configuration.datasetConfig.getName() + "\" experimentType=\""
                         + configuration.type.name() + "\".", ErrorTypes.DATASET_DOES_NOT_SUPPORT_EXPERIMENT);
             }
 
+            ExperimentTaskState state = new ExperimentTaskState(dataset.getSize());
             // Create annotator
             TopicSystem annotator = configuration.annotatorConfig.getAnnotator(configuration.type);
+            loadedAnnotator = annotator;
+            if (annotator != null) {
+                // respect the limits of the annotator. The requests are
+                // started as soon as the limiter permits them
+                annotator = RequestLimitingAnnotatorDecorator.createDecorator(annotator,
+                        configuration.annotatorConfig.getName(),
+                        AnnotatorMapping.getAnnotatorDefinition(configuration.annotatorConfig), state);
+                // identical documents are annotated only once. The results of
+                // annotators that can not be cached, e.g., user defined web
+                // services sharing a name, must not be shared
+                if (configuration.annotatorConfig.couldBeCached()) {
+                    annotator = DeduplicatingAnnotatorDecorator.createDecorator(annotator,
+                            configuration.annotatorConfig.getName());
+                }
+                // reuse the outputs of a former run of this task
+                checkpoint = TaskCheckpoint.open(configuration, experimentTaskId);
+                if (checkpoint != null) {
+                    annotator = CheckpointingAnnotatorDecorator.createDecorator(annotator, checkpoint);
+                }
+            }
             // TODO add time measuring
             // annotator =
             // TimeMeasuringAnnotatorDecorator.createDecorator(annotator);
@@ -105,9 +385,22 @@ public class ExperimentTask implements Task {
                         + configuration.type.name() + "\".", ErrorTypes.MATCHING_DOES_NOT_SUPPORT_EXPERIMENT);
             }
 
-            taskState = new ExperimentTaskState(dataset.getSize());
+            if (annotator instanceof ErrorCounter) {
+                errorCounter = (ErrorCounter) annotator;
+            }
+            state.setListener(this);
+            state.setEvaluationListener(this);
+            state.setErrorCounter(errorCounter);
+            taskState = state;
+            reason = cancelReason;
+            if (reason != null) {
+                state.cancel(reason);
+            }
             // perform experiment
-            MetricsResultSet metrics = runExperiment(dataset, annotator, matching, taskState).second;
+            MetricsResultSet metrics = runExperiment(dataset, annotator, matching, state).second;
+            // a task that has been stopped while processing its last document
+            // doesn't store a result
+            state.checkCancelled();
 
             int errorCount = 0;
             if (annotator instanceof ErrorCounter) {
@@ -124,16 +417,79 @@ public class ExperimentTask implements Task {
             ExperimentTaskResult result = new ExperimentTaskResult(configuration, results, ExperimentDAO.TASK_FINISHED,
                     errorCount);
 
+            if ((checkpoint != null) && (checkpoint.getNumberOfReusedOutputs() > 0)) {
+                LOGGER.info("Reused {} stored annotator outputs for task {}.", checkpoint.getNumberOfReusedOutputs(),
+                        experimentTaskId);
+            }
+
             // store result
             experimentDAO.setExperimentTaskResult(experimentTaskId, result);
+            // the outputs are not needed anymore
+            if (checkpoint != null) {
+                checkpoint.delete();
+            }
+            finalState = result.state;
+            if (progressMonitor != null) {
+                progressMonitor.taskUpdated(experimentTaskId, result);
+            }
+            // store the runtime for estimating the runtimes of future tasks
+            // (it is not representative if stored outputs have been reused)
+            if ((checkpoint == null) || (checkpoint.getNumberOfReusedOutputs() == 0)) {
+                experimentDAO.setExperimentTaskRuntime(experimentTaskId,
+                        System.currentTimeMillis() - state.getStartTime(), dataset.getSize());
+            }
             LOGGER.info("Task Finished " + configuration.toString());
         } catch (GerbilException e) {
-            LOGGER.error("Got an error while running the task. Storing the error code in the db...", e);
-            // store error
-            experimentDAO.setExperimentState(experimentTaskId, e.getErrorType().getErrorCode());
+            if (e.getErrorType() == ErrorTypes.TASK_CANCELLED) {
+                LOGGER.info("Task {} has been cancelled. {}", experimentTaskId, e.getMessage());
+                // the cancelled task does not replace the latest result of
+                // its annotator and dataset
+                experimentDAO.cancelTask(experimentTaskId);
+            } else {
+                LOGGER.error("Got an error while running the task. Storing the error code in the db...", e);
+                // store error
+                experimentDAO.setExperimentState(experimentTaskId, e.getErrorType().getErrorCode());
+            }
+            finalState = e.getErrorType().getErrorCode();
+            if (progressMonitor != null) {
+                progressMonitor.taskUpdated(experimentTaskId, new ExperimentTaskResult(configuration, new double[6], e
+                        .getErrorType().getErrorCode(), 0));
+            }
         } catch (Exception e) {
             LOGGER.error("Error while trying to execute experiment.", e);
+        } finally {
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+            // user defined web services are created for every single task
+            if ((configuration.annotatorConfig instanceof NIFWebserviceAnnotatorConfiguration)
+                    && (loadedAnnotator instanceof Closeable)) {
+                IOUtils.closeQuietly((Closeable) loadedAnnotator);
+            }
+        }
+    }
+
+    /**
+     * Wraps the given exception thrown while running the experiment into a
+     * {@link GerbilException} with the matching error type.
+     */
+    private GerbilException createGerbilException(Exception e) {
+        if (e instanceof GerbilException) {
+            return (GerbilException) e;
         }
+        ErrorTypes reason = cancelReason;
+        if (reason != null) {
+            // the exception might have been caused by an aborted request
+            return new GerbilException(e, reason);
+        }
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof AnnotatorUnavailableException) {
+                return new GerbilException(e, ErrorTypes.ANNOTATOR_UNAVAILABLE);
+            }
+            cause = cause.getCause();
+        }
+        return new GerbilException(e, ErrorTypes.UNEXPECTED_EXCEPTION);
     }
 
     @SuppressWarnings("unchecked")
@@ -149,7 +505,7 @@ public class ExperimentTask implements Task {
             try {
                 results = RunExperiments.performD2WExpVarThreshold(d2wAnnotator, null, d2wDataset, state, wikiAPI);
             } catch (Exception e) {
-                throw new GerbilException(e, ErrorTypes.UNEXPECTED_EXCEPTION);
+                throw createGerbilException(e);
             }
             break;
         }
@@ -168,7 +524,7 @@ public class ExperimentTask implements Task {
                 // BenchmarkCache.getAvgA2WTimingsForDataset(annotator.getName(),
                 // dataset.getName()));
             } catch (Exception e) {
-                throw new GerbilException(e, ErrorTypes.UNEXPECTED_EXCEPTION);
+                throw createGerbilException(e);
             }
             break;
         }
@@ -187,7 +543,7 @@ public class ExperimentTask implements Task {
                 // BenchmarkCache.getAvgSa2WTimingsForDataset(annotator.getName(),
                 // dataset.getName()));
             } catch (Exception e) {
-                throw new GerbilException(e, ErrorTypes.UNEXPECTED_EXCEPTION);
+                throw createGerbilException(e);
             }
             break;
         }
@@ -206,7 +562,7 @@ public class ExperimentTask implements Task {
                 // BenchmarkCache.getAvgC2WTimingsForDataset(annotator.getName(),
                 // dataset.getName()));
             } catch (Exception e) {
-                throw new GerbilException(e, ErrorTypes.UNEXPECTED_EXCEPTION);
+                throw createGerbilException(e);
             }
             break;
         }
@@ -222,7 +578,7 @@ public class ExperimentTask implements Task {
                 results = RunExperiments.performC2WExpVarThreshold(matchings, null, null, rc2wAnnotator, null,
                         rc2wDataset, state, wikiAPI);
             } catch (Exception e) {
-                throw new GerbilException(e, ErrorTypes.UNEXPECTED_EXCEPTION);
+                throw createGerbilException(e);
             }
             break;
         }
@@ -233,15 +589,161 @@ public class ExperimentTask implements Task {
         return RunExperiments.getBestRecord(results, matching.getName(), annotator.getName(), dataset.getName());
     }
 
+    /**
+     * Sends the provisional results of the task to the
+     * {@link ExperimentProgressMonitor} if the last update is older than
+     * {@link #PROGRESS_UPDATE_INTERVAL} and stores them inside the database if
+     * the last update is older than {@link #PARTIAL_RESULT_UPDATE_INTERVAL}.
+     */
+    @Override
+    public void stateUpdated(ExperimentTaskState state) {
+        long now = System.currentTimeMillis();
+        boolean updateMonitor = (progressMonitor != null) && ((now - lastProgressUpdate) >= PROGRESS_UPDATE_INTERVAL);
+        boolean updateDatabase = (now - lastPartialResultUpdate) >= PARTIAL_RESULT_UPDATE_INTERVAL;
+        if (!updateMonitor && !updateDatabase) {
+            return;
+        }
+        ExperimentTaskResult partialResult = createPartialResult(state);
+        if (updateMonitor) {
+            lastProgressUpdate = now;
+            progressMonitor.taskUpdated(experimentTaskId, partialResult);
+        }
+        if (updateDatabase) {
+            lastPartialResultUpdate = now;
+            try {
+                experimentDAO.setExperimentTaskPartialResult(experimentTaskId, partialResult);
+            } catch (Exception e) {
+                LOGGER.warn("Couldn't store the provisional results of the task. Ignoring this problem.", e);
+            }
+        }
+    }
+
+    @Override
+    public void evaluationUpdated(EvaluationEvent event) {
+        EvaluationEvent lastEvent = lastEvaluationEvent;
+        if ((event.getType() == EvaluationEvent.Type.THRESHOLDS_EVALUATED) && (lastEvent != null)
+                && (lastEvent.getType() == EvaluationEvent.Type.ANNOTATION_FINISHED)) {
+            EVALUATION_DURATION.observe((event.getTimestamp() - lastEvent.getTimestamp()) / 1000.0,
+                    configuration.type.name());
+        }
+        lastEvaluationEvent = event;
+        LOGGER.debug("Task {}: {}", experimentTaskId, event);
+    }
+
+    /**
+     * Returns the last step of the evaluation this task reached or null if the
+     * evaluation hasn't been started, yet.
+     */
+    public EvaluationEvent getLastEvaluationEvent() {
+        return lastEvaluationEvent;
+    }
+
+    private ExperimentTaskResult createPartialResult(ExperimentTaskState state) {
+        double results[] = state.getProvisionalResults();
+        if (results == null) {
+            results = new double[6];
+        }
+        ExperimentTaskResult partialResult = new ExperimentTaskResult(configuration, results,
+                ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, errorCounter != null ? errorCounter.getErrorCount()
+                        : 0);
+        ExperimentTaskProgress progress = state.getProgress();
+        partialResult.progress = progress.getProgress();
+        partialResult.estimatedEndTime = progress.getEstimatedEndTime();
+        partialResult.documentsPerSecond = progress.getDocumentsPerSecond();
+        return partialResult;
+    }
+
+    public int getExperimentTaskId() {
+        return experimentTaskId;
+    }
+
+    public String getExperimentId() {
+        return experimentId;
+    }
+
+    public ExperimentTaskConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the state of the running experiment or null if the task hasn't
+     * started the experiment, yet.
+     */
+    public ExperimentTaskState getTaskState() {
+        return taskState;
+    }
+
+    public int getErrorCount() {
+        ErrorCounter counter = errorCounter;
+        return counter != null ? counter.getErrorCount() : 0;
+    }
+
+    /**
+     * Returns the state that has been stored for this task after it has been
+     * finished or {@link ExperimentDAO#TASK_STARTED_BUT_NOT_FINISHED_YET} if
+     * the task has no final state, yet.
+     */
+    public int getFinalState() {
+        return finalState;
+    }
+
+    /**
+     * Returns the name of the final state that is used by the metrics, e.g.,
+     * "finished" or "task_cancelled".
+     */
+    private String getFinalStateName() {
+        int state = finalState;
+        if (state == ExperimentDAO.TASK_FINISHED) {
+            return "finished";
+        }
+        if (state == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+            // the task has been stopped by an unexpected exception
+            return "unfinished";
+        }
+        ErrorTypes errorType = ErrorTypes.getErrorType(state);
+        return errorType != null ? errorType.name().toLowerCase() : "unknown";
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Returns the current stack trace of the thread running this task or null
+     * if the task is not running.
+     */
+    public StackTraceElement[] getStackTrace() {
+        Thread currentThread = thread;
+        return currentThread != null ? currentThread.getStackTrace() : null;
+    }
+
     @Override
     public String getId() {
         return configuration.toString();
     }
 
+    /**
+     * Returns a snapshot of the progress of the running experiment or null if
+     * the task hasn't started the experiment, yet.
+     */
+    public ExperimentTaskProgress getTaskProgress() {
+        ExperimentTaskState state = taskState;
+        return state != null ? state.getProgress() : null;
+    }
+
     @Override
     public String getProgress() {
-        if (taskState != null) {
-            return (taskState.getExperimentTaskProcess() * 100.0) + "% of dataset";
+        ExperimentTaskProgress progress = getTaskProgress();
+        if (progress != null) {
+            return progress.toString();
         } else {
             return null;
         }
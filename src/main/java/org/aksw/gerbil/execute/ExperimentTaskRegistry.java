@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the {@link ExperimentTask} instances that are queued or
+ * running and of the last {@link #MAX_NUMBER_OF_FINISHED_TASKS} tasks that have
+ * been finished. It is used to report the state of the task engine.
+ */
+public class ExperimentTaskRegistry {
+
+    public static final int MAX_NUMBER_OF_FINISHED_TASKS = 100;
+
+    private final ConcurrentMap<Integer, ExperimentTask> activeTasks = new ConcurrentHashMap<Integer, ExperimentTask>();
+    private final Deque<ExperimentTask> finishedTasks = new ArrayDeque<ExperimentTask>();
+
+    public void taskQueued(ExperimentTask task) {
+        activeTasks.put(task.getExperimentTaskId(), task);
+    }
+
+    public void taskFinished(ExperimentTask task) {
+        activeTasks.remove(task.getExperimentTaskId(), task);
+        synchronized (finishedTasks) {
+            finishedTasks.addFirst(task);
+            if (finishedTasks.size() > MAX_NUMBER_OF_FINISHED_TASKS) {
+                finishedTasks.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks that are queued or running.
+     */
+    public List<ExperimentTask> getActiveTasks() {
+        return new ArrayList<ExperimentTask>(activeTasks.values());
+    }
+
+    /**
+     * Returns the tasks that have been finished recently, starting with the
+     * latest one.
+     */
+    public List<ExperimentTask> getFinishedTasks() {
+        synchronized (finishedTasks) {
+            return new ArrayList<ExperimentTask>(finishedTasks);
+        }
+    }
+
+    /**
+     * Returns the queued or running task with the given id or null if there is
+     * no such task.
+     */
+    public ExperimentTask getActiveTask(int experimentTaskId) {
+        return activeTasks.get(experimentTaskId);
+    }
+}
@@ -0,0 +1,960 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import it.acubelab.batframework.data.Mention;
+import it.acubelab.batframework.problems.A2WSystem;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.problems.D2WSystem;
+import it.acubelab.batframework.problems.TopicSystem;
+import it.acubelab.batframework.utils.WikipediaApiInterface;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.gerbil.annotators.AnnotatorConfiguration;
+import org.aksw.gerbil.annotators.NIFWebserviceAnnotatorConfiguration;
+import org.aksw.gerbil.bat.annotator.AnnotatorCircuitBreaker;
+import org.aksw.gerbil.bat.annotator.AnnotatorRequestRejectedException;
+import org.aksw.gerbil.bat.annotator.RequestLimitingAnnotatorDecorator;
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.datasets.DatasetConfiguration;
+import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.aksw.gerbil.exceptions.GerbilException;
+import org.aksw.gerbil.matching.Matching;
+import org.aksw.gerbil.metrics.Gauge;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+import org.aksw.gerbil.utils.AnnotatorMapping;
+import org.aksw.gerbil.utils.DatasetMapping;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of worker threads that claim experiment tasks from the task queue
+ * inside the database and execute them. Since the queue is persistent, tasks
+ * that are waiting or running while the server is stopped are executed after
+ * the restart. Several pools, e.g., of different JVMs, can share the same
+ * database.
+ * 
+ * Every claimed task is leased by this pool. The leases are renewed regularly
+ * while the pool is alive. If the pool dies, the leases expire and the tasks
+ * are queued again by the remaining pools or after the next start of the
+ * server.
+ * 
+ * The number of tasks of a single annotator that are executed at the same time
+ * by all pools sharing the database can be limited using the
+ * {@link #MAX_PARALLEL_TASKS_PROPERTY_NAME} property. The limit can be
+ * overridden for a single annotator by appending a dot and the name of the
+ * annotator to the property name.
+ * 
+ * Tasks of annotators whose {@link AnnotatorCircuitBreaker} is open are not
+ * claimed. After the open time, the annotator is probed before one of its tasks
+ * is claimed. The probe is sent by a separate thread. If it doesn't finish
+ * within {@link #PROBE_TIMEOUT}, the claiming worker skips the tasks of the
+ * annotator instead of waiting for the probe.
+ * 
+ * The order in which the queued tasks are claimed is defined by the
+ * {@link FairTaskScheduler}, i.e., the workers are shared fairly between the
+ * experiments and the tasks of a single experiment are claimed longest-first.
+ * Thus, the long running tasks of an experiment are started early and the
+ * short tasks fill the gaps at the end instead of a long task being started
+ * last. Some of the workers can be reserved for the tasks of interactive
+ * experiments using the {@link #RESERVED_INTERACTIVE_WORKERS_PROPERTY_NAME}
+ * property. They make sure that a small experiment is started immediately
+ * even if all other workers are busy with the long running tasks of large
+ * experiments.
+ * 
+ * Tasks and complete experiments can be cancelled. Queued tasks are removed
+ * from the queue while running tasks stop before their next document and
+ * abort the requests they are currently sending. Tasks of this pool that are
+ * cancelled by another pool sharing the database are found by the heartbeat.
+ * 
+ * The deadlines of the running tasks are enforced by a {@link TaskWatchdog}.
+ * If a task is stuck, e.g., because its annotator doesn't respond and its
+ * request can't be aborted, the pool gives up the task and replaces its worker
+ * by a new one. The thread of the stuck task terminates as soon as the task
+ * returns. Thus, the number of workers claiming tasks stays the same. The
+ * number of abandoned threads that are still running is limited by the
+ * {@link #MAX_ABANDONED_THREADS_PROPERTY_NAME} property. If this limit is
+ * reached, a stuck worker is not replaced but continues with the next task
+ * as soon as its stuck task returns.
+ * 
+ * While the pool is running, the number of its workers, its running tasks and
+ * the number of tasks waiting inside the queue are published as gauges of the
+ * {@link MetricsRegistry}.
+ */
+public class ExperimentTaskWorkerPool implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentTaskWorkerPool.class);
+
+    public static final String NUMBER_OF_WORKERS_PROPERTY_NAME = "org.aksw.gerbil.execute.ExperimentTaskWorkerPool.numberOfWorkers";
+    public static final int DEFAULT_NUMBER_OF_WORKERS = 20;
+    public static final String MAX_PARALLEL_TASKS_PROPERTY_NAME = "org.aksw.gerbil.execute.ExperimentTaskWorkerPool.maxParallelTasksPerAnnotator";
+    /**
+     * The number of tasks of a single annotator that can be executed at the
+     * same time if there is no limit defined (0 means no limit).
+     */
+    public static final int DEFAULT_MAX_PARALLEL_TASKS = 0;
+    public static final String RESERVED_INTERACTIVE_WORKERS_PROPERTY_NAME = "org.aksw.gerbil.execute.ExperimentTaskWorkerPool.reservedInteractiveWorkers";
+    /**
+     * The number of workers that only execute tasks of interactive experiments
+     * if there is no other value defined.
+     */
+    public static final int DEFAULT_RESERVED_INTERACTIVE_WORKERS = 0;
+    public static final String MAX_ABANDONED_THREADS_PROPERTY_NAME = "org.aksw.gerbil.execute.ExperimentTaskWorkerPool.maxAbandonedThreads";
+    /**
+     * The number of abandoned worker threads that can be replaced while they
+     * are still running if there is no other value defined.
+     */
+    public static final int DEFAULT_MAX_ABANDONED_THREADS = 10;
+    /**
+     * The number of queued tasks of every experiment a worker looks at while
+     * searching for a task whose annotator hasn't reached its limit.
+     */
+    private static final int MAX_NUMBER_OF_CANDIDATES = 100;
+    /**
+     * The document that is sent to an annotator to check whether it is
+     * available again.
+     */
+    private static final String PROBE_TEXT = "Berlin is the capital of Germany.";
+    /**
+     * Time after which the lease of a task expires if it is not renewed.
+     */
+    public static final long LEASE_DURATION = 120000;
+    /**
+     * Interval in which the leases of this pool are renewed and expired leases
+     * of other pools are searched.
+     */
+    public static final long HEARTBEAT_INTERVAL = LEASE_DURATION / 4;
+    /**
+     * Maximum time an idle worker waits before it checks the queue again. It
+     * makes sure that tasks queued by other pools are found.
+     */
+    public static final long POLL_INTERVAL = 5000;
+    /**
+     * Maximum time a worker waits for the probe request of an annotator whose
+     * circuit breaker has been open.
+     */
+    public static final long PROBE_TIMEOUT = 10000;
+
+    private static final Gauge WORKERS = MetricsRegistry.getInstance().gauge("gerbil_worker_threads",
+            "Number of workers of the worker pool.", "worker");
+    private static final Gauge RUNNING_TASKS = MetricsRegistry.getInstance().gauge("gerbil_running_tasks",
+            "Number of tasks executed by the worker pool.", "worker");
+    private static final Gauge QUEUED_TASKS = MetricsRegistry.getInstance().gauge("gerbil_queued_tasks",
+            "Number of tasks waiting inside the task queue.");
+
+    private final String workerId;
+    private final ExperimentDAO experimentDAO;
+    private final WikipediaApiInterface wikiAPI;
+    private final ExperimentProgressMonitor progressMonitor;
+    private final ExperimentTaskRegistry taskRegistry;
+    private final int numberOfWorkers;
+    /**
+     * Configurations of the tasks that have been submitted by this pool. They
+     * are preferred over the configurations that are recreated from the names
+     * stored inside the database since not every configuration can be
+     * recreated from its name, e.g., NIF based web services.
+     */
+    private final ConcurrentMap<Integer, ExperimentTaskConfiguration> submittedConfigurations = new ConcurrentHashMap<Integer, ExperimentTaskConfiguration>();
+    private final Object queueMonitor = new Object();
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    /**
+     * The number of threads of abandoned workers that have been replaced and
+     * are still running.
+     */
+    private final AtomicInteger abandonedThreads = new AtomicInteger();
+    private final int maxAbandonedThreads;
+    private final FairTaskScheduler scheduler;
+    private final Set<Worker> activeWorkers = Collections.newSetFromMap(new ConcurrentHashMap<Worker, Boolean>());
+    private ExecutorService workers;
+    private ScheduledExecutorService heartbeat;
+    private ScheduledExecutorService watchdog;
+    private ExecutorService probes;
+    private volatile boolean running = false;
+    private final Gauge.Value workersValue = new Gauge.Value() {
+        @Override
+        public double getValue() {
+            return numberOfWorkers;
+        }
+    };
+    private final Gauge.Value runningTasksValue = new Gauge.Value() {
+        @Override
+        public double getValue() {
+            return runningTasks.get();
+        }
+    };
+    private final Gauge.Value queuedTasksValue = new Gauge.Value() {
+        @Override
+        public double getValue() {
+            try {
+                return experimentDAO.getNumberOfQueuedTasks();
+            } catch (Exception e) {
+                return Double.NaN;
+            }
+        }
+    };
+
+    public ExperimentTaskWorkerPool(ExperimentDAO experimentDAO, WikipediaApiInterface wikiAPI,
+            ExperimentProgressMonitor progressMonitor, ExperimentTaskRegistry taskRegistry) {
+        this(experimentDAO, wikiAPI, progressMonitor, taskRegistry, GerbilConfiguration.getInstance().getInt(
+                NUMBER_OF_WORKERS_PROPERTY_NAME, DEFAULT_NUMBER_OF_WORKERS));
+    }
+
+    /**
+     * Note that a pool with 0 workers doesn't execute tasks. It only adds the
+     * submitted tasks to the queue. This can be used for a web server that
+     * leaves the execution of the tasks to other machines.
+     */
+
+    public ExperimentTaskWorkerPool(ExperimentDAO experimentDAO, WikipediaApiInterface wikiAPI,
+            ExperimentProgressMonitor progressMonitor, ExperimentTaskRegistry taskRegistry, int numberOfWorkers) {
+        this.experimentDAO = experimentDAO;
+        this.wikiAPI = wikiAPI;
+        this.progressMonitor = progressMonitor;
+        this.taskRegistry = taskRegistry;
+        this.numberOfWorkers = numberOfWorkers;
+        this.maxAbandonedThreads = GerbilConfiguration.getInstance().getInt(MAX_ABANDONED_THREADS_PROPERTY_NAME,
+                DEFAULT_MAX_ABANDONED_THREADS);
+        this.workerId = createWorkerId();
+        this.scheduler = new FairTaskScheduler(new TaskRuntimeEstimator(experimentDAO));
+    }
+
+    private static String createWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + '-' + UUID.randomUUID().toString();
+    }
+
+    /**
+     * Starts the worker threads and the heartbeat that renews the leases of
+     * this pool.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        TaskCheckpoint.deleteOutdatedCheckpoints();
+        if (numberOfWorkers > 0) {
+            // at least one worker has to execute batch experiments
+            int reservedWorkers = Math.min(numberOfWorkers - 1, GerbilConfiguration.getInstance().getInt(
+                    RESERVED_INTERACTIVE_WORKERS_PROPERTY_NAME, DEFAULT_RESERVED_INTERACTIVE_WORKERS));
+            // the number of workers is defined by the number of Worker
+            // instances since abandoned workers are replaced
+            workers = Executors.newCachedThreadPool(new NamedThreadFactory("ExperimentTaskWorker"));
+            for (int i = 0; i < numberOfWorkers; ++i) {
+                workers.execute(new Worker(i < reservedWorkers));
+            }
+            // there is at most one probe per circuit breaker at a time
+            probes = Executors.newCachedThreadPool(new NamedThreadFactory("AnnotatorProbe"));
+            watchdog = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ExperimentTaskWatchdog"));
+            watchdog.scheduleWithFixedDelay(new TaskWatchdog(this), TaskWatchdog.CHECK_INTERVAL,
+                    TaskWatchdog.CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ExperimentTaskHeartbeat"));
+        heartbeat.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    experimentDAO.renewLeases(workerId, LEASE_DURATION);
+                    if (experimentDAO.requeueExpiredTasks() > 0) {
+                        tasksQueued();
+                    }
+                    // tasks might have been cancelled using another pool
+                    for (Integer taskId : experimentDAO.getCancelledTasks(workerId)) {
+                        ExperimentTask task = getActiveTask(taskId);
+                        if ((task != null) && !task.isCancelled()) {
+                            task.cancel();
+                        }
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("Couldn't renew the leases of this worker pool.", e);
+                }
+            }
+        }, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+        WORKERS.register(workersValue, workerId);
+        RUNNING_TASKS.register(runningTasksValue, workerId);
+        QUEUED_TASKS.register(queuedTasksValue);
+        LOGGER.info("Started {} workers with the id \"{}\".", numberOfWorkers, workerId);
+    }
+
+    /**
+     * Adds the given experiment tasks to the persistent task queue and wakes up
+     * the idle workers.
+     * 
+     * @param experimentId
+     *            the id of the experiment the tasks belong to
+     * @param taskIds
+     *            the ids of the experiment tasks
+     * @param configurations
+     *            the configurations of the experiment tasks
+     */
+    public void submitTasks(String experimentId, int taskIds[], ExperimentTaskConfiguration configurations[]) {
+        submitTasks(experimentId, null, taskIds, configurations);
+    }
+
+    /**
+     * Adds the given experiment tasks to the persistent task queue and wakes up
+     * the idle workers. The priority class of the experiment is derived from
+     * its number of tasks.
+     * 
+     * @param experimentId
+     *            the id of the experiment the tasks belong to
+     * @param submitter
+     *            the submitter of the experiment or null if it is unknown
+     * @param taskIds
+     *            the ids of the experiment tasks
+     * @param configurations
+     *            the configurations of the experiment tasks
+     */
+    public void submitTasks(String experimentId, String submitter, int taskIds[],
+            ExperimentTaskConfiguration configurations[]) {
+        String annotatorDefinitions[] = new String[taskIds.length];
+        String datasetDefinitions[] = new String[taskIds.length];
+        for (int i = 0; i < taskIds.length; ++i) {
+            submittedConfigurations.put(taskIds[i], configurations[i]);
+            annotatorDefinitions[i] = AnnotatorMapping.getAnnotatorDefinition(configurations[i].annotatorConfig);
+            datasetDefinitions[i] = DatasetMapping.getDatasetDefinition(configurations[i].datasetConfig);
+        }
+        experimentDAO.queueTasks(taskIds, experimentId, submitter, scheduler.getPriority(taskIds.length),
+                annotatorDefinitions, datasetDefinitions);
+        // the experiment might have been cancelled while its tasks have been
+        // created
+        if ((experimentId != null) && experimentDAO.isExperimentCancelled(experimentId)) {
+            cancelExperiment(experimentId);
+        }
+        tasksQueued();
+    }
+
+    /**
+     * Cancels the given task of the given experiment if it is not shared with
+     * other experiments. If it is queued, it is removed from the queue. If it
+     * is running, it stops before processing its next document and its
+     * requests to the annotator are aborted. The worker executing the task is
+     * free for other tasks afterwards.
+     * 
+     * @param experimentId
+     *            the id of the experiment the task belongs to
+     * @param experimentTaskId
+     *            the id of the experiment task
+     * @return true if the task has been cancelled or false if it is shared
+     *         with another experiment or it has been finished before
+     */
+    public boolean cancelTask(String experimentId, int experimentTaskId) {
+        if (!experimentDAO.cancelTaskOfExperiment(experimentId, experimentTaskId)) {
+            return false;
+        }
+        taskCancelled(experimentTaskId);
+        tasksQueued();
+        return true;
+    }
+
+    /**
+     * Cancels all unfinished tasks of the given experiment that are not shared
+     * with other experiments.
+     * 
+     * @param experimentId
+     *            the id of the experiment
+     * @return the ids of the tasks that have been cancelled
+     */
+    public List<Integer> cancelExperiment(String experimentId) {
+        List<Integer> taskIds = experimentDAO.cancelExperiment(experimentId);
+        for (Integer taskId : taskIds) {
+            taskCancelled(taskId);
+        }
+        if (taskIds.size() > 0) {
+            LOGGER.info("Cancelled {} tasks of experiment \"{}\".", taskIds.size(), experimentId);
+            tasksQueued();
+        }
+        return taskIds;
+    }
+
+    /**
+     * Stops the given task if it is executed by this pool. Otherwise, it is
+     * executed by another pool, which will find it using its heartbeat, or it
+     * has been removed from the queue and won't be started anymore.
+     */
+    private void taskCancelled(int experimentTaskId) {
+        ExperimentTask task = getActiveTask(experimentTaskId);
+        if (task != null) {
+            task.cancel();
+        } else if (progressMonitor != null) {
+            progressMonitor.taskStateChanged(experimentTaskId, ErrorTypes.TASK_CANCELLED.getErrorCode());
+        }
+    }
+
+    private ExperimentTask getActiveTask(int experimentTaskId) {
+        return (taskRegistry != null) ? taskRegistry.getActiveTask(experimentTaskId) : null;
+    }
+
+    /**
+     * Wakes up the idle workers since new tasks are available.
+     */
+    public void tasksQueued() {
+        synchronized (queueMonitor) {
+            queueMonitor.notifyAll();
+        }
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    /**
+     * Returns the number of tasks that are currently executed by this pool.
+     * Abandoned tasks are not counted.
+     */
+    public int getNumberOfRunningTasks() {
+        return runningTasks.get();
+    }
+
+    /**
+     * Returns the tasks that are currently executed by the workers of this
+     * pool.
+     */
+    public List<ExperimentTask> getRunningTasks() {
+        List<ExperimentTask> tasks = new ArrayList<ExperimentTask>();
+        ExperimentTask task;
+        for (Worker worker : activeWorkers) {
+            task = worker.currentTask;
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Gives up the given task since it is stuck. Its state is stored, it is
+     * removed from the queue and its worker is replaced by a new worker. The
+     * thread of the task terminates as soon as the task returns. If there are
+     * already {@link #MAX_ABANDONED_THREADS_PROPERTY_NAME} abandoned threads,
+     * the worker is not replaced and continues as soon as the task returns.
+     */
+    public void abandonTask(ExperimentTask task) {
+        Worker worker = null;
+        for (Worker activeWorker : activeWorkers) {
+            if (activeWorker.abandon(task)) {
+                worker = activeWorker;
+                break;
+            }
+        }
+        if (worker == null) {
+            // the task has been finished in the meantime
+            return;
+        }
+        task.abandon();
+        int taskId = task.getExperimentTaskId();
+        ErrorTypes reason = task.getCancelReason();
+        if (worker.replaced) {
+            LOGGER.error("Task {} is stuck since {} ms. Giving up the task and replacing its worker.", taskId,
+                    System.currentTimeMillis() - task.getStuckSince());
+        } else {
+            LOGGER.error("Task {} is stuck since {} ms. Giving up the task. Its worker is not replaced since there "
+                    + "are already {} abandoned threads.", taskId, System.currentTimeMillis() - task.getStuckSince(),
+                    maxAbandonedThreads);
+        }
+        try {
+            if (reason == ErrorTypes.TASK_CANCELLED) {
+                experimentDAO.cancelTask(taskId);
+            } else {
+                experimentDAO.setExperimentState(taskId, reason.getErrorCode());
+            }
+            experimentDAO.setQueuedTaskFinished(taskId, workerId);
+        } catch (Exception e) {
+            LOGGER.error("Couldn't store the state of the abandoned task " + taskId
+                    + ". It will be queued again after its lease expired.", e);
+        }
+        if (progressMonitor != null) {
+            progressMonitor.taskStateChanged(taskId, reason.getErrorCode());
+        }
+        if (worker.replaced) {
+            synchronized (this) {
+                if (running) {
+                    workers.execute(new Worker(worker.interactiveOnly));
+                }
+            }
+        }
+        tasksQueued();
+    }
+
+    /**
+     * Stops claiming new tasks and waits until the running tasks have been
+     * finished. The leases of the running tasks are renewed while waiting.
+     * Tasks that are still running when the given time is over will be queued
+     * again after their leases expired.
+     * 
+     * @param timeout
+     *            the maximum time to wait in milliseconds
+     * @return true if all running tasks have been finished
+     */
+    public boolean drain(long timeout) throws InterruptedException {
+        ExecutorService workers;
+        synchronized (this) {
+            if (!running) {
+                return true;
+            }
+            running = false;
+            workers = this.workers;
+        }
+        WORKERS.remove(workersValue, workerId);
+        RUNNING_TASKS.remove(runningTasksValue, workerId);
+        QUEUED_TASKS.remove(queuedTasksValue);
+        tasksQueued();
+        boolean finished = true;
+        if (workers != null) {
+            workers.shutdown();
+            finished = workers.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        }
+        heartbeat.shutdownNow();
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        if (probes != null) {
+            probes.shutdownNow();
+        }
+        if (finished) {
+            LOGGER.info("All tasks of the worker pool have been finished.");
+        } else {
+            LOGGER.warn("{} tasks are still running. They will be queued again after their leases expired.",
+                    runningTasks.get());
+        }
+        return finished;
+    }
+
+    /**
+     * Stops claiming new tasks. The leases of tasks that are still running are
+     * not renewed anymore. Thus, they are executed again by another pool or
+     * after the next start if they don't finish before the server is stopped.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of tasks of the given annotator that can be executed
+     * at the same time by all pools or 0 if there is no limit.
+     */
+    protected int getMaxParallelTasks(String annotatorName) {
+        return GerbilConfiguration.getInstance().getInt(
+                MAX_PARALLEL_TASKS_PROPERTY_NAME + '.' + annotatorName,
+                GerbilConfiguration.getInstance().getInt(MAX_PARALLEL_TASKS_PROPERTY_NAME,
+                        DEFAULT_MAX_PARALLEL_TASKS));
+    }
+
+    /**
+     * Claims the first queued task in the order defined by the
+     * {@link FairTaskScheduler} whose annotator hasn't reached its limit of
+     * parallel tasks.
+     * 
+     * @param interactiveOnly
+     *            true if only tasks of interactive experiments should be
+     *            claimed
+     * @return the claimed task or null if there is no task that could be
+     *         claimed
+     */
+    protected QueuedExperimentTask claimTask(boolean interactiveOnly) {
+        List<QueuedExperimentTask> candidates = experimentDAO
+                .getQueuedTasksOfEachExperiment(MAX_NUMBER_OF_CANDIDATES);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        candidates = scheduler.orderCandidates(candidates, experimentDAO.getNumberOfActiveTasksPerExperiment(),
+                scheduler.hasSubmitterQuota() ? experimentDAO.getNumberOfActiveTasksPerSubmitter() : null,
+                interactiveOnly);
+        Map<String, Integer> activeTasks = null;
+        int limit;
+        AnnotatorCircuitBreaker breaker;
+        for (QueuedExperimentTask candidate : candidates) {
+            // tasks of unavailable annotators are paused
+            breaker = AnnotatorCircuitBreaker.getBreaker(getAnnotatorDefinition(candidate));
+            if (!breaker.isRequestPermitted()) {
+                continue;
+            }
+            if ((breaker.getState() != AnnotatorCircuitBreaker.State.CLOSED) && !probeAnnotator(candidate)) {
+                continue;
+            }
+            limit = getMaxParallelTasks(candidate.annotatorName);
+            if (limit > 0) {
+                if (activeTasks == null) {
+                    activeTasks = experimentDAO.getNumberOfActiveTasksPerAnnotator();
+                }
+                if (getCount(activeTasks, candidate.annotatorName) >= limit) {
+                    continue;
+                }
+            }
+            if (experimentDAO.leaseQueuedTask(candidate.taskId, workerId, LEASE_DURATION)) {
+                if (limit > 0) {
+                    // Another pool might have claimed a task of the same
+                    // annotator in the meantime
+                    activeTasks = experimentDAO.getNumberOfActiveTasksPerAnnotator();
+                    if (getCount(activeTasks, candidate.annotatorName) > limit) {
+                        experimentDAO.releaseQueuedTask(candidate.taskId, workerId);
+                        continue;
+                    }
+                }
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the definition of the annotator of the given task that
+     * identifies its {@link AnnotatorCircuitBreaker}.
+     */
+    private static String getAnnotatorDefinition(QueuedExperimentTask task) {
+        return task.annotatorDefinition != null ? task.annotatorDefinition : task.annotatorName;
+    }
+
+    /**
+     * Sends a short document to the annotator of the given task before the
+     * task is claimed and waits at most {@link #PROBE_TIMEOUT} for the
+     * response. The result of the request is recorded by the
+     * {@link AnnotatorCircuitBreaker} of the annotator, i.e., a successful
+     * probe closes the breaker. A probe that didn't finish in time keeps
+     * running and records its result later.
+     * 
+     * @return true if the annotator seems to be available
+     */
+    protected boolean probeAnnotator(final QueuedExperimentTask task) {
+        Future<Boolean> probe;
+        try {
+            probe = probes.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return sendProbe(task);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the pool is stopping
+            return false;
+        }
+        try {
+            return probe.get(PROBE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.info("The probe request to {} didn't finish within {}ms.", task.annotatorName, PROBE_TIMEOUT);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.info("The probe request to {} failed: {}", task.annotatorName, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean sendProbe(QueuedExperimentTask task) {
+        ExperimentTaskConfiguration configuration = getConfiguration(task);
+        if (configuration == null) {
+            // the task will fail anyway
+            return true;
+        }
+        TopicSystem annotator;
+        try {
+            annotator = configuration.annotatorConfig.getAnnotator(configuration.type);
+        } catch (GerbilException e) {
+            return true;
+        }
+        if (annotator == null) {
+            return true;
+        }
+        TopicSystem loadedAnnotator = annotator;
+        annotator = RequestLimitingAnnotatorDecorator.createDecorator(annotator, task.annotatorName,
+                getAnnotatorDefinition(task));
+        try {
+            if (annotator instanceof A2WSystem) {
+                ((A2WSystem) annotator).solveA2W(PROBE_TEXT);
+            } else if (annotator instanceof D2WSystem) {
+                HashSet<Mention> mentions = new HashSet<Mention>();
+                mentions.add(new Mention(0, 6));
+                ((D2WSystem) annotator).solveD2W(PROBE_TEXT, mentions);
+            } else if (annotator instanceof C2WSystem) {
+                ((C2WSystem) annotator).solveC2W(PROBE_TEXT);
+            }
+            LOGGER.info("The probe request to {} has been successful.", task.annotatorName);
+            return true;
+        } catch (AnnotatorRequestRejectedException e) {
+            // the annotator answered, i.e., it is available
+            LOGGER.info("The probe request to {} has been rejected: {}", task.annotatorName, e.getMessage());
+            return true;
+        } catch (Exception e) {
+            LOGGER.info("The probe request to {} failed: {}", task.annotatorName, e.getMessage());
+            return false;
+        } finally {
+            // user defined web services are created for every single probe
+            if ((configuration.annotatorConfig instanceof NIFWebserviceAnnotatorConfiguration)
+                    && (loadedAnnotator instanceof Closeable)) {
+                IOUtils.closeQuietly((Closeable) loadedAnnotator);
+            }
+        }
+    }
+
+    private static int getCount(Map<String, Integer> counts, String key) {
+        Integer count = counts.get(key);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Returns the configuration of the given task or null if it can't be
+     * recreated. Tasks that haven't been submitted by this instance are
+     * recreated based on the annotator and dataset definitions stored inside
+     * the queue. Note that uploaded datasets can only be loaded if the upload
+     * directory is shared with the instance that received the upload.
+     */
+    protected ExperimentTaskConfiguration getConfiguration(QueuedExperimentTask task) {
+        ExperimentTaskConfiguration configuration = submittedConfigurations.get(task.taskId);
+        if (configuration != null) {
+            return configuration;
+        }
+        AnnotatorConfiguration annotator = AnnotatorMapping.getAnnotatorConfig(
+                task.annotatorDefinition != null ? task.annotatorDefinition : task.annotatorName);
+        DatasetConfiguration dataset = DatasetMapping.getDatasetConfig(
+                task.datasetDefinition != null ? task.datasetDefinition : task.datasetName);
+        if ((annotator == null) || (dataset == null)) {
+            return null;
+        }
+        try {
+            return new ExperimentTaskConfiguration(annotator, dataset, ExperimentType.valueOf(task.experimentType),
+                    Matching.valueOf(task.matching));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    protected void executeTask(QueuedExperimentTask queuedTask, Worker worker) {
+        try {
+            // the task might have been cancelled after it has been claimed
+            if ((queuedTask.state != ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET)
+                    || (experimentDAO.getExperimentState(queuedTask.taskId)
+                            != ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET)) {
+                LOGGER.info("Task {} has already been finished or cancelled. Removing it from the queue.", queuedTask.taskId);
+                return;
+            }
+            ExperimentTaskConfiguration configuration = getConfiguration(queuedTask);
+            if (configuration == null) {
+                LOGGER.error("Couldn't recreate the configuration of the queued task {}. Setting its state to an error code.",
+                        queuedTask);
+                experimentDAO.setExperimentState(queuedTask.taskId,
+                        ErrorTypes.SERVER_STOPPED_WHILE_PROCESSING.getErrorCode());
+                return;
+            }
+            if (!experimentDAO.setQueuedTaskRunning(queuedTask.taskId, workerId)) {
+                LOGGER.warn("The lease of task {} expired before it has been started. It won't be executed by this worker.",
+                        queuedTask.taskId);
+                return;
+            }
+            LOGGER.info("Executing task {} of experiment \"{}\".", queuedTask.taskId, queuedTask.experimentId);
+            ExperimentTask task = new ExperimentTask(queuedTask.taskId, experimentDAO, configuration, wikiAPI,
+                    progressMonitor, queuedTask.experimentId, taskRegistry);
+            worker.currentTask = task;
+            task.run();
+            if (task.getFinalState() == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+                // the task died without storing a state
+                experimentDAO.setExperimentState(queuedTask.taskId, ErrorTypes.UNEXPECTED_EXCEPTION.getErrorCode());
+            }
+        } finally {
+            if (!experimentDAO.setQueuedTaskFinished(queuedTask.taskId, workerId)) {
+                // the task might be executed by another worker that claimed it
+                // after the lease of this worker expired
+                LOGGER.warn("Task {} is not leased by this worker anymore. Its queue state hasn't been changed.",
+                        queuedTask.taskId);
+            }
+            submittedConfigurations.remove(queuedTask.taskId);
+        }
+    }
+
+    protected class Worker implements Runnable {
+
+        /**
+         * True if this worker is reserved for the tasks of interactive
+         * experiments.
+         */
+        private final boolean interactiveOnly;
+        /**
+         * The task that is currently executed by this worker.
+         */
+        private volatile ExperimentTask currentTask = null;
+        /**
+         * True if the pool gave up the current task of this worker.
+         */
+        private boolean abandoned = false;
+        /**
+         * True if this worker has been replaced after its task has been
+         * abandoned. Its thread terminates as soon as the task returns.
+         */
+        private boolean replaced = false;
+
+        public Worker(boolean interactiveOnly) {
+            this.interactiveOnly = interactiveOnly;
+        }
+
+        /**
+         * Marks this worker as abandoned if it is still executing the given
+         * task. It is marked as replaced if the number of abandoned threads
+         * hasn't reached its limit.
+         * 
+         * @return true if the worker has been abandoned
+         */
+        protected synchronized boolean abandon(ExperimentTask task) {
+            if (abandoned || (currentTask != task)) {
+                return false;
+            }
+            abandoned = true;
+            if (abandonedThreads.incrementAndGet() <= maxAbandonedThreads) {
+                replaced = true;
+            } else {
+                abandonedThreads.decrementAndGet();
+            }
+            runningTasks.decrementAndGet();
+            return true;
+        }
+
+        /**
+         * Called after the current task returned.
+         * 
+         * @return true if this worker can claim further tasks
+         */
+        protected synchronized boolean taskFinished() {
+            currentTask = null;
+            if (replaced) {
+                abandonedThreads.decrementAndGet();
+                return false;
+            }
+            if (abandoned) {
+                // the worker hasn't been replaced and continues
+                abandoned = false;
+                return true;
+            }
+            runningTasks.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void run() {
+            activeWorkers.add(this);
+            try {
+                work();
+            } finally {
+                activeWorkers.remove(this);
+            }
+        }
+
+        protected void work() {
+            QueuedExperimentTask task;
+            while (running) {
+                task = null;
+                try {
+                    task = claimTask(interactiveOnly);
+                } catch (Exception e) {
+                    LOGGER.error("Couldn't claim a task from the queue.", e);
+                }
+                if (task != null) {
+                    runningTasks.incrementAndGet();
+                    boolean replaced = false;
+                    try {
+                        executeTask(task, this);
+                    } catch (Exception e) {
+                        LOGGER.error("Got an exception while executing the queued task " + task + ".", e);
+                    } finally {
+                        replaced = !taskFinished();
+                    }
+                    if (replaced) {
+                        return;
+                    }
+                    // a waiting task of the same annotator might be claimable
+                    // now
+                    tasksQueued();
+                } else {
+                    synchronized (queueMonitor) {
+                        if (running) {
+                            try {
+                                queueMonitor.wait(POLL_INTERVAL);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    protected static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        public NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + '-' + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.utils.AsyncLogging;
+import org.aksw.gerbil.utils.SingletonWikipediaApi;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * A headless GERBIL instance that executes the experiment tasks of the queue
+ * inside the database without offering the web interface. Several workers can
+ * be started on different machines if they share a database server (see the
+ * <code>gerbil.jdbc.url</code> property).
+ * 
+ * Usage: <code>ExperimentWorker [numberOfWorkers] [-exitWhenEmpty]</code>
+ * 
+ * If <code>-exitWhenEmpty</code> is given, the worker terminates as soon as the
+ * queue is empty and all its tasks have been finished. Otherwise, it waits for
+ * new tasks until it is stopped. When stopped, the running tasks get
+ * {@link #SHUTDOWN_TIMEOUT} ms to finish before they are left to the other
+ * workers.
+ */
+public class ExperimentWorker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentWorker.class);
+
+    public static final String SHUTDOWN_TIMEOUT_PROPERTY_NAME = "org.aksw.gerbil.execute.ExperimentWorker.shutdownTimeout";
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 60000;
+
+    private static final long EMPTY_QUEUE_CHECK_INTERVAL = 10000;
+
+    public static void main(String[] args) {
+        AsyncLogging.enable();
+        int numberOfWorkers = GerbilConfiguration.getInstance().getInt(
+                ExperimentTaskWorkerPool.NUMBER_OF_WORKERS_PROPERTY_NAME,
+                ExperimentTaskWorkerPool.DEFAULT_NUMBER_OF_WORKERS);
+        boolean exitWhenEmpty = false;
+        for (int i = 0; i < args.length; ++i) {
+            if ("-exitWhenEmpty".equals(args[i])) {
+                exitWhenEmpty = true;
+            } else {
+                try {
+                    numberOfWorkers = Integer.parseInt(args[i]);
+                } catch (NumberFormatException e) {
+                    LOGGER.error("Couldn't parse the argument \"" + args[i]
+                            + "\". Usage: ExperimentWorker [numberOfWorkers] [-exitWhenEmpty]");
+                    return;
+                }
+            }
+        }
+        if (numberOfWorkers <= 0) {
+            LOGGER.error("A worker needs at least one thread. Aborting.");
+            return;
+        }
+        final long shutdownTimeout = GerbilConfiguration.getInstance().getLong(SHUTDOWN_TIMEOUT_PROPERTY_NAME,
+                DEFAULT_SHUTDOWN_TIMEOUT);
+
+        final ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(
+                "/spring/database/database-context.xml");
+        ExperimentDAO experimentDAO = context.getBean(ExperimentDAO.class);
+        experimentDAO.initialize();
+
+        final ExperimentTaskWorkerPool workerPool = new ExperimentTaskWorkerPool(experimentDAO,
+                SingletonWikipediaApi.getInstance(), null, new ExperimentTaskRegistry(), numberOfWorkers);
+        workerPool.start();
+        LOGGER.info("Started worker {} with {} threads.", workerPool.getWorkerId(), numberOfWorkers);
+
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                stopWorker(workerPool, context, shutdownTimeout, stopped);
+            }
+        });
+
+        // the threads of the pool are daemons, i.e., this thread has to keep
+        // the JVM alive
+        try {
+            while (true) {
+                Thread.sleep(EMPTY_QUEUE_CHECK_INTERVAL);
+                if (exitWhenEmpty && experimentDAO.getQueuedTasks(1).isEmpty()
+                        && (workerPool.getNumberOfRunningTasks() == 0)) {
+                    LOGGER.info("The queue is empty.");
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for tasks.");
+        }
+        // the JVM terminates after the pool and the context have been closed
+        stopWorker(workerPool, context, shutdownTimeout, stopped);
+    }
+
+    /**
+     * Waits for the running tasks and closes the worker pool and the context.
+     * Does nothing if the worker has already been stopped.
+     */
+    private static void stopWorker(ExperimentTaskWorkerPool workerPool, ClassPathXmlApplicationContext context,
+            long shutdownTimeout, AtomicBoolean stopped) {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        LOGGER.info("Stopping worker. Waiting for the running tasks...");
+        try {
+            workerPool.drain(shutdownTimeout);
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the running tasks.");
+        }
+        try {
+            SingletonWikipediaApi.getInstance().flush();
+        } catch (IOException e) {
+            LOGGER.error("Couldn't store the Wikipedia API cache.", e);
+        }
+        IOUtils.closeQuietly(workerPool);
+        context.close();
+        AsyncLogging.shutdown();
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+
+/**
+ * Decides in which order the queued tasks of the different experiments are
+ * claimed by the workers. The workers are shared fairly between the
+ * experiments.
+ * 
+ * <ol>
+ * <li>Tasks of interactive experiments, i.e., experiments with at most
+ * {@link #INTERACTIVE_MAX_TASKS_PROPERTY_NAME} tasks, are claimed before the
+ * tasks of batch experiments.</li>
+ * <li>Inside a priority class, the experiment with the smallest number of
+ * active tasks (i.e., leased or running tasks of all workers sharing the
+ * database) is preferred. Thus, a newly queued experiment gets the next free
+ * worker even if a large experiment is already running.</li>
+ * <li>Experiments with the same number of active tasks keep the order in
+ * which they have been queued.</li>
+ * <li>The tasks of a single experiment are claimed longest-first based on the
+ * runtimes estimated by the {@link TaskRuntimeEstimator}.</li>
+ * </ol>
+ * 
+ * Additionally, the number of active tasks of a single submitter can be limited
+ * using the {@link #MAX_ACTIVE_TASKS_PER_SUBMITTER_PROPERTY_NAME} property.
+ */
+public class FairTaskScheduler {
+
+    public static final String INTERACTIVE_MAX_TASKS_PROPERTY_NAME = "org.aksw.gerbil.execute.FairTaskScheduler.interactiveMaxTasks";
+    /**
+     * The maximum number of tasks of an interactive experiment if there is no
+     * other value defined.
+     */
+    public static final int DEFAULT_INTERACTIVE_MAX_TASKS = 10;
+    public static final String MAX_ACTIVE_TASKS_PER_SUBMITTER_PROPERTY_NAME = "org.aksw.gerbil.execute.FairTaskScheduler.maxActiveTasksPerSubmitter";
+    /**
+     * The number of tasks of a single submitter that can be active at the same
+     * time if there is no other value defined (0 means no limit).
+     */
+    public static final int DEFAULT_MAX_ACTIVE_TASKS_PER_SUBMITTER = 0;
+
+    private final TaskRuntimeEstimator runtimeEstimator;
+    private final int interactiveMaxTasks;
+    private final int maxActiveTasksPerSubmitter;
+
+    public FairTaskScheduler(TaskRuntimeEstimator runtimeEstimator) {
+        this(runtimeEstimator, GerbilConfiguration.getInstance().getInt(INTERACTIVE_MAX_TASKS_PROPERTY_NAME,
+                DEFAULT_INTERACTIVE_MAX_TASKS), GerbilConfiguration.getInstance().getInt(
+                MAX_ACTIVE_TASKS_PER_SUBMITTER_PROPERTY_NAME, DEFAULT_MAX_ACTIVE_TASKS_PER_SUBMITTER));
+    }
+
+    public FairTaskScheduler(TaskRuntimeEstimator runtimeEstimator, int interactiveMaxTasks,
+            int maxActiveTasksPerSubmitter) {
+        this.runtimeEstimator = runtimeEstimator;
+        this.interactiveMaxTasks = interactiveMaxTasks;
+        this.maxActiveTasksPerSubmitter = maxActiveTasksPerSubmitter;
+    }
+
+    /**
+     * Returns the priority class of an experiment with the given number of
+     * queued tasks.
+     */
+    public int getPriority(int numberOfTasks) {
+        return numberOfTasks <= interactiveMaxTasks ? ExperimentDAO.PRIORITY_INTERACTIVE
+                : ExperimentDAO.PRIORITY_BATCH;
+    }
+
+    /**
+     * Returns true if the number of active tasks of a single submitter is
+     * limited.
+     */
+    public boolean hasSubmitterQuota() {
+        return maxActiveTasksPerSubmitter > 0;
+    }
+
+    /**
+     * Returns the given candidates in the order in which they should be
+     * claimed. Candidates that shouldn't be claimed at all are removed.
+     * 
+     * @param candidates
+     *            the queued tasks grouped by their experiments in the order in
+     *            which they have been queued
+     * @param activeTasksPerExperiment
+     *            the number of active tasks of the experiments
+     * @param activeTasksPerSubmitter
+     *            the number of active tasks of the submitters (can be null if
+     *            there is no submitter quota)
+     * @param interactiveOnly
+     *            true if only tasks of interactive experiments should be
+     *            returned
+     * @return the ordered candidates
+     */
+    public List<QueuedExperimentTask> orderCandidates(List<QueuedExperimentTask> candidates,
+            final Map<String, Integer> activeTasksPerExperiment, Map<String, Integer> activeTasksPerSubmitter,
+            boolean interactiveOnly) {
+        List<QueuedExperimentTask> orderedCandidates = new ArrayList<QueuedExperimentTask>(candidates.size());
+        final Map<String, Integer> experimentRanks = new HashMap<String, Integer>();
+        final Map<Integer, Long> runtimes = new HashMap<Integer, Long>();
+        for (QueuedExperimentTask candidate : candidates) {
+            if (interactiveOnly && (candidate.priority != ExperimentDAO.PRIORITY_INTERACTIVE)) {
+                continue;
+            }
+            if (hasSubmitterQuota() && (candidate.submitter != null) && (activeTasksPerSubmitter != null)
+                    && (getCount(activeTasksPerSubmitter, candidate.submitter) >= maxActiveTasksPerSubmitter)) {
+                continue;
+            }
+            if (!experimentRanks.containsKey(candidate.experimentId)) {
+                experimentRanks.put(candidate.experimentId, experimentRanks.size());
+            }
+            runtimes.put(candidate.taskId,
+                    runtimeEstimator.estimateRuntime(candidate.annotatorName, candidate.datasetName));
+            orderedCandidates.add(candidate);
+        }
+        Collections.sort(orderedCandidates, new Comparator<QueuedExperimentTask>() {
+            @Override
+            public int compare(QueuedExperimentTask t1, QueuedExperimentTask t2) {
+                if (t1.priority != t2.priority) {
+                    return t1.priority > t2.priority ? -1 : 1;
+                }
+                if (!equals(t1.experimentId, t2.experimentId)) {
+                    int diff = Integer.compare(getCount(activeTasksPerExperiment, t1.experimentId),
+                            getCount(activeTasksPerExperiment, t2.experimentId));
+                    if (diff != 0) {
+                        return diff;
+                    }
+                    return experimentRanks.get(t1.experimentId).compareTo(experimentRanks.get(t2.experimentId));
+                }
+                return runtimes.get(t2.taskId).compareTo(runtimes.get(t1.taskId));
+            }
+
+            private boolean equals(String s1, String s2) {
+                return (s1 == null) ? (s2 == null) : s1.equals(s2);
+            }
+        });
+        return orderedCandidates;
+    }
+
+    private static int getCount(Map<String, Integer> counts, String key) {
+        Integer count = counts.get(key);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * A file based storage for the outputs an annotator generated for the single
+ * documents of an experiment task. Every output is appended to the file as
+ * soon as it arrives. If a task is interrupted or fails, a retry of the task
+ * can reuse the stored outputs and has to send only the missing documents to
+ * the annotator. The checkpoint of a task is deleted after the task has been
+ * finished successfully.
+ * 
+ * A checkpoint is identified by the names of the annotator and the dataset as
+ * well as the experiment type. Thus, it can be used by a newly created task
+ * with the same configuration. Since these names are only unique if the
+ * annotator and the dataset could be cached, other tasks don't use
+ * checkpoints. The outputs are identified by the hashes of the documents.
+ * Thus, documents with the same text share a single output.
+ */
+public class TaskCheckpoint implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskCheckpoint.class);
+
+    public static final String CHECKPOINT_DIRECTORY_PROPERTY_NAME = "org.aksw.gerbil.execute.TaskCheckpoint.Directory";
+    /**
+     * Checkpoints that haven't been changed for this time (in milliseconds)
+     * are not reused since the annotator might have changed in the meantime.
+     */
+    public static final long MAX_CHECKPOINT_AGE = 7L * 24L * 60L * 60L * 1000L;
+
+    private static final String FILE_SUFFIX = ".checkpoint";
+
+    /**
+     * The files of the checkpoints that are currently used. A checkpoint can
+     * only be used by a single task at once.
+     */
+    private static final Set<String> OPEN_CHECKPOINTS = new HashSet<String>();
+
+    /**
+     * Opens the checkpoint of the given task.
+     * 
+     * @return the checkpoint or null if there is no checkpoint directory
+     *         defined, the annotator or the dataset couldn't be cached or the
+     *         checkpoint is already used by another task
+     */
+    public static TaskCheckpoint open(ExperimentTaskConfiguration configuration, int experimentTaskId) {
+        if (!configuration.annotatorConfig.couldBeCached() || !configuration.datasetConfig.couldBeCached()) {
+            return null;
+        }
+        String directoryName = GerbilConfiguration.getInstance().getString(CHECKPOINT_DIRECTORY_PROPERTY_NAME);
+        if (directoryName == null) {
+            return null;
+        }
+        File directory = new File(directoryName);
+        if (!directory.exists() && !directory.mkdirs()) {
+            LOGGER.error("Couldn't create the checkpoint directory \"{}\". Checkpointing is disabled.",
+                    directory.getAbsolutePath());
+            return null;
+        }
+        String name = Hashing
+                .md5()
+                .hashString(
+                        configuration.annotatorConfig.getName() + '\n' + configuration.datasetConfig.getName() + '\n'
+                                + configuration.type.name(), Charsets.UTF_8).toString();
+        File file = new File(directory, name + FILE_SUFFIX);
+        synchronized (OPEN_CHECKPOINTS) {
+            if (!OPEN_CHECKPOINTS.add(file.getAbsolutePath())) {
+                LOGGER.info("The checkpoint \"{}\" is already in use. Task {} won't use a checkpoint.", file,
+                        experimentTaskId);
+                return null;
+            }
+        }
+        TaskCheckpoint checkpoint = new TaskCheckpoint(file);
+        try {
+            checkpoint.load();
+        } catch (IOException e) {
+            LOGGER.error("Couldn't open the checkpoint \"" + file + "\". Task " + experimentTaskId
+                    + " won't use a checkpoint.", e);
+            checkpoint.release();
+            return null;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Deletes all checkpoints that haven't been changed for
+     * {@link #MAX_CHECKPOINT_AGE} milliseconds.
+     */
+    public static void deleteOutdatedCheckpoints() {
+        String directoryName = GerbilConfiguration.getInstance().getString(CHECKPOINT_DIRECTORY_PROPERTY_NAME);
+        if (directoryName == null) {
+            return;
+        }
+        File files[] = new File(directoryName).listFiles();
+        if (files == null) {
+            return;
+        }
+        long oldestAllowedChange = System.currentTimeMillis() - MAX_CHECKPOINT_AGE;
+        for (File file : files) {
+            if (file.getName().endsWith(FILE_SUFFIX) && (file.lastModified() < oldestAllowedChange)) {
+                synchronized (OPEN_CHECKPOINTS) {
+                    if (!OPEN_CHECKPOINTS.contains(file.getAbsolutePath()) && !file.delete()) {
+                        LOGGER.warn("Couldn't delete the outdated checkpoint \"{}\".", file);
+                    }
+                }
+            }
+        }
+    }
+
+    private final File file;
+    private final Map<String, byte[]> outputs = new HashMap<String, byte[]>();
+    private DataOutputStream out = null;
+    private int reusedOutputs = 0;
+    private boolean closed = false;
+
+    protected TaskCheckpoint(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the outputs stored inside the file. A record that has not been
+     * written completely, e.g., because the server has been killed, is
+     * removed from the file.
+     */
+    protected void load() throws IOException {
+        if (file.exists() && (file.lastModified() < (System.currentTimeMillis() - MAX_CHECKPOINT_AGE))) {
+            LOGGER.info("The checkpoint \"{}\" is outdated. It won't be used.", file);
+            if (!file.delete()) {
+                throw new IOException("Couldn't delete the outdated checkpoint.");
+            }
+        }
+        if (file.exists()) {
+            long validLength = 0;
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                String key;
+                byte data[];
+                while (true) {
+                    key = in.readUTF();
+                    data = new byte[in.readInt()];
+                    in.readFully(data);
+                    outputs.put(key, data);
+                    // the keys contain ASCII characters only. Thus, their
+                    // modified UTF-8 encoding needs one byte per char.
+                    validLength += 2 + key.length() + 4 + data.length;
+                }
+            } catch (EOFException e) {
+                // the end of the file has been reached
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            if (validLength < file.length()) {
+                LOGGER.warn("The checkpoint \"{}\" ends with an incomplete record. Removing it.", file);
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(validLength);
+                } finally {
+                    raf.close();
+                }
+            }
+            if (outputs.size() > 0) {
+                LOGGER.info("Loaded {} stored annotator outputs from \"{}\".", outputs.size(), file);
+            }
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+
+    /**
+     * Returns the stored output for the given key or null if there is no such
+     * output. Note that keys must contain ASCII characters only.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String key) {
+        byte data[] = outputs.get(key);
+        if (data == null) {
+            return null;
+        }
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new ByteArrayInputStream(data));
+            T output = (T) in.readObject();
+            ++reusedOutputs;
+            return output;
+        } catch (Exception e) {
+            LOGGER.warn("Couldn't read the stored output with the key \"" + key + "\". It will be ignored.", e);
+            outputs.remove(key);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Appends the given output to the checkpoint. Errors are logged but not
+     * thrown since the task can be finished without the checkpoint.
+     */
+    public synchronized void put(String key, Serializable output) {
+        if ((out == null) || (output == null)) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            ObjectOutputStream oout = new ObjectOutputStream(bout);
+            oout.writeObject(output);
+            oout.close();
+            byte data[] = bout.toByteArray();
+            out.writeUTF(key);
+            out.writeInt(data.length);
+            out.write(data);
+            out.flush();
+            outputs.put(key, data);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't write to the checkpoint \"" + file + "\". Further outputs won't be stored.", e);
+            IOUtils.closeQuietly(out);
+            out = null;
+        }
+    }
+
+    /**
+     * Returns the number of outputs that have been read from this checkpoint.
+     */
+    public synchronized int getNumberOfReusedOutputs() {
+        return reusedOutputs;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOUtils.closeQuietly(out);
+        out = null;
+        outputs.clear();
+        release();
+    }
+
+    /**
+     * Closes the checkpoint and deletes its file. Should be called after the
+     * task has been finished successfully.
+     */
+    public synchronized void delete() {
+        close();
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("Couldn't delete the checkpoint \"{}\".", file);
+        }
+    }
+
+    private void release() {
+        synchronized (OPEN_CHECKPOINTS) {
+            OPEN_CHECKPOINTS.remove(file.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
+import org.aksw.gerbil.utils.DatasetMetaData;
+import org.aksw.gerbil.utils.DatasetMetaDataMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates the runtime of experiment tasks based on the runtimes of finished
+ * tasks that are stored inside the database.
+ * 
+ * If there are finished tasks of the same annotator and dataset, their average
+ * runtime is used. Otherwise, the runtime is estimated by multiplying the
+ * number of documents of the dataset with the mean time the annotator needed
+ * per document. If the annotator hasn't finished a task, yet, the mean time of
+ * all annotators is used.
+ * 
+ * The statistics are loaded from the database at most once per
+ * {@link #STATISTICS_UPDATE_INTERVAL}.
+ */
+public class TaskRuntimeEstimator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskRuntimeEstimator.class);
+
+    /**
+     * Time after which the statistics are loaded from the database again.
+     */
+    public static final long STATISTICS_UPDATE_INTERVAL = 60000;
+    /**
+     * The number of documents that is assumed for a dataset whose size is
+     * unknown.
+     */
+    public static final int DEFAULT_NUMBER_OF_DOCUMENTS = 100;
+    /**
+     * The time in milliseconds that is assumed for a single document if there
+     * are no runtimes of finished tasks.
+     */
+    public static final double DEFAULT_DOCUMENT_RUNTIME = 1000;
+
+    private final ExperimentDAO experimentDAO;
+    private final DatasetMetaDataMapping metaDataMapping;
+    private volatile RuntimeStatistics statistics = null;
+    private long lastUpdate = 0;
+
+    public TaskRuntimeEstimator(ExperimentDAO experimentDAO) {
+        this(experimentDAO, DatasetMetaDataMapping.getInstance());
+    }
+
+    public TaskRuntimeEstimator(ExperimentDAO experimentDAO, DatasetMetaDataMapping metaDataMapping) {
+        this.experimentDAO = experimentDAO;
+        this.metaDataMapping = metaDataMapping;
+    }
+
+    /**
+     * Returns the estimated runtime of a task of the given annotator and
+     * dataset in milliseconds.
+     */
+    public long estimateRuntime(String annotatorName, String datasetName) {
+        RuntimeStatistics statistics = getStatistics();
+        Map<String, TaskRuntimeStatistics> datasetRuntimes = statistics.taskRuntimes.get(annotatorName);
+        if ((datasetRuntimes != null) && datasetRuntimes.containsKey(datasetName)) {
+            return (long) datasetRuntimes.get(datasetName).averageRuntime;
+        }
+        double documentRuntime;
+        if (statistics.documentRuntimes.containsKey(annotatorName)) {
+            documentRuntime = statistics.documentRuntimes.get(annotatorName);
+        } else {
+            documentRuntime = statistics.meanDocumentRuntime;
+        }
+        return (long) (getNumberOfDocuments(statistics, datasetName) * documentRuntime);
+    }
+
+    private int getNumberOfDocuments(RuntimeStatistics statistics, String datasetName) {
+        if (statistics.datasetSizes.containsKey(datasetName)) {
+            return statistics.datasetSizes.get(datasetName);
+        }
+        DatasetMetaData metaData = metaDataMapping.getMetaData(datasetName);
+        if ((metaData != null) && (metaData.numberOfDocuments > 0)) {
+            return metaData.numberOfDocuments;
+        }
+        return DEFAULT_NUMBER_OF_DOCUMENTS;
+    }
+
+    private synchronized RuntimeStatistics getStatistics() {
+        long now = System.currentTimeMillis();
+        if ((statistics == null) || ((now - lastUpdate) > STATISTICS_UPDATE_INTERVAL)) {
+            lastUpdate = now;
+            try {
+                statistics = new RuntimeStatistics(experimentDAO.getTaskRuntimeStatistics());
+            } catch (Exception e) {
+                LOGGER.error("Couldn't load the runtimes of the finished tasks. Using the old statistics.", e);
+                if (statistics == null) {
+                    statistics = new RuntimeStatistics(null);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Immutable snapshot of the runtime statistics loaded from the database.
+     */
+    private static class RuntimeStatistics {
+
+        private final Map<String, Map<String, TaskRuntimeStatistics>> taskRuntimes = new HashMap<String, Map<String, TaskRuntimeStatistics>>();
+        private final Map<String, Double> documentRuntimes = new HashMap<String, Double>();
+        private final Map<String, Integer> datasetSizes = new HashMap<String, Integer>();
+        private final double meanDocumentRuntime;
+
+        public RuntimeStatistics(List<TaskRuntimeStatistics> statistics) {
+            Map<String, double[]> annotatorSums = new HashMap<String, double[]>();
+            double runtimeSum = 0, documentSum = 0;
+            if (statistics != null) {
+                Map<String, TaskRuntimeStatistics> datasetRuntimes;
+                double sums[];
+                for (TaskRuntimeStatistics statistic : statistics) {
+                    datasetRuntimes = taskRuntimes.get(statistic.annotatorName);
+                    if (datasetRuntimes == null) {
+                        datasetRuntimes = new HashMap<String, TaskRuntimeStatistics>();
+                        taskRuntimes.put(statistic.annotatorName, datasetRuntimes);
+                    }
+                    datasetRuntimes.put(statistic.datasetName, statistic);
+                    if (statistic.numberOfDocuments > 0) {
+                        if (!datasetSizes.containsKey(statistic.datasetName)
+                                || (datasetSizes.get(statistic.datasetName) < statistic.numberOfDocuments)) {
+                            datasetSizes.put(statistic.datasetName, statistic.numberOfDocuments);
+                        }
+                        // weight the runtimes with the number of tasks
+                        sums = annotatorSums.get(statistic.annotatorName);
+                        if (sums == null) {
+                            sums = new double[2];
+                            annotatorSums.put(statistic.annotatorName, sums);
+                        }
+                        sums[0] += statistic.averageRuntime * statistic.numberOfTasks;
+                        sums[1] += statistic.numberOfDocuments * statistic.numberOfTasks;
+                        runtimeSum += statistic.averageRuntime * statistic.numberOfTasks;
+                        documentSum += statistic.numberOfDocuments * statistic.numberOfTasks;
+                    }
+                }
+            }
+            for (String annotatorName : annotatorSums.keySet()) {
+                double sums[] = annotatorSums.get(annotatorName);
+                documentRuntimes.put(annotatorName, sums[0] / sums[1]);
+            }
+            meanDocumentRuntime = documentSum > 0 ? (runtimeSum / documentSum) : DEFAULT_DOCUMENT_RUNTIME;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentTaskState;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enforces the deadlines of the tasks executed by an
+ * {@link ExperimentTaskWorkerPool}. It is executed every
+ * {@link #CHECK_INTERVAL} milliseconds and checks the running tasks of the
+ * pool.
+ * 
+ * <ul>
+ * <li>If a single request to the annotator exceeds the
+ * {@link #DOCUMENT_TIMEOUT_PROPERTY_NAME} deadline, the HTTP requests of the
+ * task are aborted. The request fails, is counted as an error and the task goes
+ * on with its next document.</li>
+ * <li>If the complete task exceeds the {@link #TASK_TIMEOUT_PROPERTY_NAME}
+ * deadline, it is stopped like a cancelled task but stores
+ * {@link org.aksw.gerbil.datatypes.ErrorTypes#TASK_TIMED_OUT} as its state.</li>
+ * <li>If a task is still stuck {@link #ABANDON_TIMEOUT_PROPERTY_NAME}
+ * milliseconds after it has been stopped or after its request has been
+ * aborted, e.g., because the annotator uses a connection that can't be
+ * aborted, the pool gives up the task and replaces its worker. Thus, a stuck
+ * task can't block a worker of the pool forever.</li>
+ * </ul>
+ * 
+ * Both deadlines can be set for a single annotator by appending a dot and the
+ * name of the annotator to the property name. A deadline of 0 disables it.
+ * Instead of dumping the stack traces of all tasks regularly, the stack trace
+ * of a task is only recorded when its request exceeds its deadline (see
+ * {@link ExperimentTask#getStuckStackTrace()}).
+ */
+public class TaskWatchdog implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskWatchdog.class);
+
+    public static final String DOCUMENT_TIMEOUT_PROPERTY_NAME = "org.aksw.gerbil.execute.TaskWatchdog.documentTimeout";
+    public static final long DEFAULT_DOCUMENT_TIMEOUT = 600000;
+    public static final String TASK_TIMEOUT_PROPERTY_NAME = "org.aksw.gerbil.execute.TaskWatchdog.taskTimeout";
+    public static final long DEFAULT_TASK_TIMEOUT = 86400000;
+    public static final String ABANDON_TIMEOUT_PROPERTY_NAME = "org.aksw.gerbil.execute.TaskWatchdog.abandonTimeout";
+    public static final long DEFAULT_ABANDON_TIMEOUT = 120000;
+    /**
+     * Interval (in milliseconds) in which the running tasks are checked.
+     */
+    public static final long CHECK_INTERVAL = 5000;
+
+    private final ExperimentTaskWorkerPool pool;
+    private final long abandonTimeout;
+
+    public TaskWatchdog(ExperimentTaskWorkerPool pool) {
+        this(pool, GerbilConfiguration.getInstance().getLong(ABANDON_TIMEOUT_PROPERTY_NAME, DEFAULT_ABANDON_TIMEOUT));
+    }
+
+    protected TaskWatchdog(ExperimentTaskWorkerPool pool, long abandonTimeout) {
+        this.pool = pool;
+        this.abandonTimeout = abandonTimeout;
+    }
+
+    @Override
+    public void run() {
+        try {
+            long now = System.currentTimeMillis();
+            for (ExperimentTask task : pool.getRunningTasks()) {
+                check(task, now);
+            }
+        } catch (Exception e) {
+            // the watchdog must not die
+            LOGGER.error("Got an exception while checking the running tasks.", e);
+        }
+    }
+
+    protected void check(ExperimentTask task, long now) {
+        if ((task.getStatus() != ExperimentTask.Status.RUNNING) || task.isAbandoned()) {
+            return;
+        }
+        String annotatorName = task.getConfiguration().annotatorConfig.getName();
+        long taskTimeout = getTaskTimeout(annotatorName);
+        if ((taskTimeout > 0) && !task.isCancelled() && ((now - task.getStartTime()) > taskTimeout)) {
+            LOGGER.warn("Task {} exceeded its deadline of {} ms. Stopping it.", task.getExperimentTaskId(),
+                    taskTimeout);
+            task.timeOut();
+        }
+        long documentTimeout = getDocumentTimeout(annotatorName);
+        ExperimentTaskState state = task.getTaskState();
+        if ((documentTimeout > 0) && (state != null)) {
+            long requestStartTime = state.getRequestStartTime();
+            if ((requestStartTime > 0) && ((now - requestStartTime) > documentTimeout)
+                    && (requestStartTime != task.getTimedOutRequestStartTime())) {
+                int abortedRequests = task.requestTimedOut(requestStartTime);
+                LOGGER.warn("The request of task {} to {} exceeded its deadline of {} ms. Aborted {} HTTP requests.",
+                        task.getExperimentTaskId(), annotatorName, documentTimeout, abortedRequests);
+            }
+        }
+        long stuckSince = task.getStuckSince();
+        if ((stuckSince > 0) && ((now - stuckSince) > abandonTimeout)) {
+            pool.abandonTask(task);
+        }
+    }
+
+    /**
+     * Returns the maximum time (in milliseconds) a single request to the given
+     * annotator may take or 0 if there is no limit.
+     */
+    public static long getDocumentTimeout(String annotatorName) {
+        return getTimeout(DOCUMENT_TIMEOUT_PROPERTY_NAME, annotatorName, DEFAULT_DOCUMENT_TIMEOUT);
+    }
+
+    /**
+     * Returns the maximum time (in milliseconds) a task of the given annotator
+     * may take or 0 if there is no limit.
+     */
+    public static long getTaskTimeout(String annotatorName) {
+        return getTimeout(TASK_TIMEOUT_PROPERTY_NAME, annotatorName, DEFAULT_TASK_TIMEOUT);
+    }
+
+    private static long getTimeout(String propertyName, String annotatorName, long defaultValue) {
+        Configuration config = GerbilConfiguration.getInstance();
+        return config.getLong(propertyName + '.' + annotatorName, config.getLong(propertyName, defaultValue));
+    }
+}
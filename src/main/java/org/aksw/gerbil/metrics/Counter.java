@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that can only be increased, e.g., the number of requests sent to
+ * an annotator. Increasing it is a lock-free operation.
+ */
+public class Counter extends Metric {
+
+    private final ConcurrentMap<List<String>, AtomicLong> values = new ConcurrentHashMap<List<String>, AtomicLong>();
+
+    public Counter(String name, String help, String... labelNames) {
+        super(name, help, labelNames);
+    }
+
+    public void inc(String... labelValues) {
+        inc(1, labelValues);
+    }
+
+    public void inc(long amount, String... labelValues) {
+        getValue(createKey(labelValues)).addAndGet(amount);
+    }
+
+    public long get(String... labelValues) {
+        AtomicLong value = values.get(createKey(labelValues));
+        return value != null ? value.get() : 0;
+    }
+
+    private AtomicLong getValue(List<String> key) {
+        AtomicLong value = values.get(key);
+        if (value == null) {
+            value = new AtomicLong();
+            AtomicLong existingValue = values.putIfAbsent(key, value);
+            if (existingValue != null) {
+                value = existingValue;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public void collect(List<MetricSample> samples) {
+        for (Entry<List<String>, AtomicLong> entry : values.entrySet()) {
+            samples.add(new MetricSample(name, labelNames, entry.getKey(), entry.getValue().get()));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A value that can go up and down, e.g., the number of queued tasks. The
+ * values are not stored inside the gauge. Instead, the registered
+ * {@link Value}s are asked for the current values whenever the metric is
+ * collected.
+ */
+public class Gauge extends Metric {
+
+    /**
+     * Provides the current value of a time series of a {@link Gauge}. It is
+     * called by the thread collecting the metrics and should be cheap.
+     */
+    public static interface Value {
+        public double getValue();
+    }
+
+    private final ConcurrentMap<List<String>, Value> values = new ConcurrentHashMap<List<String>, Value>();
+
+    public Gauge(String name, String help, String... labelNames) {
+        super(name, help, labelNames);
+    }
+
+    /**
+     * Sets the value of the time series with the given label values. A value
+     * that has been registered before is replaced.
+     */
+    public void register(Value value, String... labelValues) {
+        values.put(createKey(labelValues), value);
+    }
+
+    /**
+     * Removes the time series with the given label values if its value is
+     * still the given value.
+     */
+    public void remove(Value value, String... labelValues) {
+        values.remove(createKey(labelValues), value);
+    }
+
+    public double get(String... labelValues) {
+        Value value = values.get(createKey(labelValues));
+        return value != null ? value.getValue() : Double.NaN;
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public void collect(List<MetricSample> samples) {
+        for (Entry<List<String>, Value> entry : values.entrySet()) {
+            samples.add(new MetricSample(name, labelNames, entry.getKey(), entry.getValue().getValue()));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts observed values, e.g., durations, in buckets with fixed upper bounds.
+ * Additionally, the number and the sum of the observed values are kept.
+ * Observing a value is a lock-free operation.
+ */
+public class Histogram extends Metric {
+
+    /**
+     * Upper bounds (in seconds) for durations of requests, e.g., to an
+     * annotator or the database.
+     */
+    public static final double REQUEST_DURATION_BUCKETS[] = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5,
+            10, 30, 60, 120, 300, 600 };
+
+    /**
+     * Upper bounds (in seconds) for durations of experiment tasks.
+     */
+    public static final double TASK_DURATION_BUCKETS[] = { 1, 10, 30, 60, 300, 600, 1800, 3600, 7200, 21600, 43200,
+            86400 };
+
+    private static final String BUCKET_LABEL_NAME = "le";
+
+    private final double upperBounds[];
+    private final String bucketLabelNames[];
+    private final ConcurrentMap<List<String>, Buckets> values = new ConcurrentHashMap<List<String>, Buckets>();
+
+    public Histogram(String name, String help, double upperBounds[], String... labelNames) {
+        super(name, help, labelNames);
+        this.upperBounds = Arrays.copyOf(upperBounds, upperBounds.length);
+        Arrays.sort(this.upperBounds);
+        bucketLabelNames = Arrays.copyOf(labelNames, labelNames.length + 1);
+        bucketLabelNames[labelNames.length] = BUCKET_LABEL_NAME;
+    }
+
+    public void observe(double value, String... labelValues) {
+        getBuckets(createKey(labelValues)).observe(value);
+    }
+
+    /**
+     * Observes the time (in seconds) that passed since the given start time
+     * that has been retrieved using {@link System#nanoTime()}.
+     */
+    public void observeDurationSince(long startNanos, String... labelValues) {
+        observe((System.nanoTime() - startNanos) / 1e9, labelValues);
+    }
+
+    /**
+     * Returns the number of observed values.
+     */
+    public long getCount(String... labelValues) {
+        Buckets buckets = values.get(createKey(labelValues));
+        return buckets != null ? buckets.count.get() : 0;
+    }
+
+    /**
+     * Returns the sum of the observed values.
+     */
+    public double getSum(String... labelValues) {
+        Buckets buckets = values.get(createKey(labelValues));
+        return buckets != null ? Double.longBitsToDouble(buckets.sum.get()) : 0;
+    }
+
+    private Buckets getBuckets(List<String> key) {
+        Buckets buckets = values.get(key);
+        if (buckets == null) {
+            buckets = new Buckets(upperBounds.length + 1);
+            Buckets existingBuckets = values.putIfAbsent(key, buckets);
+            if (existingBuckets != null) {
+                buckets = existingBuckets;
+            }
+        }
+        return buckets;
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+
+    @Override
+    public void collect(List<MetricSample> samples) {
+        List<String> labelValues;
+        long cumulativeCount;
+        Buckets buckets;
+        for (Entry<List<String>, Buckets> entry : values.entrySet()) {
+            buckets = entry.getValue();
+            cumulativeCount = 0;
+            for (int i = 0; i <= upperBounds.length; ++i) {
+                cumulativeCount += buckets.counts.get(i);
+                labelValues = new ArrayList<String>(entry.getKey());
+                labelValues.add(i < upperBounds.length ? PrometheusTextFormat.formatValue(upperBounds[i]) : "+Inf");
+                samples.add(new MetricSample(name + "_bucket", bucketLabelNames, labelValues, cumulativeCount));
+            }
+            // the count is derived from the buckets to be consistent with them
+            samples.add(new MetricSample(name + "_count", labelNames, entry.getKey(), cumulativeCount));
+            samples.add(new MetricSample(name + "_sum", labelNames, entry.getKey(), Double.longBitsToDouble(buckets.sum
+                    .get())));
+        }
+    }
+
+    private class Buckets {
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong(Double.doubleToLongBits(0));
+
+        public Buckets(int numberOfBuckets) {
+            counts = new AtomicLongArray(numberOfBuckets);
+        }
+
+        public void observe(double value) {
+            int bucket = Arrays.binarySearch(upperBounds, value);
+            if (bucket < 0) {
+                // the value is not an upper bound itself
+                bucket = -(bucket + 1);
+            }
+            counts.incrementAndGet(bucket);
+            count.incrementAndGet();
+            long oldBits, newBits;
+            do {
+                oldBits = sum.get();
+                newBits = Double.doubleToLongBits(Double.longBitsToDouble(oldBits) + value);
+            } while (!sum.compareAndSet(oldBits, newBits));
+        }
+    }
+}
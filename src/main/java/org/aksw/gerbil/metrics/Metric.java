@@ -0,0 +1,75 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A metric family with a name, a help text and the names of its labels. Every
+ * combination of label values is a single time series of the family.
+ */
+public abstract class Metric {
+
+    protected final String name;
+    protected final String help;
+    protected final String labelNames[];
+
+    public Metric(String name, String help, String... labelNames) {
+        this.name = name;
+        this.help = help;
+        this.labelNames = labelNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public String[] getLabelNames() {
+        return labelNames;
+    }
+
+    /**
+     * Returns the type of this metric as it is used by the Prometheus text
+     * format, e.g., "counter".
+     */
+    public abstract String getType();
+
+    /**
+     * Adds the current values of all time series of this metric to the given
+     * list.
+     */
+    public abstract void collect(List<MetricSample> samples);
+
+    protected List<String> createKey(String... labelValues) {
+        if (labelValues.length != labelNames.length) {
+            throw new IllegalArgumentException("The metric " + name + " needs " + labelNames.length
+                    + " label values but got " + labelValues.length + ".");
+        }
+        return Arrays.asList(labelValues);
+    }
+}
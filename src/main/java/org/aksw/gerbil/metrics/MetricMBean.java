@@ -0,0 +1,109 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Publishes a {@link Metric} via JMX. Every time series of the metric is a
+ * read-only attribute whose name is the name of the series in the Prometheus
+ * text format.
+ */
+public class MetricMBean implements DynamicMBean {
+
+    private final Metric metric;
+
+    public MetricMBean(Metric metric) {
+        this.metric = metric;
+    }
+
+    private List<MetricSample> collect() {
+        List<MetricSample> samples = new ArrayList<MetricSample>();
+        metric.collect(samples);
+        return samples;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        for (MetricSample sample : collect()) {
+            if (sample.getSeriesName().equals(attribute)) {
+                return sample.value;
+            }
+        }
+        throw new AttributeNotFoundException("The metric " + metric.getName() + " has no series " + attribute + ".");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        List<MetricSample> samples = collect();
+        AttributeList list = new AttributeList();
+        String seriesName;
+        for (int i = 0; i < attributes.length; ++i) {
+            for (MetricSample sample : samples) {
+                seriesName = sample.getSeriesName();
+                if (seriesName.equals(attributes[i])) {
+                    list.add(new Attribute(seriesName, sample.value));
+                    break;
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("The attributes of a metric are read-only.");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "A metric has no operations.");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MetricSample> samples = collect();
+        MBeanAttributeInfo attributes[] = new MBeanAttributeInfo[samples.size()];
+        for (int i = 0; i < attributes.length; ++i) {
+            attributes[i] = new MBeanAttributeInfo(samples.get(i).getSeriesName(), Double.class.getName(),
+                    metric.getHelp(), true, false, false);
+        }
+        return new MBeanInfo(Metric.class.getName(), metric.getHelp(), attributes, null,
+                new MBeanOperationInfo[0], null);
+    }
+}
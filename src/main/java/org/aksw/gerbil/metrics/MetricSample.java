@@ -0,0 +1,95 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.util.List;
+
+/**
+ * A single value of a time series of a {@link Metric}.
+ */
+public class MetricSample {
+
+    public final String name;
+    public final String labelNames[];
+    public final List<String> labelValues;
+    public final double value;
+
+    public MetricSample(String name, String labelNames[], List<String> labelValues, double value) {
+        this.name = name;
+        this.labelNames = labelNames;
+        this.labelValues = labelValues;
+        this.value = value;
+    }
+
+    /**
+     * Returns the name of the time series in the Prometheus text format, e.g.,
+     * <code>gerbil_annotator_errors_total{annotator="Babelfy"}</code>.
+     */
+    public String getSeriesName() {
+        if (labelNames.length == 0) {
+            return name;
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(name);
+        builder.append('{');
+        for (int i = 0; i < labelNames.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(labelNames[i]);
+            builder.append("=\"");
+            escape(labelValues.get(i), builder);
+            builder.append('"');
+        }
+        builder.append('}');
+        return builder.toString();
+    }
+
+    private static void escape(String value, StringBuilder builder) {
+        if (value == null) {
+            return;
+        }
+        char c;
+        for (int i = 0; i < value.length(); ++i) {
+            c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            default:
+                builder.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getSeriesName() + " " + value;
+    }
+}
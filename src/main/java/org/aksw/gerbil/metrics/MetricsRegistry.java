@@ -0,0 +1,160 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registry of all metrics of this GERBIL instance. A metric is created by
+ * the first call of {@link #counter(String, String, String...)},
+ * {@link #gauge(String, String, String...)} or
+ * {@link #histogram(String, String, double[], String...)} with its name. Later
+ * calls return the same metric. Thus, classes can create their metrics inside
+ * static fields without knowing each other.
+ * 
+ * The metrics of the {@link #getInstance()} registry are published via JMX
+ * under the domain {@link #JMX_DOMAIN} and are served in the Prometheus text
+ * format by the {@code /metrics} mapping of the web application. MBeans that
+ * have been registered by an older instance, e.g., of a web application that
+ * has been redeployed, are replaced. The MBeans should be unregistered using
+ * {@link #unregisterMBeans()} when the application is stopped.
+ */
+public class MetricsRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    public static final String JMX_DOMAIN = "org.aksw.gerbil";
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry(true);
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentSkipListMap<String, Metric>();
+    private final boolean publishViaJmx;
+    private final List<ObjectName> registeredMBeans = new CopyOnWriteArrayList<ObjectName>();
+
+    /**
+     * @param publishViaJmx
+     *            whether the metrics should be registered at the platform
+     *            MBean server
+     */
+    public MetricsRegistry(boolean publishViaJmx) {
+        this.publishViaJmx = publishViaJmx;
+    }
+
+    public Counter counter(String name, String help, String... labelNames) {
+        return register(new Counter(name, help, labelNames), Counter.class);
+    }
+
+    public Gauge gauge(String name, String help, String... labelNames) {
+        return register(new Gauge(name, help, labelNames), Gauge.class);
+    }
+
+    public Histogram histogram(String name, String help, double upperBounds[], String... labelNames) {
+        return register(new Histogram(name, help, upperBounds, labelNames), Histogram.class);
+    }
+
+    protected <T extends Metric> T register(T metric, Class<T> metricClass) {
+        Metric existingMetric = metrics.putIfAbsent(metric.getName(), metric);
+        if (existingMetric != null) {
+            if (!metricClass.isInstance(existingMetric)) {
+                throw new IllegalArgumentException("There already is a metric with the name " + metric.getName()
+                        + " that is a " + existingMetric.getType() + ".");
+            }
+            return metricClass.cast(existingMetric);
+        }
+        if (publishViaJmx) {
+            registerMBean(metric);
+        }
+        return metric;
+    }
+
+    private void registerMBean(Metric metric) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + metric.getName());
+            if (server.isRegistered(objectName)) {
+                // the MBean of an older instance would keep its class loader
+                // alive and publish outdated values
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new MetricMBean(metric), objectName);
+            registeredMBeans.add(objectName);
+        } catch (Exception e) {
+            LOGGER.warn("Couldn't publish the metric " + metric.getName() + " via JMX.", e);
+        }
+    }
+
+    /**
+     * Removes the MBeans of this registry from the platform MBean server.
+     */
+    public void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredMBeans) {
+            try {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Couldn't unregister the MBean " + objectName + ".", e);
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    /**
+     * Returns the metrics of this registry ordered by their names.
+     */
+    public Collection<Metric> getMetrics() {
+        return metrics.values();
+    }
+
+    public Metric getMetric(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Returns the current values of all time series of all metrics.
+     */
+    public List<MetricSample> collect() {
+        List<MetricSample> samples = new ArrayList<MetricSample>();
+        for (Metric metric : metrics.values()) {
+            metric.collect(samples);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes metrics in the text exposition format (version 0.0.4) that is read
+ * by Prometheus.
+ */
+public class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public static void write(Collection<Metric> metrics, Writer writer) throws IOException {
+        List<MetricSample> samples = new ArrayList<MetricSample>();
+        for (Metric metric : metrics) {
+            writer.write("# HELP ");
+            writer.write(metric.getName());
+            writer.write(' ');
+            writer.write(escapeHelp(metric.getHelp()));
+            writer.write("\n# TYPE ");
+            writer.write(metric.getName());
+            writer.write(' ');
+            writer.write(metric.getType());
+            writer.write('\n');
+            samples.clear();
+            metric.collect(samples);
+            for (MetricSample sample : samples) {
+                writer.write(sample.getSeriesName());
+                writer.write(' ');
+                writer.write(formatValue(sample.value));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    protected static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if ((value == Math.rint(value)) && (Math.abs(value) < Long.MAX_VALUE)) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
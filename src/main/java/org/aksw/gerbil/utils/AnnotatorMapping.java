@@ -114,6 +114,21 @@ public class AnnotatorMapping {
         }
     }
 
+    /**
+     * Returns the definition of the given annotator, i.e., the name that can
+     * be used to recreate its configuration with
+     * {@link #getAnnotatorConfig(String)}. In contrast to the name of the
+     * annotator, the definition of a NIF based web service contains its URI.
+     */
+    public static String getAnnotatorDefinition(AnnotatorConfiguration config) {
+        String name = config.getName();
+        if ((config instanceof NIFWebserviceAnnotatorConfiguration) && name.endsWith(NIF_WS_SUFFIX)) {
+            return "NIFWS_" + name.substring(0, name.length() - NIF_WS_SUFFIX.length()) + "("
+                    + ((NIFWebserviceAnnotatorConfiguration) config).getAnnotatorURL() + ")";
+        }
+        return name;
+    }
+
     public static Set<String> getAnnotatorsForExperimentType(ExperimentType type) {
         AnnotatorMapping annotators = getInstance();
         Set<String> names = new HashSet<String>();
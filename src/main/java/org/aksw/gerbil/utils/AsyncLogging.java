@@ -0,0 +1,99 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.utils;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.apache.log4j.Appender;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Moves the appenders of the root logger behind an {@link AsyncAppender}.
+ * Thus, the threads that are logging only add their events to a buffer while
+ * a single background thread writes them to the console and the log file.
+ * The appender is not blocking, i.e., if the buffer with
+ * {@link #BUFFER_SIZE_PROPERTY_NAME} events is full, further events are
+ * discarded and summarized instead of stalling the experiment tasks.
+ * 
+ * (log4j 1.2 can not configure an {@link AsyncAppender} using a properties
+ * file. That's why it is done here.)
+ */
+public class AsyncLogging {
+
+    private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(AsyncLogging.class);
+
+    public static final String BUFFER_SIZE_PROPERTY_NAME = "org.aksw.gerbil.utils.AsyncLogging.bufferSize";
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final String APPENDER_NAME = "async";
+
+    /**
+     * Moves the appenders of the root logger behind an asynchronous appender.
+     * Calling this method several times has no further effect.
+     */
+    public static synchronized void enable() {
+        Logger rootLogger = LogManager.getRootLogger();
+        if (rootLogger.getAppender(APPENDER_NAME) != null) {
+            return;
+        }
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setName(APPENDER_NAME);
+        asyncAppender.setBufferSize(GerbilConfiguration.getInstance().getInt(BUFFER_SIZE_PROPERTY_NAME,
+                DEFAULT_BUFFER_SIZE));
+        asyncAppender.setBlocking(false);
+        asyncAppender.setLocationInfo(false);
+        List<Appender> appenders = new ArrayList<Appender>();
+        @SuppressWarnings("unchecked")
+        Enumeration<Appender> enumeration = rootLogger.getAllAppenders();
+        while (enumeration.hasMoreElements()) {
+            appenders.add(enumeration.nextElement());
+        }
+        if (appenders.isEmpty()) {
+            // there is nothing that could be made asynchronous
+            return;
+        }
+        for (Appender appender : appenders) {
+            asyncAppender.addAppender(appender);
+        }
+        // the new appender has to be added before the old ones are removed.
+        // Otherwise, events of other threads could get lost.
+        rootLogger.addAppender(asyncAppender);
+        for (Appender appender : appenders) {
+            rootLogger.removeAppender(appender);
+        }
+        LOGGER.info("Enabled asynchronous logging for {} appenders.", appenders.size());
+    }
+
+    /**
+     * Writes the buffered events and closes all appenders. Should be called
+     * before the JVM is stopped.
+     */
+    public static void shutdown() {
+        LogManager.shutdown();
+    }
+}
@@ -24,6 +24,7 @@ package org.aksw.gerbil.utils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,44 +32,61 @@ import org.slf4j.LoggerFactory;
 /**
  * An OutputStream that writes contents to a Logger upon each call to flush().
  * 
+ * Every thread writes into its own buffer. Thus, threads that print to the
+ * console at the same time neither block each other nor mix up their records.
+ * 
  * Main parts copied from https://blogs.oracle.com/nickstephen/entry/java_redirecting_system_out_and
  */
-public class ConsoleLogger extends ByteArrayOutputStream {
+public class ConsoleLogger extends OutputStream {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleLogger.class);
 
     private String lineSeparator = System.getProperty("line.separator");
     private boolean logAsError = false;
+    private final ThreadLocal<ByteArrayOutputStream> buffer = new ThreadLocal<ByteArrayOutputStream>() {
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+            return new ByteArrayOutputStream();
+        }
+    };
 
     public ConsoleLogger(boolean logAsError) {
         super();
         this.logAsError = logAsError;
     }
 
+    @Override
+    public void write(int b) throws IOException {
+        buffer.get().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        buffer.get().write(b, off, len);
+    }
+
     /**
-     * upon flush() write the existing contents of the OutputStream
-     * to the logger as a log record.
+     * upon flush() write the existing contents of the buffer of the current
+     * thread to the logger as a log record.
      * 
      * @throws java.io.IOException
      *             in case of error
      */
+    @Override
     public void flush() throws IOException {
-        String record;
-        synchronized (this) {
-            super.flush();
-            record = this.toString();
-            super.reset();
+        ByteArrayOutputStream threadBuffer = buffer.get();
+        String record = threadBuffer.toString();
+        threadBuffer.reset();
 
-            if (record.length() == 0 || record.equals(lineSeparator)) {
-                // avoid empty records
-                return;
-            }
+        if (record.length() == 0 || record.equals(lineSeparator)) {
+            // avoid empty records
+            return;
+        }
 
-            if (logAsError) {
-                LOGGER.error(record);
-            } else {
-                LOGGER.info(record);
-            }
+        if (logAsError) {
+            LOGGER.error(record);
+        } else {
+            LOGGER.info(record);
         }
     }
 }
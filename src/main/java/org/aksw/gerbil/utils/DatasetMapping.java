@@ -154,6 +154,25 @@ public class DatasetMapping {
         }
     }
 
+    /**
+     * Returns the definition of the given dataset, i.e., the name that can be
+     * used to recreate its configuration with {@link #getDatasetConfig(String)}.
+     * In contrast to the name of the dataset, the definition of an uploaded
+     * dataset contains its file name inside the upload directory.
+     */
+    public static String getDatasetDefinition(DatasetConfiguration config) {
+        String name = config.getName();
+        if ((config instanceof NIFFileDatasetConfig) && name.endsWith(UPLOADED_DATASET_SUFFIX)) {
+            String uploadedFilesPath = GerbilConfiguration.getInstance().getString(UPLOADED_FILES_PATH_PROPERTY_KEY);
+            String file = ((NIFFileDatasetConfig) config).getFile();
+            if ((uploadedFilesPath != null) && file.startsWith(uploadedFilesPath)) {
+                return "NIFDS_" + name.substring(0, name.length() - UPLOADED_DATASET_SUFFIX.length()) + "("
+                        + file.substring(uploadedFilesPath.length()) + ")";
+            }
+        }
+        return name;
+    }
+
     public static List<DatasetConfiguration> getDatasetConfigurations() {
         return getInstance().getDatasetConfigs();
     }
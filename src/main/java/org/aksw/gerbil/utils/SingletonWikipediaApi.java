@@ -25,10 +25,18 @@ package org.aksw.gerbil.utils;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpressionException;
 
 import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.metrics.Counter;
+import org.aksw.gerbil.metrics.Gauge;
+import org.aksw.gerbil.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
 
 import it.acubelab.batframework.utils.WikipediaApiInterface;
 
@@ -39,6 +47,23 @@ public class SingletonWikipediaApi extends WikipediaApiInterface {
     private static final String TITLE_CACHE_FILE_PROPERTY_NAME = "org.aksw.gerbil.utils.SingletonWikipediaApi.TitleCacheFile";
     private static final String REDIRECT_CACHE_FILE_PROPERTY_NAME = "org.aksw.gerbil.utils.SingletonWikipediaApi.RedirectCacheFile";
 
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter(
+            "gerbil_wikipedia_api_lookups_total", "Lookups of Wikipedia titles, ids and redirects.");
+    private static final Counter CACHE_MISSES = MetricsRegistry.getInstance().counter(
+            "gerbil_wikipedia_api_cache_misses_total",
+            "Lookups that couldn't be answered by the cache and have been sent to the Wikipedia API.");
+
+    static {
+        MetricsRegistry.getInstance().gauge("gerbil_wikipedia_api_cache_hit_ratio",
+                "Share of the lookups that have been answered by the cache.").register(new Gauge.Value() {
+            @Override
+            public double getValue() {
+                long lookups = LOOKUPS.get();
+                return lookups > 0 ? 1.0 - (((double) CACHE_MISSES.get()) / lookups) : Double.NaN;
+            }
+        });
+    }
+
     public static synchronized SingletonWikipediaApi getInstance() {
         if (instance == null) {
             String titleCacheFileName = GerbilConfiguration.getInstance().getString(TITLE_CACHE_FILE_PROPERTY_NAME);
@@ -92,11 +117,71 @@ public class SingletonWikipediaApi extends WikipediaApiInterface {
 
     private static SingletonWikipediaApi instance = null;
 
+    /**
+     * Is true while the current thread performs a lookup. The super class
+     * calls one of the prefetch methods if the lookup can't be answered by the
+     * cache.
+     */
+    private final ThreadLocal<Boolean> lookupRunning = new ThreadLocal<Boolean>();
+
     private SingletonWikipediaApi(String bidiTitle2widCacheFileName, String wid2redirectCacheFileName)
             throws FileNotFoundException, IOException, ClassNotFoundException {
         super(bidiTitle2widCacheFileName, wid2redirectCacheFileName);
     }
 
+    @Override
+    public int getIdByTitle(String title) throws IOException {
+        lookupStarted();
+        try {
+            return super.getIdByTitle(title);
+        } finally {
+            lookupRunning.remove();
+        }
+    }
+
+    @Override
+    public String getTitlebyId(int wid) throws IOException {
+        lookupStarted();
+        try {
+            return super.getTitlebyId(wid);
+        } finally {
+            lookupRunning.remove();
+        }
+    }
+
+    @Override
+    public int dereference(int wid) throws IOException {
+        lookupStarted();
+        try {
+            return super.dereference(wid);
+        } finally {
+            lookupRunning.remove();
+        }
+    }
+
+    private void lookupStarted() {
+        LOOKUPS.inc();
+        lookupRunning.set(Boolean.TRUE);
+    }
+
+    @Override
+    public void prefetchTitles(List<String> titlesToPrefetch) throws IOException, ParserConfigurationException,
+            SAXException, XPathExpressionException {
+        if (lookupRunning.get() != null) {
+            CACHE_MISSES.inc();
+        }
+        super.prefetchTitles(titlesToPrefetch);
+    }
+
+    @Override
+    public void prefetchWids(List<Integer> widsToPrefetch) throws IOException, ParserConfigurationException,
+            SAXException, XPathExpressionException {
+        if (lookupRunning.get() != null) {
+            CACHE_MISSES.inc();
+        }
+        super.prefetchWids(widsToPrefetch);
+    }
+
     /**
      * Overrides the method of the super class because as a singleton this class needs a synchronized version of this
      * method.
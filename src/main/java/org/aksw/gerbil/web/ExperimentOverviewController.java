@@ -30,6 +30,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.aksw.gerbil.database.ExperimentDAO;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
@@ -48,7 +53,22 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 
+/**
+ * Controller generating the JSON data of the overview page. Since the overview
+ * only changes if an experiment task is finished, the rendered JSON is cached
+ * for every experiment type and matching. A cached overview is only used as
+ * long as the latest results of its experiment type and matching haven't been
+ * changed inside the database. Thus, tasks finished by other instances sharing
+ * the database invalidate the cached overview as well. The responses carry an
+ * ETag to enable browsers to revalidate their cached version.
+ */
 @Controller
 public class ExperimentOverviewController {
 
@@ -62,6 +82,24 @@ public class ExperimentOverviewController {
                                                                                  * ,
                                                                                  * "corr. based on # datasets"
                                                                                  */};
+    /**
+     * Maximum time a rendered overview is cached. This is only a safety net
+     * since cached overviews are not used anymore as soon as a task is
+     * finished.
+     */
+    private static final long CACHED_OVERVIEW_EXPIRATION_MINUTES = 60;
+    private static final long MAX_NUMBER_OF_CACHED_OVERVIEWS = 100;
+
+    /**
+     * Rendered overviews. The keys contain the experiment type, the matching
+     * and the time of the last change of the latest results of this
+     * combination that has been read before the overview has been loaded.
+     * Thus, an overview that has been loaded before a task of the same
+     * combination has been finished is never used afterwards.
+     */
+    private Cache<String, CachedOverview> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_NUMBER_OF_CACHED_OVERVIEWS)
+            .expireAfterWrite(CACHED_OVERVIEW_EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
 
     @Autowired
     @Qualifier("experimentDAO")
@@ -70,23 +108,50 @@ public class ExperimentOverviewController {
     @RequestMapping("/experimentoverview")
     public @ResponseBody
     String experimentoverview(@RequestParam(value = "experimentType") String experimentType,
-            @RequestParam(value = "matching") String matchingString) {
+            @RequestParam(value = "matching") String matchingString, WebRequest request, HttpServletResponse response) {
         LOGGER.debug("Got request on /experimentoverview(experimentType={}, matching={}", experimentType,
                 matchingString);
-        Matching matching = MainController.getMatching(matchingString);
-        ExperimentType eType = ExperimentType.valueOf(experimentType);
+        final Matching matching = MainController.getMatching(matchingString);
+        final ExperimentType eType = ExperimentType.valueOf(experimentType);
+
+        String key = eType.name() + '\n' + matching.name() + '\n'
+                + dao.getLastChangeOfLatestResults(eType.name(), matching.name());
+        CachedOverview overview;
+        try {
+            overview = cache.get(key, new Callable<CachedOverview>() {
+                @Override
+                public CachedOverview call() throws Exception {
+                    return new CachedOverview(generateOverview(eType, matching));
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Couldn't generate the overview.", e.getCause());
+        }
+        // make sure that the browser revalidates its cached version
+        response.setHeader("Cache-Control", "no-cache");
+        if (request.checkNotModified(overview.eTag)) {
+            return null;
+        }
+        return overview.json;
+    }
 
+    private String generateOverview(ExperimentType eType, Matching matching) {
         String annotatorNames[] = loadAnnotators(eType);
         String datasetNames[] = loadDatasets(eType);
 
-        double results[][] = loadLatestResults(eType, matching, annotatorNames, datasetNames);
+        String versions[][] = new String[annotatorNames.length][datasetNames.length];
+        double results[][] = loadLatestResults(eType, matching, annotatorNames, datasetNames, versions);
         double correlations[][] = calculateCorrelations(results, datasetNames);
-        return generateJson(results, correlations, annotatorNames, datasetNames);
-
+        return generateJson(results, correlations, versions, annotatorNames, datasetNames);
     }
 
+    /**
+     * Loads the latest results for the given annotators and datasets. The
+     * GERBIL versions of the single results are written into the given
+     * versions array.
+     */
     private double[][] loadLatestResults(ExperimentType experimentType, Matching matching, String[] annotatorNames,
-            String[] datasetNames) {
+            String[] datasetNames, String versions[][]) {
         Map<String, Integer> annotator2Index = new HashMap<String, Integer>();
         for (int i = 0; i < annotatorNames.length; ++i) {
             annotator2Index.put(annotatorNames[i], i);
@@ -107,6 +172,7 @@ public class ExperimentOverviewController {
             if (annotator2Index.containsKey(result.annotator) && dataset2Index.containsKey(result.dataset)) {
                 row = annotator2Index.get(result.annotator);
                 col = dataset2Index.get(result.dataset);
+                versions[row][col] = result.gerbilVersion;
                 if (result.state == ExperimentDAO.TASK_FINISHED) {
                     results[row][col] = result.getMicroF1Measure();
                 } else {
@@ -207,8 +273,8 @@ public class ExperimentOverviewController {
         return correlations;
     }
 
-    private String generateJson(double[][] results, double[][] correlations, String annotatorNames[],
-            String datasetNames[]) {
+    private String generateJson(double[][] results, double[][] correlations, String versions[][],
+            String annotatorNames[], String datasetNames[]) {
         StringBuilder jsonBuilder = new StringBuilder();
         // jsonBuilder.append("results=");
         jsonBuilder.append('[');
@@ -216,6 +282,8 @@ public class ExperimentOverviewController {
         jsonBuilder.append(',');
         jsonBuilder.append(generateJSonTableString(correlations, CORRELATION_TABLE_COLUMN_HEADINGS, annotatorNames,
                 "Correlations"));
+        jsonBuilder.append(',');
+        jsonBuilder.append(generateJSonTableString(versions, datasetNames, annotatorNames, "GERBIL version"));
         jsonBuilder.append(']');
         return jsonBuilder.toString();
     }
@@ -253,4 +321,39 @@ public class ExperimentOverviewController {
         dataBuilder.append("\"]]");
         return dataBuilder.toString();
     }
+
+    private String generateJSonTableString(String values[][], String columnHeadings[], String lineHeadings[],
+            String tableName) {
+        StringBuilder dataBuilder = new StringBuilder();
+        dataBuilder.append("[[\"");
+        dataBuilder.append(tableName);
+        for (int i = 0; i < columnHeadings.length; ++i) {
+            dataBuilder.append("\",\"");
+            dataBuilder.append(columnHeadings[i]);
+        }
+        for (int i = 0; i < lineHeadings.length; ++i) {
+            dataBuilder.append("\"],\n[\"");
+            dataBuilder.append(lineHeadings[i]);
+            for (int j = 0; j < columnHeadings.length; ++j) {
+                dataBuilder.append("\",\"");
+                if (values[i][j] != null) {
+                    dataBuilder.append(values[i][j]);
+                } else {
+                    dataBuilder.append("n.a.");
+                }
+            }
+        }
+        dataBuilder.append("\"]]");
+        return dataBuilder.toString();
+    }
+
+    private static class CachedOverview {
+        public final String json;
+        public final String eTag;
+
+        public CachedOverview(String json) {
+            this.json = json;
+            this.eTag = '"' + Hashing.md5().hashString(json, Charsets.UTF_8).toString() + '"';
+        }
+    }
 }
@@ -0,0 +1,169 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.web;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor.ExperimentProgressSnapshot;
+import org.aksw.gerbil.execute.ExperimentTaskRegistry;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Polling endpoint for the progress of running experiments. The response is
+ * sent immediately, i.e., the request threads of the servlet container are not
+ * blocked by watching clients. As long as all unfinished tasks of an experiment
+ * are executed by this JVM, the states are taken from the
+ * {@link ExperimentProgressMonitor}, i.e., no database query is needed.
+ * Otherwise, e.g., if the tasks are executed by the workers of another
+ * instance sharing the database, the states are read from the database and
+ * only the states of the locally executed tasks are taken from the monitor.
+ */
+@Controller
+public class ExperimentProgressController {
+
+    @Autowired
+    private ExperimentProgressMonitor progressMonitor;
+
+    @Autowired
+    private ExperimentTaskRegistry taskRegistry;
+
+    @Autowired
+    @Qualifier("experimentDAO")
+    private ExperimentDAO dao;
+
+    @RequestMapping("/experimentprogress")
+    public @ResponseBody
+    ResponseEntity<String> experimentProgress(@RequestParam(value = "id") String id) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("no-cache");
+        ExperimentProgressSnapshot snapshot = progressMonitor.getSnapshot(id);
+        if ((snapshot == null) || (snapshot.started && !isExecutedLocally(snapshot))) {
+            snapshot = loadSnapshot(id, snapshot);
+        }
+        if (snapshot == null) {
+            return new ResponseEntity<String>("Unknown experiment.", headers, HttpStatus.NOT_FOUND);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new ResponseEntity<String>(toJSON(snapshot), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Returns true if all unfinished tasks of the given snapshot are executed
+     * by this JVM, i.e., their states inside the snapshot are up to date.
+     */
+    private boolean isExecutedLocally(ExperimentProgressSnapshot snapshot) {
+        for (ExperimentTaskResult task : snapshot.tasks) {
+            if ((task.state == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET)
+                    && (taskRegistry.getActiveTask(task.idInDb) == null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the states of the tasks of the given experiment from the database.
+     * The states of tasks that are executed by this JVM are taken from the
+     * given snapshot of the monitor since they are more recent.
+     * 
+     * @return the snapshot or null if the experiment is not known
+     */
+    private ExperimentProgressSnapshot loadSnapshot(String experimentId, ExperimentProgressSnapshot localSnapshot) {
+        List<ExperimentTaskResult> results = dao.getResultsOfExperiment(experimentId);
+        if (results.isEmpty()) {
+            return localSnapshot;
+        }
+        Map<Integer, ExperimentTaskResult> localTasks = new HashMap<Integer, ExperimentTaskResult>();
+        if (localSnapshot != null) {
+            for (ExperimentTaskResult task : localSnapshot.tasks) {
+                if (taskRegistry.getActiveTask(task.idInDb) != null) {
+                    localTasks.put(task.idInDb, task);
+                }
+            }
+        }
+        List<ExperimentTaskResult> tasks = new ArrayList<ExperimentTaskResult>(results.size());
+        for (ExperimentTaskResult result : results) {
+            tasks.add(localTasks.containsKey(result.idInDb) ? localTasks.get(result.idInDb) : result);
+        }
+        return new ExperimentProgressSnapshot(localSnapshot != null ? localSnapshot.version : 0, true, tasks);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String toJSON(ExperimentProgressSnapshot snapshot) {
+        JSONArray tasks = new JSONArray();
+        JSONObject task;
+        for (ExperimentTaskResult result : snapshot.tasks) {
+            task = new JSONObject();
+            task.put("id", result.idInDb);
+            task.put("annotator", result.annotator);
+            task.put("dataset", result.dataset);
+            task.put("state", result.state);
+            if (result.state != ExperimentDAO.TASK_FINISHED) {
+                task.put("stateMsg", ExperimentTaskStateHelper.getStateText(result));
+            }
+            if (result.state != ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+                task.put("timestamp", result.getTimestampstring());
+            }
+            task.put("microF1", toJSONNumber(result.getMicroF1Measure()));
+            task.put("microPrecision", toJSONNumber(result.getMicroPrecision()));
+            task.put("microRecall", toJSONNumber(result.getMicroRecall()));
+            task.put("macroF1", toJSONNumber(result.getMacroF1Measure()));
+            task.put("macroPrecision", toJSONNumber(result.getMacroPrecision()));
+            task.put("macroRecall", toJSONNumber(result.getMacroRecall()));
+            task.put("errorCount", result.errorCount);
+            task.put("progress", result.progress);
+            task.put("estimatedEnd", result.estimatedEndTime);
+            task.put("documentsPerSecond", toJSONNumber(result.documentsPerSecond));
+            tasks.add(task);
+        }
+        JSONObject json = new JSONObject();
+        json.put("version", snapshot.version);
+        json.put("started", snapshot.started);
+        json.put("tasks", tasks);
+        return json.toJSONString();
+    }
+
+    /**
+     * JSON doesn't support NaN or infinite values.
+     */
+    private static Double toJSONNumber(double value) {
+        return (Double.isNaN(value) || Double.isInfinite(value)) ? null : value;
+    }
+}
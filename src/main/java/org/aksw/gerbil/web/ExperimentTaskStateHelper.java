@@ -22,6 +22,8 @@
  */
 package org.aksw.gerbil.web;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 
 import org.aksw.gerbil.database.ExperimentDAO;
@@ -31,6 +33,8 @@ import org.aksw.gerbil.datatypes.ExperimentTaskResult;
 public class ExperimentTaskStateHelper {
 
     private static final String TASK_RUNNING_TEXT = "The experiment is still running.";
+    private static final String TASK_RUNNING_WITH_PROGRESS_TEXT = "The experiment is still running (%.1f%% done,%s estimated end: %s). Provisional results: micro F1=%.4f, micro precision=%.4f, micro recall=%.4f";
+    private static final String DOCUMENTS_PER_SECOND_TEXT = " %.2f documents/s,";
     private static final String STATE_UNKNOWN_TEXT = "The state of this experiment is unknown.";
 
     public static boolean taskFinished(ExperimentTaskResult result) {
@@ -39,6 +43,13 @@ public class ExperimentTaskStateHelper {
 
     public static String getStateText(ExperimentTaskResult result) {
         if (result.state == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+            if (result.progress >= 0) {
+                return String.format(TASK_RUNNING_WITH_PROGRESS_TEXT, result.progress * 100.0,
+                        result.documentsPerSecond >= 0 ? String.format(DOCUMENTS_PER_SECOND_TEXT,
+                                result.documentsPerSecond) : "", result.estimatedEndTime >= 0 ? (new SimpleDateFormat("yyyy-MM-dd HH:mm:ss")).format(new Date(
+                                result.estimatedEndTime)) : "unknown", result.getMicroF1Measure(),
+                        result.getMicroPrecision(), result.getMicroRecall());
+            }
             return TASK_RUNNING_TEXT;
         }
         ErrorTypes errorType = ErrorTypes.getErrorType(result.state);
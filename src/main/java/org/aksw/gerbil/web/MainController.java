@@ -27,22 +27,28 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.aksw.gerbil.Experimenter;
+import org.aksw.gerbil.annotators.AnnotatorConfiguration;
+import org.aksw.gerbil.config.GerbilConfiguration;
 import org.aksw.gerbil.database.ExperimentDAO;
 import org.aksw.gerbil.dataid.DataIDGenerator;
+import org.aksw.gerbil.datasets.DatasetConfiguration;
 import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
 import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor;
+import org.aksw.gerbil.execute.ExperimentSubmitter;
+import org.aksw.gerbil.execute.ExperimentTaskWorkerPool;
 import org.aksw.gerbil.matching.Matching;
 import org.aksw.gerbil.utils.AnnotatorMapping;
 import org.aksw.gerbil.utils.DatasetMapping;
 import org.aksw.gerbil.utils.IDCreator;
-import org.aksw.gerbil.utils.SingletonWikipediaApi;
-import org.aksw.simba.topicmodeling.concurrent.overseers.Overseer;
 import org.apache.commons.io.FileUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -51,14 +57,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 
 @Controller
 public class MainController {
@@ -67,6 +81,24 @@ public class MainController {
 
 	private static final String GOOGLE_ANALYTICS_FILE_NAME = "google1d91bc68c8a56517.html";
 
+	/**
+	 * The addresses of the reverse proxies whose X-Forwarded-For header is used
+	 * to determine the submitter of an experiment.
+	 */
+	public static final String TRUSTED_PROXIES_PROPERTY_NAME = "org.aksw.gerbil.web.MainController.trustedProxies";
+
+	/**
+	 * Number of finished experiments whose task lists and DataID documents are
+	 * kept in memory.
+	 */
+	private static final long MAX_NUMBER_OF_CACHED_EXPERIMENTS = 1000;
+	/**
+	 * Time (in seconds) browsers are allowed to use their cached version of the
+	 * page of a finished experiment without revalidating it. It is short since
+	 * finished tasks can be queued again, e.g., after their lease expired.
+	 */
+	private static final long FINISHED_EXPERIMENT_MAX_AGE = TimeUnit.MINUTES.toSeconds(1);
+
 	private static boolean isInitialized = false;
 
 	private static synchronized void initialize(ExperimentDAO dao) {
@@ -91,10 +123,23 @@ public class MainController {
 	private ExperimentDAO dao;
 
 	@Autowired
-	private Overseer overseer;
+	private ExperimentTaskWorkerPool workerPool;
 
-	// DataID URL is generated automatically in the experiment method?
-	private DataIDGenerator dataIdGenerator;
+	@Autowired
+	private ExperimentSubmitter submitter;
+
+	@Autowired
+	private ExperimentProgressMonitor progressMonitor;
+
+	/**
+	 * Experiments of which all tasks reached a final state rarely change. Thus,
+	 * their task lists and DataID documents are cached for
+	 * {@link #FINISHED_EXPERIMENT_MAX_AGE} seconds. The keys are the full URLs
+	 * of the requests since they are part of the DataID documents.
+	 */
+	private Cache<String, FinishedExperiment> finishedExperiments = CacheBuilder.newBuilder()
+			.maximumSize(MAX_NUMBER_OF_CACHED_EXPERIMENTS)
+			.expireAfterWrite(FINISHED_EXPERIMENT_MAX_AGE, TimeUnit.SECONDS).build();
 
 	@Autowired
 	HttpServletRequest request;
@@ -135,51 +180,214 @@ public class MainController {
 	 */
 
 	@RequestMapping("/execute")
-	public @ResponseBody String execute(@RequestParam(value = "experimentData") String experimentData) {
+	public @ResponseBody ResponseEntity<String> execute(@RequestParam(value = "experimentData") String experimentData) {
 		LOGGER.debug("Got request on /execute with experimentData=" + experimentData);
+		ExperimentTaskConfiguration[] configs;
+		try {
+			configs = parseExperimentData(experimentData);
+		} catch (Exception e) {
+			LOGGER.warn("Got an invalid experiment definition. Rejecting it.", e);
+			return new ResponseEntity<String>("Invalid experiment definition.", HttpStatus.BAD_REQUEST);
+		}
+		String experimentId = IDCreator.getInstance().createID();
+		// The tasks are created and queued by the submitter in the background
+		Experimenter exp = new Experimenter(workerPool, dao, configs, experimentId, progressMonitor,
+				getSubmitter());
+		progressMonitor.experimentSubmitted(experimentId);
+		if (!submitter.submit(exp)) {
+			progressMonitor.removeExperiment(experimentId);
+			return new ResponseEntity<String>("There are too many experiments waiting. Please try again later.",
+					HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return new ResponseEntity<String>(experimentId, HttpStatus.OK);
+	}
+
+	/**
+	 * Cancels the experiment with the given id or, if a task id is given, a
+	 * single task of this experiment. Queued tasks are removed from the queue
+	 * while running tasks are stopped before their next document. Tasks that
+	 * are shared with other experiments are not cancelled together with the
+	 * experiment. Only the submitter of an experiment is allowed to cancel it.
+	 * 
+	 * @param id
+	 *            the id of the experiment
+	 * @param taskId
+	 *            the id of the task that should be cancelled (optional)
+	 * @return the number of cancelled tasks
+	 */
+	@RequestMapping(value = "/cancel", method = RequestMethod.POST)
+	public @ResponseBody ResponseEntity<String> cancel(@RequestParam(value = "id") String id,
+			@RequestParam(value = "taskId", required = false) Integer taskId) {
+		LOGGER.debug("Got request on /cancel with id=" + id + " and taskId=" + taskId);
+		String experimentSubmitter = dao.getExperimentSubmitter(id);
+		if (experimentSubmitter == null) {
+			// the tasks of a waiting experiment haven't been queued, yet
+			experimentSubmitter = submitter.getSubmitter(id);
+		}
+		// experiments without a known submitter, e.g., finished experiments,
+		// can not be cancelled by anybody
+		if ((experimentSubmitter == null) || !experimentSubmitter.equals(getSubmitter())) {
+			return new ResponseEntity<String>("Only the submitter of a running experiment can cancel it.",
+					HttpStatus.FORBIDDEN);
+		}
+		if (taskId != null) {
+			boolean isTaskOfExperiment = false;
+			for (ExperimentTaskResult result : dao.getResultsOfExperiment(id)) {
+				if (result.idInDb == taskId) {
+					isTaskOfExperiment = true;
+					break;
+				}
+			}
+			if (!isTaskOfExperiment) {
+				return new ResponseEntity<String>("The experiment has no task with the id " + taskId + ".",
+						HttpStatus.NOT_FOUND);
+			}
+			// tasks that are shared with other experiments are not cancelled
+			return new ResponseEntity<String>(workerPool.cancelTask(id, taskId) ? "1" : "0", HttpStatus.OK);
+		}
+		int cancelledTasks = workerPool.cancelExperiment(id).size();
+		// the tasks of a waiting experiment haven't been created, yet
+		if (submitter.cancel(id)) {
+			progressMonitor.removeExperiment(id);
+		}
+		return new ResponseEntity<String>(Integer.toString(cancelledTasks), HttpStatus.OK);
+	}
+
+	/**
+	 * Returns the address of the client that sent the current request. If the
+	 * request has been forwarded by a trusted proxy (see
+	 * {@link #TRUSTED_PROXIES_PROPERTY_NAME}), the address of the client that
+	 * sent the request to the proxy is used. The X-Forwarded-For header of
+	 * other clients is ignored since it can be forged.
+	 */
+	private String getSubmitter() {
+		String address = request.getRemoteAddr();
+		String forwardedFor = request.getHeader("X-Forwarded-For");
+		if ((forwardedFor == null) || forwardedFor.trim().isEmpty() || !isTrustedProxy(address)) {
+			return address;
+		}
+		// the proxy appends the address of its client to the header. Addresses
+		// in front of it might have been forged by the client.
+		String forwardedAddresses[] = forwardedFor.split(",");
+		for (int i = forwardedAddresses.length - 1; i >= 0; --i) {
+			address = forwardedAddresses[i].trim();
+			if (!isTrustedProxy(address)) {
+				break;
+			}
+		}
+		return address;
+	}
+
+	private static boolean isTrustedProxy(String address) {
+		for (String proxy : GerbilConfiguration.getInstance().getStringArray(TRUSTED_PROXIES_PROPERTY_NAME)) {
+			if (proxy.trim().equals(address)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Parses the given experiment definition and creates the configurations of
+	 * the single experiment tasks.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the definition is incomplete or contains an unknown
+	 *             annotator, dataset, type or matching
+	 */
+	private ExperimentTaskConfiguration[] parseExperimentData(String experimentData) {
 		Object obj = JSONValue.parse(experimentData);
+		if (!(obj instanceof JSONObject)) {
+			throw new IllegalArgumentException("The experiment definition is not a JSON object.");
+		}
 		JSONObject configuration = (JSONObject) obj;
-		String type = (String) configuration.get("type");
-		String matching = (String) configuration.get("matching");
+		ExperimentType type = ExperimentType.valueOf((String) configuration.get("type"));
+		Matching matching = getMatching((String) configuration.get("matching"));
 		JSONArray jsonAnnotators = (JSONArray) configuration.get("annotator");
-		String[] annotators = new String[jsonAnnotators.size()];
+		AnnotatorConfiguration[] annotators = new AnnotatorConfiguration[jsonAnnotators.size()];
 		for (int i = 0; i < jsonAnnotators.size(); i++) {
-			annotators[i] = (String) jsonAnnotators.get(i);
+			annotators[i] = AnnotatorMapping.getAnnotatorConfig((String) jsonAnnotators.get(i));
+			if (annotators[i] == null) {
+				throw new IllegalArgumentException("Unknown annotator \"" + jsonAnnotators.get(i) + "\".");
+			}
 		}
 		JSONArray jsonDataset = (JSONArray) configuration.get("dataset");
-		String[] datasets = new String[jsonDataset.size()];
+		DatasetConfiguration[] datasets = new DatasetConfiguration[jsonDataset.size()];
 		for (int i = 0; i < jsonDataset.size(); i++) {
-			datasets[i] = (String) jsonDataset.get(i);
+			datasets[i] = DatasetMapping.getDatasetConfig((String) jsonDataset.get(i));
+			if (datasets[i] == null) {
+				throw new IllegalArgumentException("Unknown dataset \"" + jsonDataset.get(i) + "\".");
+			}
+		}
+		if ((annotators.length == 0) || (datasets.length == 0)) {
+			throw new IllegalArgumentException("The experiment definition doesn't contain an annotator or a dataset.");
 		}
 		ExperimentTaskConfiguration[] configs = new ExperimentTaskConfiguration[annotators.length * datasets.length];
 		int count = 0;
-		for (String annotator : annotators) {
-			for (String dataset : datasets) {
-				configs[count] = new ExperimentTaskConfiguration(AnnotatorMapping.getAnnotatorConfig(annotator), DatasetMapping.getDatasetConfig(dataset), ExperimentType.valueOf(type), getMatching(matching));
+		for (AnnotatorConfiguration annotator : annotators) {
+			for (DatasetConfiguration dataset : datasets) {
+				configs[count] = new ExperimentTaskConfiguration(annotator, dataset, type, matching);
 				LOGGER.debug("Created config: " + configs[count]);
 				++count;
 			}
 		}
-		String experimentId = IDCreator.getInstance().createID();
-		Experimenter exp = new Experimenter(SingletonWikipediaApi.getInstance(), overseer, dao, configs, experimentId);
-		exp.run();
-
-		return experimentId;
+		return configs;
 	}
 
 	@RequestMapping("/experiment")
-	public ModelAndView experiment(@RequestParam(value = "id") String id) {
+	public ModelAndView experiment(@RequestParam(value = "id") String id, WebRequest webRequest,
+			HttpServletResponse response) {
 		LOGGER.debug("Got request on /experiment with id=" + id);
-		dataIdGenerator = new DataIDGenerator(getURLBase(), getFullURL());
-		List<ExperimentTaskResult> results = dao.getResultsOfExperiment(id);
-		ExperimentTaskStateHelper.setStatusLines(results);
+		String fullURL = getFullURL();
+		FinishedExperiment finishedExperiment = finishedExperiments.getIfPresent(fullURL);
+		if (finishedExperiment == null) {
+			List<ExperimentTaskResult> results = dao.getResultsOfExperiment(id);
+			ExperimentTaskStateHelper.setStatusLines(results);
+			DataIDGenerator dataIdGenerator = new DataIDGenerator(getURLBase(), fullURL);
+			String dataid = dataIdGenerator.createDataIDModel(results, id);
+			if (!isFinished(results)) {
+				// this experiment is still running and has to take the dynamic
+				// path
+				response.setHeader("Cache-Control", "no-cache");
+				return createExperimentModel(results, dataid, results.isEmpty() && submitter.isQueued(id));
+			}
+			finishedExperiment = new FinishedExperiment(results, dataid);
+			finishedExperiments.put(fullURL, finishedExperiment);
+		}
+		// the ETag is used to revalidate the page after max-age
+		response.setHeader("Cache-Control", "private, max-age=" + FINISHED_EXPERIMENT_MAX_AGE);
+		if (webRequest.checkNotModified(finishedExperiment.eTag)) {
+			return null;
+		}
+		return createExperimentModel(finishedExperiment.results, finishedExperiment.dataid, false);
+	}
+
+	private ModelAndView createExperimentModel(List<ExperimentTaskResult> results, String dataid, boolean queued) {
 		ModelAndView model = new ModelAndView();
 		model.setViewName("experiment");
+		model.addObject("queued", queued);
 		model.addObject("tasks", results);
-		model.addObject("dataid", dataIdGenerator.createDataIDModel(results, id));
+		model.addObject("dataid", dataid);
 		return model;
 	}
 
+	/**
+	 * Returns true if the given experiment has tasks and all of them reached a
+	 * final state. Since all tasks of an experiment are created at once, such
+	 * an experiment only changes if one of its tasks is queued again.
+	 */
+	private static boolean isFinished(List<ExperimentTaskResult> results) {
+		if (results.isEmpty()) {
+			return false;
+		}
+		for (ExperimentTaskResult result : results) {
+			if (result.state == ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@RequestMapping("/exptypes")
 	public @ResponseBody ModelMap expTypes() {
 		ModelMap model = new ModelMap("ExperimentType", ExperimentType.values());
@@ -271,4 +479,18 @@ public class MainController {
 		Matching m = Matching.valueOf(matchingName);
 		return m;
 	}
+
+	private static class FinishedExperiment {
+		public final List<ExperimentTaskResult> results;
+		public final String dataid;
+		public final String eTag;
+
+		public FinishedExperiment(List<ExperimentTaskResult> results, String dataid) {
+			this.results = Collections.unmodifiableList(results);
+			this.dataid = dataid;
+			// the page depends on the GERBIL version that renders it
+			this.eTag = '"' + Hashing.md5().hashString(GerbilConfiguration.getGerbilVersion() + dataid, Charsets.UTF_8)
+					.toString() + '"';
+		}
+	}
 }
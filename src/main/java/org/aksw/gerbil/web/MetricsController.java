@@ -0,0 +1,125 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.web;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+import org.aksw.gerbil.metrics.PrometheusTextFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Publishes the metrics of the {@link MetricsRegistry} in the Prometheus text
+ * format using the {@code /metrics} mapping. By default, the metrics are only
+ * published to clients running on the same machine. This can be changed using
+ * the {@link #LOCAL_ONLY_PROPERTY_NAME} property. Requests that have been
+ * forwarded by a proxy are not seen as local requests. If GERBIL runs behind
+ * a reverse proxy on the same machine, a token should be defined using the
+ * {@link #TOKEN_PROPERTY_NAME} property. In this case, only requests with the
+ * header {@code Authorization: Bearer <token>} are answered.
+ */
+@Controller
+public class MetricsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsController.class);
+
+    public static final String LOCAL_ONLY_PROPERTY_NAME = "org.aksw.gerbil.web.MetricsController.localOnly";
+    public static final String TOKEN_PROPERTY_NAME = "org.aksw.gerbil.web.MetricsController.token";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @RequestMapping("/metrics")
+    public @ResponseBody
+    ResponseEntity<String> metrics(HttpServletRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("no-cache");
+        String token = GerbilConfiguration.getInstance().getString(TOKEN_PROPERTY_NAME);
+        if ((token != null) && !token.isEmpty()) {
+            if (!isValidToken(request.getHeader("Authorization"), token)) {
+                return new ResponseEntity<String>(headers, HttpStatus.FORBIDDEN);
+            }
+        } else if (GerbilConfiguration.getInstance().getBoolean(LOCAL_ONLY_PROPERTY_NAME, true)
+                && (!isLocalAddress(request.getRemoteAddr()) || isForwarded(request))) {
+            return new ResponseEntity<String>(headers, HttpStatus.FORBIDDEN);
+        }
+        StringWriter writer = new StringWriter();
+        try {
+            PrometheusTextFormat.write(MetricsRegistry.getInstance().getMetrics(), writer);
+        } catch (IOException e) {
+            // a StringWriter doesn't throw IOExceptions
+            LOGGER.error("Couldn't write metrics.", e);
+            return new ResponseEntity<String>(headers, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        headers.setContentType(MediaType.parseMediaType(PrometheusTextFormat.CONTENT_TYPE));
+        return new ResponseEntity<String>(writer.toString(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Returns true if the given request has been forwarded by a proxy. The
+     * address of such a request is the address of the proxy.
+     */
+    protected static boolean isForwarded(HttpServletRequest request) {
+        return (request.getHeader("X-Forwarded-For") != null) || (request.getHeader("Forwarded") != null);
+    }
+
+    /**
+     * Compares the token of the given authorization header with the given
+     * token in constant time.
+     */
+    protected static boolean isValidToken(String authorization, String token) {
+        if ((authorization == null) || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        Charset charset = Charset.forName("UTF-8");
+        return MessageDigest.isEqual(authorization.substring(BEARER_PREFIX.length()).trim().getBytes(charset),
+                token.getBytes(charset));
+    }
+
+    protected static boolean isLocalAddress(String address) {
+        if (address == null) {
+            return false;
+        }
+        try {
+            // the address is a literal, i.e., no name lookup is performed
+            return InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
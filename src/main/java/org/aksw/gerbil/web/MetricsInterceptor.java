@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.aksw.gerbil.metrics.Counter;
+import org.aksw.gerbil.metrics.Histogram;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Counts the requests handled by the controllers and measures the time needed
+ * to handle them. The requests are distinguished by the controller method that
+ * handled them (e.g., "MainController.config"). Requests of static resources
+ * are summarized as "resources". Since the servlet API doesn't offer the
+ * status code of a response, the requests are only distinguished by whether
+ * the handler threw an exception.
+ */
+public class MetricsInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String START_TIME_ATTRIBUTE = MetricsInterceptor.class.getName() + ".startTime";
+
+    private static final Counter REQUESTS = MetricsRegistry.getInstance().counter("gerbil_http_requests_total",
+            "Number of HTTP requests handled by the web application.", "handler", "outcome");
+    private static final Histogram REQUEST_DURATION = MetricsRegistry.getInstance().histogram(
+            "gerbil_http_request_duration_seconds", "Time needed to handle an HTTP request.",
+            Histogram.REQUEST_DURATION_BUCKETS, "handler");
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) throws Exception {
+        Object startTime = request.getAttribute(START_TIME_ATTRIBUTE);
+        if (!(startTime instanceof Long)) {
+            return;
+        }
+        String handlerName = getHandlerName(handler);
+        REQUEST_DURATION.observeDurationSince((Long) startTime, handlerName);
+        REQUESTS.inc(handlerName, ex == null ? "ok" : "exception");
+    }
+
+    protected static String getHandlerName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            return method.getBeanType().getSimpleName() + '.' + method.getMethod().getName();
+        } else {
+            return "resources";
+        }
+    }
+}
@@ -27,6 +27,7 @@ import it.acubelab.batframework.systemPlugins.DBPediaApi;
 import org.aksw.gerbil.bat.annotator.nif.NIFBasedAnnotatorWebservice;
 import org.aksw.gerbil.datatypes.ExperimentType;
 import org.aksw.gerbil.utils.SingletonWikipediaApi;
+import org.apache.commons.io.IOUtils;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 import org.slf4j.Logger;
@@ -58,7 +59,8 @@ public class NIFWSTestingController {
             @RequestParam(value = "url") String url) {
         LOGGER.info("Testing {} for an {} experiment.", url, experimentType);
         NIFBasedAnnotatorWebservice annotator = new NIFBasedAnnotatorWebservice(url, "TEST",
-                SingletonWikipediaApi.getInstance(), new DBPediaApi());
+                NIFBasedAnnotatorWebservice.USER_DEFINED_METRIC_LABEL, SingletonWikipediaApi.getInstance(),
+                new DBPediaApi());
         JSONObject result = new JSONObject();
         experimentType = experimentType.toUpperCase();
         try {
@@ -93,6 +95,8 @@ public class NIFWSTestingController {
             LOGGER.error("Got an exception while testing {}. e = {}", url, e);
             result.put(RETURN_STATUS_NAME, false);
             result.put(RETURN_ERROR_MSG_NAME, e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(annotator);
         }
         return JSONValue.toJSONString(result);
     }
@@ -24,13 +24,39 @@ package org.aksw.gerbil.web;
 
 import java.util.List;
 
-import org.aksw.simba.topicmodeling.concurrent.overseers.Overseer;
-import org.aksw.simba.topicmodeling.concurrent.tasks.TaskState;
+import org.aksw.gerbil.bat.annotator.AnnotatorCircuitBreaker;
+import org.aksw.gerbil.bat.annotator.AnnotatorRequestLimiter;
+import org.aksw.gerbil.bat.annotator.DocumentRequestDeduplicator;
+import org.aksw.gerbil.bat.annotator.RequestHedger;
+import org.aksw.gerbil.datatypes.EvaluationEvent;
+import org.aksw.gerbil.datatypes.ExperimentTaskProgress;
+import org.aksw.gerbil.datatypes.ExperimentTaskState;
+import org.aksw.gerbil.execute.ExperimentTask;
+import org.aksw.gerbil.execute.ExperimentTaskRegistry;
+import org.aksw.gerbil.execute.TaskWatchdog;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+/**
+ * Reports the state of the queued, running and recently finished experiment
+ * tasks as JSON. The values are read from lock-free counters of the tasks,
+ * i.e., the tasks are not blocked by a report. The stack trace of a running
+ * task is only created on demand using the {@code /running/stacktrace}
+ * mapping. The state of the request limiters of the annotators is reported
+ * by the {@code /running/limiters} mapping. Tasks that are stuck, i.e., whose
+ * request exceeded its deadline or that don't stop after they have been
+ * cancelled, are reported by the {@code /running/stuck} mapping together with
+ * the stack trace that has been recorded by the {@link TaskWatchdog}.
+ */
 @Controller
 public class StateReportingController {
 
@@ -38,37 +64,202 @@ public class StateReportingController {
     // LoggerFactory.getLogger(StateReportingController.class);
 
     @Autowired
-    private List<Overseer> overseers;
+    private ExperimentTaskRegistry taskRegistry;
 
     @RequestMapping("/running")
     public @ResponseBody
-    String running() {
-        StringBuilder resultBuilder = new StringBuilder();
-        TaskState states[];
+    ResponseEntity<String> running() {
+        JSONArray tasks = new JSONArray();
+        long now = System.currentTimeMillis();
+        addTasks(taskRegistry.getActiveTasks(), tasks, now);
+        addTasks(taskRegistry.getFinishedTasks(), tasks, now);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setCacheControl("no-cache");
+        return new ResponseEntity<String>(tasks.toJSONString(), headers, HttpStatus.OK);
+    }
+
+    @RequestMapping("/running/stacktrace")
+    public @ResponseBody
+    ResponseEntity<String> stackTrace(@RequestParam(value = "taskId") int taskId) {
+        ExperimentTask task = taskRegistry.getActiveTask(taskId);
+        StackTraceElement stackTrace[] = (task != null) ? task.getStackTrace() : null;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        if (stackTrace == null) {
+            return new ResponseEntity<String>("There is no running task with the id " + taskId + ".", headers,
+                    HttpStatus.NOT_FOUND);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < stackTrace.length; ++i) {
+            builder.append(stackTrace[i].toString());
+            builder.append('\n');
+        }
+        return new ResponseEntity<String>(builder.toString(), headers, HttpStatus.OK);
+    }
+
+    @SuppressWarnings("unchecked")
+    @RequestMapping("/running/stuck")
+    public @ResponseBody
+    ResponseEntity<String> stuck() {
+        JSONArray tasks = new JSONArray();
+        JSONObject jsonTask;
+        JSONArray jsonStackTrace;
         StackTraceElement stackTrace[];
-        for (Overseer overseer : overseers) {
-            states = overseer.getTaskStates();
-            for (TaskState state : states) {
-                resultBuilder.append("<p>");
-                resultBuilder.append(state.task.getId());
-                resultBuilder.append("<br>\n");
-                resultBuilder.append("state=");
-                resultBuilder.append(state.state);
-                resultBuilder.append("<br>\n");
-                resultBuilder.append("progress=");
-                resultBuilder.append(state.task.getProgress());
-                stackTrace = state.stackTrace;
-                if (state.stackTrace != null) {
-                    resultBuilder.append("<br>\n");
-                    for (int i = 0; i < stackTrace.length; ++i) {
-                        resultBuilder.append("\t\t");
-                        resultBuilder.append(stackTrace[i].toString());
-                        resultBuilder.append("<br>\n");
+        long now = System.currentTimeMillis();
+        long stuckSince;
+        for (ExperimentTask task : taskRegistry.getActiveTasks()) {
+            stuckSince = task.getStuckSince();
+            if ((task.getStatus() != ExperimentTask.Status.RUNNING) || (stuckSince < 0)) {
+                continue;
+            }
+            jsonTask = new JSONObject();
+            jsonTask.put("taskId", task.getExperimentTaskId());
+            jsonTask.put("experimentId", task.getExperimentId());
+            jsonTask.put("annotator", task.getConfiguration().annotatorConfig.getName());
+            jsonTask.put("dataset", task.getConfiguration().datasetConfig.getName());
+            jsonTask.put("stuckFor", now - stuckSince);
+            if (task.getCancelReason() != null) {
+                jsonTask.put("stopReason", task.getCancelReason().name());
+            }
+            jsonTask.put("abandoned", task.isAbandoned());
+            jsonTask.put("timedOutRequests", task.getNumberOfTimedOutRequests());
+            stackTrace = task.getStuckStackTrace();
+            if (stackTrace != null) {
+                jsonStackTrace = new JSONArray();
+                for (int i = 0; i < stackTrace.length; ++i) {
+                    jsonStackTrace.add(stackTrace[i].toString());
+                }
+                jsonTask.put("stackTrace", jsonStackTrace);
+            }
+            tasks.add(jsonTask);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setCacheControl("no-cache");
+        return new ResponseEntity<String>(tasks.toJSONString(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Reports the state of the request limiters, circuit breakers, request
+     * hedgers and request deduplicators of the annotators, e.g., the time
+     * requests had to wait for their limiter.
+     */
+    @SuppressWarnings("unchecked")
+    @RequestMapping("/running/limiters")
+    public @ResponseBody
+    ResponseEntity<String> limiters() {
+        JSONArray jsonLimiters = new JSONArray();
+        JSONObject jsonLimiter;
+        AnnotatorCircuitBreaker breaker;
+        RequestHedger hedger;
+        DocumentRequestDeduplicator deduplicator;
+        for (AnnotatorRequestLimiter limiter : AnnotatorRequestLimiter.getLimiters()) {
+            jsonLimiter = new JSONObject();
+            jsonLimiter.put("annotator", limiter.getAnnotatorName());
+            jsonLimiter.put("maxParallelRequests", limiter.getMaxParallelRequests());
+            jsonLimiter.put("adaptive", limiter.isAdaptive());
+            jsonLimiter.put("window", limiter.getWindow());
+            if (limiter.isAdaptive()) {
+                jsonLimiter.put("latency", limiter.getCurrentLatency());
+                jsonLimiter.put("baseLatency", limiter.getBaseLatency());
+                jsonLimiter.put("windowDecreases", limiter.getNumberOfWindowDecreases());
+                jsonLimiter.put("lastDecision", limiter.getLastDecision());
+            }
+            jsonLimiter.put("requestsPerSecond", limiter.getRequestsPerSecond());
+            jsonLimiter.put("inFlightRequests", limiter.getNumberOfInFlightRequests());
+            jsonLimiter.put("waitingRequests", limiter.getNumberOfWaitingRequests());
+            jsonLimiter.put("requests", limiter.getNumberOfRequests());
+            jsonLimiter.put("delayedRequests", limiter.getNumberOfDelayedRequests());
+            jsonLimiter.put("waitingTimeSum", limiter.getWaitingTimeSum());
+            jsonLimiter.put("maxWaitingTime", limiter.getMaxWaitingTime());
+            // the breakers of NIF based web services are identified by their
+            // URIs
+            breaker = AnnotatorCircuitBreaker.getExistingBreaker(limiter.getAnnotatorName());
+            if (breaker != null) {
+                jsonLimiter.put("circuitBreaker", breaker.getState().name());
+                jsonLimiter.put("consecutiveFailures", breaker.getNumberOfConsecutiveFailures());
+                jsonLimiter.put("circuitBreakerOpenings", breaker.getNumberOfOpenings());
+                if (breaker.getState() == AnnotatorCircuitBreaker.State.OPEN) {
+                    jsonLimiter.put("openUntil", breaker.getOpenUntil());
+                }
+            }
+            hedger = RequestHedger.getExistingHedger(limiter.getAnnotatorName());
+            if (hedger != null) {
+                jsonLimiter.put("hedgingBudget", hedger.getBudget());
+                jsonLimiter.put("hedgedRequests", hedger.getNumberOfHedgedRequests());
+                jsonLimiter.put("hedgeWins", hedger.getNumberOfHedgeWins());
+                jsonLimiter.put("averageLatency", hedger.getAverageLatency());
+                jsonLimiter.put("percentileLatency", hedger.getPercentileLatency());
+            }
+            deduplicator = DocumentRequestDeduplicator.getExistingDeduplicator(limiter.getAnnotatorName());
+            if (deduplicator != null) {
+                jsonLimiter.put("sharedRequests", deduplicator.getNumberOfSharedRequests());
+                jsonLimiter.put("cachedRequests", deduplicator.getNumberOfCachedRequests());
+            }
+            jsonLimiters.add(jsonLimiter);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setCacheControl("no-cache");
+        return new ResponseEntity<String>(jsonLimiters.toJSONString(), headers, HttpStatus.OK);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addTasks(List<ExperimentTask> tasks, JSONArray jsonTasks, long now) {
+        JSONObject jsonTask;
+        ExperimentTaskState state;
+        ExperimentTaskProgress progress;
+        EvaluationEvent evaluationEvent;
+        long startTime, endTime;
+        for (ExperimentTask task : tasks) {
+            jsonTask = new JSONObject();
+            jsonTask.put("taskId", task.getExperimentTaskId());
+            jsonTask.put("experimentId", task.getExperimentId());
+            jsonTask.put("annotator", task.getConfiguration().annotatorConfig.getName());
+            jsonTask.put("dataset", task.getConfiguration().datasetConfig.getName());
+            jsonTask.put("experimentType", task.getConfiguration().type.name());
+            jsonTask.put("matching", task.getConfiguration().matching.name());
+            jsonTask.put("status", task.getStatus().name());
+            jsonTask.put("errorCount", task.getErrorCount());
+            startTime = task.getStartTime();
+            if (startTime > 0) {
+                endTime = task.getEndTime();
+                jsonTask.put("elapsedTime", ((endTime > 0) ? endTime : now) - startTime);
+            }
+            if (task.getStatus() == ExperimentTask.Status.FINISHED) {
+                jsonTask.put("state", task.getFinalState());
+            }
+            evaluationEvent = task.getLastEvaluationEvent();
+            if (evaluationEvent != null) {
+                jsonTask.put("evaluationStep", evaluationEvent.getType().name());
+            }
+            state = task.getTaskState();
+            if (state != null) {
+                progress = state.getProgress();
+                jsonTask.put("processedDocuments", progress.getProcessedDocuments());
+                jsonTask.put("completedDocuments", progress.getCompletedDocuments());
+                jsonTask.put("failedDocuments", progress.getFailedDocuments());
+                jsonTask.put("documents", progress.getDocuments());
+                jsonTask.put("progress", progress.getProgress());
+                if (task.getStatus() == ExperimentTask.Status.RUNNING) {
+                    jsonTask.put("documentsPerSecond", progress.getDocumentsPerSecond());
+                    jsonTask.put("averageDocumentsPerSecond", progress.getAverageDocumentsPerSecond());
+                    jsonTask.put("inFlightRequests", progress.getInFlightDocuments());
+                    jsonTask.put("annotatorWindow",
+                            AnnotatorRequestLimiter.getLimiter(task.getConfiguration().annotatorConfig.getName())
+                                    .getWindow());
+                    jsonTask.put("estimatedEnd", progress.getEstimatedEndTime());
+                    if (state.getRequestStartTime() > 0) {
+                        jsonTask.put("currentRequestTime", now - state.getRequestStartTime());
                     }
+                    jsonTask.put("documentDeadline",
+                            TaskWatchdog.getDocumentTimeout(task.getConfiguration().annotatorConfig.getName()));
+                    jsonTask.put("stuck", task.getStuckSince() > 0);
                 }
-                resultBuilder.append("</p>\n");
+                jsonTask.put("timedOutRequests", task.getNumberOfTimedOutRequests());
             }
+            jsonTasks.add(jsonTask);
         }
-        return resultBuilder.toString();
     }
 }
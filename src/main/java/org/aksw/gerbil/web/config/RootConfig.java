@@ -24,11 +24,13 @@ package org.aksw.gerbil.web.config;
 
 import java.io.PrintStream;
 
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor;
+import org.aksw.gerbil.execute.ExperimentSubmitter;
+import org.aksw.gerbil.execute.ExperimentTaskRegistry;
+import org.aksw.gerbil.metrics.MetricsRegistry;
+import org.aksw.gerbil.utils.AsyncLogging;
 import org.aksw.gerbil.utils.ConsoleLogger;
-import org.aksw.simba.topicmodeling.concurrent.overseers.Overseer;
-import org.aksw.simba.topicmodeling.concurrent.overseers.pool.ExecutorBasedOverseer;
-import org.aksw.simba.topicmodeling.concurrent.reporter.LogReporter;
-import org.aksw.simba.topicmodeling.concurrent.reporter.Reporter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -48,6 +50,10 @@ import org.springframework.core.io.Resource;
  * <li>Replaces the streams used by <code>System.out</code> and
  * <code>System.err</code> by two {@link ConsoleLogger} objects. (This is a very
  * ugly workaround that should be fixed in the near future)</li>
+ * <li>Moves the log appenders behind an asynchronous appender (see
+ * {@link AsyncLogging})</li>
+ * <li>Unregisters the MBeans of the {@link MetricsRegistry} when the context
+ * is closed</li>
  * </ul>
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
@@ -60,12 +66,11 @@ import org.springframework.core.io.Resource;
 @PropertySource("gerbil.properties")
 public class RootConfig {
 
-    private static final int DEFAULT_NUMBER_OF_WORKERS = 20;
-
     {
         // FIXME this is an extremely ugly workaround to be able to log the
         // stuff coming from the BAT-Framework
         replaceSystemStreams();
+        AsyncLogging.enable();
     }
 
     protected static void replaceSystemStreams() {
@@ -81,11 +86,25 @@ public class RootConfig {
         return p;
     }
 
+    public static @Bean(destroyMethod = "close")
+    ExperimentSubmitter createExperimentSubmitter() {
+        return new ExperimentSubmitter(GerbilConfiguration.getInstance().getInt(
+                ExperimentSubmitter.MAX_QUEUED_EXPERIMENTS_PROPERTY_NAME,
+                ExperimentSubmitter.DEFAULT_MAX_QUEUED_EXPERIMENTS));
+    }
+
+    public static @Bean
+    ExperimentProgressMonitor createExperimentProgressMonitor() {
+        return new ExperimentProgressMonitor();
+    }
+
     public static @Bean
-    Overseer createOverseer() {
-        Overseer overseer = new ExecutorBasedOverseer(DEFAULT_NUMBER_OF_WORKERS);
-        @SuppressWarnings("unused")
-        Reporter reporter = new LogReporter(overseer);
-        return overseer;
+    ExperimentTaskRegistry createExperimentTaskRegistry() {
+        return new ExperimentTaskRegistry();
+    }
+
+    public static @Bean(destroyMethod = "unregisterMBeans")
+    MetricsRegistry createMetricsRegistry() {
+        return MetricsRegistry.getInstance();
     }
 }
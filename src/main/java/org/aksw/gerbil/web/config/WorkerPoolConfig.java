@@ -0,0 +1,60 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.web.config;
+
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor;
+import org.aksw.gerbil.execute.ExperimentTaskRegistry;
+import org.aksw.gerbil.execute.ExperimentTaskWorkerPool;
+import org.aksw.gerbil.utils.SingletonWikipediaApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This {@link Configuration} creates the {@link ExperimentTaskWorkerPool} that
+ * executes the experiment tasks of the persistent task queue inside the
+ * database.
+ */
+@Configuration
+public class WorkerPoolConfig {
+
+    @Autowired
+    @Qualifier("experimentDAO")
+    private ExperimentDAO experimentDAO;
+
+    @Autowired
+    private ExperimentProgressMonitor progressMonitor;
+
+    @Autowired
+    private ExperimentTaskRegistry taskRegistry;
+
+    @Bean(destroyMethod = "close")
+    public ExperimentTaskWorkerPool experimentTaskWorkerPool() {
+        ExperimentTaskWorkerPool workerPool = new ExperimentTaskWorkerPool(experimentDAO,
+                SingletonWikipediaApi.getInstance(), progressMonitor, taskRegistry);
+        workerPool.start();
+        return workerPool;
+    }
+}
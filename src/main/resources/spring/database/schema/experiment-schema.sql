@@ -26,14 +26,67 @@ DROP INDEX IF EXISTS ExperimentTaskConfig;
 CREATE INDEX ExperimentTaskConfig ON ExperimentTasks (matching,experimentType,annotatorName,datasetName);
 
 -- Changes from version 1.0.0 to 1.1.0
-CREATE TABLE IF NOT EXISTS ExperimentTasks_Version (
-id int PRIMARY KEY,
-version VARCHAR(20)
-);
 UPDATE ExperimentTasks SET experimentType='D2KB' WHERE experimentType='D2W';
 UPDATE ExperimentTasks SET experimentType='A2KB' WHERE experimentType='A2W';
 UPDATE ExperimentTasks SET experimentType='Sa2KB' WHERE experimentType='Sa2W';
 UPDATE ExperimentTasks SET experimentType='C2KB' WHERE experimentType='C2W';
 UPDATE ExperimentTasks SET experimentType='Sc2KB' WHERE experimentType='Sc2W';
 UPDATE ExperimentTasks SET experimentType='Rc2KB' WHERE experimentType='Rc2W';
-UPDATE ExperimentTasks SET annotatorName='Babelfy' WHERE annotatorName='BabelFy';
\ No newline at end of file
+UPDATE ExperimentTasks SET annotatorName='Babelfy' WHERE annotatorName='BabelFy';
+
+-- The versions of older tasks are moved from the ExperimentTasks_Version table
+-- into the ExperimentTasks table by ExperimentDAOImpl.initialize() if the old
+-- table still exists.
+
+-- Progress of running experiment tasks
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Progress (
+id int PRIMARY KEY,
+progress double,
+estimatedEnd TIMESTAMP
+);
+
+-- Latest task of every experiment type, matching, annotator and dataset combination
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Latest (
+experimentType VARCHAR(10),
+matching VARCHAR(50),
+annotatorName VARCHAR(100),
+datasetName VARCHAR(100),
+taskId int,
+PRIMARY KEY (experimentType, matching, annotatorName, datasetName)
+);
+
+-- Queue of experiment tasks that have to be executed by a worker
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Queue (
+id int PRIMARY KEY,
+experimentId VARCHAR(300),
+queueState int,
+worker VARCHAR(100),
+leaseExpiry TIMESTAMP,
+queued TIMESTAMP,
+annotatorDefinition VARCHAR(1000),
+datasetDefinition VARCHAR(1000)
+);
+-- Queued tasks are read sorted by their experiment (replaces the former index on the queue state)
+DROP INDEX IF EXISTS ExperimentTasks_QueueState;
+DROP INDEX IF EXISTS ExperimentTasks_QueueExperiment;
+CREATE INDEX ExperimentTasks_QueueExperiment ON ExperimentTasks_Queue (queueState, experimentId, queued, id);
+
+-- Runtimes of finished experiment tasks that are used to estimate the runtime of queued tasks
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Runtime (
+id int PRIMARY KEY,
+runtime BIGINT,
+documents int
+);
+
+-- Submitter and priority of the experiments inside the task queue
+CREATE TABLE IF NOT EXISTS Experiments_Queue (
+experimentId VARCHAR(300) PRIMARY KEY,
+submitter VARCHAR(100),
+priority int
+);
+
+-- Experiments that have been cancelled by their submitter
+CREATE TABLE IF NOT EXISTS Experiments_Cancelled (
+experimentId VARCHAR(300) PRIMARY KEY,
+cancelled TIMESTAMP
+);
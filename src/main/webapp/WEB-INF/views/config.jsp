@@ -462,8 +462,12 @@
 			                                var span = "<span>Find your experimental data here: </span>";
 			                                $('#submitField').append(span);
 			                                $('#submitField').append(link);
-		                                }).fail(function() {
-			                        alert("Error, insufficient parameters.");
+		                                }).fail(function(jqXHR) {
+			                        if (jqXHR.status == 503) {
+				                        alert(jqXHR.responseText);
+			                        } else {
+				                        alert("Error, insufficient parameters.");
+			                        }
 		                        });
 	                        });
                 });
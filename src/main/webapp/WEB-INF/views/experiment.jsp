@@ -33,6 +33,8 @@
 <body class="container">
 	<!-- mappings to URLs in back-end controller -->
 	<c:url var="experiment" value="/experiment" />
+	<c:url var="experimentprogress" value="/experimentprogress" />
+	<c:url var="cancel" value="/cancel" />
 
 	<script src="/gerbil/webjars/jquery/2.1.1/jquery.min.js"></script>
 	<script src="/gerbil/webjars/bootstrap/3.2.0/js/bootstrap.min.js"></script>
@@ -44,6 +46,12 @@
 
 	<%@include file="navbar.jsp"%>
 	<h1>GERBIL Experiment</h1>
+	<c:if test="${queued}">
+		<p>The experiment is waiting to be started. This page will be reloaded as soon as it has been started.</p>
+	</c:if>
+	<p>
+		<button id="cancelButton" type="button" class="btn btn-default" style="display: none">Cancel experiment</button>
+	</p>
 	<c:if test="${not empty tasks}">
 
 	Type: <c:out value="${tasks[0].type.label}" />
@@ -69,7 +77,7 @@
 			</thead>
 			<tbody>
 				<c:forEach var="task" items="${tasks}">
-					<tr>
+					<tr id="task-${task.idInDb}" data-state="${task.state}">
 						<td>${task.annotator}</td>
 						<td>${task.dataset}</td>
 						<c:if test="${empty task.stateMsg}">
@@ -102,10 +110,92 @@
 
 
 	<script type="text/javascript">
+		var queued = ${queued};
+		// time (in milliseconds) between two requests for the progress
+		var progressPollInterval = 5000;
+
+		function formatNumber(value) {
+			return value == null ? "" : parseFloat(value.toFixed(4));
+		}
+
+		// replaces the result cells of the task's row, i.e., all cells
+		// between the dataset and the timestamp
+		function updateTask(task) {
+			var row = $("#task-" + task.id);
+			if (row.length == 0) {
+				return;
+			}
+			var cells = row.children("td");
+			cells.slice(2, cells.length - 2).remove();
+			var newCells;
+			if (task.state == 0) {
+				newCells = $.map([ task.microF1, task.microPrecision, task.microRecall, task.macroF1,
+						task.macroPrecision, task.macroRecall ], function(value) {
+					return $("<td></td>").text(formatNumber(value));
+				});
+				newCells.push($("<td></td>").text(task.errorCount));
+			} else {
+				newCells = [ $('<td colspan="7" style="text-align:center"></td>').text(task.stateMsg) ];
+			}
+			$(cells[1]).after(newCells);
+			if (task.timestamp) {
+				$(cells[cells.length - 2]).text(task.timestamp);
+			}
+			row.attr("data-state", task.state);
+		}
+
+		// polls the state of the experiment until all tasks are finished
+		function watchProgress(experimentId) {
+			$.getJSON('${experimentprogress}', {
+				id : experimentId
+			}).done(function(data) {
+				if (queued && data.started) {
+					// the tasks have been created
+					location.reload();
+					return;
+				}
+				$.each(data.tasks, function(index, task) {
+					updateTask(task);
+				});
+				if (!data.started || $("#resultTable tr[data-state='-1']").length > 0) {
+					setTimeout(function() {
+						watchProgress(experimentId);
+					}, progressPollInterval);
+				} else {
+					$("#cancelButton").hide();
+					$("#resultTable").trigger("update");
+				}
+			}).fail(function() {
+				console.log("stopped watching the progress of the experiment");
+			});
+		}
+
 		$(document).ready(function() {
 	        $("#resultTable").tablesorter({
 		        sortList : [ [ 0, 0 ], [ 1, 0 ] ]
 	        });
+			if (queued || $("#resultTable tr[data-state='-1']").length > 0) {
+				var match = /[?&]id=([^&]*)/.exec(location.search);
+				if (match) {
+					var experimentId = decodeURIComponent(match[1]);
+					watchProgress(experimentId);
+					$("#cancelButton").show().click(function() {
+						if (!confirm("Do you really want to cancel the unfinished tasks of this experiment?")) {
+							return;
+						}
+						$.post('${cancel}', {
+							id : experimentId
+						}).done(function() {
+							$("#cancelButton").hide();
+							if (queued) {
+								location.reload();
+							}
+						}).fail(function(xhr) {
+							alert(xhr.responseText);
+						});
+					});
+				}
+			}
         });
 	</script>
 </body>
\ No newline at end of file
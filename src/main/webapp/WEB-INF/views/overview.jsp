@@ -133,6 +133,20 @@ table {
 			<tbody></tbody>
 		</table>
 	</div>
+	<div class="container">
+		<div class="form-horizontal">
+			<div class="col-md-12">
+				<h2>GERBIL versions</h2>
+				<p>The table contains the GERBIL versions with which the results above have been created.</p>
+			</div>
+		</div>
+	</div>
+	<div class="container-fluid">
+		<table id="versionsTable" class="table table-hover table-condensed">
+			<thead></thead>
+			<tbody></tbody>
+		</table>
+	</div>
 
 	<script type="text/javascript">
 		function loadMatchings() {
@@ -214,6 +228,7 @@ table {
 				tableData = data[1];
 				showTable(tableData,"correlationsTable");
 				drawSpiderDiagram(tableData, "correlationsChart");
+				showTable(data[2],"versionsTable");
 			}).fail(function() {
 		        console.log("error loading data for table");
 	        });
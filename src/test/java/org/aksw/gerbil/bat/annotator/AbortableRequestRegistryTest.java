@@ -0,0 +1,96 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.client.methods.HttpPost;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AbortableRequestRegistryTest {
+
+    @Test
+    public void testAbort() throws Exception {
+        Thread owner = Thread.currentThread();
+        HttpPost request = new HttpPost("http://localhost/");
+        AbortableRequestRegistry.register(request);
+        try {
+            AbortableRequestRegistry.abort(owner);
+            Assert.assertTrue(request.isAborted());
+            Assert.assertTrue(AbortableRequestRegistry.isAborted());
+        } finally {
+            AbortableRequestRegistry.unregister(request);
+        }
+        // further requests must not be sent
+        try {
+            AbortableRequestRegistry.register(new HttpPost("http://localhost/"));
+            Assert.fail("Expected a RequestAbortedException.");
+        } catch (RequestAbortedException e) {
+            // expected
+        }
+        AbortableRequestRegistry.reset(owner);
+        Assert.assertFalse(AbortableRequestRegistry.isAborted());
+        request = new HttpPost("http://localhost/");
+        AbortableRequestRegistry.register(request);
+        AbortableRequestRegistry.unregister(request);
+        Assert.assertFalse(request.isAborted());
+    }
+
+    @Test
+    public void testRequestOfHelperThread() throws Exception {
+        final Thread owner = Thread.currentThread();
+        final HttpPost request = new HttpPost("http://localhost/");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> result = executor.submit(AbortableRequestRegistry
+                    .onBehalfOfCurrentOwner(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            AbortableRequestRegistry.register(request);
+                            try {
+                                AbortableRequestRegistry.abort(owner);
+                                return AbortableRequestRegistry.isAborted();
+                            } finally {
+                                AbortableRequestRegistry.unregister(request);
+                            }
+                        }
+                    }));
+            Assert.assertTrue(result.get());
+            Assert.assertTrue(request.isAborted());
+            // requests of the helper thread itself are not affected
+            Assert.assertFalse(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return AbortableRequestRegistry.isAborted();
+                }
+            }).get());
+        } finally {
+            AbortableRequestRegistry.reset(owner);
+            executor.shutdown();
+        }
+    }
+}
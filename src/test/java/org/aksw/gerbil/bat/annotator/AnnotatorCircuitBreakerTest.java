@@ -0,0 +1,149 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.HashSet;
+
+import org.aksw.gerbil.bat.annotator.AnnotatorCircuitBreaker.State;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnnotatorCircuitBreakerTest {
+
+    @Test
+    public void testStateChanges() throws Exception {
+        AnnotatorCircuitBreaker breaker = new AnnotatorCircuitBreaker("test", 3, 100, 150);
+        for (int i = 0; i < 2; ++i) {
+            Assert.assertTrue(breaker.allowRequest());
+            breaker.requestFinished(false);
+        }
+        // a successful request resets the failure count
+        Assert.assertTrue(breaker.allowRequest());
+        breaker.requestFinished(true);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(State.CLOSED, breaker.getState());
+            Assert.assertTrue(breaker.allowRequest());
+            breaker.requestFinished(false);
+        }
+        Assert.assertEquals(State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.isRequestPermitted());
+        Assert.assertFalse(breaker.allowRequest());
+
+        // a single probe is allowed after the open time
+        Thread.sleep(120);
+        Assert.assertTrue(breaker.isRequestPermitted());
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertEquals(State.HALF_OPEN, breaker.getState());
+        Assert.assertFalse(breaker.allowRequest());
+        breaker.requestFinished(false);
+        // the open time has been doubled (but limited to 150ms)
+        Assert.assertEquals(State.OPEN, breaker.getState());
+        Thread.sleep(120);
+        Assert.assertFalse(breaker.isRequestPermitted());
+        Thread.sleep(50);
+        Assert.assertTrue(breaker.allowRequest());
+        breaker.requestFinished(true);
+        Assert.assertEquals(State.CLOSED, breaker.getState());
+        Assert.assertEquals(2, breaker.getNumberOfOpenings());
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        AnnotatorCircuitBreaker breaker = new AnnotatorCircuitBreaker("test", 2, 60000, 60000);
+        AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 0, 0, 0);
+        final int calls[] = new int[1];
+        C2WSystem annotator = (C2WSystem) RequestLimitingAnnotatorDecorator.createDecorator(new C2WSystem() {
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public long getLastAnnotationTime() {
+                return 0;
+            }
+
+            @Override
+            public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+                ++calls[0];
+                throw new AnnotationException("The service is down.");
+            }
+        }, limiter, breaker);
+        for (int i = 0; i < 2; ++i) {
+            try {
+                annotator.solveC2W("text");
+                Assert.fail();
+            } catch (AnnotatorUnavailableException e) {
+                Assert.fail();
+            } catch (AnnotationException e) {
+                // expected
+            }
+        }
+        try {
+            annotator.solveC2W("text");
+            Assert.fail();
+        } catch (AnnotatorUnavailableException e) {
+            // expected
+        }
+        Assert.assertEquals(2, calls[0]);
+        Assert.assertEquals(0, limiter.getNumberOfInFlightRequests());
+    }
+
+    @Test
+    public void testRejectedRequests() throws Exception {
+        AnnotatorCircuitBreaker breaker = new AnnotatorCircuitBreaker("test", 2, 60000, 60000);
+        AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 0, 0, 0);
+        C2WSystem annotator = (C2WSystem) RequestLimitingAnnotatorDecorator.createDecorator(new C2WSystem() {
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public long getLastAnnotationTime() {
+                return 0;
+            }
+
+            @Override
+            public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+                throw new AnnotatorRequestRejectedException("Response has the wrong status: 400 Bad Request");
+            }
+        }, limiter, breaker);
+        // documents the annotator can't handle don't open the breaker
+        for (int i = 0; i < 3; ++i) {
+            try {
+                annotator.solveC2W("text");
+                Assert.fail();
+            } catch (AnnotatorRequestRejectedException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(State.CLOSED, breaker.getState());
+        Assert.assertEquals(0, breaker.getNumberOfConsecutiveFailures());
+        Assert.assertEquals(0, limiter.getNumberOfInFlightRequests());
+    }
+}
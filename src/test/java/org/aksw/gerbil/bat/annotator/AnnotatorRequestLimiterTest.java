@@ -0,0 +1,170 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnnotatorRequestLimiterTest {
+
+    private static final int NUMBER_OF_THREADS = 6;
+    private static final long MAX_TEST_DURATION = 10000;
+
+    @Test
+    public void testParallelRequestLimit() throws Exception {
+        final AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 2, 0, 0);
+        final AtomicInteger parallelRequests = new AtomicInteger();
+        final AtomicInteger maxParallelRequests = new AtomicInteger();
+        final CountDownLatch requestsStarted = new CountDownLatch(2);
+        final CountDownLatch finishRequests = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread threads[] = new Thread[NUMBER_OF_THREADS];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        limiter.acquire();
+                        try {
+                            int current = parallelRequests.incrementAndGet();
+                            synchronized (maxParallelRequests) {
+                                if (current > maxParallelRequests.get()) {
+                                    maxParallelRequests.set(current);
+                                }
+                            }
+                            requestsStarted.countDown();
+                            finishRequests.await();
+                            parallelRequests.decrementAndGet();
+                        } finally {
+                            limiter.release();
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        Assert.assertTrue(requestsStarted.await(MAX_TEST_DURATION, TimeUnit.MILLISECONDS));
+        // the other requests have to wait until the first requests are
+        // finished
+        long deadline = System.currentTimeMillis() + MAX_TEST_DURATION;
+        while ((limiter.getNumberOfWaitingRequests() < (NUMBER_OF_THREADS - 2))
+                && (System.currentTimeMillis() < deadline)) {
+            Thread.yield();
+        }
+        Assert.assertEquals(NUMBER_OF_THREADS - 2, limiter.getNumberOfWaitingRequests());
+        Assert.assertEquals(2, limiter.getNumberOfInFlightRequests());
+        Assert.assertEquals(2, parallelRequests.get());
+        // make sure that the waiting time of the blocked requests is
+        // measurable
+        Thread.sleep(10);
+        finishRequests.countDown();
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join(MAX_TEST_DURATION);
+            Assert.assertFalse(threads[i].isAlive());
+        }
+        if (error.get() != null) {
+            throw new AssertionError("A request thread failed: " + error.get());
+        }
+        Assert.assertEquals(2, maxParallelRequests.get());
+        Assert.assertEquals(NUMBER_OF_THREADS, limiter.getNumberOfRequests());
+        Assert.assertTrue(limiter.getNumberOfDelayedRequests() >= (NUMBER_OF_THREADS - 2));
+        Assert.assertTrue(limiter.getMaxWaitingTime() > 0);
+        Assert.assertEquals(0, limiter.getNumberOfInFlightRequests());
+        Assert.assertEquals(0, limiter.getNumberOfWaitingRequests());
+    }
+
+    @Test
+    public void testRequestRate() throws Exception {
+        // 20 requests per second = 50ms per request
+        AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 0, 20, 1);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; ++i) {
+            limiter.acquire();
+            limiter.release();
+        }
+        // the first request doesn't have to wait
+        Assert.assertTrue((System.currentTimeMillis() - start) >= 190);
+        Assert.assertEquals(4, limiter.getNumberOfDelayedRequests());
+    }
+
+    @Test
+    public void testBurst() throws Exception {
+        AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 0, 2, 5);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; ++i) {
+            limiter.acquire();
+            limiter.release();
+        }
+        Assert.assertTrue((System.currentTimeMillis() - start) < 400);
+        Assert.assertEquals(0, limiter.getNumberOfDelayedRequests());
+        // the bucket is empty now
+        Assert.assertTrue(limiter.acquire() >= 400);
+        limiter.release();
+    }
+
+    @Test
+    public void testAdaptiveWindow() throws Exception {
+        AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 8, 0, 0, true);
+        int window = limiter.getWindow();
+        Assert.assertTrue(window < 8);
+        // successful requests with a stable latency increase the window
+        long start;
+        for (int i = 0; i < 100; ++i) {
+            limiter.acquire();
+            start = System.nanoTime() - 10000000;
+            limiter.release(start, true);
+        }
+        Assert.assertEquals(8, limiter.getWindow());
+        Assert.assertEquals(0, limiter.getNumberOfWindowDecreases());
+
+        // a failed request halves the window
+        start = System.nanoTime();
+        limiter.acquire();
+        limiter.release(start, false);
+        Assert.assertEquals(4, limiter.getWindow());
+        Assert.assertEquals(1, limiter.getNumberOfWindowDecreases());
+        Assert.assertNotNull(limiter.getLastDecision());
+        // requests that have been started before the decrease don't decrease
+        // it again
+        limiter.acquire();
+        limiter.release(start, false);
+        Assert.assertEquals(4, limiter.getWindow());
+
+        // a growing latency halves the window (the requests have to be
+        // started after the last decrease)
+        Thread.sleep(150);
+        for (int i = 0; i < 10; ++i) {
+            limiter.acquire();
+            limiter.release(System.nanoTime() - 100000000, true);
+        }
+        Assert.assertTrue(limiter.getWindow() < 4);
+        Assert.assertTrue(limiter.getNumberOfWindowDecreases() > 1);
+    }
+}
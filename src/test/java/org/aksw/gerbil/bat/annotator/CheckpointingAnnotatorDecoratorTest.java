@@ -0,0 +1,184 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.problems.TopicDataset;
+import it.acubelab.batframework.problems.TopicSystem;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+
+import org.aksw.gerbil.annotators.AbstractAnnotatorConfiguration;
+import org.aksw.gerbil.bat.annotator.ErrorCountingAnnotatorDecoratorTest.SimpleTestDataset;
+import org.aksw.gerbil.bat.annotator.ErrorCountingAnnotatorDecoratorTest.SimpleTestDatasetConfig;
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.datasets.AbstractDatasetConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.execute.TaskCheckpoint;
+import org.aksw.gerbil.matching.Matching;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CheckpointingAnnotatorDecoratorTest {
+
+    private static final String DOCUMENTS[] = new String[] { "first document", "second document", "third document" };
+
+    private File directory;
+    private Object formerDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("checkpoints", "");
+        directory.delete();
+        formerDirectory = GerbilConfiguration.getInstance().getProperty(
+                TaskCheckpoint.CHECKPOINT_DIRECTORY_PROPERTY_NAME);
+        GerbilConfiguration.getInstance().setProperty(TaskCheckpoint.CHECKPOINT_DIRECTORY_PROPERTY_NAME,
+                directory.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        GerbilConfiguration.getInstance().setProperty(TaskCheckpoint.CHECKPOINT_DIRECTORY_PROPERTY_NAME,
+                formerDirectory);
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        ExperimentTaskConfiguration configuration = new ExperimentTaskConfiguration(new CountingAnnotatorConfig(),
+                new CachableTestDatasetConfig(), ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH);
+        CountingTopicSystem annotator = new CountingTopicSystem(2);
+
+        // the first run fails at the third document
+        TaskCheckpoint checkpoint = TaskCheckpoint.open(configuration, 1);
+        Assert.assertNotNull(checkpoint);
+        // a checkpoint can't be used by two tasks at once
+        Assert.assertNull(TaskCheckpoint.open(configuration, 1));
+        C2WSystem decorated = (C2WSystem) CheckpointingAnnotatorDecorator.createDecorator(annotator, checkpoint);
+        Assert.assertEquals(0, decorated.solveC2W(DOCUMENTS[0]).iterator().next().getConcept());
+        Assert.assertEquals(1, decorated.solveC2W(DOCUMENTS[1]).iterator().next().getConcept());
+        try {
+            decorated.solveC2W(DOCUMENTS[2]);
+            Assert.fail("Expected an exception.");
+        } catch (AnnotationException e) {
+            // expected
+        }
+        checkpoint.close();
+
+        // simulate a crash while writing the next record
+        File files[] = directory.listFiles();
+        Assert.assertEquals(1, files.length);
+        FileOutputStream fout = new FileOutputStream(files[0], true);
+        fout.write(new byte[] { 0, 10, 'S', 'c' });
+        fout.close();
+
+        // a retry of the task sends only the third document to the annotator
+        annotator.failAfter = Integer.MAX_VALUE;
+        checkpoint = TaskCheckpoint.open(configuration, 2);
+        Assert.assertNotNull(checkpoint);
+        decorated = (C2WSystem) CheckpointingAnnotatorDecorator.createDecorator(annotator, checkpoint);
+        Assert.assertEquals(0, decorated.solveC2W(DOCUMENTS[0]).iterator().next().getConcept());
+        Assert.assertEquals(1, decorated.solveC2W(DOCUMENTS[1]).iterator().next().getConcept());
+        Assert.assertEquals(3, decorated.solveC2W(DOCUMENTS[2]).iterator().next().getConcept());
+        Assert.assertEquals(4, annotator.calls);
+        Assert.assertEquals(2, checkpoint.getNumberOfReusedOutputs());
+
+        // after a successful run, the checkpoint is removed
+        checkpoint.delete();
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testNoCheckpointForUncachableConfigurations() {
+        ExperimentTaskConfiguration configuration = new ExperimentTaskConfiguration(new CountingAnnotatorConfig(),
+                new SimpleTestDatasetConfig(DOCUMENTS.length), ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH);
+        Assert.assertNull(TaskCheckpoint.open(configuration, 1));
+    }
+
+    public static class CountingAnnotatorConfig extends AbstractAnnotatorConfiguration {
+
+        public CountingAnnotatorConfig() {
+            super("Counting topic system", true, ExperimentType.C2KB);
+        }
+
+        @Override
+        protected TopicSystem loadAnnotator(ExperimentType type) throws Exception {
+            return new CountingTopicSystem(Integer.MAX_VALUE);
+        }
+    }
+
+    public static class CachableTestDatasetConfig extends AbstractDatasetConfiguration {
+
+        public CachableTestDatasetConfig() {
+            super("cachable test dataset", true, ExperimentType.C2KB);
+        }
+
+        @Override
+        protected TopicDataset loadDataset() throws Exception {
+            return new SimpleTestDataset(DOCUMENTS.length);
+        }
+    }
+
+    /**
+     * Returns a tag with the number of the call as concept and throws
+     * exceptions after the given number of calls.
+     */
+    public static class CountingTopicSystem implements C2WSystem {
+
+        private int calls = 0;
+        private int failAfter;
+
+        public CountingTopicSystem(int failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public String getName() {
+            return "Counting topic system";
+        }
+
+        @Override
+        public long getLastAnnotationTime() {
+            return -1;
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            int call = calls++;
+            if (call >= failAfter) {
+                throw new AnnotationException("Test exception.");
+            }
+            HashSet<Tag> result = new HashSet<Tag>();
+            result.add(new Tag(call));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.data.Mention;
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DocumentRequestDeduplicatorTest {
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final DocumentRequestDeduplicator deduplicator = new DocumentRequestDeduplicator("test", 0, 0);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<HashSet<Tag>> request = new Callable<HashSet<Tag>>() {
+            @Override
+            public HashSet<Tag> call() throws Exception {
+                calls.incrementAndGet();
+                release.await();
+                HashSet<Tag> result = new HashSet<Tag>();
+                result.add(new Tag(1));
+                return result;
+            }
+        };
+        final String key = DocumentRequestDeduplicator.createKey("C2W", "text", null);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<HashSet<Tag>>> futures = new ArrayList<Future<HashSet<Tag>>>();
+        for (int i = 0; i < 3; ++i) {
+            futures.add(executor.submit(new Callable<HashSet<Tag>>() {
+                @Override
+                public HashSet<Tag> call() throws Exception {
+                    return deduplicator.execute(key, request);
+                }
+            }));
+        }
+        while (deduplicator.getNumberOfRequests() < futures.size()) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        HashSet<Tag> first = futures.get(0).get();
+        for (int i = 0; i < futures.size(); ++i) {
+            HashSet<Tag> result = futures.get(i).get();
+            Assert.assertEquals(1, result.size());
+            Assert.assertTrue(result.contains(new Tag(1)));
+            // every caller gets its own copy
+            if (i > 0) {
+                Assert.assertNotSame(first, result);
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(2, deduplicator.getNumberOfSharedRequests());
+        Assert.assertEquals(0, deduplicator.getNumberOfInFlightRequests());
+
+        // without a cache, the next request is sent again
+        deduplicator.execute(key, request);
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        DocumentRequestDeduplicator deduplicator = new DocumentRequestDeduplicator("test", 10, 60000);
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<HashSet<Tag>> request = new Callable<HashSet<Tag>>() {
+            @Override
+            public HashSet<Tag> call() throws Exception {
+                calls.incrementAndGet();
+                HashSet<Tag> result = new HashSet<Tag>();
+                result.add(new Tag(1));
+                return result;
+            }
+        };
+        String key = DocumentRequestDeduplicator.createKey("C2W", "text", null);
+        HashSet<Tag> result = deduplicator.execute(key, request);
+        // changing the returned set must not change the cached result
+        result.add(new Tag(2));
+        result = deduplicator.execute(key, request);
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(1, deduplicator.getNumberOfCachedRequests());
+        Assert.assertEquals(1, result.size());
+
+        deduplicator.execute(DocumentRequestDeduplicator.createKey("A2W", "text", null), request);
+        deduplicator.execute(DocumentRequestDeduplicator.createKey("C2W", "other text", null), request);
+        Assert.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testFailedRequestsAreNotCached() throws Exception {
+        DocumentRequestDeduplicator deduplicator = new DocumentRequestDeduplicator("test", 10, 60000);
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<HashSet<Tag>> request = new Callable<HashSet<Tag>>() {
+            @Override
+            public HashSet<Tag> call() throws Exception {
+                if (calls.incrementAndGet() == 1) {
+                    throw new AnnotationException("The service is down.");
+                }
+                return new HashSet<Tag>();
+            }
+        };
+        String key = DocumentRequestDeduplicator.createKey("C2W", "text", null);
+        try {
+            deduplicator.execute(key, request);
+            Assert.fail();
+        } catch (AnnotationException e) {
+            Assert.assertEquals("The service is down.", e.getMessage());
+        }
+        Assert.assertNotNull(deduplicator.execute(key, request));
+        Assert.assertEquals(2, calls.get());
+        Assert.assertEquals(0, deduplicator.getNumberOfInFlightRequests());
+    }
+
+    @Test
+    public void testMentionKeys() {
+        Set<Mention> mentions1 = new HashSet<Mention>();
+        mentions1.add(new Mention(0, 4));
+        mentions1.add(new Mention(10, 3));
+        Set<Mention> mentions2 = new HashSet<Mention>();
+        mentions2.add(new Mention(10, 3));
+        mentions2.add(new Mention(0, 4));
+        Set<Mention> mentions3 = new HashSet<Mention>();
+        mentions3.add(new Mention(0, 4));
+        Assert.assertEquals(DocumentRequestDeduplicator.createKey("D2W", "text", mentions1),
+                DocumentRequestDeduplicator.createKey("D2W", "text", mentions2));
+        Assert.assertFalse(DocumentRequestDeduplicator.createKey("D2W", "text", mentions1).equals(
+                DocumentRequestDeduplicator.createKey("D2W", "text", mentions3)));
+    }
+}
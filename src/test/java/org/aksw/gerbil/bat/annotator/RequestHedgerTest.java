@@ -0,0 +1,157 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.bat.annotator;
+
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.HttpPost;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequestHedgerTest {
+
+    @Test
+    public void testHedging() {
+        RequestHedger hedger = new RequestHedger("test", 10, new AnnotatorRequestLimiter("test", 0, 0, 0));
+        for (int i = 0; i < 20; ++i) {
+            Assert.assertEquals("fast", hedger.execute(new SleepingRequest(10)));
+        }
+        Assert.assertEquals(0, hedger.getNumberOfHedgedRequests());
+        Assert.assertTrue(hedger.getPercentileLatency() >= 10);
+
+        // only the first call is slow. Thus, the duplicate wins.
+        long start = System.currentTimeMillis();
+        Assert.assertEquals("fast", hedger.execute(new SleepingRequest(10, 5000)));
+        Assert.assertTrue((System.currentTimeMillis() - start) < 2000);
+        Assert.assertEquals(1, hedger.getNumberOfHedgedRequests());
+        Assert.assertEquals(1, hedger.getNumberOfHedgeWins());
+
+        // the budget (10% of 22 requests) allows only two hedged requests
+        hedger.execute(new SleepingRequest(10, 200));
+        Assert.assertEquals(2, hedger.getNumberOfHedgedRequests());
+        hedger.execute(new SleepingRequest(10, 200));
+        Assert.assertEquals(2, hedger.getNumberOfHedgedRequests());
+    }
+
+    @Test
+    public void testLimiterAndAbortion() throws Exception {
+        AnnotatorRequestLimiter limiter = new AnnotatorRequestLimiter("test", 1, 0, 0);
+        RequestHedger hedger = new RequestHedger("test", 100, limiter);
+        for (int i = 0; i < 20; ++i) {
+            Assert.assertEquals("fast", hedger.execute(new SleepingRequest(10)));
+        }
+
+        // the permit of the request is held by the caller. Thus, there is no
+        // permit for a duplicate.
+        limiter.acquire();
+        Assert.assertEquals("slow", hedger.execute(new SleepingRequest(10, 200)));
+        Assert.assertEquals(0, hedger.getNumberOfHedgedRequests());
+        limiter.release();
+
+        // the HTTP request of the slower request is aborted
+        AbortableRequest request = new AbortableRequest();
+        Assert.assertEquals("fast", hedger.execute(request));
+        Assert.assertEquals(1, hedger.getNumberOfHedgedRequests());
+        Assert.assertTrue(request.firstRequestFinished.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(request.firstRequest.isAborted());
+        Assert.assertEquals(0, limiter.getNumberOfInFlightRequests());
+    }
+
+    @Test
+    public void testFailures() {
+        RequestHedger hedger = new RequestHedger("test", 0, new AnnotatorRequestLimiter("test", 0, 0, 0));
+        try {
+            hedger.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    throw new AnnotationException("failed");
+                }
+            });
+            Assert.fail();
+        } catch (AnnotationException e) {
+            Assert.assertEquals("failed", e.getMessage());
+        }
+    }
+
+    /**
+     * The first call registers an HTTP request and waits until it is aborted.
+     * The second call returns immediately.
+     */
+    private static class AbortableRequest implements Callable<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final HttpPost firstRequest = new HttpPost("http://localhost/");
+        private final CountDownLatch firstRequestFinished = new CountDownLatch(1);
+
+        @Override
+        public String call() throws Exception {
+            if (calls.getAndIncrement() == 0) {
+                AbortableRequestRegistry.register(firstRequest);
+                try {
+                    long deadline = System.currentTimeMillis() + 5000;
+                    while (!firstRequest.isAborted() && (System.currentTimeMillis() < deadline)) {
+                        Thread.sleep(1);
+                    }
+                    return "slow";
+                } finally {
+                    AbortableRequestRegistry.unregister(firstRequest);
+                    firstRequestFinished.countDown();
+                }
+            } else {
+                return "fast";
+            }
+        }
+    }
+
+    private static class SleepingRequest implements Callable<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final long sleepTime;
+        private final long firstSleepTime;
+
+        public SleepingRequest(long sleepTime) {
+            this(sleepTime, sleepTime);
+        }
+
+        public SleepingRequest(long sleepTime, long firstSleepTime) {
+            this.sleepTime = sleepTime;
+            this.firstSleepTime = firstSleepTime;
+        }
+
+        @Override
+        public String call() throws Exception {
+            if (calls.getAndIncrement() == 0) {
+                Thread.sleep(firstSleepTime);
+                return (firstSleepTime > sleepTime) ? "slow" : "fast";
+            } else {
+                Thread.sleep(sleepTime);
+                return "fast";
+            }
+        }
+    }
+}
@@ -22,14 +22,25 @@
  */
 package org.aksw.gerbil.database;
 
+import it.acubelab.batframework.problems.TopicDataset;
+import it.acubelab.batframework.problems.TopicSystem;
+
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
+import org.aksw.gerbil.annotators.AbstractAnnotatorConfiguration;
+import org.aksw.gerbil.annotators.AnnotatorConfiguration;
+import org.aksw.gerbil.datasets.AbstractDatasetConfiguration;
+import org.aksw.gerbil.datasets.DatasetConfiguration;
 import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
 import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
 import org.aksw.gerbil.matching.Matching;
 import org.junit.Assert;
 import org.junit.Test;
@@ -101,6 +112,144 @@ public class ExperimentDAOImplJUnitTest {
         Assert.assertFalse(thirdTaskId == fourthTaskId);
     }
 
+    @Test
+    public void testBulkTaskCreation() {
+        dao.setResultDurability(60000);
+        int cachedTaskId = this.dao.createTask("bulkAnnotator", "bulkDataset1", ExperimentType.C2KB.name(),
+                Matching.STRONG_ENTITY_MATCH.name(), "id-bulk-0");
+        this.dao.setExperimentState(cachedTaskId, ExperimentDAO.TASK_FINISHED);
+
+        AnnotatorConfiguration annotator = new AbstractAnnotatorConfiguration("bulkAnnotator", true,
+                ExperimentType.C2KB) {
+            @Override
+            protected TopicSystem loadAnnotator(ExperimentType type) throws Exception {
+                return null;
+            }
+        };
+        DatasetConfiguration datasets[] = new DatasetConfiguration[2];
+        for (int i = 0; i < datasets.length; ++i) {
+            datasets[i] = new AbstractDatasetConfiguration("bulkDataset" + (i + 1), true, ExperimentType.C2KB) {
+                @Override
+                protected TopicDataset loadDataset() throws Exception {
+                    return null;
+                }
+            };
+        }
+        // the first configuration is cached, the third is a duplicate of the second and the last one shouldn't be
+        // cached
+        ExperimentTaskConfiguration configurations[] = new ExperimentTaskConfiguration[] {
+                new ExperimentTaskConfiguration(annotator, datasets[0], ExperimentType.C2KB,
+                        Matching.STRONG_ENTITY_MATCH),
+                new ExperimentTaskConfiguration(annotator, datasets[1], ExperimentType.C2KB,
+                        Matching.STRONG_ENTITY_MATCH),
+                new ExperimentTaskConfiguration(annotator, datasets[1], ExperimentType.C2KB,
+                        Matching.STRONG_ENTITY_MATCH),
+                new ExperimentTaskConfiguration(annotator, datasets[0], ExperimentType.C2KB,
+                        Matching.STRONG_ENTITY_MATCH) };
+        int taskIds[] = this.dao.connectCachedResultsOrCreateTasks(configurations, new boolean[] { true, true, true,
+                false }, "id-bulk-1");
+        Assert.assertEquals(ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED, taskIds[0]);
+        Assert.assertTrue(taskIds[1] > 0);
+        Assert.assertEquals(ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED, taskIds[2]);
+        Assert.assertTrue(taskIds[3] > 0);
+        Assert.assertFalse(taskIds[1] == taskIds[3]);
+        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, this.dao.getExperimentState(taskIds[1]));
+        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, this.dao.getExperimentState(taskIds[3]));
+
+        Set<Integer> expectedTaskIds = new HashSet<Integer>();
+        expectedTaskIds.add(cachedTaskId);
+        expectedTaskIds.add(taskIds[1]);
+        expectedTaskIds.add(taskIds[3]);
+        Set<Integer> retrievedTaskIds = new HashSet<Integer>();
+        for (ExperimentTaskResult result : this.dao.getResultsOfExperiment("id-bulk-1")) {
+            retrievedTaskIds.add(result.idInDb);
+        }
+        Assert.assertEquals(expectedTaskIds, retrievedTaskIds);
+
+        // tasks created afterwards must not collide with the tasks created in bulk
+        int nextTaskId = this.dao.createTask("bulkAnnotator", "bulkDataset3", ExperimentType.C2KB.name(),
+                Matching.STRONG_ENTITY_MATCH.name(), "id-bulk-2");
+        Assert.assertTrue(nextTaskId > Math.max(taskIds[1], taskIds[3]));
+    }
+
+    @Test
+    public void testRunningTaskSharing() throws InterruptedException {
+        dao.setResultDurability(60000);
+        AnnotatorConfiguration annotator = new AbstractAnnotatorConfiguration("sharingAnnotator", true,
+                ExperimentType.C2KB) {
+            @Override
+            protected TopicSystem loadAnnotator(ExperimentType type) throws Exception {
+                return null;
+            }
+        };
+        DatasetConfiguration dataset = new AbstractDatasetConfiguration("sharingDataset", true, ExperimentType.C2KB) {
+            @Override
+            protected TopicDataset loadDataset() throws Exception {
+                return null;
+            }
+        };
+        ExperimentTaskConfiguration configurations[] = new ExperimentTaskConfiguration[] {
+                new ExperimentTaskConfiguration(annotator, dataset, ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH),
+                new ExperimentTaskConfiguration(annotator, dataset, ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH) };
+        // duplicates inside a single experiment are executed only once
+        int taskIds[] = this.dao.connectCachedResultsOrCreateTasks(configurations, new boolean[] { true, true },
+                "id-sharing-1");
+        Assert.assertTrue(taskIds[0] > 0);
+        Assert.assertEquals(ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED, taskIds[1]);
+        int runningTaskId = taskIds[0];
+
+        // a second experiment is connected to the running task
+        taskIds = this.dao.connectCachedResultsOrCreateTasks(new ExperimentTaskConfiguration[] { configurations[0] },
+                new boolean[] { true }, "id-sharing-2");
+        Assert.assertEquals(ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED, taskIds[0]);
+        List<ExperimentTaskResult> results = this.dao.getResultsOfExperiment("id-sharing-2");
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(runningTaskId, results.get(0).idInDb);
+        // the experiment gets the result of the task
+        this.dao.setExperimentState(runningTaskId, ExperimentDAO.TASK_FINISHED);
+        Assert.assertEquals(ExperimentDAO.TASK_FINISHED, this.dao.getResultsOfExperiment("id-sharing-2").get(0).state);
+
+        // a finished task is preferred over a newer task that is still running
+        Thread.sleep(10);
+        int newerTaskId = this.dao.createTask("sharingAnnotator", "sharingDataset", ExperimentType.C2KB.name(),
+                Matching.STRONG_ENTITY_MATCH.name(), "id-sharing-3");
+        Assert.assertEquals(ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED, this.dao.connectCachedResultOrCreateTask(
+                "sharingAnnotator", "sharingDataset", ExperimentType.C2KB.name(), Matching.STRONG_ENTITY_MATCH.name(),
+                "id-sharing-4"));
+        results = this.dao.getResultsOfExperiment("id-sharing-4");
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(runningTaskId, results.get(0).idInDb);
+        Assert.assertFalse(runningTaskId == newerTaskId);
+    }
+
+    @Test
+    public void testNonCacheableDuplicates() {
+        // two user defined annotators can have the same name but different
+        // URIs. Thus, configurations that can not be cached are never merged.
+        AnnotatorConfiguration annotator = new AbstractAnnotatorConfiguration("NIF WS", false, ExperimentType.C2KB) {
+            @Override
+            protected TopicSystem loadAnnotator(ExperimentType type) throws Exception {
+                return null;
+            }
+        };
+        DatasetConfiguration dataset = new AbstractDatasetConfiguration("nonCacheableDataset", true,
+                ExperimentType.C2KB) {
+            @Override
+            protected TopicDataset loadDataset() throws Exception {
+                return null;
+            }
+        };
+        ExperimentTaskConfiguration configurations[] = new ExperimentTaskConfiguration[] {
+                new ExperimentTaskConfiguration(annotator, dataset, ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH),
+                new ExperimentTaskConfiguration(annotator, dataset, ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH) };
+        int taskIds[] = this.dao.connectCachedResultsOrCreateTasks(configurations, new boolean[] { false, false },
+                "id-non-cacheable");
+        Assert.assertTrue(taskIds[0] > 0);
+        Assert.assertTrue(taskIds[1] > 0);
+        Assert.assertFalse(taskIds[0] == taskIds[1]);
+        Assert.assertEquals(2, this.dao.getResultsOfExperiment("id-non-cacheable").size());
+    }
+
     @Test
     public void testExperimentCreationAndSelection() throws InterruptedException {
         final String EXPERIMENT_ID = "id-999";
@@ -160,21 +309,40 @@ public class ExperimentDAOImplJUnitTest {
     }
 
     @Test
-    public void testSetRunningExperimentsToError() {
-        int firstTaskId = this.dao.createTask("annotator1", "dataset1", "type1", "matching1", "id-23456");
-        int retrievedState = this.dao.getExperimentState(firstTaskId);
-        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, retrievedState);
-        // simulate a restart of the server... this would cause a rerun of the
-        // initialize method of the AbstractExperimentDAO class and a run of the
-        // setRunningExperimentsToError method of the ExperimentDAOImpl class
-        if (this.dao instanceof AbstractExperimentDAO) {
-            ((AbstractExperimentDAO) this.dao).setRunningExperimentsToError();
-            retrievedState = this.dao.getExperimentState(firstTaskId);
-            Assert.assertEquals(ErrorTypes.SERVER_STOPPED_WHILE_PROCESSING.getErrorCode(), retrievedState);
-        } else {
-            System.err.println("WARNING: I didn't expected that the tested dao instance has not the type "
-                    + AbstractExperimentDAO.class.getName());
-        }
+    public void testPartialResults() {
+        final String EXPERIMENT_ID = "id-partial";
+        int taskId = this.dao.createTask("annotator1", "dataset1", ExperimentType.Sa2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name(), EXPERIMENT_ID);
+        ExperimentTaskResult partialResult = new ExperimentTaskResult("annotator1", "dataset1", ExperimentType.Sa2KB,
+                Matching.WEAK_ANNOTATION_MATCH, new double[] { 0.1, 0.2, 0.3, 0.4, 0.5, 0.6 },
+                ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, 2);
+        partialResult.progress = 0.25;
+        partialResult.estimatedEndTime = System.currentTimeMillis() + 60000;
+        // store the partial result twice to make sure that it is updated
+        this.dao.setExperimentTaskPartialResult(taskId, partialResult);
+        partialResult.progress = 0.5;
+        this.dao.setExperimentTaskPartialResult(taskId, partialResult);
+
+        List<ExperimentTaskResult> results = this.dao.getResultsOfExperiment(EXPERIMENT_ID);
+        Assert.assertEquals(1, results.size());
+        ExperimentTaskResult retrievedResult = results.get(0);
+        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, retrievedResult.state);
+        Assert.assertEquals(0.5, retrievedResult.progress, 0.000001);
+        Assert.assertEquals(partialResult.estimatedEndTime, retrievedResult.estimatedEndTime);
+        Assert.assertEquals(0.1, retrievedResult.getMicroF1Measure(), 0.000001);
+        Assert.assertEquals(2, retrievedResult.errorCount);
+
+        // after the task has been finished, the progress is removed and further partial results are ignored
+        ExperimentTaskResult finalResult = new ExperimentTaskResult("annotator1", "dataset1", ExperimentType.Sa2KB,
+                Matching.WEAK_ANNOTATION_MATCH, new double[] { 0.6, 0.5, 0.4, 0.3, 0.2, 0.1 },
+                ExperimentDAO.TASK_FINISHED, 3);
+        this.dao.setExperimentTaskResult(taskId, finalResult);
+        this.dao.setExperimentTaskPartialResult(taskId, partialResult);
+        results = this.dao.getResultsOfExperiment(EXPERIMENT_ID);
+        Assert.assertEquals(1, results.size());
+        retrievedResult = results.get(0);
+        Assert.assertEquals(finalResult, retrievedResult);
+        Assert.assertTrue(retrievedResult.progress < 0);
     }
 
     @Test
@@ -200,4 +368,330 @@ public class ExperimentDAOImplJUnitTest {
         Assert.assertEquals("dataset1", results.get(0).dataset);
         Assert.assertEquals(0, results.get(0).state);
     }
+
+    @Test
+    public void testLatestResultIsReplacedByNewerTask() throws InterruptedException {
+        Assert.assertEquals(0, this.dao.getLastChangeOfLatestResults(ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name()));
+        int firstTaskId = this.dao.createTask("annotator1", "dataset1", ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name(), "id-latest-1");
+        this.dao.setExperimentState(firstTaskId, ExperimentDAO.TASK_FINISHED);
+        int secondTaskId = this.dao.createTask("annotator1", "dataset1", ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name(), "id-latest-2");
+        // a running task does not replace the latest result
+        List<ExperimentTaskResult> results = this.dao.getLatestResultsOfExperiments(ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name());
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(firstTaskId, results.get(0).idInDb);
+        long firstChange = this.dao.getLastChangeOfLatestResults(ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name());
+        Assert.assertTrue(firstChange > 0);
+
+        Thread.sleep(10);
+        this.dao.setExperimentTaskResult(secondTaskId, new ExperimentTaskResult("annotator1", "dataset1",
+                ExperimentType.Sc2KB, Matching.WEAK_ANNOTATION_MATCH, new double[] { 0.1, 0.2, 0.3, 0.4, 0.5, 0.6 },
+                ExperimentDAO.TASK_FINISHED, 0));
+        results = this.dao.getLatestResultsOfExperiments(ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name());
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(secondTaskId, results.get(0).idInDb);
+        Assert.assertEquals(0.1, results.get(0).getMicroF1Measure(), 0.000001);
+        // the change has to be visible for the cache of the overview
+        Assert.assertTrue(this.dao.getLastChangeOfLatestResults(ExperimentType.Sc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name()) > firstChange);
+    }
+
+    @Test
+    public void testExperimentTaskFinishedListener() {
+        final List<String> finishedTasks = new ArrayList<String>();
+        this.dao.addExperimentTaskFinishedListener(new ExperimentTaskFinishedListener() {
+            @Override
+            public void experimentTaskFinished(int experimentTaskId, String experimentType, String matching) {
+                finishedTasks.add(experimentTaskId + " " + experimentType + " " + matching);
+            }
+        });
+        int taskId = this.dao.createTask("annotator1", "dataset1", ExperimentType.Rc2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name(), "id-listener");
+        this.dao.setExperimentState(taskId, ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET);
+        Assert.assertEquals(0, finishedTasks.size());
+        this.dao.setExperimentState(taskId, ErrorTypes.UNEXPECTED_EXCEPTION.getErrorCode());
+        Assert.assertEquals(1, finishedTasks.size());
+        Assert.assertEquals(taskId + " " + ExperimentType.Rc2KB.name() + " " + Matching.WEAK_ANNOTATION_MATCH.name(),
+                finishedTasks.get(0));
+    }
+
+    @Test
+    public void testTaskQueue() {
+        int firstTaskId = this.dao.createTask("annotator1", "dataset1", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-queue");
+        int secondTaskId = this.dao.createTask("annotator1", "dataset2", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-queue");
+        // the definition of the second task contains the URI of the
+        // annotator that is needed to recreate it on another instance
+        this.dao.queueTasks(new int[] { firstTaskId, secondTaskId }, "id-queue", null, ExperimentDAO.PRIORITY_BATCH,
+                new String[] { "annotator1", "NIFWS_annotator1(http://example.org/annotator1)" },
+                new String[] { "dataset1", "dataset2" });
+        // queueing a task twice has no effect
+        this.dao.queueTasks(new int[] { firstTaskId }, "id-queue");
+
+        QueuedExperimentTask task = this.dao.claimQueuedTask("worker1", 60000);
+        Assert.assertNotNull(task);
+        Assert.assertEquals(firstTaskId, task.taskId);
+        Assert.assertEquals("id-queue", task.experimentId);
+        Assert.assertEquals("annotator1", task.annotatorName);
+        Assert.assertEquals("dataset1", task.datasetName);
+        Assert.assertEquals(ExperimentType.D2KB.name(), task.experimentType);
+        Assert.assertEquals(Matching.STRONG_ANNOTATION_MATCH.name(), task.matching);
+        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, task.state);
+        Assert.assertEquals("annotator1", task.annotatorDefinition);
+        Assert.assertEquals("dataset1", task.datasetDefinition);
+        // only the worker that leased the task can change its state
+        Assert.assertFalse(this.dao.setQueuedTaskRunning(firstTaskId, "worker2"));
+        Assert.assertTrue(this.dao.setQueuedTaskRunning(firstTaskId, "worker1"));
+
+        // the lease of the second worker expires immediately
+        task = this.dao.claimQueuedTask("worker2", -1000);
+        Assert.assertNotNull(task);
+        Assert.assertEquals(secondTaskId, task.taskId);
+        Assert.assertEquals("NIFWS_annotator1(http://example.org/annotator1)", task.annotatorDefinition);
+        Assert.assertNull(this.dao.claimQueuedTask("worker1", 60000));
+        this.dao.renewLeases("worker1", 60000);
+        Assert.assertEquals(1, this.dao.requeueExpiredTasks());
+        task = this.dao.claimQueuedTask("worker1", 60000);
+        Assert.assertNotNull(task);
+        Assert.assertEquals(secondTaskId, task.taskId);
+        // the worker whose lease expired can not finish the task of the new
+        // worker
+        Assert.assertFalse(this.dao.setQueuedTaskRunning(secondTaskId, "worker2"));
+        Assert.assertFalse(this.dao.setQueuedTaskFinished(secondTaskId, "worker2"));
+
+        Assert.assertTrue(this.dao.setQueuedTaskFinished(firstTaskId, "worker1"));
+        Assert.assertTrue(this.dao.setQueuedTaskFinished(secondTaskId, "worker1"));
+        Assert.assertFalse(this.dao.setQueuedTaskFinished(secondTaskId, "worker1"));
+        Assert.assertNull(this.dao.claimQueuedTask("worker1", 60000));
+
+        // simulate a restart of the server. Unfinished tasks that are not
+        // part of the queue are queued.
+        int thirdTaskId = this.dao.createTask("annotator1", "dataset3", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-queue");
+        if (this.dao instanceof AbstractExperimentDAO) {
+            ((AbstractExperimentDAO) this.dao).requeueUnfinishedTasks();
+            Set<Integer> claimedTasks = new HashSet<Integer>();
+            task = this.dao.claimQueuedTask("worker1", 60000);
+            while (task != null) {
+                claimedTasks.add(task.taskId);
+                this.dao.setQueuedTaskFinished(task.taskId, "worker1");
+                task = this.dao.claimQueuedTask("worker1", 60000);
+            }
+            Assert.assertTrue(claimedTasks.contains(thirdTaskId));
+            Assert.assertFalse(claimedTasks.contains(firstTaskId));
+            Assert.assertFalse(claimedTasks.contains(secondTaskId));
+            Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, this.dao.getExperimentState(thirdTaskId));
+        }
+    }
+
+    @Test
+    public void testSharedTaskQueue() {
+        int firstTaskId = this.dao.createTask("sharedAnnotator", "dataset1", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-shared");
+        int secondTaskId = this.dao.createTask("sharedAnnotator", "dataset2", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-shared");
+        this.dao.queueTasks(new int[] { firstTaskId, secondTaskId }, "id-shared");
+
+        Set<Integer> queuedTasks = new HashSet<Integer>();
+        for (QueuedExperimentTask task : this.dao.getQueuedTasks(Integer.MAX_VALUE)) {
+            queuedTasks.add(task.taskId);
+        }
+        Assert.assertTrue(queuedTasks.contains(firstTaskId));
+        Assert.assertTrue(queuedTasks.contains(secondTaskId));
+
+        // only one worker can lease a task
+        Assert.assertTrue(this.dao.leaseQueuedTask(firstTaskId, "worker1", 60000));
+        Assert.assertFalse(this.dao.leaseQueuedTask(firstTaskId, "worker2", 60000));
+        Assert.assertEquals(Integer.valueOf(1), this.dao.getNumberOfActiveTasksPerAnnotator().get("sharedAnnotator"));
+        this.dao.setQueuedTaskRunning(firstTaskId, "worker1");
+        Assert.assertTrue(this.dao.leaseQueuedTask(secondTaskId, "worker2", 60000));
+        Assert.assertEquals(Integer.valueOf(2), this.dao.getNumberOfActiveTasksPerAnnotator().get("sharedAnnotator"));
+
+        // a worker can only release its own leased tasks
+        this.dao.releaseQueuedTask(secondTaskId, "worker1");
+        this.dao.releaseQueuedTask(firstTaskId, "worker1");
+        Assert.assertEquals(Integer.valueOf(2), this.dao.getNumberOfActiveTasksPerAnnotator().get("sharedAnnotator"));
+        this.dao.releaseQueuedTask(secondTaskId, "worker2");
+        Assert.assertEquals(Integer.valueOf(1), this.dao.getNumberOfActiveTasksPerAnnotator().get("sharedAnnotator"));
+        Assert.assertTrue(this.dao.leaseQueuedTask(secondTaskId, "worker1", 60000));
+
+        this.dao.setQueuedTaskFinished(firstTaskId, "worker1");
+        this.dao.setQueuedTaskFinished(secondTaskId, "worker1");
+        Assert.assertNull(this.dao.getNumberOfActiveTasksPerAnnotator().get("sharedAnnotator"));
+    }
+
+    @Test
+    public void testQueuedTasksOfEachExperiment() throws InterruptedException {
+        int batchTaskIds[] = new int[3];
+        for (int i = 0; i < batchTaskIds.length; ++i) {
+            batchTaskIds[i] = this.dao.createTask("fairAnnotator", "dataset" + i, ExperimentType.D2KB.name(),
+                    Matching.STRONG_ANNOTATION_MATCH.name(), "id-batch");
+        }
+        this.dao.queueTasks(batchTaskIds, "id-batch", "user1", ExperimentDAO.PRIORITY_BATCH);
+        Thread.sleep(10);
+        int interactiveTaskId = this.dao.createTask("fairAnnotator", "dataset0", ExperimentType.A2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-interactive");
+        this.dao.queueTasks(new int[] { interactiveTaskId }, "id-interactive", "user2",
+                ExperimentDAO.PRIORITY_INTERACTIVE);
+
+        // the interactive task is returned although the batch experiment has
+        // more tasks than the limit
+        List<QueuedExperimentTask> tasks = this.dao.getQueuedTasksOfEachExperiment(2);
+        Assert.assertEquals(3, tasks.size());
+        Assert.assertEquals(batchTaskIds[0], tasks.get(0).taskId);
+        Assert.assertEquals("user1", tasks.get(0).submitter);
+        Assert.assertEquals(ExperimentDAO.PRIORITY_BATCH, tasks.get(0).priority);
+        Assert.assertEquals(batchTaskIds[1], tasks.get(1).taskId);
+        Assert.assertEquals(interactiveTaskId, tasks.get(2).taskId);
+        Assert.assertEquals("user2", tasks.get(2).submitter);
+        Assert.assertEquals(ExperimentDAO.PRIORITY_INTERACTIVE, tasks.get(2).priority);
+
+        Assert.assertTrue(this.dao.leaseQueuedTask(batchTaskIds[0], "worker1", 60000));
+        Assert.assertTrue(this.dao.leaseQueuedTask(batchTaskIds[1], "worker1", 60000));
+        Assert.assertEquals(Integer.valueOf(2), this.dao.getNumberOfActiveTasksPerExperiment().get("id-batch"));
+        Assert.assertNull(this.dao.getNumberOfActiveTasksPerExperiment().get("id-interactive"));
+        Assert.assertEquals(Integer.valueOf(2), this.dao.getNumberOfActiveTasksPerSubmitter().get("user1"));
+        Assert.assertNull(this.dao.getNumberOfActiveTasksPerSubmitter().get("user2"));
+
+        // leased tasks do not count against the limit
+        tasks = this.dao.getQueuedTasksOfEachExperiment(2);
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertEquals(batchTaskIds[2], tasks.get(0).taskId);
+        Assert.assertEquals(interactiveTaskId, tasks.get(1).taskId);
+
+        // the submitter of an experiment is removed as soon as all its tasks
+        // are finished
+        Assert.assertTrue(this.dao.setQueuedTaskFinished(batchTaskIds[0], "worker1"));
+        Assert.assertTrue(this.dao.setQueuedTaskFinished(batchTaskIds[1], "worker1"));
+        Assert.assertEquals("user1", this.dao.getExperimentSubmitter("id-batch"));
+        Assert.assertTrue(this.dao.leaseQueuedTask(batchTaskIds[2], "worker1", 60000));
+        Assert.assertTrue(this.dao.setQueuedTaskFinished(batchTaskIds[2], "worker1"));
+        Assert.assertNull(this.dao.getExperimentSubmitter("id-batch"));
+        Assert.assertEquals("user2", this.dao.getExperimentSubmitter("id-interactive"));
+    }
+
+    @Test
+    public void testTaskRuntimeStatistics() {
+        int firstTaskId = this.dao.createTask("runtimeAnnotator", "dataset1", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-runtime");
+        int secondTaskId = this.dao.createTask("runtimeAnnotator", "dataset1", ExperimentType.A2KB.name(),
+                Matching.WEAK_ANNOTATION_MATCH.name(), "id-runtime");
+        int unfinishedTaskId = this.dao.createTask("runtimeAnnotator", "dataset2", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-runtime");
+        this.dao.setExperimentState(firstTaskId, ExperimentDAO.TASK_FINISHED);
+        this.dao.setExperimentState(secondTaskId, ExperimentDAO.TASK_FINISHED);
+        this.dao.setExperimentTaskRuntime(firstTaskId, 1000, 10);
+        // a stored runtime is replaced
+        this.dao.setExperimentTaskRuntime(secondTaskId, 5000, 10);
+        this.dao.setExperimentTaskRuntime(secondTaskId, 3000, 10);
+        // runtimes of unfinished tasks are ignored
+        this.dao.setExperimentTaskRuntime(unfinishedTaskId, 100000, 20);
+
+        List<TaskRuntimeStatistics> statistics = this.dao.getTaskRuntimeStatistics();
+        Assert.assertEquals(1, statistics.size());
+        TaskRuntimeStatistics statistic = statistics.get(0);
+        Assert.assertEquals("runtimeAnnotator", statistic.annotatorName);
+        Assert.assertEquals("dataset1", statistic.datasetName);
+        Assert.assertEquals(2000, statistic.averageRuntime, 0.0001);
+        Assert.assertEquals(10, statistic.numberOfDocuments);
+        Assert.assertEquals(2, statistic.numberOfTasks);
+    }
+
+    @Test
+    public void testCancellation() {
+        this.dao.setResultDurability(60000);
+        int queuedTaskId = this.dao.createTask("cancelAnnotator", "dataset1", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-cancel-1");
+        int runningTaskId = this.dao.createTask("cancelAnnotator", "dataset2", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-cancel-1");
+        int sharedTaskId = this.dao.createTask("cancelAnnotator", "dataset3", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-cancel-1");
+        int finishedTaskId = this.dao.createTask("cancelAnnotator", "dataset4", ExperimentType.D2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-cancel-1");
+        this.dao.setExperimentState(finishedTaskId, ExperimentDAO.TASK_FINISHED);
+        // a second experiment uses the running third task
+        Assert.assertEquals(ExperimentDAO.CACHED_EXPERIMENT_TASK_CAN_BE_USED, this.dao.connectCachedResultOrCreateTask(
+                "cancelAnnotator", "dataset3", ExperimentType.D2KB.name(), Matching.STRONG_ANNOTATION_MATCH.name(),
+                "id-cancel-2"));
+        this.dao.queueTasks(new int[] { queuedTaskId, runningTaskId, sharedTaskId }, "id-cancel-1");
+        Assert.assertTrue(this.dao.leaseQueuedTask(runningTaskId, "worker1", 60000));
+        this.dao.setQueuedTaskRunning(runningTaskId, "worker1");
+        Assert.assertTrue(this.dao.getCancelledTasks("worker1").isEmpty());
+
+        // a single task can only be cancelled by an experiment it belongs to
+        // and only if it is not needed by another experiment
+        Assert.assertFalse(this.dao.cancelTaskOfExperiment("id-cancel-2", queuedTaskId));
+        Assert.assertFalse(this.dao.cancelTaskOfExperiment("id-cancel-1", sharedTaskId));
+        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, this.dao.getExperimentState(sharedTaskId));
+
+        Assert.assertFalse(this.dao.isExperimentCancelled("id-cancel-1"));
+        List<Integer> cancelledTaskIds = this.dao.cancelExperiment("id-cancel-1");
+        Assert.assertTrue(this.dao.isExperimentCancelled("id-cancel-1"));
+        Assert.assertEquals(2, cancelledTaskIds.size());
+        Assert.assertTrue(cancelledTaskIds.contains(queuedTaskId));
+        Assert.assertTrue(cancelledTaskIds.contains(runningTaskId));
+        Assert.assertEquals(ErrorTypes.TASK_CANCELLED.getErrorCode(), this.dao.getExperimentState(queuedTaskId));
+        Assert.assertEquals(ErrorTypes.TASK_CANCELLED.getErrorCode(), this.dao.getExperimentState(runningTaskId));
+        // the task of the other experiment is still needed
+        Assert.assertEquals(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, this.dao.getExperimentState(sharedTaskId));
+        Assert.assertEquals(ExperimentDAO.TASK_FINISHED, this.dao.getExperimentState(finishedTaskId));
+
+        // the queued task has been removed from the queue while the worker
+        // has to stop the running task
+        Set<Integer> queuedTasks = new HashSet<Integer>();
+        for (QueuedExperimentTask task : this.dao.getQueuedTasks(Integer.MAX_VALUE)) {
+            queuedTasks.add(task.taskId);
+        }
+        Assert.assertFalse(queuedTasks.contains(queuedTaskId));
+        Assert.assertTrue(queuedTasks.contains(sharedTaskId));
+        List<Integer> workerTaskIds = this.dao.getCancelledTasks("worker1");
+        Assert.assertEquals(1, workerTaskIds.size());
+        Assert.assertEquals(Integer.valueOf(runningTaskId), workerTaskIds.get(0));
+        Assert.assertTrue(this.dao.getCancelledTasks("worker2").isEmpty());
+
+        // the shared task is cancelled together with the second experiment
+        cancelledTaskIds = this.dao.cancelExperiment("id-cancel-2");
+        Assert.assertEquals(1, cancelledTaskIds.size());
+        Assert.assertEquals(Integer.valueOf(sharedTaskId), cancelledTaskIds.get(0));
+        // finished or cancelled tasks can not be cancelled
+        Assert.assertFalse(this.dao.cancelTask(finishedTaskId));
+        Assert.assertFalse(this.dao.cancelTask(queuedTaskId));
+    }
+
+    @Test
+    public void testCancelledTaskIsNotLatestAfterRestart() throws InterruptedException {
+        int finishedTaskId = this.dao.createTask("latestCancelAnnotator", "dataset1", ExperimentType.C2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-cancel-latest");
+        this.dao.setExperimentState(finishedTaskId, ExperimentDAO.TASK_FINISHED);
+        Thread.sleep(10);
+        int cancelledTaskId = this.dao.createTask("latestCancelAnnotator", "dataset1", ExperimentType.C2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name(), "id-cancel-latest");
+        Assert.assertTrue(this.dao.cancelTask(cancelledTaskId));
+
+        // simulate a restart of the server which rebuilds the latest tasks
+        this.dao.initialize();
+        List<Integer> latestTaskIds = new ArrayList<Integer>();
+        for (ExperimentTaskResult result : this.dao.getLatestResultsOfExperiments(ExperimentType.C2KB.name(),
+                Matching.STRONG_ANNOTATION_MATCH.name())) {
+            if ("latestCancelAnnotator".equals(result.annotator)) {
+                latestTaskIds.add(result.idInDb);
+            }
+        }
+        Assert.assertEquals(1, latestTaskIds.size());
+        Assert.assertEquals(Integer.valueOf(finishedTaskId), latestTaskIds.get(0));
+
+        // remove the unfinished tasks of the other tests that have been queued
+        // during the restart
+        QueuedExperimentTask task = this.dao.claimQueuedTask("worker1", 60000);
+        while (task != null) {
+            this.dao.setQueuedTaskFinished(task.taskId, "worker1");
+            task = this.dao.claimQueuedTask("worker1", 60000);
+        }
+    }
 }
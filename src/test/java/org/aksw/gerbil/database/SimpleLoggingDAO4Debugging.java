@@ -24,9 +24,14 @@ package org.aksw.gerbil.database;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +62,11 @@ public class SimpleLoggingDAO4Debugging extends AbstractExperimentDAO {
         LOGGER.info("Setting result of task " + experimentTaskId + " to " + result.toString());
     }
 
+    @Override
+    public void setExperimentTaskPartialResult(int experimentTaskId, ExperimentTaskResult partialResult) {
+        LOGGER.info("Setting partial result of task " + experimentTaskId + " to " + partialResult.toString());
+    }
+
     @Override
     protected int getCachedExperimentTaskId(String annotatorName, String datasetName, String experimentType,
             String matching) {
@@ -84,8 +94,131 @@ public class SimpleLoggingDAO4Debugging extends AbstractExperimentDAO {
     }
 
     @Override
-    public void setRunningExperimentsToError() {
-        LOGGER.info("Setting the state of all running tasks to an error code.");
+    protected void requeueUnfinishedTasks() {
+        LOGGER.info("Queueing all unfinished tasks again.");
+    }
+
+    @Override
+    public void queueTasks(int[] experimentTaskIds, String experimentId, String submitter, int priority,
+            String[] annotatorDefinitions, String[] datasetDefinitions) {
+        LOGGER.info("Queueing tasks " + Arrays.toString(experimentTaskIds) + " of experiment " + experimentId
+                + " submitted by " + submitter + " with priority " + priority);
+    }
+
+    @Override
+    public QueuedExperimentTask claimQueuedTask(String workerId, long leaseDuration) {
+        return null;
+    }
+
+    @Override
+    public List<QueuedExperimentTask> getQueuedTasks(int maxNumberOfTasks) {
+        return new ArrayList<QueuedExperimentTask>(0);
+    }
+
+    @Override
+    public List<QueuedExperimentTask> getQueuedTasksOfEachExperiment(int maxTasksPerExperiment) {
+        return new ArrayList<QueuedExperimentTask>(0);
+    }
+
+    @Override
+    public long getLastChangeOfLatestResults(String experimentType, String matching) {
+        return 0;
+    }
+
+    @Override
+    public int getNumberOfQueuedTasks() {
+        return 0;
+    }
+
+    @Override
+    public Map<String, Integer> getNumberOfActiveTasksPerAnnotator() {
+        return new HashMap<String, Integer>();
+    }
+
+    @Override
+    public Map<String, Integer> getNumberOfActiveTasksPerExperiment() {
+        return new HashMap<String, Integer>();
+    }
+
+    @Override
+    public Map<String, Integer> getNumberOfActiveTasksPerSubmitter() {
+        return new HashMap<String, Integer>();
+    }
+
+    @Override
+    public boolean leaseQueuedTask(int experimentTaskId, String workerId, long leaseDuration) {
+        return false;
+    }
+
+    @Override
+    public void releaseQueuedTask(int experimentTaskId, String workerId) {
+        LOGGER.info("Queued task " + experimentTaskId + " has been released by worker " + workerId);
+    }
+
+    @Override
+    public boolean setQueuedTaskRunning(int experimentTaskId, String workerId) {
+        LOGGER.info("Queued task " + experimentTaskId + " is running.");
+        return true;
+    }
+
+    @Override
+    public boolean setQueuedTaskFinished(int experimentTaskId, String workerId) {
+        LOGGER.info("Queued task " + experimentTaskId + " is finished.");
+        return true;
+    }
+
+    @Override
+    public void renewLeases(String workerId, long leaseDuration) {
+        LOGGER.info("Renewing the leases of worker " + workerId);
+    }
+
+    @Override
+    public int requeueExpiredTasks() {
+        return 0;
+    }
+
+    @Override
+    public void setExperimentTaskRuntime(int experimentTaskId, long runtime, int numberOfDocuments) {
+        LOGGER.info("Setting runtime of task " + experimentTaskId + " to " + runtime + "ms for " + numberOfDocuments
+                + " documents.");
+    }
+
+    @Override
+    public List<TaskRuntimeStatistics> getTaskRuntimeStatistics() {
+        return new ArrayList<TaskRuntimeStatistics>(0);
+    }
+
+    @Override
+    public boolean cancelTask(int experimentTaskId) {
+        LOGGER.info("Cancelling task " + experimentTaskId + ".");
+        return true;
+    }
+
+    @Override
+    public boolean cancelTaskOfExperiment(String experimentId, int experimentTaskId) {
+        LOGGER.info("Cancelling task " + experimentTaskId + " of experiment " + experimentId + ".");
+        return true;
+    }
+
+    @Override
+    public List<Integer> cancelExperiment(String experimentId) {
+        LOGGER.info("Cancelling experiment " + experimentId + ".");
+        return new ArrayList<Integer>(0);
+    }
+
+    @Override
+    public String getExperimentSubmitter(String experimentId) {
+        return null;
+    }
+
+    @Override
+    public boolean isExperimentCancelled(String experimentId) {
+        return false;
+    }
+
+    @Override
+    public List<Integer> getCancelledTasks(String workerId) {
+        return new ArrayList<Integer>(0);
     }
 
     @Override
@@ -0,0 +1,167 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.datatypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.aksw.gerbil.bat.annotator.ErrorCounter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExperimentTaskStateTest {
+
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int STEPS_PER_THREAD = 10000;
+
+    @Test
+    public void testConcurrentSteps() throws Exception {
+        final ExperimentTaskState state = new ExperimentTaskState(NUMBER_OF_THREADS * STEPS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < NUMBER_OF_THREADS; ++i) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int j = 0; j < STEPS_PER_THREAD; ++j) {
+                            state.requestStarted();
+                            state.requestFinished();
+                            state.increaseExperimentStepCount();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        ExperimentTaskProgress progress = state.getProgress();
+        Assert.assertEquals(NUMBER_OF_THREADS * STEPS_PER_THREAD, progress.getProcessedDocuments());
+        Assert.assertEquals(0, progress.getInFlightDocuments());
+        Assert.assertEquals(1.0, progress.getProgress(), 0.000001);
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        ExperimentTaskState state = new ExperimentTaskState(10);
+        ExperimentTaskProgress progress = state.getProgress();
+        Assert.assertEquals(0, progress.getProcessedDocuments());
+        Assert.assertEquals(-1, progress.getEstimatedEndTime());
+
+        SimpleErrorCounter errorCounter = new SimpleErrorCounter();
+        state.setErrorCounter(errorCounter);
+        state.requestStarted();
+        for (int i = 0; i < 4; ++i) {
+            Thread.sleep(10);
+            state.increaseExperimentStepCount();
+        }
+        errorCounter.setErrorCount(1);
+
+        progress = state.getProgress();
+        Assert.assertEquals(10, progress.getDocuments());
+        Assert.assertEquals(4, progress.getProcessedDocuments());
+        Assert.assertEquals(3, progress.getCompletedDocuments());
+        Assert.assertEquals(1, progress.getFailedDocuments());
+        Assert.assertEquals(1, progress.getInFlightDocuments());
+        Assert.assertEquals(0.4, progress.getProgress(), 0.000001);
+        Assert.assertTrue(progress.getDocumentsPerSecond() > 0);
+        Assert.assertTrue(progress.getEstimatedEndTime() > progress.getTimestamp());
+
+        // the rate has to decrease while no document is processed
+        Thread.sleep(100);
+        Assert.assertTrue(state.getDocumentsPerSecond() < progress.getDocumentsPerSecond());
+    }
+
+    @Test
+    public void testOverlappingRequests() throws Exception {
+        final ExperimentTaskState state = new ExperimentTaskState(10);
+        Assert.assertEquals(-1, state.getRequestStartTime());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the first request is sent by another thread
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    state.requestStarted();
+                }
+            }).get();
+            long firstStartTime = state.getRequestStartTime();
+            Assert.assertTrue(firstStartTime > 0);
+            Thread.sleep(10);
+            // a second request that finishes does not reset the start time of
+            // the first request
+            state.requestStarted();
+            Assert.assertEquals(firstStartTime, state.getRequestStartTime());
+            state.requestFinished();
+            Assert.assertEquals(firstStartTime, state.getRequestStartTime());
+            Assert.assertEquals(1, state.getNumberOfInFlightRequests());
+
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    state.requestFinished();
+                }
+            }).get();
+            Assert.assertEquals(-1, state.getRequestStartTime());
+            Assert.assertEquals(0, state.getNumberOfInFlightRequests());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRateWindow() throws Exception {
+        ExperimentTaskState state = new ExperimentTaskState(10 * ExperimentTaskState.RATE_WINDOW_SIZE);
+        // a slow start
+        Thread.sleep(200);
+        for (int i = 0; i < (2 * ExperimentTaskState.RATE_WINDOW_SIZE); ++i) {
+            Thread.sleep(1);
+            state.increaseExperimentStepCount();
+        }
+        // the current rate doesn't contain the slow start
+        Assert.assertTrue(state.getDocumentsPerSecond() > state.getAverageDocumentsPerSecond());
+    }
+
+    private static class SimpleErrorCounter implements ErrorCounter {
+
+        private volatile int errorCount = 0;
+
+        @Override
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        @Override
+        public void setErrorCount(int errorCount) {
+            this.errorCount = errorCount;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.Arrays;
+
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.datatypes.ExperimentTaskResult;
+import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.execute.ExperimentProgressMonitor.ExperimentProgressSnapshot;
+import org.aksw.gerbil.matching.Matching;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExperimentProgressMonitorTest {
+
+    @Test
+    public void test() {
+        ExperimentProgressMonitor monitor = new ExperimentProgressMonitor();
+        Assert.assertNull(monitor.getSnapshot("unknown"));
+
+        monitor.experimentSubmitted("e1");
+        ExperimentProgressSnapshot snapshot = monitor.getSnapshot("e1");
+        Assert.assertFalse(snapshot.started);
+        // nothing changed
+        Assert.assertEquals(snapshot.version, monitor.getSnapshot("e1").version);
+
+        ExperimentTaskResult task = createResult(ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET);
+        task.idInDb = 1;
+        monitor.tasksCreated("e1", Arrays.asList(task));
+        long knownVersion = snapshot.version;
+        snapshot = monitor.getSnapshot("e1");
+        Assert.assertTrue(snapshot.version > knownVersion);
+        Assert.assertTrue(snapshot.started);
+        Assert.assertEquals(1, snapshot.tasks.size());
+
+        knownVersion = snapshot.version;
+        monitor.taskUpdated(1, createResult(ExperimentDAO.TASK_FINISHED));
+        snapshot = monitor.getSnapshot("e1");
+        Assert.assertTrue(snapshot.version > knownVersion);
+        Assert.assertEquals(ExperimentDAO.TASK_FINISHED, snapshot.tasks.get(0).state);
+        Assert.assertEquals(1, snapshot.tasks.get(0).idInDb);
+
+        monitor.removeExperiment("e1");
+        Assert.assertNull(monitor.getSnapshot("e1"));
+    }
+
+    private static ExperimentTaskResult createResult(int state) {
+        return new ExperimentTaskResult("annotator1", "dataset1", ExperimentType.A2KB,
+                Matching.WEAK_ANNOTATION_MATCH, new double[6], state, 0);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.gerbil.database.ExperimentDAO;
+import org.aksw.gerbil.database.SimpleLoggingDAO4Debugging;
+import org.aksw.gerbil.datatypes.QueuedExperimentTask;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
+import org.aksw.gerbil.utils.DatasetMetaData;
+import org.aksw.gerbil.utils.DatasetMetaDataMapping;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FairTaskSchedulerTest {
+
+    @Test
+    public void test() {
+        SimpleLoggingDAO4Debugging dao = new SimpleLoggingDAO4Debugging() {
+            @Override
+            public List<TaskRuntimeStatistics> getTaskRuntimeStatistics() {
+                return Arrays.asList(new TaskRuntimeStatistics("A", "short", 1000, 10, 1), new TaskRuntimeStatistics(
+                        "A", "long", 5000, 10, 1));
+            }
+        };
+        FairTaskScheduler scheduler = new FairTaskScheduler(new TaskRuntimeEstimator(dao, new DatasetMetaDataMapping(
+                new HashMap<String, DatasetMetaData>())), 2, 3);
+        Assert.assertEquals(ExperimentDAO.PRIORITY_INTERACTIVE, scheduler.getPriority(2));
+        Assert.assertEquals(ExperimentDAO.PRIORITY_BATCH, scheduler.getPriority(3));
+
+        List<QueuedExperimentTask> candidates = new ArrayList<QueuedExperimentTask>();
+        // a large batch experiment that is already running
+        candidates.add(createTask(1, "batch1", "short", "user1", ExperimentDAO.PRIORITY_BATCH));
+        candidates.add(createTask(2, "batch1", "long", "user1", ExperimentDAO.PRIORITY_BATCH));
+        // a second batch experiment that has been queued later
+        candidates.add(createTask(3, "batch2", "short", "user2", ExperimentDAO.PRIORITY_BATCH));
+        // a small interactive experiment
+        candidates.add(createTask(4, "interactive", "short", "user3", ExperimentDAO.PRIORITY_INTERACTIVE));
+        Map<String, Integer> activeTasksPerExperiment = new HashMap<String, Integer>();
+        activeTasksPerExperiment.put("batch1", 2);
+        Map<String, Integer> activeTasksPerSubmitter = new HashMap<String, Integer>();
+        activeTasksPerSubmitter.put("user1", 2);
+
+        // interactive first, then the experiment with less active tasks, then
+        // longest-first
+        assertOrder(new int[] { 4, 3, 2, 1 },
+                scheduler.orderCandidates(candidates, activeTasksPerExperiment, activeTasksPerSubmitter, false));
+        assertOrder(new int[] { 4 },
+                scheduler.orderCandidates(candidates, activeTasksPerExperiment, activeTasksPerSubmitter, true));
+        // without active tasks, the experiments keep their order
+        assertOrder(new int[] { 4, 2, 1, 3 }, scheduler.orderCandidates(candidates,
+                new HashMap<String, Integer>(), activeTasksPerSubmitter, false));
+        // user1 reached its quota
+        activeTasksPerSubmitter.put("user1", 3);
+        assertOrder(new int[] { 4, 3 },
+                scheduler.orderCandidates(candidates, activeTasksPerExperiment, activeTasksPerSubmitter, false));
+    }
+
+    private static QueuedExperimentTask createTask(int taskId, String experimentId, String datasetName,
+            String submitter, int priority) {
+        return new QueuedExperimentTask(taskId, experimentId, "A", datasetName, "A2KB", "WEAK_ANNOTATION_MATCH",
+                ExperimentDAO.TASK_STARTED_BUT_NOT_FINISHED_YET, submitter, priority);
+    }
+
+    private static void assertOrder(int expectedTaskIds[], List<QueuedExperimentTask> tasks) {
+        int taskIds[] = new int[tasks.size()];
+        for (int i = 0; i < taskIds.length; ++i) {
+            taskIds[i] = tasks.get(i).taskId;
+        }
+        Assert.assertArrayEquals(expectedTaskIds, taskIds);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.gerbil.database.SimpleLoggingDAO4Debugging;
+import org.aksw.gerbil.datatypes.TaskRuntimeStatistics;
+import org.aksw.gerbil.utils.DatasetMetaData;
+import org.aksw.gerbil.utils.DatasetMetaDataMapping;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TaskRuntimeEstimatorTest {
+
+    @Test
+    public void test() {
+        SimpleLoggingDAO4Debugging dao = new SimpleLoggingDAO4Debugging() {
+            @Override
+            public List<TaskRuntimeStatistics> getTaskRuntimeStatistics() {
+                return Arrays.asList(new TaskRuntimeStatistics("A", "D1", 1000, 10, 1), new TaskRuntimeStatistics(
+                        "A", "D2", 5000, 10, 1), new TaskRuntimeStatistics("B", "D1", 4000, 10, 2));
+            }
+        };
+        DatasetMetaData metaData = new DatasetMetaData();
+        metaData.numberOfDocuments = 50;
+        Map<String, DatasetMetaData> mapping = new HashMap<String, DatasetMetaData>();
+        mapping.put("D3", metaData);
+        TaskRuntimeEstimator estimator = new TaskRuntimeEstimator(dao, new DatasetMetaDataMapping(mapping));
+
+        // runtimes of former tasks
+        Assert.assertEquals(1000, estimator.estimateRuntime("A", "D1"));
+        Assert.assertEquals(4000, estimator.estimateRuntime("B", "D1"));
+        // number of documents * mean runtime per document of the annotator
+        Assert.assertEquals(4000, estimator.estimateRuntime("B", "D2"));
+        Assert.assertEquals(15000, estimator.estimateRuntime("A", "D3"));
+        // unknown annotator: mean runtime per document of all annotators
+        Assert.assertEquals(3500, estimator.estimateRuntime("C", "D2"));
+        // unknown dataset
+        Assert.assertEquals(TaskRuntimeEstimator.DEFAULT_NUMBER_OF_DOCUMENTS * 350,
+                estimator.estimateRuntime("C", "D4"));
+    }
+}
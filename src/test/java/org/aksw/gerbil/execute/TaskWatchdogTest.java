@@ -0,0 +1,213 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.execute;
+
+import it.acubelab.batframework.data.Tag;
+import it.acubelab.batframework.problems.C2WSystem;
+import it.acubelab.batframework.problems.TopicSystem;
+import it.acubelab.batframework.utils.AnnotationException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.aksw.gerbil.annotators.AbstractAnnotatorConfiguration;
+import org.aksw.gerbil.bat.annotator.ErrorCountingAnnotatorDecoratorTest.SimpleTestDatasetConfig;
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.database.SimpleLoggingResultStoringDAO4Debugging;
+import org.aksw.gerbil.datatypes.ErrorTypes;
+import org.aksw.gerbil.datatypes.ExperimentTaskConfiguration;
+import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.matching.Matching;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TaskWatchdogTest {
+
+    private static final String ANNOTATOR_NAME = "Blocking topic system";
+    /**
+     * A second annotator name is needed since the results of the first one
+     * are cached by its deduplicator.
+     */
+    private static final String SECOND_ANNOTATOR_NAME = "Second blocking topic system";
+
+    @Test
+    public void testStuckTask() throws Exception {
+        GerbilConfiguration.getInstance().setProperty(
+                TaskWatchdog.DOCUMENT_TIMEOUT_PROPERTY_NAME + '.' + ANNOTATOR_NAME, 50);
+        SimpleLoggingResultStoringDAO4Debugging db = new SimpleLoggingResultStoringDAO4Debugging();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            final ExperimentTask task = new ExperimentTask(1, db, new ExperimentTaskConfiguration(
+                    new BlockingAnnotatorConfig(ANNOTATOR_NAME, release), new SimpleTestDatasetConfig(3),
+                    ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH), null);
+            RecordingWorkerPool pool = new RecordingWorkerPool(db, task);
+            TaskWatchdog watchdog = new TaskWatchdog(pool, 100);
+            Thread thread = new Thread(task);
+            thread.start();
+            while (task.getTaskState() == null || task.getTaskState().getRequestStartTime() < 0) {
+                Thread.sleep(10);
+            }
+            // the request is still within its deadline
+            watchdog.run();
+            Assert.assertEquals(0, task.getNumberOfTimedOutRequests());
+
+            Thread.sleep(100);
+            watchdog.run();
+            Assert.assertEquals(1, task.getNumberOfTimedOutRequests());
+            Assert.assertNotNull(task.getStuckStackTrace());
+            Assert.assertTrue(task.getStuckSince() > 0);
+            // the request couldn't be aborted. The task is abandoned after the
+            // abandon timeout.
+            watchdog.run();
+            Assert.assertTrue(pool.abandonedTasks.isEmpty());
+            Thread.sleep(150);
+            watchdog.run();
+            Assert.assertEquals(1, pool.abandonedTasks.size());
+            Assert.assertTrue(task.isAbandoned());
+            Assert.assertEquals(ErrorTypes.TASK_TIMED_OUT, task.getCancelReason());
+
+            // if the annotator returns, the task stops without storing a
+            // result
+            release.countDown();
+            thread.join(10000);
+            Assert.assertEquals(ErrorTypes.TASK_TIMED_OUT.getErrorCode(), task.getFinalState());
+            Assert.assertEquals(ErrorTypes.TASK_TIMED_OUT.getErrorCode(), db.getExperimentState(1));
+        } finally {
+            release.countDown();
+            GerbilConfiguration.getInstance().clearProperty(
+                    TaskWatchdog.DOCUMENT_TIMEOUT_PROPERTY_NAME + '.' + ANNOTATOR_NAME);
+        }
+    }
+
+    @Test
+    public void testTaskDeadline() throws Exception {
+        GerbilConfiguration.getInstance().setProperty(
+                TaskWatchdog.TASK_TIMEOUT_PROPERTY_NAME + '.' + SECOND_ANNOTATOR_NAME, 50);
+        SimpleLoggingResultStoringDAO4Debugging db = new SimpleLoggingResultStoringDAO4Debugging();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            final ExperimentTask task = new ExperimentTask(2, db, new ExperimentTaskConfiguration(
+                    new BlockingAnnotatorConfig(SECOND_ANNOTATOR_NAME, release), new SimpleTestDatasetConfig(3),
+                    ExperimentType.C2KB, Matching.STRONG_ENTITY_MATCH), null);
+            RecordingWorkerPool pool = new RecordingWorkerPool(db, task);
+            TaskWatchdog watchdog = new TaskWatchdog(pool, 10000);
+            Thread thread = new Thread(task);
+            thread.start();
+            while (task.getTaskState() == null) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            watchdog.run();
+            Assert.assertEquals(ErrorTypes.TASK_TIMED_OUT, task.getCancelReason());
+            // the task stops before its next document
+            release.countDown();
+            thread.join(10000);
+            Assert.assertTrue(pool.abandonedTasks.isEmpty());
+            Assert.assertEquals(ErrorTypes.TASK_TIMED_OUT.getErrorCode(), db.getExperimentState(2));
+        } finally {
+            release.countDown();
+            GerbilConfiguration.getInstance().clearProperty(
+                    TaskWatchdog.TASK_TIMEOUT_PROPERTY_NAME + '.' + SECOND_ANNOTATOR_NAME);
+        }
+    }
+
+    /**
+     * A pool that only offers a single task to the watchdog and records the
+     * tasks that should be abandoned.
+     */
+    private static class RecordingWorkerPool extends ExperimentTaskWorkerPool {
+
+        private ExperimentTask task;
+        private List<ExperimentTask> abandonedTasks = new ArrayList<ExperimentTask>();
+
+        public RecordingWorkerPool(SimpleLoggingResultStoringDAO4Debugging db, ExperimentTask task) {
+            super(db, null, null, null, 0);
+            this.task = task;
+        }
+
+        @Override
+        public List<ExperimentTask> getRunningTasks() {
+            List<ExperimentTask> tasks = new ArrayList<ExperimentTask>();
+            tasks.add(task);
+            return tasks;
+        }
+
+        @Override
+        public void abandonTask(ExperimentTask task) {
+            abandonedTasks.add(task);
+            task.abandon();
+        }
+    }
+
+    public static class BlockingAnnotatorConfig extends AbstractAnnotatorConfiguration {
+
+        private CountDownLatch release;
+
+        public BlockingAnnotatorConfig(String name, CountDownLatch release) {
+            super(name, false, ExperimentType.C2KB);
+            this.release = release;
+        }
+
+        @Override
+        protected TopicSystem loadAnnotator(ExperimentType type) throws Exception {
+            return new BlockingTopicSystem(getName(), release);
+        }
+    }
+
+    /**
+     * Blocks every request until the given latch is released. The waiting
+     * can't be aborted like a stuck connection.
+     */
+    public static class BlockingTopicSystem implements C2WSystem {
+
+        private String name;
+        private CountDownLatch release;
+
+        public BlockingTopicSystem(String name, CountDownLatch release) {
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getLastAnnotationTime() {
+            return -1;
+        }
+
+        @Override
+        public HashSet<Tag> solveC2W(String text) throws AnnotationException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AnnotationException("Interrupted.");
+            }
+            return new HashSet<Tag>();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.metrics;
+
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrometheusTextFormatTest {
+
+    @Test
+    public void testCounterAndGauge() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(false);
+        Counter counter = registry.counter("test_requests_total", "Number of requests.", "annotator");
+        counter.inc("A");
+        counter.inc(2, "A");
+        counter.inc("B\"");
+        Assert.assertSame(counter, registry.counter("test_requests_total", "Number of requests.", "annotator"));
+        Gauge gauge = registry.gauge("test_queue", "Size of the queue.");
+        gauge.register(new Gauge.Value() {
+            @Override
+            public double getValue() {
+                return 0.5;
+            }
+        });
+
+        StringWriter writer = new StringWriter();
+        PrometheusTextFormat.write(registry.getMetrics(), writer);
+        Assert.assertEquals("# HELP test_queue Size of the queue.\n# TYPE test_queue gauge\ntest_queue 0.5\n"
+                + "# HELP test_requests_total Number of requests.\n# TYPE test_requests_total counter\n"
+                + "test_requests_total{annotator=\"A\"} 3\ntest_requests_total{annotator=\"B\\\"\"} 1\n",
+                writer.toString());
+    }
+
+    @Test
+    public void testHistogram() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(false);
+        Histogram histogram = registry.histogram("test_duration_seconds", "Duration.", new double[] { 1, 10 });
+        histogram.observe(0.5);
+        histogram.observe(1);
+        histogram.observe(20);
+        Assert.assertEquals(3, histogram.getCount());
+        Assert.assertEquals(21.5, histogram.getSum(), 0.0000001);
+
+        StringWriter writer = new StringWriter();
+        PrometheusTextFormat.write(registry.getMetrics(), writer);
+        Assert.assertEquals("# HELP test_duration_seconds Duration.\n# TYPE test_duration_seconds histogram\n"
+                + "test_duration_seconds_bucket{le=\"1\"} 2\ntest_duration_seconds_bucket{le=\"10\"} 2\n"
+                + "test_duration_seconds_bucket{le=\"+Inf\"} 3\ntest_duration_seconds_count 3\n"
+                + "test_duration_seconds_sum 21.5\n", writer.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        MetricsRegistry registry = new MetricsRegistry(false);
+        registry.counter("test_metric", "A counter.");
+        registry.gauge("test_metric", "A gauge.");
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Agile Knowledge Engineering and Semantic Web (AKSW) (usbeck@informatik.uni-leipzig.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.aksw.gerbil.utils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConsoleLoggerTest {
+
+    @Test
+    public void testRecordsOfSeveralThreads() throws Exception {
+        RecordingAppender appender = new RecordingAppender();
+        Logger logger = Logger.getLogger(ConsoleLogger.class);
+        logger.addAppender(appender);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final PrintStream stream = new PrintStream(new ConsoleLogger(false), false);
+            stream.print("first ");
+            // the other thread must not flush the text of this thread
+            executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    stream.print("second");
+                    stream.flush();
+                    return null;
+                }
+            }).get();
+            stream.print("record");
+            stream.flush();
+            // empty records are not logged
+            stream.flush();
+            Assert.assertEquals(2, appender.records.size());
+            Assert.assertEquals("second", appender.records.get(0));
+            Assert.assertEquals("first record", appender.records.get(1));
+        } finally {
+            executor.shutdown();
+            logger.removeAppender(appender);
+        }
+    }
+
+    private static class RecordingAppender extends AppenderSkeleton {
+
+        private final List<String> records = new ArrayList<String>();
+
+        @Override
+        protected synchronized void append(LoggingEvent event) {
+            records.add(event.getRenderedMessage());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
@@ -21,4 +21,47 @@ CREATE TABLE IF NOT EXISTS Experiments (
   taskId int(10) unsigned NOT NULL,
    PRIMARY KEY (id, taskId)
   
-) ENGINE=InnoDB;
\ No newline at end of file
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Progress (
+  id int(10) unsigned NOT NULL PRIMARY KEY,
+  progress double,
+  estimatedEnd TIMESTAMP
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Latest (
+  experimentType varchar(10) NOT NULL,
+  matching varchar(50) NOT NULL,
+  annotatorName varchar(100) NOT NULL,
+  datasetName varchar(100) NOT NULL,
+  taskId int(10) unsigned NOT NULL,
+  PRIMARY KEY (experimentType, matching, annotatorName, datasetName)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Queue (
+  id int(10) unsigned NOT NULL PRIMARY KEY,
+  experimentId varchar(300),
+  queueState int(10),
+  worker varchar(100),
+  leaseExpiry TIMESTAMP,
+  queued TIMESTAMP,
+  annotatorDefinition varchar(1000),
+  datasetDefinition varchar(1000)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS ExperimentTasks_Runtime (
+  id int(10) unsigned NOT NULL PRIMARY KEY,
+  runtime bigint,
+  documents int(10)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Experiments_Queue (
+  experimentId varchar(300) NOT NULL PRIMARY KEY,
+  submitter varchar(100),
+  priority int(10)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Experiments_Cancelled (
+  experimentId varchar(300) NOT NULL PRIMARY KEY,
+  cancelled TIMESTAMP
+) ENGINE=InnoDB;
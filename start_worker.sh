@@ -0,0 +1,18 @@
+#!/bin/bash
+
+# Starts a GERBIL worker that executes the experiment tasks of the task queue
+# without offering the web interface. Several workers (and the web server) can
+# share the queue if gerbil.jdbc.url points to a shared database server.
+# Uploaded datasets can only be loaded by a worker if it has access to the
+# upload directory (org.aksw.gerbil.UploadPath) of the web server.
+# The worker has to be packaged before with "mvn package -DskipTests".
+# Usage: ./start_worker.sh [numberOfWorkers] [-exitWhenEmpty]
+
+jar=$(ls target/gerbil-*-classes.jar 2>/dev/null | head -n 1)
+
+if [ -z "$jar" ] || [ ! -d "target/lib" ]; then
+    echo "Couldn't find the packaged worker. Please run \"mvn package -DskipTests\" first."
+    exit 1
+fi
+
+exec java $JAVA_OPTS -cp "$jar:target/lib/*" org.aksw.gerbil.execute.ExperimentWorker "$@"